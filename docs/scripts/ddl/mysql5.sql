@@ -347,6 +347,24 @@ CREATE INDEX IX_oc_user_action_outpoint ON oc_user_action (outpoint);
 CREATE INDEX IX_oc_user_action_mediapackage_id ON oc_user_action (mediapackage);
 CREATE INDEX IX_oc_user_action_type ON oc_user_action (type);
 
+CREATE TABLE oc_user_action_daily (
+  mediapackage VARCHAR(128) NOT NULL,
+  view_day DATE NOT NULL,
+  views BIGINT NOT NULL,
+  first_views BIGINT NOT NULL,
+  played BIGINT NOT NULL,
+  PRIMARY KEY (mediapackage, view_day)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+CREATE INDEX IX_oc_user_action_daily_view_day ON oc_user_action_daily (view_day);
+
+CREATE TABLE oc_user_footprint_histogram (
+  mediapackage VARCHAR(128) NOT NULL,
+  position INTEGER NOT NULL,
+  delta INTEGER NOT NULL,
+  PRIMARY KEY (mediapackage, position)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
 CREATE TABLE oc_oaipmh_harvesting (
   url VARCHAR(255) NOT NULL,
   last_harvested datetime,
@@ -691,3 +709,11 @@ CREATE TABLE oc_aws_asset_mapping (
   CONSTRAINT UNQ_aws_archive_mapping_0 UNIQUE (organization, media_package, media_package_element, version)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8 COLLATE=utf8_unicode_ci;
 
+CREATE TABLE oc_inspection_cache (
+  cache_key VARCHAR(255) NOT NULL,
+  metadata MEDIUMBLOB NOT NULL,
+  last_accessed DATETIME NOT NULL,
+  PRIMARY KEY (cache_key)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+CREATE INDEX IX_oc_inspection_cache_last_accessed ON oc_inspection_cache (last_accessed);
@@ -34,3 +34,59 @@ delete p from oc_assets_properties p where not exists (
   select * from oc_assets_snapshot s
     where p.mediapackage_id = s.mediapackage_id
 );
+
+CREATE TABLE oc_user_action_daily (
+  mediapackage VARCHAR(128) NOT NULL,
+  view_day DATE NOT NULL,
+  views BIGINT NOT NULL,
+  first_views BIGINT NOT NULL,
+  played BIGINT NOT NULL,
+  PRIMARY KEY (mediapackage, view_day)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+CREATE INDEX IX_oc_user_action_daily_view_day ON oc_user_action_daily (view_day);
+
+CREATE TABLE oc_user_footprint_histogram (
+  mediapackage VARCHAR(128) NOT NULL,
+  position INTEGER NOT NULL,
+  delta INTEGER NOT NULL,
+  PRIMARY KEY (mediapackage, position)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+-- Aggregate the statistics of the existing user actions
+INSERT INTO oc_user_action_daily (mediapackage, view_day, views, first_views, played)
+  SELECT a.mediapackage, DATE(a.created), COUNT(DISTINCT a.session_id), 0, SUM(a.length)
+  FROM oc_user_action a
+  WHERE a.mediapackage IS NOT NULL AND a.created IS NOT NULL
+  GROUP BY a.mediapackage, DATE(a.created);
+
+UPDATE oc_user_action_daily d
+  JOIN (SELECT f.mediapackage, DATE(f.first_created) AS view_day, COUNT(*) AS first_views
+        FROM (SELECT mediapackage, session_id, MIN(created) AS first_created
+              FROM oc_user_action
+              WHERE mediapackage IS NOT NULL AND created IS NOT NULL
+              GROUP BY mediapackage, session_id) f
+        GROUP BY f.mediapackage, DATE(f.first_created)) v
+    ON d.mediapackage = v.mediapackage AND d.view_day = v.view_day
+  SET d.first_views = v.first_views;
+
+INSERT INTO oc_user_footprint_histogram (mediapackage, position, delta)
+  SELECT h.mediapackage, h.position, SUM(h.delta)
+  FROM (SELECT mediapackage, inpoint AS position, 1 AS delta
+        FROM oc_user_action
+        WHERE type = 'FOOTPRINT' AND mediapackage IS NOT NULL AND inpoint >= 0 AND outpoint > inpoint
+        UNION ALL
+        SELECT mediapackage, outpoint AS position, -1 AS delta
+        FROM oc_user_action
+        WHERE type = 'FOOTPRINT' AND mediapackage IS NOT NULL AND inpoint >= 0 AND outpoint > inpoint) h
+  GROUP BY h.mediapackage, h.position
+  HAVING SUM(h.delta) <> 0;
+
+CREATE TABLE oc_inspection_cache (
+  cache_key VARCHAR(255) NOT NULL,
+  metadata MEDIUMBLOB NOT NULL,
+  last_accessed DATETIME NOT NULL,
+  PRIMARY KEY (cache_key)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+CREATE INDEX IX_oc_inspection_cache_last_accessed ON oc_inspection_cache (last_accessed);
@@ -433,21 +433,24 @@ public abstract class AbstractEventEndpoint {
 
     BulkOperationResult result = new BulkOperationResult();
 
+    final List<String> eventIds = new ArrayList<>();
     for (Object eventIdObject : eventIdsJsonArray) {
-      String eventId = eventIdObject.toString();
+      eventIds.add(eventIdObject.toString());
+    }
+
+    // Check the access to the capture agents of all events with a single index query
+    final Map<String, Event> events = getIndexService().getEvents(eventIds, getIndex());
+    final List<String> removableIds = new ArrayList<>();
+    for (String eventId : eventIds) {
       try {
-        checkAgentAccessForEvent(eventId);
-        if (!getIndexService().removeEvent(eventId)) {
-          result.addServerError(eventId);
-        } else {
-          result.addOk(eventId);
-        }
-      } catch (NotFoundException e) {
-        result.addNotFound(eventId);
+        checkAgentAccessForEvent(events.get(eventId));
+        removableIds.add(eventId);
       } catch (UnauthorizedException e) {
         result.addUnauthorized(eventId);
       }
     }
+
+    getIndexService().removeEvents(removableIds, result);
     return Response.ok(result.toJson()).build();
   }
 
@@ -1194,8 +1197,8 @@ public abstract class AbstractEventEndpoint {
 
     for (final BulkUpdateUtil.BulkUpdateInstructionGroup groupInstructions : instructions.getGroups()) {
       // Get all the events to edit
-      final Map<String, Optional<Event>> events = groupInstructions.getEventIds().stream()
-        .collect(Collectors.toMap(id -> id, id -> BulkUpdateUtil.getEvent(getIndexService(), getIndex(), id)));
+      final Map<String, Optional<Event>> events = BulkUpdateUtil.getEvents(getIndexService(), getIndex(),
+        groupInstructions.getEventIds());
 
       // Check for invalid (non-existing) event ids
       final Set<String> notFoundIds = events.entrySet().stream().filter(e -> !e.getValue().isPresent()).map(Entry::getKey).collect(Collectors.toSet());
@@ -1260,9 +1263,11 @@ public abstract class AbstractEventEndpoint {
     }
 
     final Map<String, List<JValue>> conflicts = new HashMap<>();
+    final Map<String, Optional<Event>> events = BulkUpdateUtil.getEvents(getIndexService(), getIndex(),
+      instructions.getGroups().stream().flatMap(group -> group.getEventIds().stream()).collect(Collectors.toList()));
     final List<Tuple3<String, Optional<Event>, JSONObject>> eventsWithSchedulingOpt = instructions.getGroups().stream()
       .flatMap(group -> group.getEventIds().stream().map(eventId -> Tuple3
-        .tuple3(eventId, BulkUpdateUtil.getEvent(getIndexService(), getIndex(), eventId), group.getScheduling())))
+        .tuple3(eventId, events.get(eventId), group.getScheduling())))
       .collect(Collectors.toList());
     // Check for invalid (non-existing) event ids
     final Set<String> notFoundIds = eventsWithSchedulingOpt.stream().filter(e -> !e.getB().isPresent())
@@ -2760,11 +2765,14 @@ public abstract class AbstractEventEndpoint {
   }
 
   private void checkAgentAccessForEvent(final String eventId) throws UnauthorizedException, SearchIndexException {
-    final Opt<Event> event = getIndexService().getEvent(eventId, getIndex());
-    if (event.isNone() || !event.get().getEventStatus().contains("SCHEDULE")) {
+    checkAgentAccessForEvent(getIndexService().getEvent(eventId, getIndex()).orNull());
+  }
+
+  private void checkAgentAccessForEvent(final Event event) throws UnauthorizedException {
+    if (event == null || !event.getEventStatus().contains("SCHEDULE")) {
       return;
     }
-    SecurityUtil.checkAgentAccess(getSecurityService(), event.get().getAgentId());
+    SecurityUtil.checkAgentAccess(getSecurityService(), event.getAgentId());
   }
 
   private void checkAgentAccessForAgent(final String agentId) throws UnauthorizedException {
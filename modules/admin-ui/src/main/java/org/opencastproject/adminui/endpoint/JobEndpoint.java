@@ -42,12 +42,12 @@ import org.opencastproject.security.api.User;
 import org.opencastproject.serviceregistry.api.IncidentL10n;
 import org.opencastproject.serviceregistry.api.IncidentService;
 import org.opencastproject.serviceregistry.api.IncidentServiceException;
+import org.opencastproject.serviceregistry.api.JobQuery;
 import org.opencastproject.serviceregistry.api.ServiceRegistry;
 import org.opencastproject.serviceregistry.api.ServiceRegistryException;
 import org.opencastproject.util.DateTimeSupport;
 import org.opencastproject.util.NotFoundException;
 import org.opencastproject.util.RestUtil;
-import org.opencastproject.util.SmartIterator;
 import org.opencastproject.util.SolrUtils;
 import org.opencastproject.util.data.Tuple;
 import org.opencastproject.util.doc.rest.RestParameter;
@@ -71,6 +71,7 @@ import com.entwinemedia.fn.data.json.JValue;
 import com.entwinemedia.fn.data.json.Jsons;
 import com.entwinemedia.fn.data.json.SimpleSerializer;
 
+import org.apache.commons.lang3.EnumUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.osgi.framework.BundleContext;
 import org.slf4j.Logger;
@@ -79,10 +80,11 @@ import org.slf4j.LoggerFactory;
 import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 
 import javax.servlet.http.HttpServletResponse;
 import javax.ws.rs.GET;
@@ -113,7 +115,19 @@ public class JobEndpoint {
   public static final Response SERVER_ERROR = Response.serverError().build();
 
   private enum JobSort {
-    CREATOR, OPERATION, PROCESSINGHOST, STATUS, STARTED, SUBMITTED, TYPE, ID
+    CREATOR(JobQuery.Sort.CREATOR), OPERATION(JobQuery.Sort.OPERATION),
+    PROCESSINGHOST(JobQuery.Sort.PROCESSING_HOST), STATUS(JobQuery.Sort.STATUS), STARTED(JobQuery.Sort.DATE_STARTED),
+    SUBMITTED(JobQuery.Sort.DATE_CREATED), TYPE(JobQuery.Sort.TYPE), ID(JobQuery.Sort.ID);
+
+    private final JobQuery.Sort querySort;
+
+    JobSort(JobQuery.Sort querySort) {
+      this.querySort = querySort;
+    }
+
+    JobQuery.Sort getQuerySort() {
+      return querySort;
+    }
   }
 
   private static final String NEGATE_PREFIX = "-";
@@ -161,48 +175,24 @@ public class JobEndpoint {
     query.setLimit(limit);
     query.setOffset(offset);
 
-    String fHostname = null;
-    if (query.getHostname().isSome())
-      fHostname = StringUtils.trimToNull(query.getHostname().get());
+    // Only active jobs are listed
+    JobQuery jobQuery = new JobQuery().withoutOperation("START_WORKFLOW").withPayload(false)
+            .withOffset(query.getOffset().getOrElse(0)).withLimit(query.getLimit().getOrElse(0));
     String fStatus = null;
     if (query.getStatus().isSome())
       fStatus = StringUtils.trimToNull(query.getStatus().get());
-    String fFreeText = null;
-    if (query.getFreeText().isSome())
-      fFreeText = StringUtils.trimToNull(query.getFreeText().get());
-
-    List<Job> jobs = new ArrayList<>();
-    try {
-      for (Job job : serviceRegistry.getActiveJobs()) {
-        // filter workflow jobs
-        if (StringUtils.equals(WorkflowService.JOB_TYPE, job.getJobType())
-                && StringUtils.equals("START_WORKFLOW", job.getOperation()))
-          continue;
-
-        // filter by hostname
-        if (fHostname != null && !StringUtils.equalsIgnoreCase(job.getProcessingHost(), fHostname))
-          continue;
-
-        // filter by status
-        if (fStatus != null && !StringUtils.equalsIgnoreCase(job.getStatus().toString(), fStatus))
-          continue;
-
-        // fitler by user free text
-        if (fFreeText != null
-              && !StringUtils.equalsIgnoreCase(job.getProcessingHost(), fFreeText)
-              && !StringUtils.equalsIgnoreCase(job.getJobType(), fFreeText)
-              && !StringUtils.equalsIgnoreCase(job.getOperation(), fFreeText)
-              && !StringUtils.equalsIgnoreCase(job.getCreator(), fFreeText)
-              && !StringUtils.equalsIgnoreCase(job.getStatus().toString(), fFreeText)
-              && !StringUtils.equalsIgnoreCase(Long.toString(job.getId()), fFreeText)
-              && (job.getRootJobId() != null && !StringUtils.equalsIgnoreCase(Long.toString(job.getRootJobId()), fFreeText)))
-          continue;
-        jobs.add(job);
-      }
-    } catch (ServiceRegistryException ex) {
-      logger.error("Failed to retrieve jobs list from service registry.", ex);
-      return RestUtil.R.serverError();
+    if (fStatus == null) {
+      jobQuery.withActiveStatus();
+    } else {
+      Job.Status status = EnumUtils.getEnum(Job.Status.class, fStatus.toUpperCase());
+      if (status == null || !status.isActive())
+        return RestUtils.okJsonList(Collections.<JValue> emptyList(), offset, limit, 0);
+      jobQuery.withStatus(status);
     }
+    if (query.getHostname().isSome())
+      jobQuery.withProcessingHost(query.getHostname().get());
+    if (query.getFreeText().isSome())
+      jobQuery.withText(query.getFreeText().get());
 
     JobSort sortKey = JobSort.SUBMITTED;
     boolean ascending = true;
@@ -218,15 +208,19 @@ public class JobEndpoint {
         logger.warn("Can not apply sort criterion \"{}\", no field with this name.", sort);
       }
     }
+    jobQuery.withSort(sortKey.getQuerySort(), ascending);
 
-    JobComparator comparator = new JobComparator(sortKey, ascending);
-    Collections.sort(jobs, comparator);
-    List<JValue> json = getJobsAsJSON(new SmartIterator(
-            query.getLimit().getOrElse(0),
-            query.getOffset().getOrElse(0))
-            .applyLimitAndOffset(jobs));
+    List<Job> jobs;
+    long total;
+    try {
+      jobs = serviceRegistry.getJobs(jobQuery);
+      total = serviceRegistry.countJobs(jobQuery);
+    } catch (ServiceRegistryException ex) {
+      logger.error("Failed to retrieve jobs list from service registry.", ex);
+      return RestUtil.R.serverError();
+    }
 
-    return RestUtils.okJsonList(json, offset, limit, jobs.size());
+    return RestUtils.okJsonList(getJobsAsJSON(jobs), offset, limit, total);
   }
 
   @GET
@@ -400,16 +394,26 @@ public class JobEndpoint {
 
     WorkflowInstance[] items = workflowInstances.getItems();
 
+    // Retrieve the submission dates with the workflow instance main jobs, without their payloads
+    List<Long> instanceIds = new ArrayList<>();
     for (WorkflowInstance instance : items) {
-      long instanceId = instance.getId();
-      // Retrieve submission date with the workflow instance main job
-      Date created;
+      instanceIds.add(instance.getId());
+    }
+    Map<Long, Date> submissionDates = new HashMap<>();
+    if (!instanceIds.isEmpty()) {
       try {
-        created = serviceRegistry.getJob(instanceId).getDateCreated();
+        for (Job job : serviceRegistry.getJobs(new JobQuery().withIds(instanceIds).withPayload(false))) {
+          submissionDates.put(job.getId(), job.getDateCreated());
+        }
       } catch (ServiceRegistryException e) {
-        throw new JobEndpointException(String.format("Error when retrieving job %s from the service registry: %s",
-                instanceId, e), e.getCause());
+        throw new JobEndpointException(String.format("Error when retrieving jobs %s from the service registry: %s",
+                instanceIds, e), e.getCause());
       }
+    }
+
+    for (WorkflowInstance instance : items) {
+      long instanceId = instance.getId();
+      Date created = submissionDates.get(instanceId);
 
       String creatorName = null;
       User creator = instance.getCreator();
@@ -675,72 +679,4 @@ public class JobEndpoint {
       return true;
     }
   };
-
-  private class JobComparator implements Comparator<Job> {
-
-    private JobSort sortType;
-    private boolean ascending;
-
-    JobComparator(JobSort sortType, boolean ascending) {
-      this.sortType = sortType;
-      this.ascending = ascending;
-    }
-
-    @Override
-    public int compare(Job job1, Job job2) {
-      int result = 0;
-      Object value1 = null;
-      Object value2 = null;
-      switch (sortType) {
-        case CREATOR:
-          value1 = job1.getCreator();
-          value2 = job2.getCreator();
-          break;
-        case OPERATION:
-          value1 = job1.getOperation();
-          value2 = job2.getOperation();
-          break;
-        case PROCESSINGHOST:
-          value1 = job1.getProcessingHost();
-          value2 = job2.getProcessingHost();
-          break;
-        case STARTED:
-          value1 = job1.getDateStarted();
-          value2 = job2.getDateStarted();
-          break;
-        case STATUS:
-          value1 = job1.getStatus();
-          value2 = job2.getStatus();
-          break;
-        case SUBMITTED:
-          value1 = job1.getDateCreated();
-          value2 = job2.getDateCreated();
-          break;
-        case TYPE:
-          value1 = job1.getJobType();
-          value2 = job2.getJobType();
-          break;
-        case ID:
-          value1 = job1.getId();
-          value2 = job2.getId();
-          break;
-        default:
-      }
-
-      if (value1 == null) {
-        return value2 == null ? 0 : 1;
-      }
-      if (value2 == null) {
-        return -1;
-      }
-      try {
-        result = ((Comparable)value1).compareTo(value2);
-      } catch (ClassCastException ex) {
-        logger.debug("Can not compare \"{}\" with \"{}\": {}",
-                value1, value2, ex);
-      }
-
-      return ascending ? result : -1 * result;
-    }
-  }
 }
@@ -47,7 +47,9 @@ import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 
@@ -62,21 +64,23 @@ public final class BulkUpdateUtil {
   }
 
   /**
-   * Wraps the IndexService.getEvent() method to convert SearchIndexExceptions into RuntimeExceptions. Useful when
+   * Wraps the IndexService.getEvents() method to convert SearchIndexExceptions into RuntimeExceptions. Useful when
    * using Java's functional programming features.
    *
    * @param indexSvc The IndexService instance.
-   * @param index The index to get the event from.
-   * @param id The id of the event to get.
-   * @return An optional holding the event or nothing, if not found.
+   * @param index The index to get the events from.
+   * @param ids The ids of the events to get.
+   * @return Optionals holding the event or nothing, if not found, by event id in the order of the given ids.
    */
-  public static Optional<Event> getEvent(
+  public static Map<String, Optional<Event>> getEvents(
     final IndexService indexSvc,
     final AdminUISearchIndex index,
-    final String id) {
+    final List<String> ids) {
     try {
-      final Event event = indexSvc.getEvent(id, index).orNull();
-      return Optional.ofNullable(event);
+      final Map<String, Event> found = indexSvc.getEvents(ids, index);
+      final Map<String, Optional<Event>> events = new LinkedHashMap<>();
+      ids.forEach(id -> events.put(id, Optional.ofNullable(found.get(id))));
+      return events;
     } catch (SearchIndexException e) {
       throw new RuntimeException(e);
     }
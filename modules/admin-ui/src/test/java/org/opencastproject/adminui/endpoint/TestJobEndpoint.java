@@ -27,6 +27,7 @@ import org.opencastproject.job.api.Job.Status;
 import org.opencastproject.job.api.JobImpl;
 import org.opencastproject.mediapackage.MediaPackage;
 import org.opencastproject.mediapackage.MediaPackageBuilderImpl;
+import org.opencastproject.serviceregistry.api.JobQuery;
 import org.opencastproject.serviceregistry.api.ServiceRegistry;
 import org.opencastproject.util.DateTimeSupport;
 import org.opencastproject.workflow.api.WorkflowDefinition;
@@ -37,11 +38,13 @@ import org.opencastproject.workflow.api.WorkflowService;
 import org.opencastproject.workflow.api.WorkflowSetImpl;
 
 import org.easymock.EasyMock;
+import org.easymock.IAnswer;
 import org.junit.Ignore;
 
 import java.net.URI;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -85,7 +88,7 @@ public class TestJobEndpoint extends JobEndpoint {
 
     workflowSet.setTotalCount(3);
 
-    List<Job> jobs = new ArrayList<>();
+    final List<Job> jobs = new ArrayList<>();
     jobs.add(createJob(1, Status.RUNNING, "org.opencastproject.composer", "test",
             "2014-06-05T09:10:00Z", "2014-06-05T09:10:00Z", "testuser1", "host1"));
     jobs.add(createJob(2, Status.RUNNING, WorkflowService.JOB_TYPE, "START_WORKFLOW",
@@ -103,6 +106,30 @@ public class TestJobEndpoint extends JobEndpoint {
             .andReturn(workflowSet).anyTimes();
     EasyMock.expect(workflowService.countWorkflowInstances()).andReturn(workflowSet.size()).anyTimes();
     EasyMock.expect(serviceRegistry.getActiveJobs()).andReturn(jobs).anyTimes();
+    EasyMock.expect(serviceRegistry.getJobs(EasyMock.anyObject(JobQuery.class))).andAnswer(new IAnswer<List<Job>>() {
+      @Override
+      public List<Job> answer() throws Throwable {
+        JobQuery query = (JobQuery) EasyMock.getCurrentArguments()[0];
+        List<Job> result = new ArrayList<>();
+        if (!query.getIds().isEmpty()) {
+          // Workflow jobs without submission date
+          for (long id : query.getIds()) {
+            result.add(new JobImpl(id));
+          }
+          return result;
+        }
+        result = getMatchingJobs(query, jobs);
+        int from = Math.min(query.getOffset(), result.size());
+        int to = query.getLimit() > 0 ? Math.min(from + query.getLimit(), result.size()) : result.size();
+        return result.subList(from, to);
+      }
+    }).anyTimes();
+    EasyMock.expect(serviceRegistry.countJobs(EasyMock.anyObject(JobQuery.class))).andAnswer(new IAnswer<Long>() {
+      @Override
+      public Long answer() throws Throwable {
+        return (long) getMatchingJobs((JobQuery) EasyMock.getCurrentArguments()[0], jobs).size();
+      }
+    }).anyTimes();
 
     EasyMock.replay(workflowService);
     EasyMock.replay(serviceRegistry);
@@ -112,6 +139,16 @@ public class TestJobEndpoint extends JobEndpoint {
     this.activate(null);
   }
 
+  private static List<Job> getMatchingJobs(JobQuery query, List<Job> jobs) {
+    List<Job> result = new ArrayList<>();
+    for (Job job : jobs) {
+      if (query.matches(job))
+        result.add(job);
+    }
+    Collections.sort(result, query.getComparator());
+    return result;
+  }
+
   private Job createJob(int id, Status status, String jobType, String operation,
           String created, String started, String creator, String hostname) throws Exception {
     Date createdDate = new Date(DateTimeSupport.fromUTC(created));
@@ -447,6 +447,14 @@ public class JpaJob {
     return dateCompleted;
   }
 
+  public Long getQueueTime() {
+    return queueTime;
+  }
+
+  public Long getRunTime() {
+    return runTime;
+  }
+
   public String getCreator() {
     return creator;
   }
@@ -0,0 +1,346 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+package org.opencastproject.serviceregistry.api;
+
+import org.opencastproject.job.api.Job;
+import org.opencastproject.job.api.Job.Status;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A fluent API for querying jobs from the {@link ServiceRegistry}. Filtering, sorting and paging are done by the
+ * service registry, so only the requested page of jobs is loaded. This object is thread unsafe.
+ */
+public class JobQuery {
+
+  /** The fields jobs may be sorted by */
+  public enum Sort {
+    ID, TYPE, OPERATION, STATUS, CREATOR, PROCESSING_HOST, DATE_CREATED, DATE_STARTED;
+
+    /**
+     * Whether this sort field can be used for keyset paging, i.e. whether every job has a value for it.
+     *
+     * @return <code>true</code> if the field has a value for all jobs
+     */
+    public boolean isKeyset() {
+      return this == ID || this == STATUS || this == DATE_CREATED;
+    }
+  }
+
+  private final List<Long> ids = new ArrayList<>();
+  private String jobType;
+  private String processingHost;
+  private String creator;
+  private String text;
+  private final List<Status> statuses = new ArrayList<>();
+  private final List<String> excludedOperations = new ArrayList<>();
+  private Sort sort = Sort.DATE_CREATED;
+  private boolean sortAscending = true;
+  private int offset = 0;
+  private int limit = 0;
+  private Job after;
+  private boolean withPayload = true;
+
+  /**
+   * Limit results to the jobs with the given identifiers. Further calls add more identifiers.
+   *
+   * @param ids
+   *          the job identifiers
+   * @return this query
+   */
+  public JobQuery withIds(Collection<Long> ids) {
+    this.ids.addAll(ids);
+    return this;
+  }
+
+  /** Limit results to jobs of a specific job type */
+  public JobQuery withJobType(String jobType) {
+    this.jobType = StringUtils.trimToNull(jobType);
+    return this;
+  }
+
+  /** Limit results to jobs processed by a specific host, ignoring case */
+  public JobQuery withProcessingHost(String processingHost) {
+    this.processingHost = StringUtils.trimToNull(processingHost);
+    return this;
+  }
+
+  /** Limit results to jobs created by a specific user, ignoring case */
+  public JobQuery withCreator(String creator) {
+    this.creator = StringUtils.trimToNull(creator);
+    return this;
+  }
+
+  /**
+   * Limit results to jobs whose identifier, root job identifier, type, operation, status, creator or processing host
+   * equals the given text, ignoring case.
+   *
+   * @param text
+   *          the text
+   * @return this query
+   */
+  public JobQuery withText(String text) {
+    this.text = StringUtils.trimToNull(text);
+    return this;
+  }
+
+  /**
+   * Limit results to jobs in one of the given states. Further calls add more states.
+   *
+   * @param statuses
+   *          the job states
+   * @return this query
+   */
+  public JobQuery withStatus(Status... statuses) {
+    this.statuses.addAll(Arrays.asList(statuses));
+    return this;
+  }
+
+  /** Limit results to jobs in an active state */
+  public JobQuery withActiveStatus() {
+    for (Status status : Status.values()) {
+      if (status.isActive())
+        statuses.add(status);
+    }
+    return this;
+  }
+
+  /** Exclude jobs of a specific operation from the results */
+  public JobQuery withoutOperation(String operation) {
+    if (StringUtils.isNotBlank(operation))
+      excludedOperations.add(operation);
+    return this;
+  }
+
+  /**
+   * Sort the results. The job identifier is used as a secondary sort field, so the order is always well defined.
+   *
+   * @param sort
+   *          the sort field
+   * @param ascending
+   *          whether to sort in ascending order
+   * @return this query
+   */
+  public JobQuery withSort(Sort sort, boolean ascending) {
+    this.sort = sort;
+    this.sortAscending = ascending;
+    return this;
+  }
+
+  /** Skip the given number of jobs of the result */
+  public JobQuery withOffset(int offset) {
+    this.offset = Math.max(0, offset);
+    return this;
+  }
+
+  /** Include a limit for the number of jobs to return, 0 for no limit */
+  public JobQuery withLimit(int limit) {
+    this.limit = Math.max(0, limit);
+    return this;
+  }
+
+  /**
+   * Return the jobs following the given job in the sort order of this query. Unlike an offset, this keeps pages stable
+   * while jobs are created and finished, and the database does not need to skip over the previous pages. Only sort
+   * fields supporting {@link Sort#isKeyset()} may be used.
+   *
+   * @param last
+   *          the last job of the previous page
+   * @return this query
+   */
+  public JobQuery withAfter(Job last) {
+    this.after = last;
+    return this;
+  }
+
+  /**
+   * Whether to load the payloads and arguments of the jobs. Without them, only the job properties shown in job lists
+   * are loaded.
+   *
+   * @param withPayload
+   *          whether to load payloads and arguments
+   * @return this query
+   */
+  public JobQuery withPayload(boolean withPayload) {
+    this.withPayload = withPayload;
+    return this;
+  }
+
+  public List<Long> getIds() {
+    return Collections.unmodifiableList(ids);
+  }
+
+  public String getJobType() {
+    return jobType;
+  }
+
+  public String getProcessingHost() {
+    return processingHost;
+  }
+
+  public String getCreator() {
+    return creator;
+  }
+
+  public String getText() {
+    return text;
+  }
+
+  public List<Status> getStatuses() {
+    return Collections.unmodifiableList(statuses);
+  }
+
+  public List<String> getExcludedOperations() {
+    return Collections.unmodifiableList(excludedOperations);
+  }
+
+  public Sort getSort() {
+    return sort;
+  }
+
+  public boolean isSortAscending() {
+    return sortAscending;
+  }
+
+  public int getOffset() {
+    return offset;
+  }
+
+  public int getLimit() {
+    return limit;
+  }
+
+  /**
+   * Returns the job the results follow, if any.
+   *
+   * @return the job
+   * @throws IllegalStateException
+   *           if the sort field does not support keyset paging
+   */
+  public Job getAfter() {
+    if (after != null && !sort.isKeyset())
+      throw new IllegalStateException("Jobs sorted by " + sort + " cannot be paged by key");
+    return after;
+  }
+
+  public boolean isWithPayload() {
+    return withPayload;
+  }
+
+  /**
+   * Returns the value of the sort field of a job.
+   *
+   * @param job
+   *          the job
+   * @return the value, which may be <code>null</code>
+   */
+  public Object getSortValue(Job job) {
+    switch (sort) {
+      case ID:
+        return job.getId();
+      case TYPE:
+        return job.getJobType();
+      case OPERATION:
+        return job.getOperation();
+      case STATUS:
+        return job.getStatus().ordinal();
+      case CREATOR:
+        return job.getCreator();
+      case PROCESSING_HOST:
+        return job.getProcessingHost();
+      case DATE_STARTED:
+        return job.getDateStarted();
+      case DATE_CREATED:
+      default:
+        return job.getDateCreated();
+    }
+  }
+
+  /**
+   * Tests whether a job matches the filters of this query. This is meant for implementations which cannot filter the
+   * jobs in a database.
+   *
+   * @param job
+   *          the job
+   * @return <code>true</code> if the job matches
+   */
+  public boolean matches(Job job) {
+    if (!ids.isEmpty() && !ids.contains(job.getId()))
+      return false;
+    if (jobType != null && !jobType.equals(job.getJobType()))
+      return false;
+    if (processingHost != null && !StringUtils.equalsIgnoreCase(processingHost, job.getProcessingHost()))
+      return false;
+    if (creator != null && !StringUtils.equalsIgnoreCase(creator, job.getCreator()))
+      return false;
+    if (!statuses.isEmpty() && !statuses.contains(job.getStatus()))
+      return false;
+    if (job.getOperation() != null && excludedOperations.contains(job.getOperation()))
+      return false;
+    if (text != null && !StringUtils.equalsIgnoreCase(text, job.getProcessingHost())
+            && !StringUtils.equalsIgnoreCase(text, job.getJobType())
+            && !StringUtils.equalsIgnoreCase(text, job.getOperation())
+            && !StringUtils.equalsIgnoreCase(text, job.getCreator())
+            && !StringUtils.equalsIgnoreCase(text, job.getStatus().toString())
+            && !text.equals(Long.toString(job.getId()))
+            && !(job.getRootJobId() != null && text.equals(Long.toString(job.getRootJobId()))))
+      return false;
+    Job last = getAfter();
+    return last == null || getComparator().compare(job, last) > 0;
+  }
+
+  /**
+   * Returns a comparator sorting jobs like this query. This is meant for implementations which cannot sort the jobs in
+   * a database.
+   *
+   * @return the comparator
+   */
+  public Comparator<Job> getComparator() {
+    final int direction = sortAscending ? 1 : -1;
+    return new Comparator<Job>() {
+      @Override
+      @SuppressWarnings({ "unchecked", "rawtypes" })
+      public int compare(Job a, Job b) {
+        Object valueA = getSortValue(a);
+        Object valueB = getSortValue(b);
+        int result;
+        if (valueA == null || valueB == null) {
+          result = valueA == null ? (valueB == null ? 0 : -1) : 1;
+        } else {
+          result = ((Comparable) valueA).compareTo(valueB);
+        }
+        if (result == 0)
+          result = Long.compare(a.getId(), b.getId());
+        return direction * result;
+      }
+    };
+  }
+
+}
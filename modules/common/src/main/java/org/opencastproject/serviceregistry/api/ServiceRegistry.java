@@ -511,6 +511,28 @@ public interface ServiceRegistry {
    */
   List<Job> getActiveJobs() throws ServiceRegistryException;
 
+  /**
+   * Gets the jobs matching a query, filtered, sorted and paged by the service registry.
+   *
+   * @param query
+   *          the query
+   * @return the requested page of matching jobs
+   * @throws ServiceRegistryException
+   *           if there is a problem accessing the service registry
+   */
+  List<Job> getJobs(JobQuery query) throws ServiceRegistryException;
+
+  /**
+   * Counts the jobs matching the filters of a query, ignoring its paging.
+   *
+   * @param query
+   *          the query
+   * @return the number of matching jobs
+   * @throws ServiceRegistryException
+   *           if there is a problem accessing the service registry
+   */
+  long countJobs(JobQuery query) throws ServiceRegistryException;
+
   /**
    * Get all child jobs from a job
    *
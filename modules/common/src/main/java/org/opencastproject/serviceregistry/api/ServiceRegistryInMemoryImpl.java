@@ -748,6 +748,37 @@ public class ServiceRegistryInMemoryImpl implements ServiceRegistry {
     return result;
   }
 
+  @Override
+  public List<Job> getJobs(JobQuery query) throws ServiceRegistryException {
+    List<Job> result = getMatchingJobs(query);
+    Collections.sort(result, query.getComparator());
+    int from = Math.min(query.getOffset(), result.size());
+    int to = query.getLimit() > 0 ? Math.min(from + query.getLimit(), result.size()) : result.size();
+    return new ArrayList<Job>(result.subList(from, to));
+  }
+
+  @Override
+  public long countJobs(JobQuery query) throws ServiceRegistryException {
+    return getMatchingJobs(query).size();
+  }
+
+  private List<Job> getMatchingJobs(JobQuery query) {
+    List<Job> result = new ArrayList<Job>();
+    synchronized (jobs) {
+      for (String serializedJob : jobs.values()) {
+        Job job = null;
+        try {
+          job = JobParser.parseJob(serializedJob);
+        } catch (IOException e) {
+          throw new IllegalStateException("Error unmarshaling job", e);
+        }
+        if (query.matches(job))
+          result.add(job);
+      }
+    }
+    return result;
+  }
+
   @Override
   public Incidents incident() {
     return incidents;
@@ -0,0 +1,160 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * Reads lines of text from a channel with a bounded amount of memory, e.g. from the output of an external process.
+ * <p>
+ * Unlike {@link java.io.BufferedReader#readLine()}, lines are terminated by a carriage return as well, so progress
+ * output which is repeatedly overwriting the same console line is split into individual lines instead of growing a
+ * single one. Lines exceeding an optional maximum length are truncated.
+ */
+public class LineReader implements Closeable {
+
+  /** A maximum number of characters per line which is sufficient for the console output of encoders */
+  public static final int CONSOLE_MAX_LINE_LENGTH = 8192;
+
+  /** The size of the read buffers */
+  private static final int BUFFER_SIZE = 8192;
+
+  private final ReadableByteChannel channel;
+  private final CharsetDecoder decoder;
+  private final int maxLineLength;
+
+  private final ByteBuffer bytes = ByteBuffer.allocate(BUFFER_SIZE);
+  private final CharBuffer chars = CharBuffer.allocate(BUFFER_SIZE);
+  private final StringBuilder line = new StringBuilder();
+
+  /** Whether the end of the channel has been reached */
+  private boolean eof = false;
+
+  /** Whether the previous line ended with a carriage return, so that a following line feed has to be skipped */
+  private boolean skipLineFeed = false;
+
+  /**
+   * Creates a line reader for a stream, decoding it with the platform's default charset. Lines are not truncated.
+   *
+   * @param in
+   *          the stream to read from
+   */
+  public LineReader(InputStream in) {
+    this(in, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Creates a line reader for a stream, decoding it with the platform's default charset.
+   *
+   * @param in
+   *          the stream to read from
+   * @param maxLineLength
+   *          the maximum number of characters per line, further characters are dropped
+   */
+  public LineReader(InputStream in, int maxLineLength) {
+    this(Channels.newChannel(in), Charset.defaultCharset(), maxLineLength);
+  }
+
+  /**
+   * Creates a line reader.
+   *
+   * @param channel
+   *          the channel to read from
+   * @param charset
+   *          the charset of the text
+   * @param maxLineLength
+   *          the maximum number of characters per line, further characters are dropped
+   */
+  public LineReader(ReadableByteChannel channel, Charset charset, int maxLineLength) {
+    this.channel = channel;
+    this.decoder = charset.newDecoder().onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    this.maxLineLength = maxLineLength;
+    chars.flip();
+  }
+
+  /**
+   * Reads the next line, blocking until it is complete.
+   *
+   * @return the line without its terminator, or <code>null</code> if the end of the channel has been reached
+   * @throws IOException
+   *           if reading from the channel fails
+   */
+  public String readLine() throws IOException {
+    while (true) {
+      while (chars.hasRemaining()) {
+        final char c = chars.get();
+        if (skipLineFeed) {
+          skipLineFeed = false;
+          if (c == '\n')
+            continue;
+        }
+        if (c == '\n' || c == '\r') {
+          skipLineFeed = c == '\r';
+          return takeLine();
+        }
+        if (line.length() < maxLineLength)
+          line.append(c);
+      }
+      if (eof)
+        return line.length() > 0 ? takeLine() : null;
+      fill();
+    }
+  }
+
+  /** Reads and decodes the next chunk of bytes from the channel. */
+  private void fill() throws IOException {
+    chars.clear();
+    final int read = channel.read(bytes);
+    bytes.flip();
+    if (read < 0) {
+      eof = true;
+      decoder.decode(bytes, chars, true);
+      decoder.flush(chars);
+    } else {
+      decoder.decode(bytes, chars, false);
+    }
+    bytes.compact();
+    chars.flip();
+  }
+
+  private String takeLine() {
+    final String result = line.toString();
+    line.setLength(0);
+    return result;
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+}
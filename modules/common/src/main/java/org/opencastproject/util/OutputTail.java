@@ -0,0 +1,86 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.util;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Keeps the most recent lines of a possibly very long output, e.g. of an external process, to be able to report them
+ * if the process fails. Older lines are discarded, so the memory used is bounded regardless of the output's length.
+ * <p>
+ * This class is thread safe.
+ */
+public class OutputTail {
+
+  /** The default number of lines to keep */
+  public static final int DEFAULT_CAPACITY = 50;
+
+  private final int capacity;
+  private final Deque<String> lines;
+
+  /** Creates a tail keeping the {@link #DEFAULT_CAPACITY default number} of lines. */
+  public OutputTail() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Creates a tail.
+   *
+   * @param capacity
+   *          the number of lines to keep
+   */
+  public OutputTail(int capacity) {
+    if (capacity < 1)
+      throw new IllegalArgumentException("The capacity must be positive");
+    this.capacity = capacity;
+    this.lines = new ArrayDeque<>(capacity);
+  }
+
+  /**
+   * Adds a line, discarding the oldest one if the capacity is exceeded.
+   *
+   * @param line
+   *          the line
+   */
+  public synchronized void add(String line) {
+    if (lines.size() == capacity)
+      lines.removeFirst();
+    lines.addLast(line);
+  }
+
+  /** Returns the kept lines, oldest first. */
+  public synchronized List<String> getLines() {
+    return new ArrayList<>(lines);
+  }
+
+  /** Returns the kept lines separated by line feeds. */
+  @Override
+  public synchronized String toString() {
+    return StringUtils.join(lines, "\n");
+  }
+
+}
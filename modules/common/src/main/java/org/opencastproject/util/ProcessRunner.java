@@ -30,10 +30,16 @@ import com.entwinemedia.fn.data.ListBuilder;
 import com.entwinemedia.fn.data.ListBuilders;
 import com.entwinemedia.fn.fns.Booleans;
 
+import org.apache.commons.io.IOUtils;
+
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Helper class to run an external process on the host system and to read its STDOUT and STDERR streams.
@@ -51,6 +57,30 @@ public final class ProcessRunner {
   }
 
   public static int run(ProcessInfo info, Fn<String, Boolean> stdout, Fn<String, Boolean> stderr) throws IOException {
+    return run(info, stdout, stderr, 0, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Run a process and consume its output line by line.
+   *
+   * @param info
+   *          the process to run
+   * @param stdout
+   *          consumer of the standard output, may stop reading further lines by returning <code>false</code>
+   * @param stderr
+   *          consumer of the error output, may stop reading further lines by returning <code>false</code>
+   * @param timeout
+   *          the maximum time to wait for the process to finish, 0 to wait indefinitely
+   * @param unit
+   *          the unit of <code>timeout</code>
+   * @return the exit code of the process
+   * @throws ProcessTimeoutException
+   *           if the process did not finish in time and has been killed
+   * @throws IOException
+   *           if the process cannot be started
+   */
+  public static int run(ProcessInfo info, Fn<String, Boolean> stdout, Fn<String, Boolean> stderr, long timeout,
+          TimeUnit unit) throws IOException {
     final ProcessBuilder pb = new ProcessBuilder(info.getCommandLine()).redirectErrorStream(info.isRedirectErrorStream());
     pb.environment().putAll(info.getEnvironment());
     // create stream consumer runnables
@@ -72,17 +102,102 @@ public final class ProcessRunner {
     final Process p = pb.start();
     consumeOut.consume(p.getInputStream());
     consumeError.consume(p.getErrorStream());
-    // wait until the streams have been fully consumed
-    consumeOut.waitUntilFinished();
-    consumeError.waitUntilFinished();
-    // wait and exit
     try {
+      if (timeout > 0 && !p.waitFor(timeout, unit)) {
+        p.destroyForcibly();
+        consumeOut.stopConsuming();
+        consumeError.stopConsuming();
+        throw timedOut(info, timeout, unit);
+      }
+      // wait until the streams have been fully consumed
+      consumeOut.waitUntilFinished();
+      consumeError.waitUntilFinished();
+      // wait and exit
+      return p.waitFor();
+    } catch (InterruptedException e) {
+      return Prelude.<Integer>chuck(e);
+    }
+  }
+
+  /**
+   * Run a process and hand its standard output to a handler as a whole, e.g. to parse it without buffering it first.
+   * The error output is consumed line by line, even if the process info asks to redirect it.
+   *
+   * @param info
+   *          the process to run
+   * @param stdout
+   *          handler of the standard output, any output it leaves unread is discarded
+   * @param stderr
+   *          consumer of the error output, may stop reading further lines by returning <code>false</code>
+   * @param timeout
+   *          the maximum time to wait for the process to finish, 0 to wait indefinitely
+   * @param unit
+   *          the unit of <code>timeout</code>
+   * @return the exit code of the process
+   * @throws ProcessTimeoutException
+   *           if the process did not finish in time and has been killed
+   * @throws IOException
+   *           if the process cannot be started or the handler fails to read the output
+   */
+  public static int run(ProcessInfo info, final OutputHandler stdout, Fn<String, Boolean> stderr, long timeout,
+          TimeUnit unit) throws IOException {
+    final ProcessBuilder pb = new ProcessBuilder(info.getCommandLine());
+    pb.environment().putAll(info.getEnvironment());
+    final StreamConsumer consumeError = new StreamConsumer(stderr);
+    final Thread consumeErrorThread = new Thread(consumeError);
+    consumeErrorThread.start();
+    consumeError.waitUntilRunning();
+    final Process p = pb.start();
+    consumeError.consume(p.getErrorStream());
+    final FutureTask<Void> consumeOut = new FutureTask<>(() -> {
+      try (InputStream in = p.getInputStream()) {
+        stdout.handle(in);
+        // keep the process from blocking on a full pipe
+        IOUtils.skip(in, Long.MAX_VALUE);
+      }
+      return null;
+    });
+    new Thread(consumeOut).start();
+    try {
+      if (timeout > 0 && !p.waitFor(timeout, unit)) {
+        p.destroyForcibly();
+        consumeOut.cancel(true);
+        consumeError.stopConsuming();
+        throw timedOut(info, timeout, unit);
+      }
+      consumeOut.get();
+      consumeError.waitUntilFinished();
       return p.waitFor();
+    } catch (ExecutionException e) {
+      p.destroyForcibly();
+      consumeError.stopConsuming();
+      if (e.getCause() instanceof IOException)
+        throw (IOException) e.getCause();
+      return Prelude.<Integer>chuck(e.getCause());
     } catch (InterruptedException e) {
       return Prelude.<Integer>chuck(e);
     }
   }
 
+  private static ProcessTimeoutException timedOut(ProcessInfo info, long timeout, TimeUnit unit) {
+    return new ProcessTimeoutException(String.format("Process %s did not finish within %d %s and has been killed",
+            info.getCommandLine().get(0), timeout, unit.toString().toLowerCase()));
+  }
+
+  /** Reads the standard output of a process. */
+  public interface OutputHandler {
+
+    /**
+     * Reads the output.
+     *
+     * @param out
+     *          the standard output of the process, closed by the caller
+     * @throws IOException
+     *           if reading or interpreting the output fails
+     */
+    void handle(InputStream out) throws IOException;
+  }
+
   private static final ListBuilder l = ListBuilders.looseImmutableArray;
   private static final Map<String, String> NO_ENV = new HashMap<String, String>();
 
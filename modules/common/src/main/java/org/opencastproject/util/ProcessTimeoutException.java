@@ -0,0 +1,44 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.util;
+
+import java.io.IOException;
+
+/**
+ * Signals that an external process has been terminated because it did not finish within the given time.
+ */
+public class ProcessTimeoutException extends IOException {
+
+  /** Serial version uid */
+  private static final long serialVersionUID = 3407316294016658224L;
+
+  /**
+   * Creates a new timeout exception.
+   *
+   * @param message
+   *          the error message
+   */
+  public ProcessTimeoutException(String message) {
+    super(message);
+  }
+
+}
@@ -27,15 +27,16 @@ import com.entwinemedia.fn.Fn;
 import com.entwinemedia.fn.Fx;
 import com.entwinemedia.fn.Unit;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.util.concurrent.CountDownLatch;
 
 /**
  * A StreamConsumer helps to asynchronously consume a text input stream line by line.
  * The consumer guarantees the closing of the stream.
+ * <p>
+ * Lines are read with a {@link LineReader}, so a process which keeps rewriting a single console line produces
+ * individual lines instead of a single growing one.
  */
 public class StreamConsumer implements Runnable {
   private final CountDownLatch running = new CountDownLatch(1);
@@ -46,7 +47,7 @@ public class StreamConsumer implements Runnable {
 
   private boolean stopped = false;
   private InputStream stream;
-  private BufferedReader reader;
+  private LineReader reader;
 
   /**
    * Create a new stream consumer.
@@ -64,7 +65,7 @@ public class StreamConsumer implements Runnable {
       ready.await();
       // also save a reference to the reader to able to close it in stopReading
       // otherwise the read loop may continue reading from the buffer
-      reader = new BufferedReader(new InputStreamReader(stream));
+      reader = new LineReader(stream);
       IoSupport.withResource(reader, consumeBuffered);
       finished.countDown();
     } catch (InterruptedException e) {
@@ -106,8 +107,8 @@ public class StreamConsumer implements Runnable {
     ready.countDown();
   }
 
-  private final Fn<BufferedReader, Unit> consumeBuffered = new Fx<BufferedReader>() {
-    @Override public void apply(BufferedReader reader) {
+  private final Fn<LineReader, Unit> consumeBuffered = new Fx<LineReader>() {
+    @Override public void apply(LineReader reader) {
       String line;
       try {
         while ((line = reader.readLine()) != null) {
@@ -0,0 +1,93 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+package org.opencastproject.serviceregistry.api;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.opencastproject.job.api.Job;
+import org.opencastproject.job.api.Job.Status;
+import org.opencastproject.job.api.JobImpl;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+public class JobQueryTest {
+
+  @Test
+  public void testFilters() {
+    Job job = mkJob(1L, "org.opencastproject.composer", "Encode", Status.RUNNING, "http://worker", 1000L);
+
+    assertTrue(new JobQuery().matches(job));
+    assertTrue(new JobQuery().withActiveStatus().withProcessingHost("HTTP://WORKER").matches(job));
+    assertFalse(new JobQuery().withStatus(Status.FINISHED, Status.FAILED).matches(job));
+    assertFalse(new JobQuery().withJobType("org.opencastproject.workflow").matches(job));
+    assertFalse(new JobQuery().withoutOperation("Encode").matches(job));
+    assertTrue(new JobQuery().withCreator("Admin").matches(job));
+
+    assertTrue(new JobQuery().withText("encode").matches(job));
+    assertTrue(new JobQuery().withText("running").matches(job));
+    assertTrue(new JobQuery().withText("1").matches(job));
+    assertFalse(new JobQuery().withText("enc").matches(job));
+  }
+
+  @Test
+  public void testSortAndKeyset() {
+    Job a = mkJob(1L, "type", "op", Status.QUEUED, null, 3000L);
+    Job b = mkJob(2L, "type", "op", Status.RUNNING, "http://worker", 1000L);
+    Job c = mkJob(3L, "type", "op", Status.RUNNING, "http://worker", 1000L);
+    List<Job> jobs = new ArrayList<>(Arrays.asList(a, b, c));
+
+    JobQuery query = new JobQuery();
+    Collections.sort(jobs, query.getComparator());
+    assertEquals(Arrays.asList(b, c, a), jobs);
+
+    query.withSort(JobQuery.Sort.DATE_CREATED, false);
+    Collections.sort(jobs, query.getComparator());
+    assertEquals(Arrays.asList(a, c, b), jobs);
+
+    // Jobs with the same sort value are paged by their identifier
+    query.withAfter(c);
+    assertFalse(query.matches(a));
+    assertFalse(query.matches(c));
+    assertTrue(query.matches(b));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testKeysetRequiresValues() {
+    Job job = mkJob(1L, "type", "op", Status.QUEUED, null, 1000L);
+    new JobQuery().withSort(JobQuery.Sort.PROCESSING_HOST, true).withAfter(job).matches(job);
+  }
+
+  private static Job mkJob(long id, String type, String operation, Status status, String host, long created) {
+    return new JobImpl(id, "admin", "mh_default_org", 1L, type, operation, null, status, "http://admin", host,
+            new Date(created), null, null, 0L, 0L, null, null, null, true, null, 1.0f);
+  }
+
+}
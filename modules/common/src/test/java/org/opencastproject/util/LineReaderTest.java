@@ -0,0 +1,74 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+public class LineReaderTest {
+
+  @Test
+  public void testLineTerminators() throws Exception {
+    LineReader reader = new LineReader(new ByteArrayInputStream("a\r\nb\rc\n\nd".getBytes(StandardCharsets.UTF_8)));
+    assertEquals("a", reader.readLine());
+    assertEquals("b", reader.readLine());
+    assertEquals("c", reader.readLine());
+    assertEquals("", reader.readLine());
+    assertEquals("d", reader.readLine());
+    assertNull(reader.readLine());
+  }
+
+  @Test
+  public void testMaxLineLength() throws Exception {
+    LineReader reader = new LineReader(Channels.newChannel(new ByteArrayInputStream(
+            "abcdef\nxy".getBytes(StandardCharsets.UTF_8))), StandardCharsets.UTF_8, 3);
+    assertEquals("abc", reader.readLine());
+    assertEquals("xy", reader.readLine());
+    assertNull(reader.readLine());
+  }
+
+  @Test
+  public void testUnlimitedLineLength() throws Exception {
+    final String longLine = StringUtils.repeat('x', 100000);
+    LineReader reader = new LineReader(new ByteArrayInputStream((longLine + "\ny").getBytes(StandardCharsets.UTF_8)));
+    assertEquals(longLine, reader.readLine());
+    assertEquals("y", reader.readLine());
+    assertNull(reader.readLine());
+  }
+
+  @Test
+  public void testOutputTail() {
+    OutputTail tail = new OutputTail(2);
+    tail.add("1");
+    tail.add("2");
+    tail.add("3");
+    assertEquals("2\n3", tail.toString());
+  }
+
+}
@@ -0,0 +1,87 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.util;
+
+import static org.junit.Assert.assertEquals;
+
+import com.entwinemedia.fn.Fn;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class StreamConsumerTest {
+
+  @Test
+  public void testSplitsLinesLikeBufferedReader() throws Exception {
+    final String output = "a\nb\r\nc\rd\n\n\r\r\ne\r\n\rf";
+    final List<String> expected = new ArrayList<>();
+    try (BufferedReader reader = new BufferedReader(new StringReader(output))) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        expected.add(line);
+      }
+    }
+    final List<String> lines = Collections.synchronizedList(new ArrayList<String>());
+    consume(new ByteArrayInputStream(output.getBytes(StandardCharsets.UTF_8)), new Fn<String, Boolean>() {
+      @Override public Boolean apply(String line) {
+        return lines.add(line);
+      }
+    });
+    assertEquals(expected, lines);
+  }
+
+  @Test
+  public void testStopConsuming() throws Exception {
+    final PipedOutputStream out = new PipedOutputStream();
+    final PipedInputStream in = new PipedInputStream(out);
+    out.write("first\n".getBytes(StandardCharsets.UTF_8));
+    out.flush();
+    final List<String> lines = Collections.synchronizedList(new ArrayList<String>());
+    // the stream is never closed by the writer, so consuming only finishes if the consumer stops reading
+    consume(in, new Fn<String, Boolean>() {
+      @Override public Boolean apply(String line) {
+        lines.add(line);
+        return false;
+      }
+    });
+    assertEquals(Collections.singletonList("first"), lines);
+  }
+
+  private static void consume(InputStream in, Fn<String, Boolean> f) throws InterruptedException {
+    final StreamConsumer consumer = new StreamConsumer(f);
+    final Thread thread = new Thread(consumer);
+    thread.start();
+    consumer.consume(in);
+    consumer.waitUntilFinished();
+    thread.join();
+  }
+}
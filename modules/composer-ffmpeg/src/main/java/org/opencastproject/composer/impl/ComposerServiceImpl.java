@@ -36,8 +36,10 @@ import org.opencastproject.composer.api.VideoClip;
 import org.opencastproject.composer.layout.Dimension;
 import org.opencastproject.composer.layout.Layout;
 import org.opencastproject.composer.layout.Serializer;
+import org.opencastproject.inspection.api.LocalMediaInspectionService;
 import org.opencastproject.inspection.api.MediaInspectionException;
 import org.opencastproject.inspection.api.MediaInspectionService;
+import org.opencastproject.inspection.api.util.Options;
 import org.opencastproject.job.api.AbstractJobProducer;
 import org.opencastproject.job.api.Job;
 import org.opencastproject.job.api.JobBarrier;
@@ -69,6 +71,7 @@ import org.opencastproject.util.JsonObj;
 import org.opencastproject.util.LoadUtil;
 import org.opencastproject.util.MimeTypes;
 import org.opencastproject.util.NotFoundException;
+import org.opencastproject.util.OsgiUtil;
 import org.opencastproject.util.UnknownFileTypeException;
 import org.opencastproject.util.data.Collections;
 import org.opencastproject.util.data.Option;
@@ -183,6 +186,18 @@ public class ComposerServiceImpl extends AbstractJobProducer implements Composer
   public static final String JOB_LOAD_MAX_MULTIPLE_PROFILES = "job.load.max.multiple.profiles";
   public static final String JOB_LOAD_FACTOR_PROCESS_SMIL = "job.load.factor.process.smil";
 
+  /** Configuration key to inspect encoded tracks in process instead of dispatching media inspection jobs */
+  public static final String INSPECT_IN_PROCESS = "inspect.in.process";
+
+  /** Configuration key for the maximum number of encoding processes running concurrently on this node */
+  public static final String ENCODER_MAX_PROCESSES = "encoder.max.processes";
+
+  /** Configuration key to pin encoding processes to a subset of the available cores */
+  public static final String ENCODER_CPU_AFFINITY = "encoder.cpu.affinity";
+
+  /** Configuration key for the time in seconds after which encoding processes are killed */
+  public static final String ENCODER_TIMEOUT = "encoder.timeout";
+
   private float maxMultipleProfilesJobLoad = DEFAULT_JOB_LOAD_MAX_MULTIPLE_PROFILES;
   private float processSmilJobLoadFactor = DEFAULT_PROCESS_SMIL_JOB_LOAD_FACTOR;
   private float multiEncodeJobLoadFactor = DEFAULT_MULTI_ENCODE_JOB_LOAD_FACTOR;
@@ -198,12 +213,21 @@ public class ComposerServiceImpl extends AbstractJobProducer implements Composer
   /** tracked encoder engines */
   private Set<EncoderEngine> activeEncoder = new HashSet<>();
 
+  /** Limits and places the encoding processes on this node */
+  private volatile EncoderScheduler encoderScheduler = new EncoderScheduler();
+
+  /** Time in seconds after which encoding processes are killed, 0 to wait indefinitely */
+  private volatile long encoderTimeout = 0;
+
   /** Encoding profile manager */
   private EncodingProfileScanner profileScanner = null;
 
   /** Reference to the media inspection service */
   private MediaInspectionService inspectionService = null;
 
+  /** Reference to the media inspection service running on this node, if any */
+  private volatile LocalMediaInspectionService localInspectionService = null;
+
   /** Reference to the workspace service */
   private Workspace workspace = null;
 
@@ -228,6 +252,9 @@ public class ComposerServiceImpl extends AbstractJobProducer implements Composer
   /** Path to the FFmpeg binary */
   private String ffmpegBinary = FFMPEG_BINARY_DEFAULT;
 
+  /** Whether encoded tracks are inspected in process */
+  private boolean inspectInProcess = false;
+
   /** Creates a new composer service instance. */
   public ComposerServiceImpl() {
     super(JOB_TYPE);
@@ -1523,6 +1550,13 @@ public class ComposerServiceImpl extends AbstractJobProducer implements Composer
   }
 
   protected List<Track> inspect(Job job, List<URI> uris) throws EncoderException {
+    final LocalMediaInspectionService localInspectionService = this.localInspectionService;
+    if (inspectInProcess) {
+      if (localInspectionService != null)
+        return inspectInProcess(localInspectionService, uris);
+      logger.debug("No media inspection service running on this node, dispatching media inspection jobs");
+    }
+
     // Start inspection jobs
     Job[] inspectionJobs = new Job[uris.size()];
     for (int i = 0; i < uris.size(); i++) {
@@ -1561,6 +1595,32 @@ public class ComposerServiceImpl extends AbstractJobProducer implements Composer
     return inspect(job, java.util.Collections.singletonList(workspaceURI)).get(0);
   }
 
+  /**
+   * Inspects the encoded files using the media inspection service of this node, saving the dispatching of media
+   * inspection jobs and the transfer of the files to the inspecting nodes. The encoder output is still in the local
+   * workspace at this point.
+   *
+   * @param localInspectionService
+   *          the media inspection service running on this node
+   * @param uris
+   *          the workspace URIs of the encoded files
+   * @return the inspected tracks
+   * @throws EncoderException
+   *           if inspection fails
+   */
+  List<Track> inspectInProcess(LocalMediaInspectionService localInspectionService, List<URI> uris)
+          throws EncoderException {
+    List<Track> results = new ArrayList<>(uris.size());
+    for (URI uri : uris) {
+      try {
+        results.add(localInspectionService.inspectLocally(uri, Options.NO_OPTION));
+      } catch (MediaInspectionException e) {
+        throw new EncoderException(String.format("Media inspection of %s failed", uri), e);
+      }
+    }
+    return results;
+  }
+
   /**
    * Deletes any valid file in the list.
    *
@@ -1591,7 +1651,7 @@ public class ComposerServiceImpl extends AbstractJobProducer implements Composer
   }
 
   private EncoderEngine getEncoderEngine() {
-    EncoderEngine engine = new EncoderEngine(ffmpegBinary);
+    EncoderEngine engine = new EncoderEngine(ffmpegBinary, encoderScheduler, encoderTimeout);
     activeEncoder.add(engine);
     return engine;
   }
@@ -1857,6 +1917,27 @@ public class ComposerServiceImpl extends AbstractJobProducer implements Composer
     this.inspectionService = mediaInspectionService;
   }
 
+  /**
+   * Sets the media inspection service running on this node, used to inspect encoded tracks in process
+   *
+   * @param localInspectionService
+   *          the local media inspection service
+   */
+  protected void setLocalMediaInspectionService(LocalMediaInspectionService localInspectionService) {
+    this.localInspectionService = localInspectionService;
+  }
+
+  /**
+   * Unsets the media inspection service running on this node
+   *
+   * @param localInspectionService
+   *          the local media inspection service
+   */
+  protected void unsetLocalMediaInspectionService(LocalMediaInspectionService localInspectionService) {
+    if (this.localInspectionService == localInspectionService)
+      this.localInspectionService = null;
+  }
+
   /**
    * Sets the workspace
    *
@@ -2046,6 +2127,20 @@ public class ComposerServiceImpl extends AbstractJobProducer implements Composer
     }
     transitionDuration = 1000 * (int) LoadUtil.getConfiguredLoadValue(properties, PROCESS_SMIL_CLIP_TRANSITION_DURATION,
             DEFAULT_PROCESS_SMIL_CLIP_TRANSITION_DURATION, serviceRegistry);
+
+    inspectInProcess = OsgiUtil.getOptCfgAsBoolean(properties, INSPECT_IN_PROCESS).getOrElse(false);
+    logger.info("Encoded tracks are inspected {}", inspectInProcess ? "in process" : "by media inspection jobs");
+
+    final int maxProcesses = OsgiUtil.getOptCfgAsInt(properties, ENCODER_MAX_PROCESSES).getOrElse(0);
+    if (maxProcesses < 0)
+      throw new ConfigurationException(ENCODER_MAX_PROCESSES, "must not be negative");
+    final boolean cpuAffinity = OsgiUtil.getOptCfgAsBoolean(properties, ENCODER_CPU_AFFINITY).getOrElse(false);
+    encoderScheduler = new EncoderScheduler(maxProcesses, cpuAffinity, Runtime.getRuntime().availableProcessors());
+
+    final int timeout = OsgiUtil.getOptCfgAsInt(properties, ENCODER_TIMEOUT).getOrElse(0);
+    if (timeout < 0)
+      throw new ConfigurationException(ENCODER_TIMEOUT, "must not be negative");
+    encoderTimeout = timeout;
   }
 
   /**
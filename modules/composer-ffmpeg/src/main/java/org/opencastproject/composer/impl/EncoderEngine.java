@@ -28,6 +28,9 @@ import org.opencastproject.composer.api.VideoClip;
 import org.opencastproject.mediapackage.identifier.IdBuilder;
 import org.opencastproject.mediapackage.identifier.IdBuilderFactory;
 import org.opencastproject.util.IoSupport;
+import org.opencastproject.util.LineReader;
+import org.opencastproject.util.OutputTail;
+import org.opencastproject.util.ProcessTimeoutException;
 import org.opencastproject.util.data.Collections;
 import org.opencastproject.util.data.Tuple;
 
@@ -38,9 +41,8 @@ import org.codehaus.plexus.util.cli.CommandLineUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.InputStreamReader;
+import java.io.IOException;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
 import java.util.ArrayList;
@@ -54,6 +56,11 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -72,13 +79,25 @@ public class EncoderEngine implements AutoCloseable {
   static final String PROP_TRIMMING_DURATION = "trim.duration";
   /** If true STDERR and STDOUT of the spawned process will be mixed so that both can be read via STDIN */
   private static final boolean REDIRECT_ERROR_STREAM = true;
+  /** The number of encoder output lines included in the error if the encoder fails */
+  private static final int OUTPUT_TAIL_LINES = 25;
 
   /** the logging facility provided by log4j */
   private static Logger logger = LoggerFactory.getLogger(EncoderEngine.class.getName());
+  /** Kills encoding processes exceeding their timeout */
+  private static final ScheduledExecutorService watchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "Encoder timeout watchdog");
+    thread.setDaemon(true);
+    return thread;
+  });
   /** the encoder binary */
   private String binary = "ffmpeg";
   /** Set of processes to clean up */
   private Set<Process> processes = new HashSet<>();
+  /** Decides when and where encoding processes run */
+  private final EncoderScheduler scheduler;
+  /** Time in seconds after which encoding processes are killed, 0 to wait indefinitely */
+  private final long timeout;
 
   private final Pattern outputPattern = Pattern.compile("Output .* to '(.*)':");
 
@@ -86,7 +105,24 @@ public class EncoderEngine implements AutoCloseable {
    * Creates a new abstract encoder engine with or without support for multiple job submission.
    */
   EncoderEngine(String binary) {
+    this(binary, new EncoderScheduler());
+  }
+
+  /**
+   * Creates a new encoder engine running its processes through the given scheduler.
+   */
+  EncoderEngine(String binary, EncoderScheduler scheduler) {
+    this(binary, scheduler, 0);
+  }
+
+  /**
+   * Creates a new encoder engine running its processes through the given scheduler and killing processes which do not
+   * finish within the given time.
+   */
+  EncoderEngine(String binary, EncoderScheduler scheduler, long timeout) {
     this.binary = binary;
+    this.scheduler = scheduler;
+    this.timeout = timeout;
   }
 
   /**
@@ -202,12 +238,23 @@ public class EncoderEngine implements AutoCloseable {
       params.put("out.suffix." + tag, suffix);
     }
 
+    // wait for a free encoding slot, which determines the number of threads to use
+    final EncoderScheduler.Slot slot = acquireSlot();
+
     // create encoder process.
-    final List<String> command = buildCommand(profile, params);
+    final List<String> command;
+    try {
+      params.put("threads", Integer.toString(slot.getThreads()));
+      command = slot.wrap(buildCommand(profile, params));
+    } catch (EncoderException | RuntimeException e) {
+      slot.close();
+      throw e;
+    }
     logger.info("Executing encoding command: {}", command);
 
     List<File> outFiles = new ArrayList<>();
-    BufferedReader in = null;
+    OutputTail tail = new OutputTail(OUTPUT_TAIL_LINES);
+    LineReader in = null;
     Process encoderProcess = null;
     try {
       ProcessBuilder processBuilder = new ProcessBuilder(command);
@@ -215,17 +262,11 @@ public class EncoderEngine implements AutoCloseable {
       encoderProcess = processBuilder.start();
       processes.add(encoderProcess);
 
-      // tell encoder listeners about output
-      in = new BufferedReader(new InputStreamReader(encoderProcess.getInputStream()));
-      String line;
-      while ((line = in.readLine()) != null) {
-        handleEncoderOutput(outFiles, line);
-      }
-
-      // wait until the task is finished
-      int exitCode = encoderProcess.waitFor();
+      // tell encoder listeners about output and wait until the task is finished
+      in = new LineReader(encoderProcess.getInputStream(), LineReader.CONSOLE_MAX_LINE_LENGTH);
+      int exitCode = waitFor(encoderProcess, in, outFiles, tail);
       if (exitCode != 0) {
-        throw new EncoderException("Encoder exited abnormally with status " + exitCode);
+        throw new EncoderException("Encoder exited abnormally with status " + exitCode + ":\n" + tail);
       }
 
       logger.info("Tracks {} successfully encoded using profile '{}'", source, profile.getIdentifier());
@@ -244,6 +285,7 @@ public class EncoderEngine implements AutoCloseable {
     } finally {
       IoSupport.closeQuietly(in);
       IoSupport.closeQuietly(encoderProcess);
+      slot.close();
     }
   }
 
@@ -269,28 +311,25 @@ public class EncoderEngine implements AutoCloseable {
     // create encoder process. using working dir of the
     // current java process
     Process encoderProcess = null;
-    BufferedReader in = null;
+    LineReader in = null;
     List<File> outFiles = new ArrayList<>();
+    OutputTail tail = new OutputTail(OUTPUT_TAIL_LINES);
+    final EncoderScheduler.Slot slot = acquireSlot();
     try {
       List<String> command = new ArrayList<>();
       command.add(binary);
       command.addAll(commandopts);
+      command = slot.wrap(command);
       logger.info("Executing encoding command: {}", StringUtils.join(command, " "));
 
       ProcessBuilder pbuilder = new ProcessBuilder(command);
       pbuilder.redirectErrorStream(REDIRECT_ERROR_STREAM);
       encoderProcess = pbuilder.start();
-      // tell encoder listeners about output
-      in = new BufferedReader(new InputStreamReader(encoderProcess.getInputStream()));
-      String line;
-      while ((line = in.readLine()) != null) {
-        handleEncoderOutput(outFiles, line); // get names of output files
-      }
-      // wait until the task is finished
-      encoderProcess.waitFor();
-      int exitCode = encoderProcess.exitValue();
+      // tell encoder listeners about output, get names of output files and wait until the task is finished
+      in = new LineReader(encoderProcess.getInputStream(), LineReader.CONSOLE_MAX_LINE_LENGTH);
+      int exitCode = waitFor(encoderProcess, in, outFiles, tail);
       if (exitCode != 0) {
-        throw new EncoderException("Encoder exited abnormally with status " + exitCode);
+        throw new EncoderException("Encoder exited abnormally with status " + exitCode + ":\n" + tail);
       }
       logger.info("Video track successfully encoded '{}'",
               new Object[] { StringUtils.join(commandopts, " ") });
@@ -308,6 +347,66 @@ public class EncoderEngine implements AutoCloseable {
     } finally {
       IoSupport.closeQuietly(in);
       IoSupport.closeQuietly(encoderProcess);
+      slot.close();
+    }
+  }
+
+  /**
+   * Handles the output of an encoding process until it exits. The process is killed if it does not finish within the
+   * timeout.
+   *
+   * @param encoderProcess
+   *          the encoding process
+   * @param in
+   *          the reader of the process output
+   * @param outFiles
+   *          the list to add identified output files to
+   * @param tail
+   *          the most recent messages, reported if the encoder fails
+   * @return the exit code of the process
+   * @throws ProcessTimeoutException
+   *           if the process has been killed because of the timeout
+   */
+  private int waitFor(final Process encoderProcess, LineReader in, List<File> outFiles, OutputTail tail)
+          throws IOException, InterruptedException {
+    final AtomicBoolean timedOut = new AtomicBoolean(false);
+    ScheduledFuture<?> kill = null;
+    if (timeout > 0) {
+      kill = watchdog.schedule(() -> {
+        timedOut.set(true);
+        encoderProcess.destroyForcibly();
+      }, timeout, TimeUnit.SECONDS);
+    }
+    try {
+      String line;
+      while ((line = in.readLine()) != null) {
+        handleEncoderOutput(outFiles, tail, line);
+      }
+      int exitCode = encoderProcess.waitFor();
+      if (timedOut.get()) {
+        throw new ProcessTimeoutException(String.format(
+                "Encoder did not finish within %d seconds and has been killed:%n%s", timeout, tail));
+      }
+      return exitCode;
+    } finally {
+      if (kill != null)
+        kill.cancel(false);
+    }
+  }
+
+  /**
+   * Waits until the scheduler allows to start another encoding process.
+   *
+   * @return the slot to run the process in
+   * @throws EncoderException
+   *           if interrupted while waiting
+   */
+  private EncoderScheduler.Slot acquireSlot() throws EncoderException {
+    try {
+      return scheduler.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new EncoderException("Interrupted while waiting for an encoding slot", e);
     }
   }
 
@@ -421,14 +520,22 @@ public class EncoderEngine implements AutoCloseable {
   /**
    * Handles the encoder output by analyzing it first and then firing it off to the registered listeners.
    *
+   * @param output
+   *          the list to add identified output files to
+   * @param tail
+   *          the most recent messages, reported if the encoder fails
    * @param message
    *          the message returned by the encoder
    */
-  private void handleEncoderOutput(List<File> output, String message) {
+  private void handleEncoderOutput(List<File> output, OutputTail tail, String message) {
     message = message.trim();
     if ("".equals(message))
       return;
 
+    // Progress messages are of no use to explain a failure
+    if (!StringUtils.startsWithAny(message, "size=", "frame="))
+      tail.add(message);
+
     // Others go to trace logging
     if (StringUtils.startsWithAny(message.toLowerCase(),
           "ffmpeg version", "configuration", "lib", "size=", "frame=", "built with")) {
@@ -0,0 +1,201 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.composer.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Limits the number of encoder processes running concurrently on this node and distributes the available cores among
+ * them.
+ * <p>
+ * The cores are split into one slot per allowed process. Each encoding process gets a slot, which determines the number
+ * of threads it should use and, if CPU affinity is enabled and <code>taskset</code> is available, the cores it is
+ * pinned to. Processes which exceed the limit are queued in the order they arrived until a slot becomes available.
+ */
+public class EncoderScheduler {
+
+  /** The logging facility */
+  private static final Logger logger = LoggerFactory.getLogger(EncoderScheduler.class);
+
+  /** The binary used to pin processes to cores */
+  private static final String TASKSET_BINARY = "taskset";
+
+  /** The maximum number of concurrent processes, 0 for no limit */
+  private final int maxProcesses;
+
+  /** Whether processes are pinned to the cores of their slot */
+  private final boolean cpuAffinity;
+
+  /** Guards the number of running processes */
+  private final Semaphore permits;
+
+  /** The slots, <code>true</code> if in use */
+  private final boolean[] slotsInUse;
+
+  /** The cores available to each slot */
+  private final List<String> cpuSets = new ArrayList<>();
+
+  /** The number of threads per slot */
+  private final int threadsPerSlot;
+
+  /**
+   * Creates a scheduler which does not limit or pin encoding processes.
+   */
+  EncoderScheduler() {
+    this(0, false, Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Creates a new scheduler.
+   *
+   * @param maxProcesses
+   *          the maximum number of concurrent encoding processes, 0 for no limit
+   * @param cpuAffinity
+   *          <code>true</code> to pin each process to the cores of its slot
+   * @param cores
+   *          the number of cores to distribute
+   */
+  EncoderScheduler(int maxProcesses, boolean cpuAffinity, int cores) {
+    if (maxProcesses < 0)
+      throw new IllegalArgumentException("The maximum number of processes must not be negative");
+    this.maxProcesses = maxProcesses;
+    this.permits = new Semaphore(Math.max(maxProcesses, 1), true);
+    this.slotsInUse = new boolean[maxProcesses];
+    this.threadsPerSlot = maxProcesses > 0 ? Math.max(cores / maxProcesses, 1) : 0;
+    this.cpuAffinity = cpuAffinity && maxProcesses > 0 && isTasksetAvailable();
+
+    for (int i = 0; i < maxProcesses; i++) {
+      // With more slots than cores, several slots share a core
+      final int first = (i * cores / maxProcesses) % cores;
+      final int last = Math.max(first, ((i + 1) * cores / maxProcesses - 1) % cores);
+      cpuSets.add(first == last ? Integer.toString(first) : first + "-" + last);
+    }
+
+    if (maxProcesses > 0) {
+      logger.info("Running at most {} encoding processes with {} threads each{}", maxProcesses, threadsPerSlot,
+              this.cpuAffinity ? ", pinned to cores " + cpuSets : "");
+    }
+  }
+
+  /**
+   * Waits until an encoding process may be started.
+   *
+   * @return the slot to run the process in, which has to be released once the process terminated
+   * @throws InterruptedException
+   *           if the thread is interrupted while waiting
+   */
+  Slot acquire() throws InterruptedException {
+    if (maxProcesses == 0)
+      return new Slot(-1);
+
+    if (!permits.tryAcquire()) {
+      logger.debug("All {} encoding slots are in use, queuing encoding process", maxProcesses);
+      permits.acquire();
+    }
+    synchronized (slotsInUse) {
+      for (int i = 0; i < slotsInUse.length; i++) {
+        if (!slotsInUse[i]) {
+          slotsInUse[i] = true;
+          return new Slot(i);
+        }
+      }
+    }
+    // Cannot happen as long as the permits match the slots
+    permits.release();
+    throw new IllegalStateException("No free encoding slot");
+  }
+
+  /**
+   * Checks if processes can be pinned to cores using <code>taskset</code>.
+   */
+  private static boolean isTasksetAvailable() {
+    try {
+      Process process = new ProcessBuilder(TASKSET_BINARY, "-V").redirectErrorStream(true).start();
+      process.getInputStream().close();
+      return process.waitFor() == 0;
+    } catch (Exception e) {
+      logger.warn("CPU affinity is enabled but '{}' is not available: {}", TASKSET_BINARY, e.getMessage());
+      return false;
+    }
+  }
+
+  /**
+   * A reservation for running one encoding process.
+   */
+  final class Slot implements AutoCloseable {
+
+    /** The slot index, -1 if the scheduler does not limit processes */
+    private final int index;
+
+    /** Whether the slot has been released */
+    private boolean released = false;
+
+    private Slot(int index) {
+      this.index = index;
+    }
+
+    /**
+     * Returns the number of threads the encoder should use, 0 to let the encoder decide.
+     */
+    int getThreads() {
+      return index < 0 ? 0 : threadsPerSlot;
+    }
+
+    /**
+     * Returns the command to start the encoder within this slot, pinning it to the slot's cores if configured.
+     *
+     * @param command
+     *          the encoder command
+     * @return the command to execute
+     */
+    List<String> wrap(List<String> command) {
+      if (index < 0 || !cpuAffinity)
+        return command;
+      List<String> wrapped = new ArrayList<>(command.size() + 3);
+      wrapped.add(TASKSET_BINARY);
+      wrapped.add("-c");
+      wrapped.add(cpuSets.get(index));
+      wrapped.addAll(command);
+      return wrapped;
+    }
+
+    /**
+     * Makes the slot available to queued processes.
+     */
+    @Override
+    public synchronized void close() {
+      if (released || index < 0)
+        return;
+      released = true;
+      synchronized (slotsInUse) {
+        slotsInUse[index] = false;
+      }
+      permits.release();
+    }
+  }
+
+}
@@ -0,0 +1,110 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.composer.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import org.opencastproject.composer.api.EncoderException;
+import org.opencastproject.inspection.api.LocalMediaInspectionService;
+import org.opencastproject.inspection.api.MediaInspectionException;
+import org.opencastproject.inspection.api.MediaInspectionService;
+import org.opencastproject.mediapackage.Track;
+import org.opencastproject.serviceregistry.api.HostRegistration;
+import org.opencastproject.serviceregistry.api.ServiceRegistry;
+
+import org.easymock.EasyMock;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Dictionary;
+import java.util.Hashtable;
+import java.util.List;
+
+/**
+ * Tests the inspection of encoded tracks by the {@link ComposerServiceImpl} using the media inspection service running
+ * on the same node.
+ */
+public class ComposerServiceInspectionTest {
+
+  private final URI first = URI.create("http://localhost/files/first.mp4");
+  private final URI second = URI.create("http://localhost/files/second.mp4");
+
+  private ComposerServiceImpl composer;
+  private LocalMediaInspectionService localInspectionService;
+
+  @Before
+  public void setUp() throws Exception {
+    ServiceRegistry serviceRegistry = EasyMock.createNiceMock(ServiceRegistry.class);
+    EasyMock.expect(serviceRegistry.getHostRegistrations()).andReturn(new ArrayList<HostRegistration>()).anyTimes();
+    EasyMock.replay(serviceRegistry);
+
+    // Jobs must not be dispatched while a local media inspection service is available
+    MediaInspectionService inspectionService = EasyMock.createMock(MediaInspectionService.class);
+    EasyMock.replay(inspectionService);
+
+    localInspectionService = EasyMock.createMock(LocalMediaInspectionService.class);
+
+    composer = new ComposerServiceImpl();
+    composer.setServiceRegistry(serviceRegistry);
+    composer.setMediaInspectionService(inspectionService);
+    composer.setLocalMediaInspectionService(localInspectionService);
+    Dictionary<String, String> properties = new Hashtable<>();
+    properties.put(ComposerServiceImpl.INSPECT_IN_PROCESS, "true");
+    composer.updated(properties);
+  }
+
+  @Test
+  public void testInspectInProcess() throws Exception {
+    Track firstTrack = EasyMock.createMock(Track.class);
+    Track secondTrack = EasyMock.createMock(Track.class);
+    EasyMock.expect(localInspectionService.inspectLocally(EasyMock.eq(first), EasyMock.anyObject()))
+            .andReturn(firstTrack);
+    EasyMock.expect(localInspectionService.inspectLocally(EasyMock.eq(second), EasyMock.anyObject()))
+            .andReturn(secondTrack);
+    EasyMock.replay(localInspectionService);
+
+    List<Track> tracks = composer.inspect(null, Arrays.asList(first, second));
+    assertEquals(Arrays.asList(firstTrack, secondTrack), tracks);
+    EasyMock.verify(localInspectionService);
+  }
+
+  @Test
+  public void testInspectInProcessFailure() throws Exception {
+    MediaInspectionException failure = new MediaInspectionException("ffprobe timed out");
+    EasyMock.expect(localInspectionService.inspectLocally(EasyMock.eq(first), EasyMock.anyObject()))
+            .andThrow(failure);
+    EasyMock.replay(localInspectionService);
+
+    try {
+      composer.inspect(null, first);
+      fail("Inspection failure was not reported");
+    } catch (EncoderException e) {
+      assertSame(failure, e.getCause());
+    }
+  }
+
+}
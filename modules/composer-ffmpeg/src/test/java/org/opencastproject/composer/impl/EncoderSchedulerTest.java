@@ -0,0 +1,91 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.composer.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests for the {@link EncoderScheduler}.
+ */
+public class EncoderSchedulerTest {
+
+  @Test
+  public void testUnlimited() throws Exception {
+    EncoderScheduler scheduler = new EncoderScheduler();
+    List<String> command = Arrays.asList("ffmpeg", "-i", "in.mp4", "out.mp4");
+    for (int i = 0; i < 10; i++) {
+      EncoderScheduler.Slot slot = scheduler.acquire();
+      assertEquals(0, slot.getThreads());
+      assertEquals(command, slot.wrap(command));
+    }
+  }
+
+  @Test
+  public void testThreadsPerSlot() throws Exception {
+    EncoderScheduler scheduler = new EncoderScheduler(4, false, 64);
+    EncoderScheduler.Slot slot = scheduler.acquire();
+    assertEquals(16, slot.getThreads());
+    slot.close();
+
+    scheduler = new EncoderScheduler(8, false, 4);
+    assertEquals(1, scheduler.acquire().getThreads());
+  }
+
+  @Test
+  public void testQueuing() throws Exception {
+    final EncoderScheduler scheduler = new EncoderScheduler(2, false, 8);
+    final EncoderScheduler.Slot first = scheduler.acquire();
+    final EncoderScheduler.Slot second = scheduler.acquire();
+
+    final CountDownLatch started = new CountDownLatch(1);
+    Thread queued = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          scheduler.acquire().close();
+          started.countDown();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    });
+    queued.start();
+    assertFalse(started.await(200, TimeUnit.MILLISECONDS));
+
+    first.close();
+    // Releasing twice must not free another slot
+    first.close();
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+    second.close();
+    queued.join();
+  }
+
+}
@@ -42,6 +42,9 @@ public final class ApiResponses {
   private static final Logger logger = LoggerFactory.getLogger(ApiResponses.class);
   private static final String APPLICATION_PREFIX = "application/";
 
+  /** The header holding the cursor of the next page of a list */
+  public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
   private ApiResponses() {
 
   }
@@ -54,6 +57,21 @@ public final class ApiResponses {
     return Response.serverError().entity(format(message, args)).type(MediaType.TEXT_PLAIN_TYPE).build();
   }
 
+  /**
+   * Adds the cursor of the next page to a list response, if there is a next page.
+   *
+   * @param response
+   *          the list response
+   * @param nextCursor
+   *          the cursor of the next page or <code>null</code>
+   * @return the response with the cursor header
+   */
+  public static Response withNextCursor(Response response, String nextCursor) {
+    if (nextCursor == null)
+      return response;
+    return Response.fromResponse(response).header(NEXT_CURSOR_HEADER, nextCursor).build();
+  }
+
   /**
    * Class that handles Json responses for the external API.
    */
@@ -62,6 +62,7 @@ import org.opencastproject.matterhorn.search.SearchIndexException;
 import org.opencastproject.matterhorn.search.SearchResult;
 import org.opencastproject.matterhorn.search.SearchResultItem;
 import org.opencastproject.matterhorn.search.SortCriterion;
+import org.opencastproject.matterhorn.search.impl.SearchCursor;
 import org.opencastproject.mediapackage.Attachment;
 import org.opencastproject.mediapackage.AudioStream;
 import org.opencastproject.mediapackage.Catalog;
@@ -576,14 +577,16 @@ public class EventsEndpoint implements ManagedService {
           @RestParameter(name = "filter", isRequired = false, description = "A comma seperated list of filters to limit the results with. A filter is the filter's name followed by a colon \":\" and then the value to filter with so it is the form <Filter Name>:<Value to Filter With>.", type = STRING),
           @RestParameter(name = "sort", description = "Sort the results based upon a list of comma seperated sorting criteria. In the comma seperated list each type of sorting is specified as a pair such as: <Sort Name>:ASC or <Sort Name>:DESC. Adding the suffix ASC or DESC sets the order as ascending or descending order and is mandatory.", isRequired = false, type = STRING),
           @RestParameter(name = "limit", description = "The maximum number of results to return for a single request.", isRequired = false, type = RestParameter.Type.INTEGER),
-          @RestParameter(name = "offset", description = "The index of the first result to return.", isRequired = false, type = RestParameter.Type.INTEGER) }, reponses = {
-                  @RestResponse(description = "A (potentially empty) list of events is returned.", responseCode = HttpServletResponse.SC_OK) })
+          @RestParameter(name = "offset", description = "The index of the first result to return.", isRequired = false, type = RestParameter.Type.INTEGER),
+          @RestParameter(name = "cursor", description = "Pages with a cursor instead of the offset. Pass an empty cursor for the first page and the value of the X-Next-Cursor response header for the following pages. The header is missing on the last page.", isRequired = false, type = STRING) }, reponses = {
+                  @RestResponse(description = "A (potentially empty) list of events is returned.", responseCode = HttpServletResponse.SC_OK),
+                  @RestResponse(description = "The cursor is malformed.", responseCode = HttpServletResponse.SC_BAD_REQUEST) })
   public Response getEvents(@HeaderParam("Accept") String acceptHeader, @QueryParam("id") String id,
           @QueryParam("commentReason") String reasonFilter, @QueryParam("commentResolution") String resolutionFilter,
           @QueryParam("filter") String filter, @QueryParam("sort") String sort, @QueryParam("offset") Integer offset,
-          @QueryParam("limit") Integer limit, @QueryParam("sign") boolean sign, @QueryParam("withacl") Boolean withAcl,
-          @QueryParam("withmetadata") Boolean withMetadata, @QueryParam("withscheduling") Boolean withScheduling,
-          @QueryParam("withpublications") Boolean withPublications) {
+          @QueryParam("limit") Integer limit, @QueryParam("cursor") String cursor, @QueryParam("sign") boolean sign,
+          @QueryParam("withacl") Boolean withAcl, @QueryParam("withmetadata") Boolean withMetadata,
+          @QueryParam("withscheduling") Boolean withScheduling, @QueryParam("withpublications") Boolean withPublications) {
     final ApiVersion requestedVersion = ApiMediaType.parse(acceptHeader).getVersion();
     if (requestedVersion.isSmallerThan(VERSION_1_1_0)) {
       // withscheduling was added for version 1.1.0 and should be ignored for smaller versions.
@@ -747,8 +750,17 @@ public class EventsEndpoint implements ManagedService {
 
     if (optLimit.isSome())
       query.withLimit(optLimit.get());
-    if (optOffset.isSome())
+    if (cursor != null) {
+      query.withCursor(cursor);
+      // The cursor has to match the sort order of the query
+      try {
+        SearchCursor.parse(query);
+      } catch (IllegalArgumentException e) {
+        return RestUtil.R.badRequest(String.format("Invalid cursor: %s", cursor));
+      }
+    } else if (optOffset.isSome()) {
       query.withOffset(offset);
+    }
     // TODO: Add other filters to the query
 
     SearchResult<Event> results = null;
@@ -767,8 +779,9 @@ public class EventsEndpoint implements ManagedService {
       events.add(source);
     }
     try {
-      return getJsonEvents(
-          acceptHeader, events, withAcl, withMetadata, withScheduling, withPublications, sign, requestedVersion);
+      return ApiResponses.withNextCursor(getJsonEvents(
+          acceptHeader, events, withAcl, withMetadata, withScheduling, withPublications, sign, requestedVersion),
+          results.getNextCursor());
     } catch (Exception e) {
       logger.error("Unable to get events", e);
       throw new WebApplicationException(Status.INTERNAL_SERVER_ERROR);
@@ -54,6 +54,7 @@ import org.opencastproject.matterhorn.search.SearchIndexException;
 import org.opencastproject.matterhorn.search.SearchResult;
 import org.opencastproject.matterhorn.search.SearchResultItem;
 import org.opencastproject.matterhorn.search.SortCriterion;
+import org.opencastproject.matterhorn.search.impl.SearchCursor;
 import org.opencastproject.mediapackage.MediaPackageElementFlavor;
 import org.opencastproject.metadata.dublincore.DublinCore;
 import org.opencastproject.metadata.dublincore.MetadataCollection;
@@ -174,18 +175,22 @@ public class SeriesEndpoint {
           @RestParameter(name = "filter", isRequired = false, description = "A comma seperated list of filters to limit the results with. A filter is the filter's name followed by a colon \":\" and then the value to filter with so it is the form <Filter Name>:<Value to Filter With>.", type = STRING),
           @RestParameter(name = "sort", description = "Sort the results based upon a list of comma seperated sorting criteria. In the comma seperated list each type of sorting is specified as a pair such as: <Sort Name>:ASC or <Sort Name>:DESC. Adding the suffix ASC or DESC sets the order as ascending or descending order and is mandatory.", isRequired = false, type = STRING),
           @RestParameter(name = "limit", description = "The maximum number of results to return for a single request.", isRequired = false, type = RestParameter.Type.INTEGER),
-          @RestParameter(name = "offset", description = "The index of the first result to return.", isRequired = false, type = RestParameter.Type.INTEGER) }, reponses = {
-                  @RestResponse(description = "A (potentially empty) list of series is returned.", responseCode = HttpServletResponse.SC_OK) })
+          @RestParameter(name = "offset", description = "The index of the first result to return.", isRequired = false, type = RestParameter.Type.INTEGER),
+          @RestParameter(name = "cursor", description = "Pages with a cursor instead of the offset. Pass an empty cursor for the first page and the value of the X-Next-Cursor response header for the following pages. The header is missing on the last page.", isRequired = false, type = STRING) }, reponses = {
+                  @RestResponse(description = "A (potentially empty) list of series is returned.", responseCode = HttpServletResponse.SC_OK),
+                  @RestResponse(description = "The cursor is malformed.", responseCode = HttpServletResponse.SC_BAD_REQUEST) })
   public Response getSeriesList(@HeaderParam("Accept") String acceptHeader, @QueryParam("filter") String filter,
           @QueryParam("sort") String sort, @QueryParam("order") String order, @QueryParam("offset") int offset,
-          @QueryParam("limit") int limit) throws UnauthorizedException {
+          @QueryParam("limit") int limit, @QueryParam("cursor") String cursor) throws UnauthorizedException {
     final ApiVersion requestedVersion = ApiMediaType.parse(acceptHeader).getVersion();
     try {
       SeriesSearchQuery query = new SeriesSearchQuery(securityService.getOrganization().getId(),
               securityService.getUser());
       Option<String> optSort = Option.option(trimToNull(sort));
 
-      if (offset > 0) {
+      if (cursor != null) {
+        query.withCursor(cursor);
+      } else if (offset > 0) {
         query.withOffset(offset);
       }
 
@@ -285,11 +290,20 @@ public class SeriesEndpoint {
         }
       }
 
+      // The cursor has to match the sort order of the query
+      if (cursor != null) {
+        try {
+          SearchCursor.parse(query);
+        } catch (IllegalArgumentException e) {
+          return RestUtil.R.badRequest(String.format("Invalid cursor: %s", cursor));
+        }
+      }
+
       logger.trace("Using Query: " + query.toString());
 
       SearchResult<Series> result = externalIndex.getByQuery(query);
 
-      return ApiResponses.Json.ok(requestedVersion, arr($(result.getItems()).map(new Fn<SearchResultItem<Series>, JValue>() {
+      return ApiResponses.withNextCursor(ApiResponses.Json.ok(requestedVersion, arr($(result.getItems()).map(new Fn<SearchResultItem<Series>, JValue>() {
         @Override
         public JValue apply(SearchResultItem<Series> a) {
           final Series s = a.getSource();
@@ -330,7 +344,7 @@ public class SeriesEndpoint {
           return result;
 
         }
-      }).toList()));
+      }).toList())), result.getNextCursor());
     } catch (Exception e) {
       logger.warn("Could not perform search query", e);
       throw new WebApplicationException(Response.Status.INTERNAL_SERVER_ERROR);
@@ -35,6 +35,13 @@ import static org.junit.Assert.assertTrue;
 import static org.opencastproject.test.rest.RestServiceTestEnv.localhostRandomPort;
 import static org.opencastproject.test.rest.RestServiceTestEnv.testEnvForClasses;
 
+import org.opencastproject.external.common.ApiResponses;
+import org.opencastproject.index.service.impl.index.series.Series;
+import org.opencastproject.index.service.impl.index.series.SeriesIndexSchema;
+import org.opencastproject.matterhorn.search.SearchQuery;
+import org.opencastproject.matterhorn.search.SearchQuery.Order;
+import org.opencastproject.matterhorn.search.impl.AbstractSearchQuery;
+import org.opencastproject.matterhorn.search.impl.SearchCursor;
 import org.opencastproject.test.rest.RestServiceTestEnv;
 
 import org.apache.commons.io.IOUtils;
@@ -69,7 +76,7 @@ public class SeriesEndpointTest {
     env.tearDownServer();
   }
 
-  /** Unit test for {@link SeriesEndpoint#getSeriesList(String, String, String, String, int, int)} */
+  /** Unit test for {@link SeriesEndpoint#getSeriesList(String, String, String, String, int, int, String)} */
   @Test
   public void testGetSeriesListJson() throws Exception {
     final String response = given().log().all().expect().statusCode(SC_OK).when().get(env.host("/")).asString();
@@ -88,6 +95,27 @@ public class SeriesEndpointTest {
     assertEquals("Topic", subjects.get(0));
   }
 
+  @Test
+  public void testGetSeriesListWithCursor() throws Exception {
+    given().queryParam("cursor", "").log().all().expect().statusCode(SC_OK)
+            .header(ApiResponses.NEXT_CURSOR_HEADER, "next-page").when().get(env.host("/"));
+  }
+
+  @Test
+  public void testGetSeriesListWithInvalidCursor() throws Exception {
+    given().queryParam("cursor", "not a cursor").log().all().expect().statusCode(SC_BAD_REQUEST).when()
+            .get(env.host("/"));
+
+    // A cursor is only valid for the sort order it has been created for
+    SearchQuery query = new AbstractSearchQuery(Series.DOCUMENT_TYPE)
+            .withSortOrder(SeriesIndexSchema.TITLE, Order.Ascending).withCursor("");
+    String cursor = SearchCursor.parse(query).next(1, new Object[] { "Via API", "series#1" }).serialize();
+    given().queryParam("cursor", cursor).queryParam("sort", SeriesIndexSchema.TITLE + ":ASC").log().all().expect()
+            .statusCode(SC_OK).when().get(env.host("/"));
+    given().queryParam("cursor", cursor).queryParam("sort", SeriesIndexSchema.TITLE + ":DESC").log().all().expect()
+            .statusCode(SC_BAD_REQUEST).when().get(env.host("/"));
+  }
+
   /** Unit test for {@link SeriesEndpoint#getSeries(String, String)} */
   @Test
   public void testGetSeriesJson() throws Exception {
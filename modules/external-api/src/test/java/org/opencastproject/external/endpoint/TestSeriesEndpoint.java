@@ -127,6 +127,7 @@ public class TestSeriesEndpoint extends SeriesEndpoint {
 
     SearchResult<Series> searchResult = createNiceMock(SearchResult.class);
     expect(searchResult.getItems()).andStubReturn(searchResultItems);
+    expect(searchResult.getNextCursor()).andStubReturn("next-page");
     replay(searchResult);
 
     ExternalIndex externalIndex = createMock(ExternalIndex.class);
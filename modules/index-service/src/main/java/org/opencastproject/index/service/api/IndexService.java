@@ -35,6 +35,7 @@ import org.opencastproject.matterhorn.search.SearchResult;
 import org.opencastproject.mediapackage.MediaPackage;
 import org.opencastproject.mediapackage.MediaPackageElementFlavor;
 import org.opencastproject.mediapackage.MediaPackageException;
+import org.opencastproject.rest.BulkOperationResult;
 import org.opencastproject.metadata.dublincore.EventCatalogUIAdapter;
 import org.opencastproject.metadata.dublincore.SeriesCatalogUIAdapter;
 import org.opencastproject.scheduler.api.SchedulerException;
@@ -52,6 +53,7 @@ import org.json.simple.JSONObject;
 
 import java.io.IOException;
 import java.text.ParseException;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -149,6 +151,19 @@ public interface IndexService {
    */
   Opt<Event> getEvent(String id, AbstractSearchIndex index) throws SearchIndexException;
 
+  /**
+   * Get many events with a single index query
+   *
+   * @param ids
+   *          the mediapackage ids
+   * @param index
+   *          The index to get the events from.
+   * @return the events found, by their mediapackage id
+   * @throws SearchIndexException
+   *           Thrown if the index cannot be read
+   */
+  Map<String, Event> getEvents(Collection<String> ids, AbstractSearchIndex index) throws SearchIndexException;
+
   /**
    * Creates a new event based on a request.
    *
@@ -225,6 +240,21 @@ public interface IndexService {
    */
   boolean removeEvent(String id) throws NotFoundException, UnauthorizedException;
 
+  /**
+   * Removes many events. The scheduler and workflow removals run in parallel and the archived snapshots of all events
+   * are deleted at once. Duplicate ids are removed and reported once.
+   * <p>
+   * The search indices are not updated directly. Like {@link #removeEvent(String)}, this relies on the messages the
+   * services send for each removed event, which the index message receivers write as bulk requests if
+   * <code>org.opencastproject.index.message.batch.size</code> is greater than 1.
+   *
+   * @param ids
+   *          The ids of the events to remove.
+   * @param result
+   *          The result each event is added to, as ok, not found, unauthorized or server error.
+   */
+  void removeEvents(List<String> ids, BulkOperationResult result);
+
   /**
    * Create or Update an existing event asset.
    *
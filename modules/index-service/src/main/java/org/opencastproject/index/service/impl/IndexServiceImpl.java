@@ -29,6 +29,7 @@ import static org.opencastproject.metadata.dublincore.DublinCore.PROPERTY_IDENTI
 import org.opencastproject.assetmanager.api.AssetManager;
 import org.opencastproject.assetmanager.api.AssetManagerException;
 import org.opencastproject.assetmanager.api.query.AQueryBuilder;
+import org.opencastproject.assetmanager.api.query.ARecord;
 import org.opencastproject.assetmanager.api.query.AResult;
 import org.opencastproject.assetmanager.api.query.Predicate;
 import org.opencastproject.assetmanager.util.WorkflowPropertiesUtil;
@@ -64,6 +65,7 @@ import org.opencastproject.ingest.api.IngestException;
 import org.opencastproject.ingest.api.IngestService;
 import org.opencastproject.matterhorn.search.SearchIndexException;
 import org.opencastproject.matterhorn.search.SearchResult;
+import org.opencastproject.matterhorn.search.SearchResultItem;
 import org.opencastproject.matterhorn.search.SortCriterion;
 import org.opencastproject.mediapackage.Attachment;
 import org.opencastproject.mediapackage.Catalog;
@@ -89,6 +91,7 @@ import org.opencastproject.metadata.dublincore.MetadataField;
 import org.opencastproject.metadata.dublincore.MetadataParsingException;
 import org.opencastproject.metadata.dublincore.Precision;
 import org.opencastproject.metadata.dublincore.SeriesCatalogUIAdapter;
+import org.opencastproject.rest.BulkOperationResult;
 import org.opencastproject.scheduler.api.SchedulerException;
 import org.opencastproject.scheduler.api.SchedulerService;
 import org.opencastproject.security.api.AccessControlList;
@@ -125,6 +128,7 @@ import org.opencastproject.workspace.api.Workspace;
 import com.entwinemedia.fn.Fn2;
 import com.entwinemedia.fn.Stream;
 import com.entwinemedia.fn.data.Opt;
+import com.google.common.collect.Lists;
 
 import net.fortuna.ical4j.model.Period;
 import net.fortuna.ical4j.model.property.RRule;
@@ -151,9 +155,12 @@ import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -162,8 +169,11 @@ import java.util.Properties;
 import java.util.Set;
 import java.util.TimeZone;
 import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.regex.Pattern;
 
 import javax.servlet.http.HttpServletRequest;
@@ -214,6 +224,27 @@ public class IndexServiceImpl implements IndexService {
   /** The single thread executor service */
   private ExecutorService executorService = Executors.newSingleThreadExecutor();
 
+  /** The number of events removed in parallel by {@link #removeEvents(List, BulkOperationResult)} */
+  private static final int BULK_REMOVAL_THREADS = 4;
+
+  /** The maximum number of identifiers in a single index or asset manager query */
+  private static final int BULK_QUERY_SIZE = 500;
+
+  /** The executor service removing events in parallel */
+  private ExecutorService bulkExecutorService = Executors.newFixedThreadPool(BULK_REMOVAL_THREADS);
+
+  /**
+   * OSGi callback on component deactivation, stopping the removal of events in progress.
+   */
+  public void deactivate() {
+    bulkExecutorService.shutdownNow();
+  }
+
+  /** The outcome of removing an event from one of the services */
+  private enum RemovalStatus {
+    REMOVED, NOT_FOUND, UNAUTHORIZED, FAILED
+  }
+
   /**
    * OSGi DI.
    *
@@ -1488,70 +1519,186 @@ public class IndexServiceImpl implements IndexService {
     return Opt.some(result.getItems()[0].getSource());
   }
 
+  @Override
+  public Map<String, Event> getEvents(Collection<String> ids, AbstractSearchIndex index)
+          throws SearchIndexException {
+    final Map<String, Event> events = new HashMap<>();
+    for (List<String> chunk : Lists.partition(new ArrayList<>(new HashSet<>(ids)), BULK_QUERY_SIZE)) {
+      final EventSearchQuery query = new EventSearchQuery(securityService.getOrganization().getId(),
+              securityService.getUser());
+      for (String id : chunk) {
+        query.withIdentifier(id);
+      }
+      query.withLimit(chunk.size());
+      for (SearchResultItem<Event> item : index.getByQuery(query).getItems()) {
+        events.put(item.getSource().getIdentifier(), item.getSource());
+      }
+    }
+    return events;
+  }
+
   @Override
   public boolean removeEvent(String id) throws NotFoundException, UnauthorizedException {
-    boolean unauthorizedScheduler = false;
-    boolean notFoundScheduler = false;
-    boolean removedScheduler = true;
+    final RemovalStatus scheduler = removeFromScheduler(id);
+    final RemovalStatus workflow = removeFromWorkflowService(id);
+    final RemovalStatus archive = removeFromArchive(id);
+    return completeRemoval(id, scheduler, workflow, archive);
+  }
+
+  @Override
+  public void removeEvents(List<String> ids, BulkOperationResult result) {
+    final SecurityContext securityContext = new SecurityContext(securityService, securityService.getOrganization(),
+            securityService.getUser());
+
+    // Each event is removed and reported once, even if it is requested several times
+    final Set<String> uniqueIds = new LinkedHashSet<>(ids);
+
+    // The scheduler and the workflow service can only remove one event at a time, so run them in parallel
+    final Map<String, Future<RemovalStatus[]>> removals = new HashMap<>();
+    for (final String id : uniqueIds) {
+      removals.put(id, bulkExecutorService.submit(() -> securityContext.runInContext(
+              () -> new RemovalStatus[] { removeFromScheduler(id), removeFromWorkflowService(id) })));
+    }
+    final Map<String, RemovalStatus[]> statuses = new LinkedHashMap<>();
+    boolean interrupted = false;
+    for (String id : uniqueIds) {
+      if (interrupted) {
+        result.addServerError(id);
+        continue;
+      }
+      try {
+        statuses.put(id, removals.get(id).get());
+      } catch (InterruptedException e) {
+        // Stop the removals which have not finished yet and report them as failed
+        logger.warn("Interrupted while removing events, cancelling the remaining removals");
+        Thread.currentThread().interrupt();
+        interrupted = true;
+        for (Future<RemovalStatus[]> removal : removals.values()) {
+          removal.cancel(true);
+        }
+        result.addServerError(id);
+      } catch (CancellationException e) {
+        result.addServerError(id);
+      } catch (ExecutionException e) {
+        logger.error("Unable to remove the event '{}': {}", id, getStackTrace(e));
+        result.addServerError(id);
+      }
+    }
+
+    final Map<String, RemovalStatus> archive = removeFromArchive(statuses.keySet());
+    for (Entry<String, RemovalStatus[]> status : statuses.entrySet()) {
+      final String id = status.getKey();
+      try {
+        if (completeRemoval(id, status.getValue()[0], status.getValue()[1], archive.get(id))) {
+          result.addOk(id);
+        } else {
+          result.addServerError(id);
+        }
+      } catch (NotFoundException e) {
+        result.addNotFound(id);
+      } catch (UnauthorizedException e) {
+        result.addUnauthorized(id);
+      }
+    }
+  }
+
+  private RemovalStatus removeFromScheduler(String id) {
     try {
       schedulerService.removeEvent(id);
+      return RemovalStatus.REMOVED;
     } catch (NotFoundException e) {
-      notFoundScheduler = true;
+      return RemovalStatus.NOT_FOUND;
     } catch (UnauthorizedException e) {
-      unauthorizedScheduler = true;
+      return RemovalStatus.UNAUTHORIZED;
     } catch (SchedulerException e) {
-      removedScheduler = false;
       logger.error("Unable to remove the event '{}' from scheduler service: {}", id, getStackTrace(e));
+      return RemovalStatus.FAILED;
     }
+  }
 
-    boolean unauthorizedWorkflow = false;
-    boolean notFoundWorkflow = false;
-    boolean removedWorkflow = true;
+  private RemovalStatus removeFromWorkflowService(String id) {
     try {
       WorkflowQuery workflowQuery = new WorkflowQuery().withMediaPackage(id);
       WorkflowSet workflowSet = workflowService.getWorkflowInstances(workflowQuery);
       if (workflowSet.size() == 0)
-        notFoundWorkflow = true;
+        return RemovalStatus.NOT_FOUND;
       for (WorkflowInstance instance : workflowSet.getItems()) {
         workflowService.stop(instance.getId());
         workflowService.remove(instance.getId());
       }
+      return RemovalStatus.REMOVED;
     } catch (NotFoundException e) {
-      notFoundWorkflow = true;
+      return RemovalStatus.NOT_FOUND;
     } catch (UnauthorizedException e) {
-      unauthorizedWorkflow = true;
+      return RemovalStatus.UNAUTHORIZED;
     } catch (WorkflowDatabaseException e) {
-      removedWorkflow = false;
       logger.error("Unable to remove the event '{}' because removing workflow failed: {}", id, getStackTrace(e));
+      return RemovalStatus.FAILED;
     } catch (WorkflowException e) {
-      removedWorkflow = false;
       logger.error("Unable to remove the event '{}' because removing workflow failed: {}", id, getStackTrace(e));
+      return RemovalStatus.FAILED;
     }
+  }
 
-    boolean unauthorizedArchive = false;
-    boolean notFoundArchive = false;
-    boolean removedArchive = true;
+  private RemovalStatus removeFromArchive(String id) {
     try {
       final AQueryBuilder q = assetManager.createQuery();
       final Predicate p = q.organizationId().eq(securityService.getOrganization().getId()).and(q.mediaPackageId(id));
       final AResult r = q.select(q.nothing()).where(p).run();
       if (r.getSize() > 0)
         q.delete(DEFAULT_OWNER, q.snapshot()).where(p).run();
+      return RemovalStatus.REMOVED;
     } catch (AssetManagerException e) {
       if (e.getCause() instanceof UnauthorizedException) {
-        unauthorizedArchive = true;
+        return RemovalStatus.UNAUTHORIZED;
       } else if (e.getCause() instanceof NotFoundException) {
-        notFoundArchive = true;
-      } else {
-        removedArchive = false;
-        logger.error("Unable to remove the event '{}' from the archive: {}", id, getStackTrace(e));
+        return RemovalStatus.NOT_FOUND;
       }
+      logger.error("Unable to remove the event '{}' from the archive: {}", id, getStackTrace(e));
+      return RemovalStatus.FAILED;
     }
+  }
 
-    if (notFoundScheduler && notFoundWorkflow && notFoundArchive)
+  /**
+   * Deletes the snapshots of many events with one query per chunk of events. If a chunk cannot be deleted at once, its
+   * events are deleted one by one to find out which of them failed.
+   */
+  private Map<String, RemovalStatus> removeFromArchive(Collection<String> ids) {
+    final Map<String, RemovalStatus> statuses = new HashMap<>();
+    for (List<String> chunk : Lists.partition(new ArrayList<>(ids), BULK_QUERY_SIZE)) {
+      try {
+        final AQueryBuilder q = assetManager.createQuery();
+        final Set<String> archived = new HashSet<>();
+        final Predicate p = q.organizationId().eq(securityService.getOrganization().getId())
+                .and(q.mediaPackageIds(chunk.toArray(new String[chunk.size()])));
+        for (ARecord record : q.select(q.nothing()).where(p).run().getRecords()) {
+          archived.add(record.getMediaPackageId());
+        }
+        if (!archived.isEmpty()) {
+          q.delete(DEFAULT_OWNER, q.snapshot()).where(q.organizationId().eq(securityService.getOrganization().getId())
+                  .and(q.mediaPackageIds(archived.toArray(new String[archived.size()])))).run();
+        }
+        for (String id : chunk) {
+          statuses.put(id, RemovalStatus.REMOVED);
+        }
+      } catch (AssetManagerException e) {
+        logger.debug("Unable to remove {} events from the archive at once, removing them one by one", chunk.size());
+        for (String id : chunk) {
+          statuses.put(id, removeFromArchive(id));
+        }
+      }
+    }
+    return statuses;
+  }
+
+  private boolean completeRemoval(String id, RemovalStatus scheduler, RemovalStatus workflow, RemovalStatus archive)
+          throws NotFoundException, UnauthorizedException {
+    if (scheduler == RemovalStatus.NOT_FOUND && workflow == RemovalStatus.NOT_FOUND
+            && archive == RemovalStatus.NOT_FOUND)
       throw new NotFoundException("Event id " + id + " not found.");
 
-    if (unauthorizedScheduler || unauthorizedWorkflow || unauthorizedArchive)
+    if (scheduler == RemovalStatus.UNAUTHORIZED || workflow == RemovalStatus.UNAUTHORIZED
+            || archive == RemovalStatus.UNAUTHORIZED)
       throw new UnauthorizedException("Not authorized to remove event id " + id);
 
     try {
@@ -1560,7 +1707,7 @@ public class IndexServiceImpl implements IndexService {
       logger.error("Unable to remove comments for event '{}': {}", id, getStackTrace(e));
     }
 
-    return removedScheduler && removedWorkflow && removedArchive;
+    return scheduler != RemovalStatus.FAILED && workflow != RemovalStatus.FAILED && archive != RemovalStatus.FAILED;
   }
 
   @Override
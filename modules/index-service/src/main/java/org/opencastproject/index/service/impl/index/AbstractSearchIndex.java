@@ -49,6 +49,7 @@ import org.opencastproject.matterhorn.search.SearchResult;
 import org.opencastproject.matterhorn.search.SearchResultItem;
 import org.opencastproject.matterhorn.search.impl.AbstractElasticsearchIndex;
 import org.opencastproject.matterhorn.search.impl.ElasticsearchDocument;
+import org.opencastproject.matterhorn.search.impl.SearchCursor;
 import org.opencastproject.matterhorn.search.impl.SearchMetadataCollection;
 import org.opencastproject.matterhorn.search.impl.SearchMetadataImpl;
 import org.opencastproject.matterhorn.search.impl.SearchResultImpl;
@@ -63,31 +64,54 @@ import org.opencastproject.util.data.Option;
 
 import com.entwinemedia.fn.Fn;
 
+import org.apache.commons.lang3.ArrayUtils;
+import org.apache.commons.lang3.BooleanUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.action.DocWriteResponse;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequestBuilder;
+import org.elasticsearch.action.bulk.BulkResponse;
 import org.elasticsearch.action.delete.DeleteRequestBuilder;
 import org.elasticsearch.action.delete.DeleteResponse;
+import org.elasticsearch.action.get.GetResponse;
+import org.elasticsearch.action.index.IndexRequestBuilder;
+import org.elasticsearch.action.index.IndexResponse;
 import org.elasticsearch.action.search.SearchRequestBuilder;
 import org.elasticsearch.action.search.SearchResponse;
-import org.elasticsearch.action.support.WriteRequest;
+import org.elasticsearch.common.lucene.uid.Versions;
+import org.elasticsearch.index.engine.DocumentMissingException;
+import org.elasticsearch.index.engine.VersionConflictEngineException;
+import org.elasticsearch.rest.RestStatus;
 import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.search.SearchHitField;
 import org.elasticsearch.search.aggregations.AggregationBuilder;
 import org.elasticsearch.search.aggregations.AggregationBuilders;
 import org.elasticsearch.search.aggregations.bucket.terms.Terms;
 import org.elasticsearch.search.aggregations.bucket.terms.Terms.Bucket;
+import org.osgi.service.component.ComponentContext;
+import org.osgi.service.component.ComponentException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.FutureTask;
+import java.util.function.Consumer;
 
 import javax.xml.bind.Unmarshaller;
 
@@ -104,9 +128,70 @@ public abstract class AbstractSearchIndex extends AbstractElasticsearchIndex {
   /** An Executor to get messages */
   private ExecutorService executor = Executors.newSingleThreadExecutor();
 
+  /** The number of times a partial update is retried if the document has been modified concurrently */
+  private static final int PARTIAL_UPDATE_RETRIES = 5;
+
+  /** The batch the current thread writes to, if any */
+  private final ThreadLocal<IndexBatch> currentBatch = new ThreadLocal<>();
+
+  /** The further indices the current thread writes partial updates to, see {@link #setMirrors(Collection)} */
+  private final ThreadLocal<Collection<? extends AbstractSearchIndex>> currentMirrors = new ThreadLocal<>();
+
+  /** The versions of the documents the current thread has read, if it tracks them, see {@link #trackVersions()} */
+  private final ThreadLocal<Map<String, Long>> readVersions = new ThreadLocal<>();
+
+  /** Whether a version checked write of the current thread has failed, see {@link #untrackVersions()} */
+  private final ThreadLocal<Boolean> versionConflict = new ThreadLocal<>();
+
+  /**
+   * Documents written directly to the index while it is rebuilt, by document type and identifier, which are copied to
+   * the shadow index when switching to it, see {@link #writeDeferringShadow(ElasticsearchDocument)}
+   */
+  private final Set<String> deferredShadowWrites = ConcurrentHashMap.newKeySet();
+
+  /** Lock held by direct writes while the index is rebuilt and while switching to the shadow index */
+  private final Object shadowSwitchLock = new Object();
+
+  /** Configuration key defining whether the index is recreated in a shadow index */
+  public static final String REBUILD_SHADOW_KEY = "org.opencastproject.index.rebuild.shadow";
+
+  /**
+   * The services a shadow index is rebuilt from. The services of one phase resend their data at the same time, the
+   * services of the later phases rely on the data of the earlier ones.
+   */
+  private static final List<List<IndexRecreateObject.Service>> REBUILD_PHASES = Arrays.asList(
+          Arrays.asList(IndexRecreateObject.Service.Groups, IndexRecreateObject.Service.Acl,
+                  IndexRecreateObject.Service.Themes, IndexRecreateObject.Service.Series),
+          Arrays.asList(IndexRecreateObject.Service.Scheduler, IndexRecreateObject.Service.Workflow,
+                  IndexRecreateObject.Service.AssetManager, IndexRecreateObject.Service.Comments));
+
+  /** Whether the index is recreated in a shadow index */
+  private boolean shadowRebuild = false;
+
   @Override
   public abstract String getIndexName();
 
+  @Override
+  public void activate(ComponentContext ctx) throws ComponentException {
+    super.activate(ctx);
+    shadowRebuild = BooleanUtils.toBoolean(ctx.getBundleContext().getProperty(REBUILD_SHADOW_KEY));
+    if (shadowRebuild)
+      logger.info("Index '{}' is recreated in a shadow index", getIndexName());
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * Writes go to the shadow index of an interrupted rebuild right away, so no changes are lost before the rebuild is
+   * resumed.
+   */
+  @Override
+  protected void init(String index, int version) throws IOException, IllegalArgumentException, SearchIndexException {
+    super.init(index, version);
+    if (shadowRebuild)
+      resumeInterruptedRebuild();
+  }
+
   /** OSGi DI. */
   public void setMessageSender(MessageSender messageSender) {
     this.messageSender = messageSender;
@@ -119,6 +204,11 @@ public abstract class AbstractSearchIndex extends AbstractElasticsearchIndex {
 
   /**
    * Recreate the index from all of the services that provide data.
+   * <p>
+   * If configured by {@link #REBUILD_SHADOW_KEY}, the data is written to a fresh shadow index while the index keeps
+   * serving queries, and the index name is switched to the shadow index once all services have resent their data. The
+   * services of each phase resend their data in parallel. Completed services are recorded in the shadow index, so
+   * recreating the index again after an interruption continues with the remaining services.
    *
    * @throws InterruptedException
    *           Thrown if the process is interupted.
@@ -133,6 +223,11 @@ public abstract class AbstractSearchIndex extends AbstractElasticsearchIndex {
    */
   public synchronized void recreateIndex()
           throws InterruptedException, CancellationException, ExecutionException, IOException, IndexServiceException {
+    if (shadowRebuild) {
+      rebuildInShadowIndex();
+      return;
+    }
+
     // Clear index first
     clear();
     recreateService(IndexRecreateObject.Service.Groups);
@@ -183,6 +278,98 @@ public abstract class AbstractSearchIndex extends AbstractElasticsearchIndex {
       throw new IllegalArgumentException("Unknown service " + service);
   }
 
+  /**
+   * Recreates the index in a shadow index and switches to it once all services have resent their data, resuming an
+   * interrupted rebuild if there is one.
+   * <p>
+   * If the rebuild fails, the shadow index keeps receiving all writes until it replaces the index, so the services
+   * which have already been rebuilt need not be repeated when the rebuild is resumed.
+   */
+  private void rebuildInShadowIndex()
+          throws InterruptedException, CancellationException, ExecutionException, IOException, IndexServiceException {
+    final List<String> completed = new ArrayList<>();
+    try {
+      String shadow = getShadowIndex();
+      if (shadow == null)
+        shadow = resumeInterruptedRebuild();
+      if (shadow != null) {
+        completed.addAll(loadRebuildCheckpoint(shadow));
+        logger.info("Services {} have already been rebuilt in '{}'", completed, shadow);
+      } else {
+        shadow = createShadowIndex();
+      }
+
+      final String checkpointIndex = shadow;
+      for (List<IndexRecreateObject.Service> phase : REBUILD_PHASES) {
+        List<IndexRecreateObject.Service> pending = new ArrayList<>();
+        for (IndexRecreateObject.Service service : phase) {
+          if (!completed.contains(service.name()))
+            pending.add(service);
+        }
+        recreateServices(pending, service -> {
+          completed.add(service.name());
+          storeRebuildCheckpoint(checkpointIndex, completed);
+        });
+      }
+      completeShadowRebuild();
+    } catch (SearchIndexException e) {
+      throw new IndexServiceException("Unable to rebuild index " + getIndexName(), e);
+    }
+  }
+
+  /**
+   * Copies the documents written directly to the index during the rebuild to the shadow index, unless they have been
+   * written to the shadow index by the message receivers since, and switches to the shadow index. Direct writes wait
+   * meanwhile, so none of them gets lost.
+   * <p>
+   * The documents written directly are only known to this instance, so direct writes made before a restart are not
+   * copied when an interrupted rebuild is completed.
+   */
+  private void completeShadowRebuild() throws SearchIndexException {
+    synchronized (shadowSwitchLock) {
+      String shadow = getShadowIndex();
+      if (shadow != null && !deferredShadowWrites.isEmpty()) {
+        logger.info("Copying {} documents written during the rebuild to '{}'", deferredShadowWrites.size(), shadow);
+        BulkRequestBuilder bulkRequest = getSearchClient().prepareBulk();
+        for (String key : deferredShadowWrites) {
+          String[] typeAndUid = key.split("/", 2);
+          GetResponse document = getSearchClient().prepareGet(getIndexName(), typeAndUid[0], typeAndUid[1]).get();
+          if (document.isExists()) {
+            bulkRequest.add(getSearchClient().prepareIndex(shadow, typeAndUid[0], typeAndUid[1])
+                    .setSource(document.getSourceAsMap()));
+          } else {
+            bulkRequest.add(getSearchClient().prepareDelete(shadow, typeAndUid[0], typeAndUid[1]));
+          }
+        }
+        BulkResponse bulkResponse = bulkRequest.execute().actionGet();
+        if (bulkResponse.hasFailures())
+          throw new SearchIndexException("Unable to copy documents to '" + shadow + "': "
+                  + bulkResponse.buildFailureMessage());
+        deferredShadowWrites.clear();
+      }
+      switchToShadowIndex();
+    }
+  }
+
+  /**
+   * Continues writing to the shadow index of an interrupted rebuild, if there is one.
+   *
+   * @return the name of the shadow index or <code>null</code> if there is no usable one
+   */
+  private String resumeInterruptedRebuild() throws IOException {
+    String shadow = findShadowIndex();
+    if (shadow == null)
+      return null;
+    try {
+      resumeShadowIndex(shadow);
+      return shadow;
+    } catch (SearchIndexException e) {
+      logger.warn("Discarding shadow index '{}' of an earlier rebuild: {}", shadow, e.getMessage());
+      discardShadowIndex(shadow);
+      return null;
+    }
+  }
+
   /**
    * Ask for data to be rebuilt from a service.
    *
@@ -199,12 +386,36 @@ public abstract class AbstractSearchIndex extends AbstractElasticsearchIndex {
    */
   private void recreateService(IndexRecreateObject.Service service)
           throws IndexServiceException, InterruptedException, CancellationException, ExecutionException {
-    logger.info("Starting to recreate index for service '{}'", service);
-    messageSender.sendObjectMessage(IndexProducer.RECEIVER_QUEUE + "." + service, MessageSender.DestinationType.Queue,
-            IndexRecreateObject.start(getIndexName(), service));
-    boolean done = false;
+    recreateServices(Collections.singletonList(service), finished -> { });
+  }
+
+  /**
+   * Ask for data to be rebuilt from several services at the same time.
+   *
+   * @param services
+   *          The services to start re-sending the data from.
+   * @param onEnd
+   *          Called for each service which has finished re-sending its data.
+   * @throws IndexServiceException
+   *           Thrown if there is a problem re-sending the data from one of the services.
+   * @throws InterruptedException
+   *           Thrown if the process of re-sending the data is interupted.
+   * @throws CancellationException
+   *           Thrown if listening to messages has been canceled.
+   * @throws ExecutionException
+   *           Thrown if the process of re-sending the data has an error.
+   */
+  private void recreateServices(Collection<IndexRecreateObject.Service> services,
+          Consumer<IndexRecreateObject.Service> onEnd)
+          throws IndexServiceException, InterruptedException, CancellationException, ExecutionException {
+    Set<IndexRecreateObject.Service> pending = new HashSet<>(services);
+    for (IndexRecreateObject.Service service : services) {
+      logger.info("Starting to recreate index for service '{}'", service);
+      messageSender.sendObjectMessage(IndexProducer.RECEIVER_QUEUE + "." + service, MessageSender.DestinationType.Queue,
+              IndexRecreateObject.start(getIndexName(), service));
+    }
     // TODO Add a timeout for services that are not going to respond.
-    while (!done) {
+    while (!pending.isEmpty()) {
       FutureTask<Serializable> future = messageReceiver.receiveSerializable(IndexProducer.RESPONSE_QUEUE,
               MessageSender.DestinationType.Queue);
       executor.execute(future);
@@ -220,7 +431,9 @@ public abstract class AbstractSearchIndex extends AbstractElasticsearchIndex {
             }
             break;
           case End:
-            done = true;
+            if (pending.remove(indexRecreateObject.getService())) {
+              onEnd.accept(indexRecreateObject.getService());
+            }
             logger.info("Finished re-creating data for service '{}'", indexRecreateObject.getService());
             break;
           case Error:
@@ -262,14 +475,7 @@ public abstract class AbstractSearchIndex extends AbstractElasticsearchIndex {
 
     // Add the resource to the index
     SearchMetadataCollection inputDocument = EventIndexUtils.toSearchMetadata(event);
-    List<SearchMetadata<?>> resourceMetadata = inputDocument.getMetadata();
-    ElasticsearchDocument doc = new ElasticsearchDocument(inputDocument.getIdentifier(),
-            inputDocument.getDocumentType(), resourceMetadata);
-    try {
-      update(doc);
-    } catch (Throwable t) {
-      throw new SearchIndexException("Cannot write resource " + event + " to index", t);
-    }
+    write(inputDocument, event);
   }
 
   /**
@@ -293,14 +499,7 @@ public abstract class AbstractSearchIndex extends AbstractElasticsearchIndex {
 
     // Add the resource to the index
     SearchMetadataCollection inputDocument = GroupIndexUtils.toSearchMetadata(group);
-    List<SearchMetadata<?>> resourceMetadata = inputDocument.getMetadata();
-    ElasticsearchDocument doc = new ElasticsearchDocument(inputDocument.getIdentifier(),
-            inputDocument.getDocumentType(), resourceMetadata);
-    try {
-      update(doc);
-    } catch (Throwable t) {
-      throw new SearchIndexException("Cannot write resource " + group + " to index", t);
-    }
+    write(inputDocument, group);
   }
 
   /**
@@ -322,14 +521,7 @@ public abstract class AbstractSearchIndex extends AbstractElasticsearchIndex {
 
     // Add the resource to the index
     SearchMetadataCollection inputDocument = SeriesIndexUtils.toSearchMetadata(series);
-    List<SearchMetadata<?>> resourceMetadata = inputDocument.getMetadata();
-    ElasticsearchDocument doc = new ElasticsearchDocument(inputDocument.getIdentifier(),
-            inputDocument.getDocumentType(), resourceMetadata);
-    try {
-      update(doc);
-    } catch (Throwable t) {
-      throw new SearchIndexException("Cannot write resource " + series + " to index", t);
-    }
+    write(inputDocument, series);
   }
 
   /**
@@ -353,23 +545,441 @@ public abstract class AbstractSearchIndex extends AbstractElasticsearchIndex {
 
     // Add the resource to the index
     SearchMetadataCollection inputDocument = ThemeIndexUtils.toSearchMetadata(theme);
+    write(inputDocument, theme);
+  }
+
+  /**
+   * Writes the resource metadata to the index or, if the current thread has joined a batch, to the batch.
+   * <p>
+   * The document is replaced as a whole. If the current thread tracks versions, see {@link #trackVersions()}, and has
+   * read the document before, it is only replaced if it has not been changed since. Otherwise, writers reading and
+   * writing the same resource concurrently have to synchronize, like the message receivers do by holding the lock of
+   * the resource while processing a message, see
+   * {@link org.opencastproject.index.service.message.MessageReceiverLockService}.
+   *
+   * @param inputDocument
+   *          the resource metadata
+   * @param resource
+   *          the resource, used for logging
+   * @throws VersionConflictException
+   *           if the document has been changed since the current thread has read it
+   * @throws SearchIndexException
+   *           if the resource cannot be written
+   */
+  private void write(SearchMetadataCollection inputDocument, Object resource) throws SearchIndexException {
+    String documentType = inputDocument.getDocumentType();
+    String uid = inputDocument.getIdentifier();
+    Long version = getReadVersion(documentType, uid);
+    IndexBatch batch = currentBatch.get();
+    if (batch != null) {
+      batch.put(inputDocument, version);
+      return;
+    }
+
     List<SearchMetadata<?>> resourceMetadata = inputDocument.getMetadata();
-    ElasticsearchDocument doc = new ElasticsearchDocument(inputDocument.getIdentifier(),
-            inputDocument.getDocumentType(), resourceMetadata);
+    ElasticsearchDocument doc = new ElasticsearchDocument(uid, documentType, resourceMetadata);
+    List<String> writeIndices = getWriteIndices();
+    try {
+      if (writeIndices.size() > 1) {
+        writeDeferringShadow(doc);
+        return;
+      }
+      if (writeIndices.get(0).equals(getShadowIndex()))
+        deferredShadowWrites.remove(key(documentType, uid));
+      if (version == null) {
+        update(doc);
+        return;
+      }
+      IndexRequestBuilder indexRequest = getSearchClient().prepareIndex(writeIndices.get(0), documentType, uid)
+              .setSource(doc).setRefreshPolicy(getRefreshPolicy());
+      if (version == Versions.MATCH_DELETED) {
+        indexRequest.setCreate(true);
+      } else {
+        indexRequest.setVersion(version);
+      }
+      IndexResponse response = indexRequest.execute().actionGet();
+      recordWrite(documentType, uid);
+      readVersions.get().put(key(documentType, uid), response.getVersion());
+    } catch (Throwable t) {
+      if (ExceptionsHelper.unwrapCause(t) instanceof VersionConflictEngineException) {
+        versionConflict.set(true);
+        throw new VersionConflictException("Resource " + resource + " has been changed since it has been read", t);
+      }
+      throw new SearchIndexException("Cannot write resource " + resource + " to index", t);
+    }
+  }
+
+  /**
+   * Writes a document which has not been read from a particular index to the index only, while the index is rebuilt.
+   * The document is based on the state of the index, so it is copied to the shadow index only when switching to it,
+   * see {@link #completeShadowRebuild()}, unless the shadow index has been updated by the rebuild itself meanwhile.
+   *
+   * @param doc
+   *          the document
+   */
+  private void writeDeferringShadow(ElasticsearchDocument doc) throws SearchIndexException {
+    synchronized (shadowSwitchLock) {
+      if (getShadowIndex() == null) {
+        update(doc);
+        return;
+      }
+      setTarget(getIndexName());
+      try {
+        update(doc);
+      } finally {
+        setTarget(null);
+      }
+      deferredShadowWrites.add(key(doc.getType(), doc.getUID()));
+    }
+  }
+
+  /**
+   * Makes the current thread remember the version of every document it reads from this index, until
+   * {@link #untrackVersions()} is called. Writes of the thread replacing or deleting a document it has read are then
+   * only applied if the document has not been changed by another writer in the meantime. Writes of a document which
+   * has been looked up by {@link #prepareUpdate(String, String)} but not found are only applied if the document still
+   * does not exist.
+   * <p>
+   * Writes to a batch are checked when the batch is flushed, see {@link #flush(IndexBatch, Collection)}. Versions are
+   * only checked on the index the document has been read from, not on the indices a write is mirrored to, and not
+   * while an index is rebuilt unless the thread has chosen a target, see {@link #setTarget(String)}, since the
+   * versions of the same document in different indices are unrelated.
+   */
+  public void trackVersions() {
+    readVersions.set(new HashMap<String, Long>());
+    versionConflict.remove();
+  }
+
+  /**
+   * Makes the current thread stop remembering the versions of the documents it reads.
+   *
+   * @return <code>true</code> if a write of the thread failed since {@link #trackVersions()}, because a document had
+   *         been changed since the thread has read it, in which case the resource has to be read and changed again
+   */
+  public boolean untrackVersions() {
+    boolean conflict = BooleanUtils.isTrue(versionConflict.get());
+    readVersions.remove();
+    versionConflict.remove();
+    return conflict;
+  }
+
+  /**
+   * Prepares reading the latest state of a single resource in order to change and write it again. Makes sure the
+   * writes of the resource acknowledged so far are searchable, see {@link #awaitWrite(String, String)}, and, if the
+   * current thread tracks versions, expects the resource not to exist until it is found.
+   *
+   * @param documentType
+   *          the document type
+   * @param uid
+   *          the document identifier
+   */
+  public void prepareUpdate(String documentType, String uid) {
+    awaitWrite(documentType, uid);
+    Map<String, Long> versions = readVersions.get();
+    if (versions != null)
+      versions.put(key(documentType, uid), Versions.MATCH_DELETED);
+  }
+
+  /**
+   * Returns the version of a document the current thread has read, if it tracks versions.
+   *
+   * @return the version, {@link Versions#MATCH_DELETED} if the document has not been found or <code>null</code> if
+   *         the version is not known
+   */
+  private Long getReadVersion(String documentType, String uid) {
+    Map<String, Long> versions = readVersions.get();
+    return versions == null ? null : versions.get(key(documentType, uid));
+  }
+
+  private static String key(String documentType, String uid) {
+    return documentType + "/" + uid;
+  }
+
+  /**
+   * Makes the current thread write partial updates, see {@link #updateFields(String, String, Map)}, to further
+   * indices in addition to this one, like {@link #flush(IndexBatch, Collection)} does for batches.
+   *
+   * @param mirrors
+   *          the further indices or <code>null</code> to write to this index only
+   */
+  public void setMirrors(Collection<? extends AbstractSearchIndex> mirrors) {
+    if (mirrors == null) {
+      currentMirrors.remove();
+    } else {
+      currentMirrors.set(mirrors);
+    }
+  }
+
+  /**
+   * Makes the current thread write to the given batch instead of the index, until {@link #leaveBatch()} is called.
+   * Several threads may join the same batch.
+   *
+   * @param batch
+   *          the batch
+   */
+  public void joinBatch(IndexBatch batch) {
+    currentBatch.set(batch);
+  }
+
+  /**
+   * Makes the current thread write to the index again.
+   */
+  public void leaveBatch() {
+    currentBatch.remove();
+  }
+
+  /**
+   * Returns the pending state of a resource within the batch the current thread has joined.
+   *
+   * @param documentType
+   *          the document type
+   * @param uid
+   *          the document identifier
+   * @return the batch entry or <code>null</code> if the thread has not joined a batch or the resource has not been
+   *         touched within the batch
+   */
+  public IndexBatch.Entry getBatchEntry(String documentType, String uid) {
+    IndexBatch batch = currentBatch.get();
+    return batch == null ? null : batch.get(documentType, uid);
+  }
+
+  /**
+   * Writes all changes of a batch to the index as one bulk request. The changes are searchable according to the
+   * configured refresh policy.
+   *
+   * @param batch
+   *          the batch
+   * @throws SearchIndexException
+   *           if writing to the index fails
+   */
+  public void flush(IndexBatch batch) throws SearchIndexException {
+    flush(batch, Collections.<AbstractSearchIndex> emptyList());
+  }
+
+  /**
+   * Writes all changes of a batch to this index and to further indices as one bulk request, so resources processed
+   * once end up in every index. Changes of document types a further index does not know are not written to that
+   * index. The changes are searchable according to the refresh policy configured for this index.
+   *
+   * @param batch
+   *          the batch
+   * <p>
+   * Changes of resources which have been read from this index while tracking versions, see {@link #trackVersions()},
+   * are only written if the documents have not been changed since.
+   *
+   * @param batch
+   *          the batch
+   * @param mirrors
+   *          the further indices to write the changes to
+   * @throws VersionConflictException
+   *           if a document has been changed since it has been read for the batch
+   * @throws SearchIndexException
+   *           if writing to any of the indices fails
+   */
+  public void flush(IndexBatch batch, Collection<? extends AbstractSearchIndex> mirrors) throws SearchIndexException {
+    if (batch.isEmpty())
+      return;
+
+    List<AbstractSearchIndex> indices = new ArrayList<>();
+    indices.add(this);
+    indices.addAll(mirrors);
+    List<String> indexNames = new ArrayList<>();
+    List<String[]> indexTypes = new ArrayList<>();
+    for (AbstractSearchIndex index : indices) {
+      for (String indexName : index.getWriteIndices()) {
+        if (indexNames.contains(indexName))
+          continue;
+        indexNames.add(indexName);
+        indexTypes.add(index.getDocumentTypes());
+      }
+    }
+
+    // Versions are checked on this index only, and only if the batch has been read from a single index
+    String versionedIndex = getWriteIndices().size() == 1 ? indexNames.get(0) : null;
+
+    // The rebuild supersedes earlier direct writes to the index
+    boolean shadowWrite = indexNames.contains(getShadowIndex());
+
+    logger.debug("Writing batch of {} resources to search indices {}", batch.size(), indexNames);
+    BulkRequestBuilder bulkRequest = getSearchClient().prepareBulk();
+    for (IndexBatch.Entry entry : batch.getEntries()) {
+      if (shadowWrite)
+        deferredShadowWrites.remove(key(entry.getDocumentType(), entry.getUID()));
+      ElasticsearchDocument doc = entry.isDeleted() ? null
+              : new ElasticsearchDocument(entry.getUID(), entry.getDocumentType(), entry.getMetadata().getMetadata());
+      for (int i = 0; i < indexNames.size(); i++) {
+        if (!ArrayUtils.contains(indexTypes.get(i), entry.getDocumentType()))
+          continue;
+        String indexName = indexNames.get(i);
+        Long version = indexName.equals(versionedIndex) ? entry.getVersion() : null;
+        if (doc == null) {
+          DeleteRequestBuilder deleteRequest = getSearchClient().prepareDelete(indexName, entry.getDocumentType(),
+                  entry.getUID());
+          if (version != null && version != Versions.MATCH_DELETED)
+            deleteRequest.setVersion(version);
+          bulkRequest.add(deleteRequest);
+        } else {
+          IndexRequestBuilder indexRequest = getSearchClient().prepareIndex(indexName, doc.getType(), doc.getUID())
+                  .setSource(doc);
+          if (version != null && version == Versions.MATCH_DELETED) {
+            indexRequest.setCreate(true);
+          } else if (version != null) {
+            indexRequest.setVersion(version);
+          }
+          bulkRequest.add(indexRequest);
+        }
+      }
+    }
+    if (bulkRequest.numberOfActions() == 0)
+      return;
+    bulkRequest.setRefreshPolicy(getRefreshPolicy());
+
+    BulkResponse bulkResponse;
     try {
-      update(doc);
+      bulkResponse = bulkRequest.execute().actionGet();
+      for (AbstractSearchIndex index : indices) {
+        for (IndexBatch.Entry entry : batch.getEntries()) {
+          index.recordWrite(getRefreshPolicy(), entry.getDocumentType(), entry.getUID());
+        }
+      }
     } catch (Throwable t) {
-      throw new SearchIndexException("Cannot write resource " + theme + " to index", t);
+      throw new SearchIndexException("Cannot write batch to indices " + indexNames, t);
+    }
+    if (bulkResponse.hasFailures()) {
+      for (BulkItemResponse item : bulkResponse.getItems()) {
+        if (item.isFailed() && item.getFailure().getStatus() == RestStatus.CONFLICT) {
+          logger.debug("Document {} of index '{}' has been changed since it has been read", item.getId(),
+                  item.getIndex());
+          throw new VersionConflictException(item.getFailureMessage());
+        } else if (item.isFailed()) {
+          logger.warn("Error writing {} to index '{}': {}", item.getId(), item.getIndex(), item.getFailureMessage());
+          throw new SearchIndexException(item.getFailureMessage());
+        }
+      }
     }
   }
 
+  /**
+   * Updates single fields of an indexed document without reading and rewriting the whole resource. Elasticsearch
+   * merges the fields into the stored document and retries on concurrent modifications of the document, based on its
+   * version, so concurrent partial updates of the same document don't lose each other's changes. Full writes of a
+   * resource read before a partial update only overwrite the updated fields if they are not version checked, see
+   * {@link #trackVersions()}.
+   * <p>
+   * The fields are updated in all indices the current thread writes to, including the further indices set by
+   * {@link #setMirrors(Collection)} which know the document type.
+   * <p>
+   * Only fields whose indexed values take precedence over the serialized resource when it is read may be updated this
+   * way, e.g. {@link EventIndexUtils#PARTIALLY_UPDATED_FIELDS}.
+   *
+   * @param documentType
+   *          the document type
+   * @param uid
+   *          the document identifier
+   * @param fields
+   *          the new field values
+   * @return <code>false</code> if the current thread writes to a batch, in which case the caller has to write the full
+   *         resource instead
+   * @throws NotFoundException
+   *           if the document does not exist in any of the indices
+   * @throws SearchIndexException
+   *           if the update fails
+   */
+  public boolean updateFields(String documentType, String uid, Map<String, Object> fields)
+          throws NotFoundException, SearchIndexException {
+    if (currentBatch.get() != null)
+      return false;
+
+    List<AbstractSearchIndex> indices = new ArrayList<>();
+    indices.add(this);
+    Collection<? extends AbstractSearchIndex> mirrors = currentMirrors.get();
+    if (mirrors != null) {
+      for (AbstractSearchIndex mirror : mirrors) {
+        if (mirror != this && ArrayUtils.contains(mirror.getDocumentTypes(), documentType))
+          indices.add(mirror);
+      }
+    }
+    List<String> indexNames = new ArrayList<>();
+    for (AbstractSearchIndex index : indices) {
+      for (String indexName : index.getWriteIndices()) {
+        if (!indexNames.contains(indexName))
+          indexNames.add(indexName);
+      }
+    }
+
+    logger.debug("Updating fields {} of element with id '{}' in search indices {}", fields.keySet(), uid, indexNames);
+    BulkRequestBuilder bulkRequest = getSearchClient().prepareBulk();
+    for (String indexName : indexNames) {
+      bulkRequest.add(getSearchClient().prepareUpdate(indexName, documentType, uid).setDoc(fields)
+              .setRetryOnConflict(PARTIAL_UPDATE_RETRIES));
+    }
+    bulkRequest.setRefreshPolicy(getRefreshPolicy());
+
+    BulkResponse bulkResponse;
+    try {
+      bulkResponse = bulkRequest.execute().actionGet();
+      for (AbstractSearchIndex index : indices) {
+        index.recordWrite(getRefreshPolicy(), documentType, uid);
+      }
+    } catch (Throwable t) {
+      throw new SearchIndexException("Cannot update fields of " + uid + " in indices " + indexNames, t);
+    }
+
+    // The document may be missing in some of the indices, e.g. in a shadow index which is not fully rebuilt yet
+    boolean updated = false;
+    for (BulkItemResponse item : bulkResponse.getItems()) {
+      if (!item.isFailed()) {
+        updated = true;
+      } else if (!(ExceptionsHelper.unwrapCause(item.getFailure().getCause()) instanceof DocumentMissingException)) {
+        throw new SearchIndexException("Cannot update fields of " + uid + " in index " + item.getIndex() + ": "
+                + item.getFailureMessage());
+      }
+    }
+    if (!updated)
+      throw new NotFoundException("No document " + uid + " of type " + documentType + " found");
+
+    // Later version checked writes of the current thread are based on the updated document
+    BulkItemResponse own = bulkResponse.getItems()[0];
+    if (getReadVersion(documentType, uid) != null && getWriteIndices().size() == 1 && !own.isFailed())
+      readVersions.get().put(key(documentType, uid), own.getResponse().getVersion());
+    return true;
+  }
+
   @Override
   public boolean delete(String documentType, String uid) throws SearchIndexException {
     logger.debug("Removing element with id '{}' from searching index '{}'", uid, getIndexName());
 
-    DeleteRequestBuilder deleteRequest = getSearchClient().prepareDelete(getIndexName(), documentType, uid);
-    deleteRequest.setRefreshPolicy(WriteRequest.RefreshPolicy.IMMEDIATE);
-    DeleteResponse delete = deleteRequest.execute().actionGet();
+    Long version = getReadVersion(documentType, uid);
+    IndexBatch batch = currentBatch.get();
+    if (batch != null) {
+      batch.delete(documentType, uid, version);
+      return true;
+    }
+
+    List<String> writeIndices = getWriteIndices();
+    DeleteResponse delete = null;
+    for (String writeIndex : writeIndices) {
+      DeleteRequestBuilder deleteRequest = getSearchClient().prepareDelete(writeIndex, documentType, uid);
+      deleteRequest.setRefreshPolicy(getRefreshPolicy());
+      if (version != null && version != Versions.MATCH_DELETED && writeIndices.size() == 1)
+        deleteRequest.setVersion(version);
+      DeleteResponse response;
+      try {
+        response = deleteRequest.execute().actionGet();
+      } catch (RuntimeException e) {
+        if (!(ExceptionsHelper.unwrapCause(e) instanceof VersionConflictEngineException))
+          throw e;
+        versionConflict.set(true);
+        throw new VersionConflictException("Document " + uid + " has been changed since it has been read", e);
+      }
+      if (delete == null)
+        delete = response;
+    }
+    recordWrite(documentType, uid);
+    if (writeIndices.contains(getShadowIndex()))
+      deferredShadowWrites.remove(key(documentType, uid));
+    if (version != null)
+      readVersions.get().put(key(documentType, uid), Versions.MATCH_DELETED);
     if (delete.getResult() == DocWriteResponse.Result.NOT_FOUND) {
       logger.trace("Document {} to delete was not found on index '{}'", uid, getIndexName());
       return false;
@@ -499,6 +1109,7 @@ public abstract class AbstractSearchIndex extends AbstractElasticsearchIndex {
     logger.debug("Searching index using event query '{}'", query);
     // Create the request builder
     SearchRequestBuilder requestBuilder = getSearchRequestBuilder(query, new EventQueryBuilder(query));
+    requestBuilder.setFetchSource(EventIndexUtils.PARTIALLY_UPDATED_FIELDS, null);
 
     try {
       Unmarshaller unmarshaller = Event.createUnmarshaller();
@@ -616,7 +1227,7 @@ public abstract class AbstractSearchIndex extends AbstractElasticsearchIndex {
   public List<String> getTermsForField(String field, Option<String[]> types) {
     final String facetName = "terms";
     AggregationBuilder aggBuilder = AggregationBuilders.terms(facetName).field(field);
-    SearchRequestBuilder search = getSearchClient().prepareSearch(getIndexName()).addAggregation(aggBuilder);
+    SearchRequestBuilder search = getSearchClient().prepareSearch(getReadIndex()).addAggregation(aggBuilder);
 
     if (types.isSome())
       search = search.setTypes(types.get());
@@ -647,6 +1258,11 @@ public abstract class AbstractSearchIndex extends AbstractElasticsearchIndex {
    */
   protected <T> SearchResult<T> executeQuery(SearchQuery query, SearchRequestBuilder requestBuilder,
           Fn<SearchMetadataCollection, T> toSearchResult) throws SearchIndexException {
+    // Remember the versions of the documents read if the current thread writes them back version checked
+    Map<String, Long> versions = readVersions.get();
+    if (versions != null)
+      requestBuilder.setVersion(true);
+
     // Execute the query and try to get hold of a query response
     SearchResponse response = null;
     try {
@@ -686,6 +1302,35 @@ public abstract class AbstractSearchIndex extends AbstractElasticsearchIndex {
         metadata.add(m);
       }
 
+      // Add the requested fields of the source document which are not stored separately
+      if (doc.getSource() != null) {
+        for (Map.Entry<String, Object> field : doc.getSource().entrySet()) {
+          if (doc.getFields().containsKey(field.getKey()))
+            continue;
+          SearchMetadata<Object> m = new SearchMetadataImpl<>(field.getKey());
+          if (field.getValue() instanceof Collection) {
+            for (Object v : (Collection<?>) field.getValue()) {
+              m.addValue(v);
+            }
+          } else if (field.getValue() != null) {
+            m.addValue(field.getValue());
+          }
+          metadata.add(m);
+        }
+      }
+
+      // Prefer the state of the batch the current thread has joined over the state of the index
+      IndexBatch.Entry pending = getBatchEntry(doc.getType(), doc.getId());
+      if (pending != null) {
+        if (pending.isDeleted()) {
+          size--;
+          continue;
+        }
+        metadata = pending.getMetadata();
+      } else if (versions != null) {
+        versions.put(key(doc.getType(), doc.getId()), doc.getVersion());
+      }
+
       // Get the score for this item
       float score = doc.getScore();
 
@@ -705,6 +1350,13 @@ public abstract class AbstractSearchIndex extends AbstractElasticsearchIndex {
     // Set the number of resulting documents
     result.setDocumentCount(size);
 
+    // A full page may be followed by more results, which the next page continues after the last hit
+    SearchHit[] page = response.getHits().getHits();
+    if (query.getCursor() != null && page.length > 0 && page.length == requestBuilder.request().source().size()) {
+      SearchCursor next = SearchCursor.parse(query).next(page.length, page[page.length - 1].getSortValues());
+      result.setNextCursor(next.serialize());
+    }
+
     return result;
   }
 }
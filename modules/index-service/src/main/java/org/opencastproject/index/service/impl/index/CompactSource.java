@@ -0,0 +1,266 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+package org.opencastproject.index.service.impl.index;
+
+import org.opencastproject.mediapackage.MediaPackageElement;
+import org.opencastproject.mediapackage.MediaPackageElementParser;
+import org.opencastproject.mediapackage.MediaPackageException;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compact JSON representation of the resources stored in the search indices, replacing their JAXB XML serialization.
+ * <p>
+ * The representation holds the version of the format and the non-null instance fields of the resource, keyed by field
+ * name. Fields unknown to the current class are ignored and missing fields keep the value set by the default
+ * constructor, so fields may be added to a resource without changing the format version. Publications are kept in
+ * their XML form, as media package elements only come with an XML serialization.
+ */
+public final class CompactSource {
+
+  /** The version of the format written by this class */
+  public static final int VERSION = 1;
+
+  /** Key of the format version */
+  private static final String VERSION_KEY = "v";
+
+  /** Key of the resource fields */
+  private static final String FIELDS_KEY = "f";
+
+  /** The serialized fields per resource class */
+  private static final Map<Class<?>, List<Field>> fields = new ConcurrentHashMap<>();
+
+  private CompactSource() {
+  }
+
+  /**
+   * Serializes a resource.
+   *
+   * @param resource
+   *          the resource
+   * @return the compact representation
+   */
+  @SuppressWarnings("unchecked")
+  public static String write(IndexObject resource) {
+    JSONObject values = new JSONObject();
+    for (Field field : getFields(resource.getClass())) {
+      try {
+        Object value = field.get(resource);
+        if (value != null)
+          values.put(field.getName(), toJson(field, value));
+      } catch (IllegalAccessException | MediaPackageException e) {
+        throw new IllegalStateException("Unable to serialize field " + field.getName() + " of " + resource, e);
+      }
+    }
+    JSONObject json = new JSONObject();
+    json.put(VERSION_KEY, VERSION);
+    json.put(FIELDS_KEY, values);
+    return json.toJSONString();
+  }
+
+  /**
+   * Deserializes a resource.
+   *
+   * @param source
+   *          the compact representation
+   * @param type
+   *          the resource class
+   * @return the resource
+   * @throws IOException
+   *           if the representation cannot be read
+   */
+  public static <T extends IndexObject> T read(String source, Class<T> type) throws IOException {
+    try {
+      JSONObject json = (JSONObject) new JSONParser().parse(source);
+      int version = ((Number) json.get(VERSION_KEY)).intValue();
+      if (version > VERSION)
+        throw new IOException("Unsupported version " + version + " of compact " + type.getSimpleName());
+
+      Constructor<T> constructor = type.getDeclaredConstructor();
+      constructor.setAccessible(true);
+      T resource = constructor.newInstance();
+      JSONObject values = (JSONObject) json.get(FIELDS_KEY);
+      for (Field field : getFields(type)) {
+        if (values.containsKey(field.getName()))
+          field.set(resource, fromJson(field, values.get(field.getName())));
+      }
+      return resource;
+    } catch (IOException e) {
+      throw e;
+    } catch (ParseException | ReflectiveOperationException | MediaPackageException | RuntimeException e) {
+      throw new IOException("Unable to read compact " + type.getSimpleName(), e);
+    }
+  }
+
+  /**
+   * Returns the instance fields of a class which are serialized.
+   *
+   * @throws IllegalStateException
+   *           if the class has fields of an unsupported type, see {@link #getUnsupportedFields(Class)}
+   */
+  private static List<Field> getFields(Class<?> type) {
+    List<Field> result = fields.get(type);
+    if (result != null)
+      return result;
+
+    List<String> unsupported = getUnsupportedFields(type);
+    if (!unsupported.isEmpty())
+      throw new IllegalStateException("Fields " + unsupported + " of " + type.getName() + " have an unsupported type");
+
+    result = new ArrayList<>();
+    for (Field field : getInstanceFields(type)) {
+      field.setAccessible(true);
+      result.add(field);
+    }
+    result = Collections.unmodifiableList(result);
+    fields.put(type, result);
+    return result;
+  }
+
+  /**
+   * Returns the names of the instance fields of a class which cannot be serialized because of their type. This has to
+   * be empty for all resources stored in the search indices, which is checked by a unit test.
+   *
+   * @param type
+   *          the resource class
+   * @return the names of the unsupported fields
+   */
+  static List<String> getUnsupportedFields(Class<?> type) {
+    List<String> result = new ArrayList<>();
+    for (Field field : getInstanceFields(type)) {
+      if (!isSupported(field))
+        result.add(field.getName());
+    }
+    return result;
+  }
+
+  private static List<Field> getInstanceFields(Class<?> type) {
+    List<Field> result = new ArrayList<>();
+    for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+      for (Field field : c.getDeclaredFields()) {
+        int modifiers = field.getModifiers();
+        if (!Modifier.isStatic(modifiers) && !Modifier.isTransient(modifiers) && !field.isSynthetic())
+          result.add(field);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns whether a field has one of the types {@link #toJson(Field, Object)} and {@link #fromJson(Field, Object)}
+   * convert.
+   */
+  private static boolean isSupported(Field field) {
+    Class<?> type = field.getType();
+    if (type == String.class || type == Date.class || type == Boolean.class || type == boolean.class
+            || type == Long.class || type == long.class || type == Integer.class || type == int.class)
+      return true;
+    if (List.class == type || Set.class == type) {
+      Class<?> element = getTypeArgument(field, 0);
+      return element == String.class || (type == List.class && MediaPackageElement.class.isAssignableFrom(element));
+    }
+    if (Map.class == type)
+      return getTypeArgument(field, 0) == String.class && getTypeArgument(field, 1) == String.class;
+    return false;
+  }
+
+  private static Class<?> getTypeArgument(Field field, int index) {
+    Type type = field.getGenericType();
+    if (!(type instanceof ParameterizedType))
+      return Object.class;
+    Type argument = ((ParameterizedType) type).getActualTypeArguments()[index];
+    return argument instanceof Class ? (Class<?>) argument : Object.class;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Object toJson(Field field, Object value) throws MediaPackageException {
+    if (value instanceof Date)
+      return ((Date) value).getTime();
+    if (value instanceof Collection) {
+      JSONArray array = new JSONArray();
+      for (Object element : (Collection<?>) value) {
+        array.add(element instanceof MediaPackageElement
+                ? MediaPackageElementParser.getAsXml((MediaPackageElement) element) : element);
+      }
+      return array;
+    }
+    if (value instanceof Map) {
+      JSONObject object = new JSONObject();
+      object.putAll((Map<?, ?>) value);
+      return object;
+    }
+    return value;
+  }
+
+  private static Object fromJson(Field field, Object value) throws MediaPackageException {
+    if (value == null)
+      return null;
+    Class<?> type = field.getType();
+    if (type == Date.class)
+      return new Date(((Number) value).longValue());
+    if (type == Long.class || type == long.class)
+      return ((Number) value).longValue();
+    if (type == Integer.class || type == int.class)
+      return ((Number) value).intValue();
+    if (type == List.class) {
+      boolean elements = MediaPackageElement.class.isAssignableFrom(getTypeArgument(field, 0));
+      List<Object> list = new ArrayList<>();
+      for (Object element : (JSONArray) value) {
+        list.add(elements ? MediaPackageElementParser.getFromXml((String) element) : element);
+      }
+      return list;
+    }
+    if (type == Set.class)
+      return new LinkedHashSet<Object>((JSONArray) value);
+    if (type == Map.class) {
+      Map<String, String> map = new HashMap<>();
+      for (Object entry : ((JSONObject) value).entrySet()) {
+        Map.Entry<?, ?> e = (Map.Entry<?, ?>) entry;
+        map.put((String) e.getKey(), (String) e.getValue());
+      }
+      return map;
+    }
+    return value;
+  }
+
+}
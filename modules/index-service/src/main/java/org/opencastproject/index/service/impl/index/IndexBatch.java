@@ -0,0 +1,180 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+package org.opencastproject.index.service.impl.index;
+
+import org.opencastproject.matterhorn.search.impl.SearchMetadataCollection;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resources added to or deleted from a search index while a batch of messages is processed. The batch is written to
+ * the index as a single bulk request once all of its messages have been handled, see
+ * {@link AbstractSearchIndex#flush(IndexBatch)}. Until then, reads through the search index return the state of the
+ * batch, so later messages of a batch see the changes of earlier ones.
+ */
+public final class IndexBatch {
+
+  /** The pending entries, keyed by document type and identifier */
+  private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+  /**
+   * Records a resource to be added or updated.
+   *
+   * @param metadata
+   *          the search metadata of the resource
+   * @param version
+   *          the version of the document the resource has been read from or <code>null</code> if not known, see
+   *          {@link AbstractSearchIndex#trackVersions()}
+   */
+  void put(SearchMetadataCollection metadata, Long version) {
+    put(new Entry(metadata.getDocumentType(), metadata.getIdentifier(), metadata, version));
+  }
+
+  /**
+   * Records a resource to be deleted.
+   *
+   * @param documentType
+   *          the document type
+   * @param uid
+   *          the document identifier
+   * @param version
+   *          the version of the document the resource has been read from or <code>null</code> if not known
+   */
+  void delete(String documentType, String uid, Long version) {
+    put(new Entry(documentType, uid, null, version));
+  }
+
+  /**
+   * Records an entry, keeping the version of an earlier entry of the same resource, as the batch is written to the
+   * document the resource has been read from first.
+   */
+  private void put(Entry entry) {
+    entries.merge(key(entry.getDocumentType(), entry.getUID()), entry,
+            (previous, next) -> new Entry(next.documentType, next.uid, next.metadata, previous.version));
+  }
+
+  /**
+   * Returns the pending entry for a resource.
+   *
+   * @param documentType
+   *          the document type
+   * @param uid
+   *          the document identifier
+   * @return the entry or <code>null</code> if the resource has not been touched within this batch
+   */
+  public Entry get(String documentType, String uid) {
+    return entries.get(key(documentType, uid));
+  }
+
+  /**
+   * Returns all pending entries.
+   *
+   * @return the entries
+   */
+  List<Entry> getEntries() {
+    return new ArrayList<>(entries.values());
+  }
+
+  /**
+   * Returns the number of resources touched within this batch.
+   *
+   * @return the number of entries
+   */
+  public int size() {
+    return entries.size();
+  }
+
+  /**
+   * Returns <code>true</code> if no resource has been touched within this batch.
+   *
+   * @return whether the batch is empty
+   */
+  public boolean isEmpty() {
+    return entries.isEmpty();
+  }
+
+  private static String key(String documentType, String uid) {
+    return documentType + "/" + uid;
+  }
+
+  /**
+   * A resource added, updated or deleted within a batch.
+   */
+  public static final class Entry {
+
+    private final String documentType;
+
+    private final String uid;
+
+    private final SearchMetadataCollection metadata;
+
+    private final Long version;
+
+    private Entry(String documentType, String uid, SearchMetadataCollection metadata, Long version) {
+      this.documentType = documentType;
+      this.uid = uid;
+      this.metadata = metadata;
+      this.version = version;
+    }
+
+    /**
+     * @return the document type
+     */
+    public String getDocumentType() {
+      return documentType;
+    }
+
+    /**
+     * @return the document identifier
+     */
+    public String getUID() {
+      return uid;
+    }
+
+    /**
+     * @return the search metadata of the resource or <code>null</code> if the resource has been deleted
+     */
+    public SearchMetadataCollection getMetadata() {
+      return metadata;
+    }
+
+    /**
+     * @return the version of the document the resource has been read from or <code>null</code> if not known
+     */
+    public Long getVersion() {
+      return version;
+    }
+
+    /**
+     * @return whether the resource has been deleted
+     */
+    public boolean isDeleted() {
+      return metadata == null;
+    }
+
+  }
+
+}
@@ -0,0 +1,57 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.index.service.impl.index;
+
+import org.opencastproject.matterhorn.search.SearchIndexException;
+
+/**
+ * Exception thrown if a document is not written because it has been changed since it has been read, see
+ * {@link AbstractSearchIndex#trackVersions()}. The resource has to be read and changed again.
+ */
+public class VersionConflictException extends SearchIndexException {
+
+  /** Serial version uid */
+  private static final long serialVersionUID = -2715030425917309718L;
+
+  /**
+   * Creates a new version conflict exception with the given message.
+   *
+   * @param message
+   *          the exception message
+   */
+  public VersionConflictException(String message) {
+    super(message);
+  }
+
+  /**
+   * Creates a new version conflict exception with the given message and root cause.
+   *
+   * @param message
+   *          the exception message
+   * @param cause
+   *          the root cause
+   */
+  public VersionConflictException(String message, Throwable cause) {
+    super(message, cause);
+  }
+
+}
@@ -38,6 +38,9 @@ public interface EventIndexSchema extends IndexSchema {
   /** The recording object */
   String OBJECT = "object";
 
+  /** The compact serialization of the event, see {@link org.opencastproject.index.service.impl.index.CompactSource} */
+  String COMPACT_OBJECT = "compact_object";
+
   /** The event series identifier */
   String SERIES_ID = "series_id";
 
@@ -23,6 +23,8 @@ package org.opencastproject.index.service.impl.index.event;
 
 
 import org.opencastproject.index.service.impl.index.AbstractSearchIndex;
+import org.opencastproject.index.service.impl.index.CompactSource;
+import org.opencastproject.index.service.impl.index.IndexBatch;
 import org.opencastproject.index.service.impl.index.series.Series;
 import org.opencastproject.index.service.impl.index.series.SeriesSearchQuery;
 import org.opencastproject.matterhorn.search.SearchIndexException;
@@ -79,6 +81,14 @@ public final class EventIndexUtils {
   // The amount of time in ms to wait before trying to get the series title again.
   public static final long DEFAULT_SLEEP = 100L;
 
+  /**
+   * Fields which may be updated without rewriting the whole event, see
+   * {@link AbstractSearchIndex#updateFields(String, String, Map)}. Their indexed values take precedence over the
+   * serialized event.
+   */
+  public static final String[] PARTIALLY_UPDATED_FIELDS = { EventIndexSchema.HAS_COMMENTS,
+          EventIndexSchema.HAS_OPEN_COMMENTS, EventIndexSchema.NEEDS_CUTTING, EventIndexSchema.MANAGED_ACL };
+
   /**
    * This is a utility class and should therefore not be instantiated.
    */
@@ -97,8 +107,31 @@ public final class EventIndexUtils {
    */
   public static Event toRecordingEvent(SearchMetadataCollection metadata, Unmarshaller unmarshaller) throws IOException {
     Map<String, SearchMetadata<?>> metadataMap = metadata.toMap();
-    String eventJson = (String) metadataMap.get(EventIndexSchema.OBJECT).getValue();
-    return Event.valueOf(IOUtils.toInputStream(eventJson, Charset.defaultCharset()), unmarshaller);
+    Event event;
+    if (metadataMap.containsKey(EventIndexSchema.COMPACT_OBJECT)) {
+      event = CompactSource.read((String) metadataMap.get(EventIndexSchema.COMPACT_OBJECT).getValue(), Event.class);
+    } else {
+      // Events indexed before the compact serialization was introduced
+      String eventXml = (String) metadataMap.get(EventIndexSchema.OBJECT).getValue();
+      event = Event.valueOf(IOUtils.toInputStream(eventXml, Charset.defaultCharset()), unmarshaller);
+    }
+
+    // Apply the fields which may have been updated after the event has been serialized
+    if (metadataMap.containsKey(EventIndexSchema.HAS_COMMENTS))
+      event.setHasComments(toBoolean(metadataMap.get(EventIndexSchema.HAS_COMMENTS)));
+    if (metadataMap.containsKey(EventIndexSchema.HAS_OPEN_COMMENTS))
+      event.setHasOpenComments(toBoolean(metadataMap.get(EventIndexSchema.HAS_OPEN_COMMENTS)));
+    if (metadataMap.containsKey(EventIndexSchema.NEEDS_CUTTING))
+      event.setNeedsCutting(toBoolean(metadataMap.get(EventIndexSchema.NEEDS_CUTTING)));
+    if (metadataMap.containsKey(EventIndexSchema.MANAGED_ACL)) {
+      Object managedAcl = metadataMap.get(EventIndexSchema.MANAGED_ACL).getValue();
+      event.setManagedAcl(managedAcl == null ? null : managedAcl.toString());
+    }
+    return event;
+  }
+
+  private static boolean toBoolean(SearchMetadata<?> metadata) {
+    return metadata.getValue() != null && Boolean.parseBoolean(metadata.getValue().toString());
   }
 
   /**
@@ -113,7 +146,7 @@ public final class EventIndexUtils {
             event.getIdentifier().concat(event.getOrganization()), Event.DOCUMENT_TYPE);
     metadata.addField(EventIndexSchema.UID, event.getIdentifier(), true);
     metadata.addField(EventIndexSchema.ORGANIZATION, event.getOrganization(), false);
-    metadata.addField(EventIndexSchema.OBJECT, event.toXML(), false);
+    metadata.addField(EventIndexSchema.COMPACT_OBJECT, CompactSource.write(event), false);
     if (StringUtils.isNotBlank(event.getTitle()))
       metadata.addField(EventIndexSchema.TITLE, event.getTitle(), true);
     if (StringUtils.isNotBlank(event.getDescription()))
@@ -384,6 +417,18 @@ public final class EventIndexUtils {
    */
   public static Event getOrCreateEvent(String mediapackageId, String organization, User user,
           AbstractSearchIndex searchIndex) throws SearchIndexException {
+    IndexBatch.Entry pending = searchIndex.getBatchEntry(Event.DOCUMENT_TYPE, mediapackageId.concat(organization));
+    if (pending != null) {
+      if (pending.isDeleted())
+        return new Event(mediapackageId, organization);
+      try {
+        return toRecordingEvent(pending.getMetadata(), Event.createUnmarshaller());
+      } catch (IOException e) {
+        throw new SearchIndexException("Unable to read pending event " + mediapackageId.concat(organization), e);
+      }
+    }
+
+    searchIndex.prepareUpdate(Event.DOCUMENT_TYPE, mediapackageId.concat(organization));
     EventSearchQuery query = new EventSearchQuery(organization, user).withoutActions().withIdentifier(mediapackageId);
     SearchResult<Event> searchResult = searchIndex.getByQuery(query);
     if (searchResult.getDocumentCount() == 0) {
@@ -415,6 +460,18 @@ public final class EventIndexUtils {
    */
   public static Event getEvent(String mediapackageId, String organization, User user, AbstractSearchIndex searchIndex)
           throws SearchIndexException {
+    IndexBatch.Entry pending = searchIndex.getBatchEntry(Event.DOCUMENT_TYPE, mediapackageId.concat(organization));
+    if (pending != null) {
+      if (pending.isDeleted())
+        return null;
+      try {
+        return toRecordingEvent(pending.getMetadata(), Event.createUnmarshaller());
+      } catch (IOException e) {
+        throw new SearchIndexException("Unable to read pending event " + mediapackageId.concat(organization), e);
+      }
+    }
+
+    searchIndex.prepareUpdate(Event.DOCUMENT_TYPE, mediapackageId.concat(organization));
     EventSearchQuery query = new EventSearchQuery(organization, user).withoutActions().withIdentifier(mediapackageId);
     SearchResult<Event> searchResult = searchIndex.getByQuery(query);
     if (searchResult.getDocumentCount() == 0) {
@@ -635,6 +692,13 @@ public final class EventIndexUtils {
     if (!hasOpenComments && needsCutting)
       throw new IllegalStateException(
               "Invalid comment update request: You can't have an needs cutting comment without having any open comments!");
+    Map<String, Object> fields = new HashMap<>();
+    fields.put(EventIndexSchema.HAS_COMMENTS, hasComments);
+    fields.put(EventIndexSchema.HAS_OPEN_COMMENTS, hasOpenComments);
+    fields.put(EventIndexSchema.NEEDS_CUTTING, needsCutting);
+    if (searchIndex.updateFields(Event.DOCUMENT_TYPE, eventId.concat(organization), fields))
+      return;
+
     Event event = getEvent(eventId, organization, user, searchIndex);
     if (event == null)
       throw new NotFoundException("No event with id " + eventId + " found.");
@@ -676,9 +740,8 @@ public final class EventIndexUtils {
     if (result != null && result.getHitCount() > 0) {
       for (SearchResultItem<Event> eventItem : result.getItems()) {
         Event event = eventItem.getSource();
-        event.setManagedAcl(newManagedAcl);
         try {
-          searchIndex.addOrUpdate(event);
+          updateManagedAcl(event, newManagedAcl, searchIndex);
         } catch (SearchIndexException e) {
           logger.warn(
                   "Unable to update event '{}' from current managed acl '{}' to new managed acl name '{}'",
@@ -713,9 +776,8 @@ public final class EventIndexUtils {
     if (result != null && result.getHitCount() > 0) {
       for (SearchResultItem<Event> eventItem : result.getItems()) {
         Event event = eventItem.getSource();
-        event.setManagedAcl(null);
         try {
-          searchIndex.addOrUpdate(event);
+          updateManagedAcl(event, null, searchIndex);
         } catch (SearchIndexException e) {
           logger.warn("Unable to update event '{}' to remove managed acl '{}'", event, managedAcl, e);
         }
@@ -723,6 +785,24 @@ public final class EventIndexUtils {
     }
   }
 
+  /**
+   * Sets the managed acl of an indexed event, using a partial update if possible.
+   */
+  private static void updateManagedAcl(Event event, String managedAcl, AbstractSearchIndex searchIndex)
+          throws SearchIndexException {
+    Map<String, Object> fields = new HashMap<>();
+    fields.put(EventIndexSchema.MANAGED_ACL, managedAcl);
+    try {
+      if (searchIndex.updateFields(Event.DOCUMENT_TYPE, event.getIdentifier().concat(event.getOrganization()), fields))
+        return;
+    } catch (NotFoundException e) {
+      logger.debug("Event {} has been removed before its managed acl could be updated", event.getIdentifier());
+      return;
+    }
+    event.setManagedAcl(managedAcl);
+    searchIndex.addOrUpdate(event);
+  }
+
   /**
    * Gets all of the MediaPackageElement's flavors.
    *
@@ -35,6 +35,9 @@ public interface GroupIndexSchema extends IndexSchema {
   /** The serialized version of this group in xml format. */
   String OBJECT = "object";
 
+  /** The compact serialization of the group, see {@link org.opencastproject.index.service.impl.index.CompactSource} */
+  String COMPACT_OBJECT = "compact_object";
+
   /** The name of the group */
   String NAME = "name";
 
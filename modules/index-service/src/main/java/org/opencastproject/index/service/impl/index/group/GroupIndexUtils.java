@@ -23,6 +23,8 @@
 package org.opencastproject.index.service.impl.index.group;
 
 import org.opencastproject.index.service.impl.index.AbstractSearchIndex;
+import org.opencastproject.index.service.impl.index.CompactSource;
+import org.opencastproject.index.service.impl.index.IndexBatch;
 import org.opencastproject.matterhorn.search.SearchIndexException;
 import org.opencastproject.matterhorn.search.SearchMetadata;
 import org.opencastproject.matterhorn.search.SearchResult;
@@ -63,6 +65,9 @@ public final class GroupIndexUtils {
    */
   public static Group toGroup(SearchMetadataCollection metadata, Unmarshaller unmarshaller) throws IOException {
     Map<String, SearchMetadata<?>> metadataMap = metadata.toMap();
+    if (metadataMap.containsKey(GroupIndexSchema.COMPACT_OBJECT))
+      return CompactSource.read((String) metadataMap.get(GroupIndexSchema.COMPACT_OBJECT).getValue(), Group.class);
+    // Groups indexed before the compact serialization was introduced
     String groupXml = (String) metadataMap.get(GroupIndexSchema.OBJECT).getValue();
     return Group.valueOf(IOUtils.toInputStream(groupXml), unmarshaller);
   }
@@ -79,7 +84,7 @@ public final class GroupIndexUtils {
             group.getOrganization()), Group.DOCUMENT_TYPE);
     metadata.addField(GroupIndexSchema.UID, group.getIdentifier(), true);
     metadata.addField(GroupIndexSchema.ORGANIZATION, group.getOrganization(), false);
-    metadata.addField(GroupIndexSchema.OBJECT, group.toXML(), false);
+    metadata.addField(GroupIndexSchema.COMPACT_OBJECT, CompactSource.write(group), false);
     metadata.addField(GroupIndexSchema.ROLE, group.getRole(), true);
     if (StringUtils.isNotBlank(group.getDescription())) {
       metadata.addField(GroupIndexSchema.DESCRIPTION, group.getDescription(), true);
@@ -115,6 +120,18 @@ public final class GroupIndexUtils {
    */
   public static Group getOrCreate(String groupId, String organization, User user, AbstractSearchIndex searchIndex)
           throws SearchIndexException {
+    IndexBatch.Entry pending = searchIndex.getBatchEntry(Group.DOCUMENT_TYPE, groupId.concat(organization));
+    if (pending != null) {
+      if (pending.isDeleted())
+        return new Group(groupId, organization);
+      try {
+        return toGroup(pending.getMetadata(), Group.createUnmarshaller());
+      } catch (IOException e) {
+        throw new SearchIndexException("Unable to read pending group " + groupId.concat(organization), e);
+      }
+    }
+
+    searchIndex.prepareUpdate(Group.DOCUMENT_TYPE, groupId.concat(organization));
     GroupSearchQuery query = new GroupSearchQuery(organization, user).withoutActions().withIdentifier(groupId);
     SearchResult<Group> searchResult = searchIndex.getByQuery(query);
     if (searchResult.getDocumentCount() == 0) {
@@ -34,6 +34,9 @@ public interface SeriesIndexSchema extends IndexSchema {
 
   String OBJECT = "object";
 
+  /** The compact serialization of the series, see {@link org.opencastproject.index.service.impl.index.CompactSource} */
+  String COMPACT_OBJECT = "compact_object";
+
   /** The series title */
   String TITLE = "title";
 
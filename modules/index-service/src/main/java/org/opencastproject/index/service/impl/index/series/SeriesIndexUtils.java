@@ -22,6 +22,8 @@
 package org.opencastproject.index.service.impl.index.series;
 
 import org.opencastproject.index.service.impl.index.AbstractSearchIndex;
+import org.opencastproject.index.service.impl.index.CompactSource;
+import org.opencastproject.index.service.impl.index.IndexBatch;
 import org.opencastproject.index.service.impl.index.event.Event;
 import org.opencastproject.index.service.impl.index.event.EventSearchQuery;
 import org.opencastproject.matterhorn.search.SearchIndexException;
@@ -79,6 +81,9 @@ public final class SeriesIndexUtils {
    */
   public static Series toSeries(SearchMetadataCollection metadata, Unmarshaller unmarshaller) throws IOException {
     Map<String, SearchMetadata<?>> metadataMap = metadata.toMap();
+    if (metadataMap.containsKey(SeriesIndexSchema.COMPACT_OBJECT))
+      return CompactSource.read((String) metadataMap.get(SeriesIndexSchema.COMPACT_OBJECT).getValue(), Series.class);
+    // Series indexed before the compact serialization was introduced
     String seriesXml = (String) metadataMap.get(SeriesIndexSchema.OBJECT).getValue();
     return Series.valueOf(IOUtils.toInputStream(seriesXml, Charset.defaultCharset()), unmarshaller);
   }
@@ -95,7 +100,7 @@ public final class SeriesIndexUtils {
             series.getIdentifier().concat(series.getOrganization()), Series.DOCUMENT_TYPE);
     metadata.addField(SeriesIndexSchema.UID, series.getIdentifier(), true);
     metadata.addField(SeriesIndexSchema.ORGANIZATION, series.getOrganization(), false);
-    metadata.addField(SeriesIndexSchema.OBJECT, series.toXML(), false);
+    metadata.addField(SeriesIndexSchema.COMPACT_OBJECT, CompactSource.write(series), false);
     metadata.addField(SeriesIndexSchema.TITLE, series.getTitle(), true);
     if (StringUtils.trimToNull(series.getDescription()) != null) {
       metadata.addField(SeriesIndexSchema.DESCRIPTION, series.getDescription(), true);
@@ -201,6 +206,18 @@ public final class SeriesIndexUtils {
    */
   public static Series getOrCreate(String seriesId, String organization, User user, AbstractSearchIndex searchIndex)
           throws SearchIndexException {
+    IndexBatch.Entry pending = searchIndex.getBatchEntry(Series.DOCUMENT_TYPE, seriesId.concat(organization));
+    if (pending != null) {
+      if (pending.isDeleted())
+        return new Series(seriesId, organization);
+      try {
+        return toSeries(pending.getMetadata(), Series.createUnmarshaller());
+      } catch (IOException e) {
+        throw new SearchIndexException("Unable to read pending series " + seriesId.concat(organization), e);
+      }
+    }
+
+    searchIndex.prepareUpdate(Series.DOCUMENT_TYPE, seriesId.concat(organization));
     SeriesSearchQuery query = new SeriesSearchQuery(organization, user).withoutActions().withIdentifier(seriesId);
     SearchResult<Series> searchResult = searchIndex.getByQuery(query);
     if (searchResult.getDocumentCount() == 0) {
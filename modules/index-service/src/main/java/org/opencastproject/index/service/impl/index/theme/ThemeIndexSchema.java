@@ -37,6 +37,9 @@ public interface ThemeIndexSchema extends IndexSchema {
 
   String OBJECT = "object";
 
+  /** The compact serialization of the theme, see {@link org.opencastproject.index.service.impl.index.CompactSource} */
+  String COMPACT_OBJECT = "compact_object";
+
   /** The date and time the theme was created in UTC format e.g. 2011-07-16T20:39:05Z */
   String CREATION_DATE = "creation_date";
 
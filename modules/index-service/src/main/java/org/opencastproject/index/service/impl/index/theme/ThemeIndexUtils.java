@@ -23,6 +23,8 @@
 package org.opencastproject.index.service.impl.index.theme;
 
 import org.opencastproject.index.service.impl.index.AbstractSearchIndex;
+import org.opencastproject.index.service.impl.index.CompactSource;
+import org.opencastproject.index.service.impl.index.IndexBatch;
 import org.opencastproject.matterhorn.search.SearchIndexException;
 import org.opencastproject.matterhorn.search.SearchMetadata;
 import org.opencastproject.matterhorn.search.SearchResult;
@@ -61,6 +63,9 @@ public final class ThemeIndexUtils {
    */
   public static Theme toTheme(SearchMetadataCollection metadata) throws IOException {
     Map<String, SearchMetadata<?>> metadataMap = metadata.toMap();
+    if (metadataMap.containsKey(ThemeIndexSchema.COMPACT_OBJECT))
+      return CompactSource.read((String) metadataMap.get(ThemeIndexSchema.COMPACT_OBJECT).getValue(), Theme.class);
+    // Themes indexed before the compact serialization was introduced
     String themeXml = (String) metadataMap.get(ThemeIndexSchema.OBJECT).getValue();
     return Theme.valueOf(IOUtils.toInputStream(themeXml));
   }
@@ -78,7 +83,7 @@ public final class ThemeIndexUtils {
     // Mandatory fields
     metadata.addField(ThemeIndexSchema.ID, theme.getIdentifier(), true);
     metadata.addField(ThemeIndexSchema.ORGANIZATION, theme.getOrganization(), false);
-    metadata.addField(ThemeIndexSchema.OBJECT, theme.toXML(), false);
+    metadata.addField(ThemeIndexSchema.COMPACT_OBJECT, CompactSource.write(theme), false);
 
     // Optional fields
     if (StringUtils.isNotBlank(theme.getName())) {
@@ -162,6 +167,19 @@ public final class ThemeIndexUtils {
    */
   public static Theme getOrCreate(long themeId, String organization, User user, AbstractSearchIndex searchIndex)
           throws SearchIndexException {
+    String uid = Long.toString(themeId).concat(organization);
+    IndexBatch.Entry pending = searchIndex.getBatchEntry(Theme.DOCUMENT_TYPE, uid);
+    if (pending != null) {
+      if (pending.isDeleted())
+        return new Theme(themeId, organization);
+      try {
+        return toTheme(pending.getMetadata());
+      } catch (IOException e) {
+        throw new SearchIndexException("Unable to read pending theme " + uid, e);
+      }
+    }
+
+    searchIndex.prepareUpdate(Theme.DOCUMENT_TYPE, uid);
     ThemeSearchQuery query = new ThemeSearchQuery(organization, user).withIdentifier(themeId);
     SearchResult<Theme> searchResult = searchIndex.getByQuery(query);
     if (searchResult.getDocumentCount() == 0) {
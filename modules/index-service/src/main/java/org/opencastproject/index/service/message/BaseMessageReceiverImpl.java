@@ -23,6 +23,10 @@ package org.opencastproject.index.service.message;
 
 import org.opencastproject.index.IndexProducer;
 import org.opencastproject.index.service.impl.index.AbstractSearchIndex;
+import org.opencastproject.index.service.impl.index.IndexBatch;
+import org.opencastproject.index.service.impl.index.VersionConflictException;
+import org.opencastproject.matterhorn.search.SearchIndex;
+import org.opencastproject.matterhorn.search.SearchIndexException;
 import org.opencastproject.message.broker.api.BaseMessage;
 import org.opencastproject.message.broker.api.MessageReceiver;
 import org.opencastproject.message.broker.api.MessageSender;
@@ -33,21 +37,44 @@ import org.opencastproject.security.api.SecurityService;
 import org.opencastproject.util.OsgiUtil;
 import org.opencastproject.util.data.Effect2;
 
+import com.entwinemedia.fn.Fn;
+
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.osgi.service.component.ComponentContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.FutureTask;
 
 public abstract class BaseMessageReceiverImpl<T extends Serializable> {
 
   private static final String DESTINATION_ID_KEY = "destinationId";
+
+  /** The maximum number of messages taken from the destination and written to the index at once */
+  private static final String BATCH_SIZE_KEY = "org.opencastproject.index.message.batch.size";
+
+  /** The number of threads the messages of a batch are processed with */
+  private static final String BATCH_PARTITIONS_KEY = "org.opencastproject.index.message.batch.partitions";
+
+  /** The name of the index whose receivers process the messages for all indices of this node */
+  private static final String PIPELINE_INDEX_KEY = "org.opencastproject.index.message.pipeline.index";
+
+  /** The number of times a message is processed again if a resource has been changed while processing it */
+  private static final int CONFLICT_RETRIES = 3;
+
   private static final Logger logger = LoggerFactory.getLogger(BaseMessageReceiverImpl.class);
   private final ExecutorService singleThreadExecutor = Executors.newSingleThreadExecutor();
 
@@ -56,9 +83,14 @@ public abstract class BaseMessageReceiverImpl<T extends Serializable> {
   private MessageReceiver messageReceiver;
   private MessageWatcher messageWatcher;
   private AbstractSearchIndex index;
+  private final List<AbstractSearchIndex> indices = new CopyOnWriteArrayList<>();
+  private boolean pipeline = false;
   private MessageReceiverLockService lockService;
   private String destinationId;
   private MessageSender.DestinationType destinationType;
+  private int batchSize = 1;
+  private int batchPartitions = 1;
+  private ExecutorService partitionExecutor;
 
   public BaseMessageReceiverImpl(MessageSender.DestinationType destinationType) {
     this.destinationType = destinationType;
@@ -68,6 +100,20 @@ public abstract class BaseMessageReceiverImpl<T extends Serializable> {
     logger.info("Activating {}", this.getClass().getName());
     destinationId = OsgiUtil.getComponentContextProperty(cc, DESTINATION_ID_KEY);
     logger.info("The {} for this message receiver is '{}'", DESTINATION_ID_KEY, destinationId);
+    batchSize = getPositiveContextProperty(cc, BATCH_SIZE_KEY, 1);
+    batchPartitions = getPositiveContextProperty(cc, BATCH_PARTITIONS_KEY, 1);
+    for (String pipelineIndex : OsgiUtil.getOptContextProperty(cc, PIPELINE_INDEX_KEY)) {
+      // The receivers of the other indices keep listening, since rebuilds of their index are sent to them directly
+      pipeline = pipelineIndex.equals(index.getIndexName());
+      if (pipeline)
+        logger.info("Message receiver for '{}' writes to all search indices", destinationId);
+    }
+    if (batchSize > 1) {
+      logger.info("Message receiver for '{}' writes batches of up to {} messages using {} threads", destinationId,
+              batchSize, batchPartitions);
+    }
+    if (batchPartitions > 1 && (batchSize > 1 || pipeline))
+      partitionExecutor = Executors.newFixedThreadPool(batchPartitions);
     messageWatcher = new MessageWatcher(lockService);
     singleThreadExecutor.execute(messageWatcher);
   }
@@ -78,6 +124,22 @@ public abstract class BaseMessageReceiverImpl<T extends Serializable> {
       messageWatcher.stopListening();
 
     singleThreadExecutor.shutdown();
+    if (partitionExecutor != null)
+      partitionExecutor.shutdown();
+  }
+
+  private static int getPositiveContextProperty(ComponentContext cc, String key, int defaultValue) {
+    for (String value : OsgiUtil.getOptContextProperty(cc, key)) {
+      try {
+        int number = Integer.parseInt(value);
+        if (number > 0)
+          return number;
+      } catch (NumberFormatException e) {
+        // Fall through to the warning below
+      }
+      logger.warn("Invalid value '{}' for {}, using {}", value, key, defaultValue);
+    }
+    return defaultValue;
   }
 
   protected abstract void execute(T messageContent);
@@ -98,12 +160,239 @@ public abstract class BaseMessageReceiverImpl<T extends Serializable> {
     return securityService;
   }
 
+  /**
+   * Splits messages into partitions such that all messages about the same resource end up in the same partition, in
+   * the order they have been received. Messages without a resource identifier go to the first partition.
+   *
+   * @param messages
+   *          the messages
+   * @param partitions
+   *          the maximum number of partitions
+   * @return the non-empty partitions
+   */
+  static List<List<BaseMessage>> partition(List<BaseMessage> messages, int partitions) {
+    List<List<BaseMessage>> result = new ArrayList<>(partitions);
+    for (int i = 0; i < partitions; i++) {
+      result.add(new ArrayList<BaseMessage>());
+    }
+    for (BaseMessage message : messages) {
+      int partition = message.getId().isSome() ? (message.getId().get().hashCode() & Integer.MAX_VALUE) % partitions
+              : 0;
+      result.get(partition).add(message);
+    }
+    List<List<BaseMessage>> nonEmpty = new ArrayList<>(partitions);
+    for (List<BaseMessage> partition : result) {
+      if (!partition.isEmpty())
+        nonEmpty.add(partition);
+    }
+    return nonEmpty;
+  }
+
+  /**
+   * Processes messages into a single index batch and writes it to the index, and to all other search indices of this
+   * node if this receiver runs the indexing pipeline for them. The locks of all resources concerned are
+   * held until the batch has been written, so receivers of other destinations cannot interleave their own changes.
+   * <p>
+   * While the index is rebuilt in a shadow index, the messages are processed for the index and the shadow index
+   * separately, so the changes written to each of them are based on the state of that index. Messages resending data
+   * for the rebuild are only processed for the shadow index, see {@link #getTargets(BaseMessage)}.
+   *
+   * @param messages
+   *          the messages, in the order they have been received
+   */
+  private void executeBatch(List<BaseMessage> messages) {
+    if (messages.isEmpty())
+      return;
+
+    Set<String> ids = new LinkedHashSet<>();
+    for (BaseMessage message : messages) {
+      if (message.getId().isSome())
+        ids.add(message.getId().get());
+    }
+    lockService.synchronizeAll(ids, new Fn<Collection<String>, Void>() {
+      @Override
+      public Void apply(Collection<String> lockedIds) {
+        for (String target : index.getTargets()) {
+          List<BaseMessage> targetMessages = new ArrayList<>();
+          for (BaseMessage message : messages) {
+            if (getTargets(message).contains(target))
+              targetMessages.add(message);
+          }
+          if (!targetMessages.isEmpty())
+            executeBatch(targetMessages, partition(targetMessages, batchPartitions), target);
+        }
+        return null;
+      }
+    });
+  }
+
+  /**
+   * Returns the indices a message is processed for. Changes are applied to the index and, while it is rebuilt, to the
+   * shadow index. Data resent to rebuild the index is only applied to the shadow index, or to the index itself if it
+   * is rebuilt in place, since the index already holds this data.
+   *
+   * @param message
+   *          the message
+   * @return the names of the indices
+   */
+  private List<String> getTargets(BaseMessage message) {
+    List<String> targets = index.getTargets();
+    if (!message.isRepopulating())
+      return targets;
+    return Collections.singletonList(targets.get(targets.size() - 1));
+  }
+
+  /**
+   * Processes the partitions of messages into a single index batch and writes it to the given target index.
+   *
+   * @param messages
+   *          the messages, in the order they have been received
+   * @param partitions
+   *          the messages, partitioned by resource
+   * @param target
+   *          the index to read from and write to
+   */
+  private void executeBatch(List<BaseMessage> messages, List<List<BaseMessage>> partitions, String target) {
+    IndexBatch batch = new IndexBatch();
+    boolean processed = true;
+    if (partitions.size() == 1) {
+      executePartition(partitions.get(0), batch, target);
+    } else {
+      List<Future<?>> tasks = new ArrayList<>();
+      for (final List<BaseMessage> partition : partitions) {
+        tasks.add(partitionExecutor.submit(new Runnable() {
+          @Override
+          public void run() {
+            executePartition(partition, batch, target);
+          }
+        }));
+      }
+      for (Future<?> task : tasks) {
+        try {
+          task.get();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          logger.warn("Interrupted while processing a batch of {} messages", getDestinationId());
+          processed = false;
+        } catch (ExecutionException e) {
+          logger.error("Problem while processing a batch of {} messages {}", getDestinationId(),
+                  ExceptionUtils.getStackTrace(e));
+          processed = false;
+        }
+      }
+    }
+    if (processed) {
+      try {
+        flush(batch, target);
+        return;
+      } catch (VersionConflictException e) {
+        logger.debug("Resources of a batch of {} messages have been changed while processing it: {}",
+                getDestinationId(), e.getMessage());
+      } catch (SearchIndexException e) {
+        logger.error("Unable to write a batch of {} {} messages to the index {}", messages.size(), getDestinationId(),
+                ExceptionUtils.getStackTrace(e));
+      }
+    }
+    // Don't lose the whole batch because of a single message or a single failing bulk request
+    logger.info("Writing the {} {} messages of the failed batch one by one", messages.size(), getDestinationId());
+    for (BaseMessage message : messages) {
+      executeSingle(message, target);
+    }
+  }
+
+  /**
+   * Processes a single message of a failed batch and writes its changes right away. The message is processed again if
+   * the resources it changes have been changed by another writer in the meantime.
+   *
+   * @param message
+   *          the message
+   * @param target
+   *          the index to read from and write to
+   */
+  private void executeSingle(BaseMessage message, String target) {
+    for (int attempt = 0; attempt <= CONFLICT_RETRIES; attempt++) {
+      IndexBatch batch = new IndexBatch();
+      executePartition(Collections.singletonList(message), batch, target);
+      try {
+        flush(batch, target);
+        return;
+      } catch (VersionConflictException e) {
+        logger.debug("Resources of {} message about {} have been changed while processing it: {}",
+                getDestinationId(), message.getId().getOrElseNull(), e.getMessage());
+      } catch (SearchIndexException e) {
+        logger.error("Unable to write {} message about {} to the index {}", getDestinationId(),
+                message.getId().getOrElseNull(), ExceptionUtils.getStackTrace(e));
+        return;
+      }
+    }
+    logger.warn("Giving up on {} message about {} after its resources have been changed {} times while processing it",
+            getDestinationId(), message.getId().getOrElseNull(), CONFLICT_RETRIES + 1);
+  }
+
+  /**
+   * Returns the further indices the changes written to the given target index are mirrored to, i.e. all other search
+   * indices of this node if this receiver runs the indexing pipeline and the target is the index itself.
+   */
+  private Collection<AbstractSearchIndex> getMirrors(String target) {
+    return pipeline && target.equals(index.getIndexName()) ? indices : Collections.<AbstractSearchIndex> emptyList();
+  }
+
+  /**
+   * Writes a batch to the given target index and its mirrors, see {@link #getMirrors(String)}.
+   */
+  private void flush(IndexBatch batch, String target) throws SearchIndexException {
+    index.setTarget(target);
+    try {
+      index.flush(batch, getMirrors(target));
+    } finally {
+      index.setTarget(null);
+    }
+  }
+
+  /**
+   * Processes messages in order, writing their changes to the given batch.
+   *
+   * @param messages
+   *          the messages
+   * @param batch
+   *          the batch to write to
+   * @param target
+   *          the index to read from
+   */
+  @SuppressWarnings("unchecked")
+  private void executePartition(List<BaseMessage> messages, IndexBatch batch, String target) {
+    index.joinBatch(batch);
+    index.setTarget(target);
+    index.setMirrors(getMirrors(target));
+    try {
+      for (BaseMessage message : messages) {
+        // The versions read are checked when the batch is written
+        index.trackVersions();
+        try {
+          securityService.setOrganization(message.getOrganization());
+          securityService.setUser(message.getUser());
+          execute((T) message.getObject());
+        } catch (Throwable t) {
+          logger.error("Problem while processing {} message {}", getDestinationId(), ExceptionUtils.getStackTrace(t));
+        } finally {
+          index.untrackVersions();
+          securityService.setOrganization(null);
+          securityService.setUser(null);
+        }
+      }
+    } finally {
+      index.setMirrors(null);
+      index.setTarget(null);
+      index.leaveBatch();
+    }
+  }
+
   private class MessageWatcher implements Runnable {
 
     private final Logger logger = LoggerFactory.getLogger(MessageWatcher.class);
 
     private boolean listening = true;
-    private FutureTask<Serializable> future;
+    private Future<?> future;
     private final ExecutorService executor = Executors.newSingleThreadExecutor();
     private final String clazzName = BaseMessageReceiverImpl.this.getClass().getName();
     private final MessageReceiverLockService lockService;
@@ -114,29 +403,35 @@ public abstract class BaseMessageReceiverImpl<T extends Serializable> {
 
     public void stopListening() {
       this.listening = false;
-      future.cancel(true);
+      if (future != null)
+        future.cancel(true);
     }
 
     @Override
     public void run() {
       logger.info("Starting to listen for {} Messages for {}", clazzName, destinationId);
       while (listening) {
-        future = messageReceiver.receiveSerializable(getDestinationId(), getDestinationType());
-        executor.execute(future);
         try {
-          BaseMessage baseMessage = (BaseMessage) future.get();
-          if (baseMessage == null) {
-            continue;
-          }
-          securityService.setOrganization(baseMessage.getOrganization());
-          securityService.setUser(baseMessage.getUser());
-          if (baseMessage.getObject() instanceof IndexRecreateObject) {
-            IndexRecreateObject obj = (IndexRecreateObject) baseMessage.getObject();
-            if (Status.End.equals(obj.getStatus()))
-              messageSender.sendObjectMessage(IndexProducer.RESPONSE_QUEUE, MessageSender.DestinationType.Queue,
-                      IndexRecreateObject.end(obj.getIndexName(), obj.getService()));
+          if (batchSize > 1) {
+            FutureTask<List<Serializable>> batchFuture = messageReceiver.receiveSerializables(getDestinationId(),
+                    getDestinationType(), batchSize);
+            future = batchFuture;
+            executor.execute(batchFuture);
+            handleBatch(batchFuture.get());
           } else {
-            lockService.synchronize(baseMessage.getId().get(), execute.curry(baseMessage.getObject()).toFn());
+            FutureTask<Serializable> messageFuture = messageReceiver.receiveSerializable(getDestinationId(),
+                    getDestinationType());
+            future = messageFuture;
+            executor.execute(messageFuture);
+            BaseMessage baseMessage = (BaseMessage) messageFuture.get();
+            if (baseMessage == null) {
+              continue;
+            }
+            if (pipeline && !(baseMessage.getObject() instanceof IndexRecreateObject)) {
+              executeBatch(Collections.singletonList(baseMessage));
+            } else {
+              handle(baseMessage);
+            }
           }
         } catch (InterruptedException e) {
           logger.error("Problem while getting {} message events {}", clazzName, ExceptionUtils.getStackTrace(e));
@@ -153,16 +448,83 @@ public abstract class BaseMessageReceiverImpl<T extends Serializable> {
       }
       logger.info("Stopping listening for {} Messages", clazzName);
     }
+
+    private void handle(BaseMessage baseMessage) throws Exception {
+      securityService.setOrganization(baseMessage.getOrganization());
+      securityService.setUser(baseMessage.getUser());
+      if (baseMessage.getObject() instanceof IndexRecreateObject) {
+        IndexRecreateObject obj = (IndexRecreateObject) baseMessage.getObject();
+        if (Status.End.equals(obj.getStatus()))
+          messageSender.sendObjectMessage(IndexProducer.RESPONSE_QUEUE, MessageSender.DestinationType.Queue,
+                  IndexRecreateObject.end(obj.getIndexName(), obj.getService()));
+      } else {
+        lockService.synchronize(baseMessage.getId().get(), execute.curry(baseMessage).toFn());
+      }
+    }
+
+    private void handleBatch(List<Serializable> objects) throws Exception {
+      List<BaseMessage> pending = new ArrayList<>();
+      for (Serializable object : objects) {
+        if (object == null)
+          continue;
+        BaseMessage baseMessage = (BaseMessage) object;
+        if (baseMessage.getObject() instanceof IndexRecreateObject) {
+          // Everything received before the end of an index rebuild has to be in the index before it is acknowledged
+          executeBatch(pending);
+          pending.clear();
+          handle(baseMessage);
+        } else {
+          pending.add(baseMessage);
+        }
+      }
+      executeBatch(pending);
+    }
   }
 
-  private final Effect2<Serializable, String> execute = new Effect2<Serializable, String>() {
+  private final Effect2<BaseMessage, String> execute = new Effect2<BaseMessage, String>() {
     @Override
     @SuppressWarnings("unchecked")
-    protected void run(Serializable message, String mpId) {
-      execute((T) message);
+    protected void run(BaseMessage message, String mpId) {
+      // While the index is rebuilt, the index and the shadow index are updated based on their own state
+      for (String target : getTargets(message)) {
+        index.setTarget(target);
+        index.setMirrors(getMirrors(target));
+        try {
+          executeChecked((T) message.getObject(), mpId);
+        } finally {
+          index.setMirrors(null);
+          index.setTarget(null);
+        }
+      }
     }
   };
 
+  /**
+   * Processes a message, and processes it again if the resources it changes have been changed by another writer
+   * while processing it.
+   *
+   * @param message
+   *          the message
+   * @param id
+   *          the identifier of the resource the message is about
+   */
+  private void executeChecked(T message, String id) {
+    for (int attempt = 0; attempt <= CONFLICT_RETRIES; attempt++) {
+      boolean conflict;
+      index.trackVersions();
+      try {
+        execute(message);
+      } finally {
+        conflict = index.untrackVersions();
+      }
+      if (!conflict)
+        return;
+      logger.debug("Resources of {} message about {} have been changed while processing it", getDestinationId(), id);
+    }
+    logger.warn("Giving up on {} message about {} after its resources have been changed {} times while processing it",
+            getDestinationId(), id, CONFLICT_RETRIES + 1);
+  }
+
   public void setSecurityService(SecurityService securityService) {
     this.securityService = securityService;
   }
@@ -179,6 +541,17 @@ public abstract class BaseMessageReceiverImpl<T extends Serializable> {
     this.index = index;
   }
 
+  /** OSGi callback for search indices, which the indexing pipeline writes to in addition to its own index. */
+  public void addSearchIndex(SearchIndex searchIndex) {
+    if (searchIndex instanceof AbstractSearchIndex)
+      indices.add((AbstractSearchIndex) searchIndex);
+  }
+
+  /** OSGi callback for search indices which went away. */
+  public void removeSearchIndex(SearchIndex searchIndex) {
+    indices.remove(searchIndex);
+  }
+
   public void setMessageReceiverLockService(MessageReceiverLockService lockService) {
     this.lockService = lockService;
   }
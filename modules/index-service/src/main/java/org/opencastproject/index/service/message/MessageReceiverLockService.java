@@ -26,6 +26,9 @@ import com.google.common.util.concurrent.Striped;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.concurrent.locks.Lock;
 
 public class MessageReceiverLockService {
@@ -46,4 +49,25 @@ public class MessageReceiverLockService {
     }
   }
 
+  /**
+   * Runs the function while holding the locks of all given resources. The locks are always acquired in the same
+   * order, so concurrent callers locking overlapping sets of resources cannot deadlock.
+   */
+  public <K, A> A synchronizeAll(Collection<K> resources, Fn<Collection<K>, A> function) {
+    final List<Lock> locks = new ArrayList<>();
+    try {
+      for (Lock lock : this.lock.bulkGet(resources)) {
+        lock.lock();
+        locks.add(lock);
+      }
+      logger.debug("Locked resources {}", resources);
+      return function.apply(resources);
+    } finally {
+      for (int i = locks.size() - 1; i >= 0; i--) {
+        locks.get(i).unlock();
+      }
+      logger.debug("Released locked resources {}", resources);
+    }
+  }
+
 }
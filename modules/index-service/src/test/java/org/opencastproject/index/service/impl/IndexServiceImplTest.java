@@ -22,11 +22,22 @@
 package org.opencastproject.index.service.impl;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import org.opencastproject.assetmanager.api.AssetManager;
+import org.opencastproject.assetmanager.api.AssetManagerException;
 import org.opencastproject.assetmanager.api.Property;
+import org.opencastproject.assetmanager.api.query.ADeleteQuery;
+import org.opencastproject.assetmanager.api.query.AQueryBuilder;
+import org.opencastproject.assetmanager.api.query.ARecord;
+import org.opencastproject.assetmanager.api.query.AResult;
+import org.opencastproject.assetmanager.api.query.ASelectQuery;
+import org.opencastproject.assetmanager.api.query.Field;
+import org.opencastproject.assetmanager.api.query.Predicate;
+import org.opencastproject.assetmanager.api.query.Target;
 import org.opencastproject.capture.admin.api.CaptureAgentStateService;
+import org.opencastproject.event.comment.EventCommentService;
 import org.opencastproject.index.service.catalog.adapter.DublinCoreMetadataCollection;
 import org.opencastproject.index.service.catalog.adapter.MetadataList;
 import org.opencastproject.index.service.catalog.adapter.events.CommonEventCatalogUIAdapter;
@@ -59,6 +70,7 @@ import org.opencastproject.metadata.dublincore.DublinCoreCatalog;
 import org.opencastproject.metadata.dublincore.DublinCores;
 import org.opencastproject.metadata.dublincore.MetadataCollection;
 import org.opencastproject.metadata.dublincore.MetadataField;
+import org.opencastproject.rest.BulkOperationResult;
 import org.opencastproject.scheduler.api.SchedulerException;
 import org.opencastproject.scheduler.api.SchedulerService;
 import org.opencastproject.scheduler.api.Util;
@@ -83,8 +95,12 @@ import org.opencastproject.util.data.Tuple;
 import org.opencastproject.util.data.VCell;
 import org.opencastproject.workflow.api.WorkflowDatabaseException;
 import org.opencastproject.workflow.api.WorkflowInstance;
+import org.opencastproject.workflow.api.WorkflowQuery;
+import org.opencastproject.workflow.api.WorkflowService;
+import org.opencastproject.workflow.api.WorkflowSetImpl;
 import org.opencastproject.workspace.api.Workspace;
 
+import com.entwinemedia.fn.Stream;
 import com.entwinemedia.fn.data.Opt;
 
 import net.fortuna.ical4j.model.DateTime;
@@ -112,6 +128,7 @@ import java.net.URI;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.Dictionary;
@@ -124,6 +141,8 @@ import java.util.Properties;
 import java.util.Set;
 import java.util.TimeZone;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 public class IndexServiceImplTest {
 
@@ -1113,6 +1132,211 @@ public class IndexServiceImplTest {
             updatedPresenters.getB().containsAll(multiUserList));
   }
 
+  @Test
+  public void testGetEvents() throws Exception {
+    final List<String> ids = new ArrayList<>();
+    for (int i = 0; i < 600; i++) {
+      ids.add("event-" + i);
+    }
+    ids.add("event-0");
+    ids.add("missing");
+
+    final List<Integer> querySizes = new ArrayList<>();
+    AbstractSearchIndex index = EasyMock.createMock(AbstractSearchIndex.class);
+    EasyMock.expect(index.getByQuery(EasyMock.anyObject(EventSearchQuery.class))).andAnswer(() -> {
+      EventSearchQuery query = (EventSearchQuery) EasyMock.getCurrentArguments()[0];
+      querySizes.add(query.getIdentifier().length);
+      SearchResultImpl<Event> result = new SearchResultImpl<>(query, 0, 0);
+      for (String id : query.getIdentifier()) {
+        if (!"missing".equals(id))
+          result.addResultItem(new SearchResultItemImpl<>(1.0, new Event(id, organization.getId())));
+      }
+      return result;
+    }).times(2);
+    EasyMock.replay(index);
+
+    IndexServiceImpl indexService = new IndexServiceImpl();
+    indexService.setSecurityService(setupContextSecurityService());
+    Map<String, Event> events = indexService.getEvents(ids, index);
+
+    // 601 distinct ids are looked up with one query per 500 ids
+    EasyMock.verify(index);
+    assertEquals(601, querySizes.get(0) + querySizes.get(1));
+    assertTrue(querySizes.get(0) <= 500 && querySizes.get(1) <= 500);
+    assertEquals(600, events.size());
+    assertEquals("event-42", events.get("event-42").getIdentifier());
+    assertFalse(events.containsKey("missing"));
+  }
+
+  @Test
+  public void testRemoveEvents() throws Exception {
+    // Each event is removed from the scheduler exactly once, even if it is requested twice
+    SchedulerService schedulerService = EasyMock.createMock(SchedulerService.class);
+    schedulerService.removeEvent("a");
+    EasyMock.expectLastCall().andThrow(new NotFoundException());
+    schedulerService.removeEvent("b");
+    EasyMock.expectLastCall().andThrow(new NotFoundException());
+    schedulerService.removeEvent("c");
+    schedulerService.removeEvent("d");
+    EasyMock.expectLastCall().andThrow(new NotFoundException());
+    EasyMock.replay(schedulerService);
+
+    WorkflowService workflowService = EasyMock.createNiceMock(WorkflowService.class);
+    EasyMock.expect(workflowService.getWorkflowInstances(EasyMock.anyObject(WorkflowQuery.class)))
+            .andReturn(new WorkflowSetImpl()).anyTimes();
+    EasyMock.replay(workflowService);
+
+    // The snapshots of a, b and d are archived. Deleting them at once fails, so they are deleted one by one.
+    Predicate bulk = createPredicate();
+    Predicate a = createPredicate();
+    Predicate b = createPredicate();
+    Predicate c = createPredicate();
+    Predicate d = createPredicate();
+    Predicate org = EasyMock.createNiceMock(Predicate.class);
+    EasyMock.expect(org.and(EasyMock.isNull())).andReturn(bulk).anyTimes();
+    EasyMock.expect(org.and(a)).andReturn(a).anyTimes();
+    EasyMock.expect(org.and(b)).andReturn(b).anyTimes();
+    EasyMock.expect(org.and(c)).andReturn(c).anyTimes();
+    EasyMock.expect(org.and(d)).andReturn(d).anyTimes();
+    EasyMock.replay(org);
+
+    @SuppressWarnings("unchecked")
+    Field<String> organizationId = EasyMock.createNiceMock(Field.class);
+    EasyMock.expect(organizationId.eq(organization.getId())).andReturn(org).anyTimes();
+    EasyMock.replay(organizationId);
+
+    ASelectQuery select = EasyMock.createNiceMock(ASelectQuery.class);
+    EasyMock.expect(select.where(bulk)).andReturn(createSelectQuery(2, "a", "b", "d")).anyTimes();
+    EasyMock.expect(select.where(a)).andReturn(createSelectQuery(1)).anyTimes();
+    EasyMock.expect(select.where(b)).andReturn(createSelectQuery(1)).anyTimes();
+    EasyMock.expect(select.where(c)).andReturn(createSelectQuery(0)).anyTimes();
+    EasyMock.expect(select.where(d)).andReturn(createSelectQuery(1)).anyTimes();
+    EasyMock.replay(select);
+
+    ADeleteQuery delete = EasyMock.createNiceMock(ADeleteQuery.class);
+    EasyMock.expect(delete.where(bulk)).andReturn(createDeleteQuery(new AssetManagerException())).anyTimes();
+    EasyMock.expect(delete.where(a)).andReturn(createDeleteQuery(null)).anyTimes();
+    EasyMock.expect(delete.where(b))
+            .andReturn(createDeleteQuery(new AssetManagerException(new UnauthorizedException("b")))).anyTimes();
+    EasyMock.expect(delete.where(d))
+            .andReturn(createDeleteQuery(new AssetManagerException(new NotFoundException("d")))).anyTimes();
+    EasyMock.replay(delete);
+
+    AQueryBuilder query = EasyMock.createNiceMock(AQueryBuilder.class);
+    EasyMock.expect(query.organizationId()).andReturn(organizationId).anyTimes();
+    EasyMock.expect(query.mediaPackageId("a")).andReturn(a).anyTimes();
+    EasyMock.expect(query.mediaPackageId("b")).andReturn(b).anyTimes();
+    EasyMock.expect(query.mediaPackageId("c")).andReturn(c).anyTimes();
+    EasyMock.expect(query.mediaPackageId("d")).andReturn(d).anyTimes();
+    EasyMock.expect(query.select(EasyMock.<Target> anyObject())).andReturn(select).anyTimes();
+    EasyMock.expect(query.delete(EasyMock.anyString(), EasyMock.anyObject())).andReturn(delete).anyTimes();
+    EasyMock.replay(query);
+
+    AssetManager assetManager = EasyMock.createNiceMock(AssetManager.class);
+    EasyMock.expect(assetManager.createQuery()).andReturn(query).anyTimes();
+    EasyMock.replay(assetManager);
+
+    EventCommentService eventCommentService = EasyMock.createNiceMock(EventCommentService.class);
+    EasyMock.replay(eventCommentService);
+
+    IndexServiceImpl indexService = new IndexServiceImpl();
+    indexService.setSecurityService(setupContextSecurityService());
+    indexService.setSchedulerService(schedulerService);
+    indexService.setWorkflowService(workflowService);
+    indexService.setAssetManager(assetManager);
+    indexService.setEventCommentService(eventCommentService);
+
+    BulkOperationResult result = new BulkOperationResult();
+    indexService.removeEvents(Arrays.asList("a", "b", "a", "c", "d"), result);
+
+    EasyMock.verify(schedulerService);
+    assertEquals(Arrays.asList("a", "c"), result.getOks());
+    assertEquals(Arrays.asList("b"), result.getUnauthorized());
+    assertEquals(Arrays.asList("d"), result.getNotFound());
+    assertTrue(result.getServerError().isEmpty());
+  }
+
+  @Test
+  public void testRemoveEventsInterrupted() throws Exception {
+    // The scheduler blocks until the removal is cancelled
+    final CountDownLatch cancelled = new CountDownLatch(1);
+    SchedulerService schedulerService = EasyMock.createNiceMock(SchedulerService.class);
+    schedulerService.removeEvent(EasyMock.anyString());
+    EasyMock.expectLastCall().andAnswer(new IAnswer<Void>() {
+      @Override
+      public Void answer() throws Throwable {
+        try {
+          new CountDownLatch(1).await();
+        } catch (InterruptedException e) {
+          cancelled.countDown();
+        }
+        return null;
+      }
+    }).anyTimes();
+    EasyMock.replay(schedulerService);
+
+    IndexServiceImpl indexService = new IndexServiceImpl();
+    indexService.setSecurityService(setupContextSecurityService());
+    indexService.setSchedulerService(schedulerService);
+
+    BulkOperationResult result = new BulkOperationResult();
+    Thread.currentThread().interrupt();
+    try {
+      indexService.removeEvents(Arrays.asList("a", "b", "c"), result);
+      assertTrue(Thread.currentThread().isInterrupted());
+    } finally {
+      Thread.interrupted();
+      indexService.deactivate();
+    }
+
+    assertEquals(Arrays.asList("a", "b", "c"), result.getServerError());
+    assertTrue(result.getOks().isEmpty());
+    assertTrue(cancelled.await(10, TimeUnit.SECONDS));
+  }
+
+  private SecurityService setupContextSecurityService() {
+    SecurityService securityService = EasyMock.createNiceMock(SecurityService.class);
+    EasyMock.expect(securityService.getOrganization()).andReturn(organization).anyTimes();
+    EasyMock.expect(securityService.getUser()).andReturn(user1).anyTimes();
+    EasyMock.replay(securityService);
+    return securityService;
+  }
+
+  private Predicate createPredicate() {
+    Predicate predicate = EasyMock.createNiceMock(Predicate.class);
+    EasyMock.replay(predicate);
+    return predicate;
+  }
+
+  private ASelectQuery createSelectQuery(long size, String... mediaPackageIds) {
+    List<ARecord> records = new ArrayList<>();
+    for (String mediaPackageId : mediaPackageIds) {
+      ARecord record = EasyMock.createNiceMock(ARecord.class);
+      EasyMock.expect(record.getMediaPackageId()).andReturn(mediaPackageId).anyTimes();
+      EasyMock.replay(record);
+      records.add(record);
+    }
+    AResult result = EasyMock.createNiceMock(AResult.class);
+    EasyMock.expect(result.getSize()).andReturn(size).anyTimes();
+    EasyMock.expect(result.getRecords()).andAnswer(() -> Stream.mk(records)).anyTimes();
+    EasyMock.replay(result);
+    ASelectQuery select = EasyMock.createNiceMock(ASelectQuery.class);
+    EasyMock.expect(select.run()).andReturn(result).anyTimes();
+    EasyMock.replay(select);
+    return select;
+  }
+
+  private ADeleteQuery createDeleteQuery(AssetManagerException failure) {
+    ADeleteQuery delete = EasyMock.createNiceMock(ADeleteQuery.class);
+    if (failure == null) {
+      EasyMock.expect(delete.run()).andReturn(1L).anyTimes();
+    } else {
+      EasyMock.expect(delete.run()).andThrow(failure).anyTimes();
+    }
+    EasyMock.replay(delete);
+    return delete;
+  }
+
   private List<Period> generatePeriods(TimeZone tz, Calendar start, Calendar end, String days, Long duration)
           throws ParseException {
     Calendar tzDate = Calendar.getInstance(tz);
@@ -21,14 +21,19 @@
 
 package org.opencastproject.index.service.impl.event;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
 import org.opencastproject.index.service.impl.index.AbstractSearchIndex;
 import org.opencastproject.index.service.impl.index.event.Event;
+import org.opencastproject.index.service.impl.index.event.EventIndexSchema;
 import org.opencastproject.index.service.impl.index.event.EventIndexUtils;
 import org.opencastproject.index.service.impl.index.series.Series;
 import org.opencastproject.index.service.impl.index.series.SeriesSearchQuery;
 import org.opencastproject.matterhorn.search.SearchIndexException;
 import org.opencastproject.matterhorn.search.SearchResult;
 import org.opencastproject.matterhorn.search.SearchResultItem;
+import org.opencastproject.matterhorn.search.impl.SearchMetadataCollection;
 import org.opencastproject.security.api.DefaultOrganization;
 import org.opencastproject.security.api.JaxbOrganization;
 import org.opencastproject.security.api.JaxbRole;
@@ -40,6 +45,8 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
 
 public class EventIndexUtilsTest {
 
@@ -116,4 +123,38 @@ public class EventIndexUtilsTest {
     EventIndexUtils.updateSeriesName(event, defaultOrganization.getId(), user, searchIndex, 3, 50L);
   }
 
+  @Test
+  public void testToRecordingEventAppliesPartialUpdates() throws Exception {
+    Event event = new Event("my_event", defaultOrganization.getId());
+    event.setHasComments(false);
+    event.setManagedAcl("public");
+
+    SearchMetadataCollection metadata = new SearchMetadataCollection("my_event" + defaultOrganization.getId(),
+            Event.DOCUMENT_TYPE);
+    metadata.addField(EventIndexSchema.OBJECT, event.toXML(), false);
+    metadata.addField(EventIndexSchema.HAS_COMMENTS, true, false);
+    metadata.addField(EventIndexSchema.MANAGED_ACL, "private", false);
+
+    Event result = EventIndexUtils.toRecordingEvent(metadata, Event.createUnmarshaller());
+    assertTrue(result.hasComments());
+    assertEquals("private", result.getManagedAcl());
+  }
+
+  @Test
+  public void testUpdateCommentsUsesPartialUpdate() throws Exception {
+    Map<String, Object> fields = new HashMap<>();
+    fields.put(EventIndexSchema.HAS_COMMENTS, true);
+    fields.put(EventIndexSchema.HAS_OPEN_COMMENTS, true);
+    fields.put(EventIndexSchema.NEEDS_CUTTING, false);
+
+    // The event must not be read, only its comment fields are updated
+    AbstractSearchIndex searchIndex = EasyMock.createMock(AbstractSearchIndex.class);
+    EasyMock.expect(searchIndex.updateFields(Event.DOCUMENT_TYPE, "my_event" + defaultOrganization.getId(), fields))
+            .andReturn(true);
+    EasyMock.replay(searchIndex);
+
+    EventIndexUtils.updateComments("my_event", true, true, false, defaultOrganization.getId(), user, searchIndex);
+    EasyMock.verify(searchIndex);
+  }
+
 }
@@ -0,0 +1,181 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+package org.opencastproject.index.service.impl.index;
+
+import static org.junit.Assert.assertEquals;
+
+import org.opencastproject.index.service.impl.index.event.Event;
+import org.opencastproject.index.service.impl.index.group.Group;
+import org.opencastproject.index.service.impl.index.series.Series;
+import org.opencastproject.index.service.impl.index.theme.Theme;
+import org.opencastproject.mediapackage.Publication;
+import org.opencastproject.mediapackage.PublicationImpl;
+import org.opencastproject.util.MimeTypes;
+import org.opencastproject.workflow.api.WorkflowInstance.WorkflowState;
+
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.bind.Unmarshaller;
+
+public class CompactSourceTest {
+
+  private static final Logger logger = LoggerFactory.getLogger(CompactSourceTest.class);
+
+  private static Event createEvent(String id) throws Exception {
+    Event event = new Event(id, "mh_default_org");
+    event.setTitle("Land and Vegetation: Key players on the Climate Scene");
+    event.setDescription("A description");
+    event.setPresenters(Arrays.asList("Jane Doe", "John Doe"));
+    event.setSeriesId("series");
+    event.setDuration(3600000L);
+    event.setWorkflowId(42L);
+    event.setWorkflowState(WorkflowState.SUCCEEDED);
+    event.setHasComments(true);
+    Map<String, String> configuration = new HashMap<>();
+    configuration.put("capture.device.names", "presenter,presentation");
+    event.setAgentConfiguration(configuration);
+    List<Publication> publications = new ArrayList<>();
+    publications.add(PublicationImpl.publication("publication", "engage-player",
+            new URI("http://localhost/engage/ui/watch.html?id=" + id), MimeTypes.parseMimeType("text/html")));
+    event.setPublications(publications);
+    return event;
+  }
+
+  @Test
+  public void testEventRoundTrip() throws Exception {
+    Event event = createEvent("event");
+    Event read = CompactSource.read(CompactSource.write(event), Event.class);
+    assertEquals(event.toXML(), read.toXML());
+    assertEquals(event.getEventStatus(), read.getEventStatus());
+    assertEquals("engage-player", read.getPublications().get(0).getChannel());
+  }
+
+  @Test
+  public void testSeriesGroupAndThemeRoundTrip() throws Exception {
+    Series series = new Series("series", "mh_default_org");
+    series.setTitle("Series");
+    series.setCreatedDateTime(new Date(1500000000000L));
+    series.setOrganizers(Arrays.asList("Jane Doe"));
+    assertEquals(series.toXML(), CompactSource.read(CompactSource.write(series), Series.class).toXML());
+
+    Group group = new Group("group", "mh_default_org");
+    group.setName("Group");
+    group.setRoles(new LinkedHashSet<>(Arrays.asList("ROLE_ONE", "ROLE_TWO")));
+    assertEquals(group.toXML(), CompactSource.read(CompactSource.write(group), Group.class).toXML());
+
+    Theme theme = new Theme(7L, "mh_default_org");
+    theme.setName("Theme");
+    theme.setCreationDate(new Date(1500000000000L));
+    theme.setBumperActive(true);
+    assertEquals(theme.toXML(), CompactSource.read(CompactSource.write(theme), Theme.class).toXML());
+  }
+
+  @Test(expected = IOException.class)
+  public void testNewerVersion() throws Exception {
+    CompactSource.read("{\"v\":" + (CompactSource.VERSION + 1) + ",\"f\":{}}", Event.class);
+  }
+
+  /**
+   * Compares reading a page of 100 events from their XML and from their compact serialization, as done for every
+   * page of the admin UI event list. This is a benchmark which only logs the timings.
+   */
+  @Test
+  public void testReadPerformance() throws Exception {
+    int pageSize = 100;
+    List<String> xml = new ArrayList<>();
+    List<String> compact = new ArrayList<>();
+    for (int i = 0; i < pageSize; i++) {
+      Event event = createEvent("event-" + i);
+      xml.add(event.toXML());
+      compact.add(CompactSource.write(event));
+    }
+
+    int rounds = 20;
+    long xmlTime = 0;
+    long compactTime = 0;
+    for (int round = 0; round < rounds; round++) {
+      long start = System.nanoTime();
+      Unmarshaller unmarshaller = Event.createUnmarshaller();
+      for (String s : xml) {
+        Event.valueOf(new ByteArrayInputStream(s.getBytes(StandardCharsets.UTF_8)), unmarshaller);
+      }
+      long middle = System.nanoTime();
+      for (String s : compact) {
+        CompactSource.read(s, Event.class);
+      }
+      long end = System.nanoTime();
+      // Skip the first rounds to let the JIT compiler warm up
+      if (round >= rounds / 2) {
+        xmlTime += middle - start;
+        compactTime += end - middle;
+      }
+    }
+    int measured = rounds - rounds / 2;
+    logger.info("Reading a page of {} events took {}ms from XML and {}ms from the compact serialization", pageSize,
+            xmlTime / measured / 1000000d, compactTime / measured / 1000000d);
+  }
+
+  @Test
+  public void testAllFieldsSupported() throws Exception {
+    for (Class<?> type : Arrays.asList(Event.class, Series.class, Group.class, Theme.class)) {
+      assertEquals("Unsupported fields of " + type.getName(), Collections.emptyList(),
+              CompactSource.getUnsupportedFields(type));
+    }
+    assertEquals(new HashSet<>(Arrays.asList("ratio", "tags")),
+            new HashSet<>(CompactSource.getUnsupportedFields(Unsupported.class)));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testWriteUnsupported() throws Exception {
+    CompactSource.write(new Unsupported());
+  }
+
+  /** A resource with fields of types the compact serialization does not support */
+  private static final class Unsupported implements IndexObject {
+    private String name;
+    private Double ratio;
+    private List<Integer> tags;
+
+    @Override
+    public String toJSON() {
+      return null;
+    }
+  }
+
+}
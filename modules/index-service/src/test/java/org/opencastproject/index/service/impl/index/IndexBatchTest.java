@@ -0,0 +1,154 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+package org.opencastproject.index.service.impl.index;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.opencastproject.index.service.impl.index.event.Event;
+import org.opencastproject.index.service.impl.index.event.EventIndexUtils;
+import org.opencastproject.index.service.impl.index.event.EventSearchQuery;
+import org.opencastproject.index.service.impl.index.series.Series;
+import org.opencastproject.index.service.impl.index.series.SeriesIndexUtils;
+import org.opencastproject.index.service.impl.index.series.SeriesSearchQuery;
+import org.opencastproject.matterhorn.search.SearchResult;
+import org.opencastproject.matterhorn.search.impl.SearchResultImpl;
+import org.opencastproject.security.api.DefaultOrganization;
+import org.opencastproject.security.api.JaxbRole;
+import org.opencastproject.security.api.JaxbUser;
+import org.opencastproject.security.api.User;
+
+import org.elasticsearch.common.lucene.uid.Versions;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.HashSet;
+
+/**
+ * Tests for writing to and reading from an {@link IndexBatch}.
+ */
+public class IndexBatchTest {
+
+  private static final DefaultOrganization DEFAULT_ORGANIZATION = new DefaultOrganization();
+
+  private static final String ORGANIZATION = DEFAULT_ORGANIZATION.getId();
+
+  private static final User USER = new JaxbUser("user", "password", "User", null, "test", DEFAULT_ORGANIZATION,
+          new HashSet<JaxbRole>());
+
+  /** An index which is always empty, so everything found has been read from the batch */
+  private final AbstractSearchIndex index = new AbstractSearchIndex() {
+    @Override
+    public String getIndexName() {
+      return "test";
+    }
+
+    @Override
+    public String[] getDocumentTypes() {
+      return new String[] { Event.DOCUMENT_TYPE, Series.DOCUMENT_TYPE };
+    }
+
+    @Override
+    public SearchResult<Event> getByQuery(EventSearchQuery query) {
+      return new SearchResultImpl<>(query, 0, 0);
+    }
+
+    @Override
+    public SearchResult<Series> getByQuery(SeriesSearchQuery query) {
+      return new SearchResultImpl<>(query, 0, 0);
+    }
+  };
+
+  @After
+  public void tearDown() {
+    index.untrackVersions();
+    index.leaveBatch();
+  }
+
+  @Test
+  public void testReadsPendingChanges() throws Exception {
+    IndexBatch batch = new IndexBatch();
+    index.joinBatch(batch);
+
+    Event event = EventIndexUtils.getOrCreateEvent("event", ORGANIZATION, USER, index);
+    event.setTitle("First");
+    index.addOrUpdate(event);
+    event = EventIndexUtils.getOrCreateEvent("event", ORGANIZATION, USER, index);
+    assertEquals("First", event.getTitle());
+    event.setTitle("Second");
+    index.addOrUpdate(event);
+
+    Series series = SeriesIndexUtils.getOrCreate("series", ORGANIZATION, USER, index);
+    series.setTitle("Series");
+    index.addOrUpdate(series);
+
+    assertEquals(2, batch.size());
+    assertEquals("Second", EventIndexUtils.getEvent("event", ORGANIZATION, USER, index).getTitle());
+    assertEquals("Series", SeriesIndexUtils.getOrCreate("series", ORGANIZATION, USER, index).getTitle());
+  }
+
+  @Test
+  public void testReadsPendingDeletions() throws Exception {
+    IndexBatch batch = new IndexBatch();
+    index.joinBatch(batch);
+
+    Event event = EventIndexUtils.getOrCreateEvent("event", ORGANIZATION, USER, index);
+    event.setTitle("Title");
+    index.addOrUpdate(event);
+    assertTrue(index.delete(Event.DOCUMENT_TYPE, "event".concat(ORGANIZATION)));
+
+    IndexBatch.Entry entry = batch.get(Event.DOCUMENT_TYPE, "event".concat(ORGANIZATION));
+    assertTrue(entry.isDeleted());
+    assertNull(EventIndexUtils.getEvent("event", ORGANIZATION, USER, index));
+    assertNull(EventIndexUtils.getOrCreateEvent("event", ORGANIZATION, USER, index).getTitle());
+  }
+
+  @Test
+  public void testKeepsVersionReadFirst() throws Exception {
+    IndexBatch batch = new IndexBatch();
+    index.joinBatch(batch);
+
+    // Without tracking versions, the batch is written unconditionally
+    index.addOrUpdate(EventIndexUtils.getOrCreateEvent("untracked", ORGANIZATION, USER, index));
+    assertNull(batch.get(Event.DOCUMENT_TYPE, "untracked".concat(ORGANIZATION)).getVersion());
+
+    // A resource not found is only created if it still does not exist when the batch is written
+    index.trackVersions();
+    index.addOrUpdate(EventIndexUtils.getOrCreateEvent("event", ORGANIZATION, USER, index));
+    assertFalse(index.untrackVersions());
+
+    // Later messages of the batch read the pending state, which is based on the version read first
+    index.trackVersions();
+    Event event = EventIndexUtils.getOrCreateEvent("event", ORGANIZATION, USER, index);
+    event.setTitle("Title");
+    index.addOrUpdate(event);
+    index.untrackVersions();
+
+    IndexBatch.Entry entry = batch.get(Event.DOCUMENT_TYPE, "event".concat(ORGANIZATION));
+    assertEquals("Title", EventIndexUtils.getEvent("event", ORGANIZATION, USER, index).getTitle());
+    assertEquals(Versions.MATCH_DELETED, entry.getVersion().longValue());
+  }
+
+}
@@ -0,0 +1,76 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+package org.opencastproject.index.service.message;
+
+import static org.junit.Assert.assertEquals;
+
+import org.opencastproject.message.broker.api.BaseMessage;
+import org.opencastproject.message.broker.api.scheduler.SchedulerItem;
+import org.opencastproject.message.broker.api.scheduler.SchedulerItemList;
+import org.opencastproject.security.api.DefaultOrganization;
+import org.opencastproject.security.api.JaxbRole;
+import org.opencastproject.security.api.JaxbUser;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+public class BaseMessageReceiverImplTest {
+
+  @Test
+  public void testPartition() throws Exception {
+    DefaultOrganization organization = new DefaultOrganization();
+    JaxbUser user = new JaxbUser("user", "password", "User", null, "test", organization, new HashSet<JaxbRole>());
+    List<BaseMessage> messages = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      SchedulerItemList item = SchedulerItemList.singleton("event-" + (i % 5), SchedulerItem.updateOptOut(i % 2 == 0));
+      messages.add(new BaseMessage(organization, user, item));
+    }
+
+    List<List<BaseMessage>> partitions = BaseMessageReceiverImpl.partition(messages, 3);
+    int total = 0;
+    for (List<BaseMessage> partition : partitions) {
+      total += partition.size();
+      for (BaseMessage message : partition) {
+        // All messages about the same event are in the same partition, in the order they have been received
+        List<BaseMessage> sameEvent = new ArrayList<>();
+        for (BaseMessage m : messages) {
+          if (m.getId().get().equals(message.getId().get()))
+            sameEvent.add(m);
+        }
+        List<BaseMessage> inPartition = new ArrayList<>();
+        for (BaseMessage m : partition) {
+          if (m.getId().get().equals(message.getId().get()))
+            inPartition.add(m);
+        }
+        assertEquals(sameEvent, inPartition);
+      }
+    }
+    assertEquals(messages.size(), total);
+
+    assertEquals(1, BaseMessageReceiverImpl.partition(messages, 1).size());
+  }
+
+}
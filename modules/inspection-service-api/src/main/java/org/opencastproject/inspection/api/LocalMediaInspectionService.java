@@ -0,0 +1,48 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.inspection.api;
+
+import org.opencastproject.mediapackage.Track;
+
+import java.net.URI;
+import java.util.Map;
+
+/**
+ * Analyzes media on the calling node, without dispatching a media inspection job. This is only available on nodes
+ * running the media inspection service itself.
+ */
+public interface LocalMediaInspectionService {
+
+  /**
+   * Inspects a track in the local workspace and returns it with the gathered metadata.
+   *
+   * @param uri
+   *          the workspace uri of the track
+   * @param options
+   *          Options in form of key/value pairs, see {@link MediaInspectionService#inspect(URI, Map)}
+   * @return the inspected track
+   * @throws MediaInspectionException
+   *           if the track cannot be inspected
+   */
+  Track inspectLocally(URI uri, Map<String, String> options) throws MediaInspectionException;
+
+}
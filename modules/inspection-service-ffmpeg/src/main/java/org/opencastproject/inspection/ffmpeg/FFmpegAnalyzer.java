@@ -25,6 +25,7 @@ import org.opencastproject.inspection.ffmpeg.api.MediaAnalyzer;
 import org.opencastproject.inspection.ffmpeg.api.MediaAnalyzerException;
 import org.opencastproject.inspection.ffmpeg.api.MediaContainerMetadata;
 import org.opencastproject.inspection.ffmpeg.api.VideoStreamMetadata;
+import org.opencastproject.util.OutputTail;
 import org.opencastproject.util.ProcessRunner;
 import org.opencastproject.util.ProcessRunner.ProcessInfo;
 
@@ -40,10 +41,15 @@ import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * This MediaAnalyzer implementation uses the ffprobe binary of FFmpeg for media analysis. Also this implementation does
@@ -58,12 +64,19 @@ public class FFmpegAnalyzer implements MediaAnalyzer {
   public static final String FFPROBE_BINARY_CONFIG = "org.opencastproject.inspection.ffprobe.path";
   public static final String FFPROBE_BINARY_DEFAULT = "ffprobe";
 
+  /** Configuration of the time in seconds after which ffprobe is killed, 0 to wait indefinitely */
+  public static final String FFPROBE_TIMEOUT_CONFIG = "org.opencastproject.inspection.ffprobe.timeout";
+  public static final long FFPROBE_TIMEOUT_DEFAULT = 3600L;
+
   /** Logging facility */
   private static final Logger logger = LoggerFactory.getLogger(FFmpegAnalyzer.class);
 
   /** Whether the calculation of the frames is accurate or not */
   private boolean accurateFrameCount;
 
+  /** Time in seconds after which ffprobe is killed, 0 to wait indefinitely */
+  private long timeout = FFPROBE_TIMEOUT_DEFAULT;
+
   public FFmpegAnalyzer(boolean accurateFrameCount) {
     this.accurateFrameCount = accurateFrameCount;
     // instantiated using MediaAnalyzerFactory via newInstance()
@@ -83,6 +96,10 @@ public class FFmpegAnalyzer implements MediaAnalyzer {
     this.binary = binary;
   }
 
+  public void setTimeout(long timeout) {
+    this.timeout = timeout;
+  }
+
   @Override
   public MediaContainerMetadata analyze(File media) throws MediaAnalyzerException {
     if (binary == null)
@@ -104,30 +121,39 @@ public class FFmpegAnalyzer implements MediaAnalyzer {
 
     MediaContainerMetadata metadata = new MediaContainerMetadata();
 
-    final StringBuilder sb = new StringBuilder();
+    // ffprobe's JSON output is parsed while it is read, only the last lines of the error output are kept
+    final AtomicReference<JSONObject> json = new AtomicReference<>();
+    final OutputTail errors = new OutputTail();
     try {
       ProcessInfo info = ProcessRunner.mk(binary, command.toArray(new String[command.size()]));
-      int exitCode = ProcessRunner.run(info, new Pred<String>() {
+      int exitCode = ProcessRunner.run(info, new ProcessRunner.OutputHandler() {
+        @Override
+        public void handle(InputStream out) throws IOException {
+          try {
+            json.set((JSONObject) new JSONParser().parse(new InputStreamReader(out, StandardCharsets.UTF_8)));
+          } catch (ParseException e) {
+            logger.error("Error parsing ffprobe output: {}", e.getMessage());
+          }
+        }
+      }, new Pred<String>() {
         @Override
         public Boolean apply(String s) {
           logger.debug(s);
-          sb.append(s);
-          sb.append(System.getProperty("line.separator"));
+          errors.add(s);
           return true;
         }
-      }, fnLogError);
+      }, timeout, TimeUnit.SECONDS);
       // Windows binary will return -1 when queried for options
       if (exitCode != -1 && exitCode != 0 && exitCode != 255)
-        throw new MediaAnalyzerException("Frame analyzer " + binary + " exited with code " + exitCode);
+        throw new MediaAnalyzerException("Frame analyzer " + binary + " exited with code " + exitCode + ":\n" + errors);
     } catch (IOException e) {
       logger.error("Error executing ffprobe", e);
-      throw new MediaAnalyzerException("Error while running ffprobe " + binary, e);
+      throw new MediaAnalyzerException("Error while running ffprobe " + binary + ":\n" + errors, e);
     }
 
-    JSONParser parser = new JSONParser();
-
-    try {
-      JSONObject jsonObject = (JSONObject) parser.parse(sb.toString());
+    // The output can't be parsed if ffprobe doesn't recognize the file at all
+    final JSONObject jsonObject = json.get();
+    if (jsonObject != null) {
       Object obj;
       Double duration;
 
@@ -318,8 +344,6 @@ public class FFmpegAnalyzer implements MediaAnalyzer {
         }
       }
 
-    } catch (ParseException e) {
-      logger.error("Error parsing ffprobe output: {}", e.getMessage());
     }
 
     return metadata;
@@ -338,6 +362,9 @@ public class FFmpegAnalyzer implements MediaAnalyzer {
         setBinary(binary);
         logger.debug("FFmpegAnalyzer config binary: " + binary);
       }
+      if (config.containsKey(FFPROBE_TIMEOUT_CONFIG)) {
+        setTimeout((Long) config.get(FFPROBE_TIMEOUT_CONFIG));
+      }
     }
   }
 
@@ -353,12 +380,4 @@ public class FFmpegAnalyzer implements MediaAnalyzer {
     }
   }
 
-  private static final Pred<String> fnLogError = new Pred<String>() {
-    @Override
-    public Boolean apply(String s) {
-      logger.debug(s);
-      return true;
-    }
-  };
-
 }
@@ -21,6 +21,7 @@
 
 package org.opencastproject.inspection.ffmpeg;
 
+import org.opencastproject.inspection.api.LocalMediaInspectionService;
 import org.opencastproject.inspection.api.MediaInspectionException;
 import org.opencastproject.inspection.api.MediaInspectionService;
 import org.opencastproject.inspection.api.util.Options;
@@ -29,14 +30,17 @@ import org.opencastproject.job.api.Job;
 import org.opencastproject.mediapackage.MediaPackageElement;
 import org.opencastproject.mediapackage.MediaPackageElementParser;
 import org.opencastproject.mediapackage.MediaPackageException;
+import org.opencastproject.mediapackage.Track;
 import org.opencastproject.security.api.OrganizationDirectoryService;
 import org.opencastproject.security.api.SecurityService;
 import org.opencastproject.security.api.UserDirectoryService;
 import org.opencastproject.serviceregistry.api.ServiceRegistry;
 import org.opencastproject.serviceregistry.api.ServiceRegistryException;
 import org.opencastproject.util.LoadUtil;
+import org.opencastproject.util.OsgiUtil;
 import org.opencastproject.workspace.api.Workspace;
 
+import org.apache.commons.lang3.StringUtils;
 import org.osgi.service.cm.ConfigurationException;
 import org.osgi.service.cm.ManagedService;
 import org.osgi.service.component.ComponentContext;
@@ -49,8 +53,11 @@ import java.util.Dictionary;
 import java.util.List;
 import java.util.Map;
 
+import javax.persistence.EntityManagerFactory;
+
 /** Inspects media via ffprobe. */
-public class MediaInspectionServiceImpl extends AbstractJobProducer implements MediaInspectionService, ManagedService {
+public class MediaInspectionServiceImpl extends AbstractJobProducer implements MediaInspectionService,
+        LocalMediaInspectionService, ManagedService {
 
   /** The load introduced on the system by creating an inspect job */
   public static final float DEFAULT_INSPECT_JOB_LOAD = 0.2f;
@@ -64,6 +71,21 @@ public class MediaInspectionServiceImpl extends AbstractJobProducer implements M
   /** The key to look for in the service configuration file to override the {@link DEFAULT_ENRICH_JOB_LOAD} */
   public static final String ENRICH_JOB_LOAD_KEY = "job.load.enrich";
 
+  /** The default number of analyzer results to keep in memory */
+  public static final int DEFAULT_CACHE_SIZE = 1000;
+
+  /** The key to look for in the service configuration file to override the {@link #DEFAULT_CACHE_SIZE} */
+  public static final String CACHE_SIZE_KEY = "cache.size";
+
+  /** The key to look for in the service configuration file to disable sharing analyzer results between nodes */
+  public static final String CACHE_SHARED_KEY = "cache.shared";
+
+  /** The default number of analyzer results to keep in the database */
+  public static final int DEFAULT_CACHE_SHARED_SIZE = 100000;
+
+  /** The key to look for in the service configuration file to override the {@link #DEFAULT_CACHE_SHARED_SIZE} */
+  public static final String CACHE_SHARED_SIZE_KEY = "cache.shared.size";
+
   /** The load introduced on the system by creating an inspect job */
   private float inspectJobLoad = DEFAULT_INSPECT_JOB_LOAD;
 
@@ -78,6 +100,7 @@ public class MediaInspectionServiceImpl extends AbstractJobProducer implements M
   }
 
   private Workspace workspace;
+  private volatile EntityManagerFactory emf;
   private ServiceRegistry serviceRegistry;
   private SecurityService securityService = null;
   private UserDirectoryService userDirectoryService = null;
@@ -85,6 +108,21 @@ public class MediaInspectionServiceImpl extends AbstractJobProducer implements M
 
   private volatile MediaInspector inspector;
 
+  /** Path to the ffprobe binary, set on activation */
+  private String ffprobeBinary;
+
+  /** Time in seconds after which ffprobe is killed, 0 to wait indefinitely */
+  private long ffprobeTimeout = FFmpegAnalyzer.FFPROBE_TIMEOUT_DEFAULT;
+
+  /** Maximum number of analyzer results to keep in memory, 0 to disable caching */
+  private int cacheSize = DEFAULT_CACHE_SIZE;
+
+  /** Whether analyzer results are shared with other nodes through the database */
+  private boolean cacheShared = true;
+
+  /** Maximum number of analyzer results to keep in the database */
+  private int cacheSharedSize = DEFAULT_CACHE_SHARED_SIZE;
+
   /** Creates a new media inspection service instance. */
   public MediaInspectionServiceImpl() {
     super(JOB_TYPE);
@@ -95,7 +133,6 @@ public class MediaInspectionServiceImpl extends AbstractJobProducer implements M
     super.activate(cc);
     /* Configure analyzer */
     final String path = cc.getBundleContext().getProperty(FFmpegAnalyzer.FFPROBE_BINARY_CONFIG);
-    final String ffprobeBinary;
     if (path == null) {
       logger.debug("DEFAULT " + FFmpegAnalyzer.FFPROBE_BINARY_CONFIG + ": " + FFmpegAnalyzer.FFPROBE_BINARY_DEFAULT);
       ffprobeBinary = FFmpegAnalyzer.FFPROBE_BINARY_DEFAULT;
@@ -103,7 +140,38 @@ public class MediaInspectionServiceImpl extends AbstractJobProducer implements M
       logger.debug("FFprobe config binary: {}", path);
       ffprobeBinary = path;
     }
-    inspector = new MediaInspector(workspace, ffprobeBinary);
+    final String timeout = StringUtils.trimToNull(
+            cc.getBundleContext().getProperty(FFmpegAnalyzer.FFPROBE_TIMEOUT_CONFIG));
+    if (timeout != null) {
+      try {
+        ffprobeTimeout = Long.parseLong(timeout);
+      } catch (NumberFormatException e) {
+        logger.warn("Ignoring invalid {}: {}", FFmpegAnalyzer.FFPROBE_TIMEOUT_CONFIG, timeout);
+      }
+    }
+    createInspector();
+  }
+
+  /** Creates the media inspector according to the current configuration. */
+  private synchronized void createInspector() {
+    if (ffprobeBinary == null)
+      return;
+    MediaMetadataCache cache = null;
+    if (cacheSize > 0) {
+      if (cacheShared && emf != null) {
+        logger.info("Caching up to {} media analyzer results, sharing up to {} with other nodes", cacheSize,
+                cacheSharedSize);
+        cache = new MediaMetadataCache(cacheSize, emf, cacheSharedSize);
+      } else {
+        if (cacheShared)
+          logger.info("No database available to share media analyzer results with other nodes");
+        logger.info("Caching up to {} media analyzer results", cacheSize);
+        cache = new MediaMetadataCache(cacheSize);
+      }
+    } else {
+      logger.info("Caching of media analyzer results is disabled");
+    }
+    inspector = new MediaInspector(workspace, ffprobeBinary, ffprobeTimeout, cache);
   }
 
   @Override
@@ -116,6 +184,15 @@ public class MediaInspectionServiceImpl extends AbstractJobProducer implements M
             serviceRegistry);
     enrichJobLoad = LoadUtil.getConfiguredLoadValue(properties, ENRICH_JOB_LOAD_KEY, DEFAULT_ENRICH_JOB_LOAD,
             serviceRegistry);
+
+    cacheSize = OsgiUtil.getOptCfgAsInt(properties, CACHE_SIZE_KEY).getOrElse(DEFAULT_CACHE_SIZE);
+    if (cacheSize < 0)
+      throw new ConfigurationException(CACHE_SIZE_KEY, "must not be negative");
+    cacheShared = OsgiUtil.getOptCfgAsBoolean(properties, CACHE_SHARED_KEY).getOrElse(true);
+    cacheSharedSize = OsgiUtil.getOptCfgAsInt(properties, CACHE_SHARED_SIZE_KEY).getOrElse(DEFAULT_CACHE_SHARED_SIZE);
+    if (cacheSharedSize < 1)
+      throw new ConfigurationException(CACHE_SHARED_SIZE_KEY, "must be positive");
+    createInspector();
   }
 
   /**
@@ -157,6 +234,16 @@ public class MediaInspectionServiceImpl extends AbstractJobProducer implements M
     }
   }
 
+  /**
+   * {@inheritDoc}
+   *
+   * @see org.opencastproject.inspection.api.LocalMediaInspectionService#inspectLocally(java.net.URI, java.util.Map)
+   */
+  @Override
+  public Track inspectLocally(URI uri, Map<String, String> options) throws MediaInspectionException {
+    return inspector.inspectTrack(uri, options);
+  }
+
   /**
    * {@inheritDoc}
    *
@@ -219,6 +306,20 @@ public class MediaInspectionServiceImpl extends AbstractJobProducer implements M
     this.workspace = workspace;
   }
 
+  /** OSGi DI, optional as the database is only needed to share the cache with other nodes */
+  public void setEntityManagerFactory(EntityManagerFactory emf) {
+    this.emf = emf;
+    createInspector();
+  }
+
+  /** OSGi DI */
+  public void unsetEntityManagerFactory(EntityManagerFactory emf) {
+    if (this.emf == emf) {
+      this.emf = null;
+      createInspector();
+    }
+  }
+
   protected void setServiceRegistry(ServiceRegistry jobManager) {
     this.serviceRegistry = jobManager;
   }
@@ -74,9 +74,33 @@ public class MediaInspector {
   private final Workspace workspace;
   private final String ffprobePath;
 
+  /** Time in seconds after which ffprobe is killed, 0 to wait indefinitely */
+  private final long ffprobeTimeout;
+
+  /** Cache of analyzer results, may be null */
+  private final MediaMetadataCache cache;
+
   public MediaInspector(Workspace workspace, String ffprobePath) {
+    this(workspace, ffprobePath, FFmpegAnalyzer.FFPROBE_TIMEOUT_DEFAULT, null);
+  }
+
+  /**
+   * Creates a media inspector which looks up analyzer results of previously inspected files in the given cache.
+   *
+   * @param workspace
+   *          the workspace
+   * @param ffprobePath
+   *          path to the ffprobe binary
+   * @param ffprobeTimeout
+   *          time in seconds after which ffprobe is killed, 0 to wait indefinitely
+   * @param cache
+   *          the cache of analyzer results, or <code>null</code> to analyze every file
+   */
+  public MediaInspector(Workspace workspace, String ffprobePath, long ffprobeTimeout, MediaMetadataCache cache) {
     this.workspace = workspace;
     this.ffprobePath = ffprobePath;
+    this.ffprobeTimeout = ffprobeTimeout;
+    this.cache = cache;
   }
 
   /**
@@ -109,7 +133,15 @@ public class MediaInspector {
         throw new MediaInspectionException("Can not inspect files without a filename extension");
       }
 
-      MediaContainerMetadata metadata = getFileMetadata(file, getAccurateFrameCount(options));
+      // Checksum
+      Checksum checksum;
+      try {
+        checksum = Checksum.create(ChecksumType.DEFAULT_TYPE, file);
+      } catch (IOException e) {
+        throw new MediaInspectionException("Unable to read " + file, e);
+      }
+
+      MediaContainerMetadata metadata = getFileMetadata(file, checksum, getAccurateFrameCount(options));
       if (metadata == null) {
         throw new MediaInspectionException("Media analyzer returned no metadata from " + file);
       } else {
@@ -127,12 +159,7 @@ public class MediaInspector {
         if (metadata.getDuration() != null && metadata.getDuration() > 0)
           track.setDuration(metadata.getDuration());
 
-        // Checksum
-        try {
-          track.setChecksum(Checksum.create(ChecksumType.DEFAULT_TYPE, file));
-        } catch (IOException e) {
-          throw new MediaInspectionException("Unable to read " + file, e);
-        }
+        track.setChecksum(checksum);
 
         // Mimetype
         MimeType mimeType = MimeTypes.fromString(file.getPath());
@@ -227,7 +254,19 @@ public class MediaInspector {
         throw new MediaInspectionException("Can not inspect files without a filename extension");
       }
 
-      MediaContainerMetadata metadata = getFileMetadata(file, getAccurateFrameCount(options));
+      // The cache is looked up by the checksum of the file itself, as the checksum the track claims may be wrong
+      Checksum checksum = null;
+      if (cache != null || originalTrack.getChecksum() == null || override) {
+        try {
+          checksum = Checksum.create(ChecksumType.DEFAULT_TYPE, file);
+        } catch (IOException e) {
+          throw new MediaInspectionException("Unable to read " + file, e);
+        }
+        if (originalTrack.getChecksum() != null && !originalTrack.getChecksum().equals(checksum))
+          logger.warn("Checksum of track {} does not match the checksum of {}", originalTrack, file);
+      }
+
+      MediaContainerMetadata metadata = getFileMetadata(file, checksum, getAccurateFrameCount(options));
       if (metadata == null) {
         throw new MediaInspectionException("Unable to acquire media metadata for " + originalTrackUrl);
       } else {
@@ -256,13 +295,8 @@ public class MediaInspector {
         // enrich the new track with basic info
         if (track.getDuration() == null || override)
           track.setDuration(metadata.getDuration());
-        if (track.getChecksum() == null || override) {
-          try {
-            track.setChecksum(Checksum.create(ChecksumType.DEFAULT_TYPE, file));
-          } catch (IOException e) {
-            throw new MediaInspectionException("Unable to read " + file, e);
-          }
-        }
+        if (checksum != null && (track.getChecksum() == null || override))
+          track.setChecksum(checksum);
 
         // Add the mime type if it's not already present
         if (track.getMimeType() == null || override) {
@@ -370,21 +404,38 @@ public class MediaInspector {
   }
 
   /**
-   * Asks the media analyzer to extract the file's metadata.
+   * Asks the media analyzer to extract the file's metadata, unless the result for a file with the same checksum and
+   * size is already cached.
    *
    * @param file
    *          the file
+   * @param checksum
+   *          the file's checksum, or <code>null</code> to bypass the cache
+   * @param accurateFrameCount
+   *          whether the frames should be counted by decoding the whole file
    * @return the file container metadata
    * @throws MediaInspectionException
    *           if metadata extraction fails
    */
-  private MediaContainerMetadata getFileMetadata(File file, boolean accurateFrameCount) throws MediaInspectionException {
+  private MediaContainerMetadata getFileMetadata(File file, Checksum checksum, boolean accurateFrameCount)
+          throws MediaInspectionException {
     if (file == null)
       throw new IllegalArgumentException("file to analyze cannot be null");
+    final boolean useCache = cache != null && checksum != null;
+    if (useCache) {
+      for (MediaContainerMetadata metadata : cache.get(checksum, file.length(), accurateFrameCount)) {
+        logger.debug("Using cached media metadata for {}", file);
+        return metadata;
+      }
+    }
     try {
       MediaAnalyzer analyzer = new FFmpegAnalyzer(accurateFrameCount);
-      analyzer.setConfig(map(Tuple.<String, Object> tuple(FFmpegAnalyzer.FFPROBE_BINARY_CONFIG, ffprobePath)));
-      return analyzer.analyze(file);
+      analyzer.setConfig(map(Tuple.<String, Object> tuple(FFmpegAnalyzer.FFPROBE_BINARY_CONFIG, ffprobePath),
+              Tuple.<String, Object> tuple(FFmpegAnalyzer.FFPROBE_TIMEOUT_CONFIG, ffprobeTimeout)));
+      MediaContainerMetadata metadata = analyzer.analyze(file);
+      if (useCache && metadata != null)
+        cache.put(checksum, file.length(), accurateFrameCount, metadata);
+      return metadata;
     } catch (MediaAnalyzerException e) {
       throw new MediaInspectionException(e);
     }
@@ -0,0 +1,261 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.inspection.ffmpeg;
+
+import org.opencastproject.inspection.ffmpeg.api.MediaContainerMetadata;
+import org.opencastproject.util.Checksum;
+import org.opencastproject.util.data.Option;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.util.Date;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.EntityTransaction;
+import javax.persistence.PersistenceException;
+
+/**
+ * Cache of media analyzer results, keyed by the checksum and size of the analyzed file.
+ * <p>
+ * Entries are kept in a local LRU cache. If an entity manager factory is given, entries are additionally stored in the
+ * database, which is shared by all nodes of the cluster, so a file that has been analyzed on one node is not analyzed
+ * again on another one. The database keeps the most recently used entries up to a configurable number; an entry
+ * counts as used when a node reads it from the database.
+ * <p>
+ * Entries are stored in their serialized form, so every caller gets its own copy of the metadata.
+ */
+public class MediaMetadataCache {
+
+  private static final Logger logger = LoggerFactory.getLogger(MediaMetadataCache.class);
+
+  /** The name of the persistence unit of the shared cache */
+  public static final String PERSISTENCE_UNIT = "org.opencastproject.inspection.ffmpeg";
+
+  /** Package prefixes of the classes that may appear in a cache entry */
+  private static final String[] ALLOWED_PACKAGES = { "org.opencastproject.inspection.ffmpeg.api.",
+          "org.opencastproject.mediapackage.track.", "java." };
+
+  /** The local cache of serialized entries */
+  private final Cache<String, byte[]> cache;
+
+  /** The factory used to access the shared cache, may be null */
+  private final EntityManagerFactory emf;
+
+  /** The maximum number of entries to keep in the shared cache */
+  private final int sharedSize;
+
+  /**
+   * Creates a new metadata cache which is not shared with other nodes.
+   *
+   * @param maxSize
+   *          the maximum number of entries to keep in memory
+   */
+  public MediaMetadataCache(int maxSize) {
+    this(maxSize, null, 0);
+  }
+
+  /**
+   * Creates a new metadata cache.
+   *
+   * @param maxSize
+   *          the maximum number of entries to keep in memory
+   * @param emf
+   *          the entity manager factory to share entries with other nodes, or <code>null</code> to keep entries local
+   * @param sharedSize
+   *          the maximum number of entries to keep in the database
+   */
+  public MediaMetadataCache(int maxSize, EntityManagerFactory emf, int sharedSize) {
+    this.cache = CacheBuilder.newBuilder().maximumSize(maxSize).build();
+    this.emf = emf;
+    this.sharedSize = sharedSize;
+  }
+
+  /**
+   * Looks up the analyzer result for a file. Results of an accurate frame count also satisfy requests that do not ask
+   * for one.
+   *
+   * @param checksum
+   *          the file's checksum
+   * @param size
+   *          the file's size in bytes
+   * @param accurateFrameCount
+   *          whether the result must be based on an accurate frame count
+   * @return a copy of the cached metadata, if any
+   */
+  public Option<MediaContainerMetadata> get(Checksum checksum, long size, boolean accurateFrameCount) {
+    Option<MediaContainerMetadata> metadata = get(key(checksum, size, true));
+    if (metadata.isNone() && !accurateFrameCount)
+      metadata = get(key(checksum, size, false));
+    return metadata;
+  }
+
+  /**
+   * Stores the analyzer result for a file.
+   *
+   * @param checksum
+   *          the file's checksum
+   * @param size
+   *          the file's size in bytes
+   * @param accurateFrameCount
+   *          whether the result is based on an accurate frame count
+   * @param metadata
+   *          the metadata
+   */
+  public void put(Checksum checksum, long size, boolean accurateFrameCount, MediaContainerMetadata metadata) {
+    final String key = key(checksum, size, accurateFrameCount);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (ObjectOutputStream oos = new ObjectOutputStream(out)) {
+      oos.writeObject(metadata);
+    } catch (IOException e) {
+      logger.warn("Unable to serialize media metadata for {}: {}", key, e.getMessage());
+      return;
+    }
+    final byte[] serialized = out.toByteArray();
+    cache.put(key, serialized);
+    if (emf == null)
+      return;
+
+    EntityManager em = null;
+    EntityTransaction tx = null;
+    try {
+      em = emf.createEntityManager();
+      tx = em.getTransaction();
+      tx.begin();
+      em.merge(new MediaMetadataCacheEntryDto(key, serialized, new Date()));
+      evict(em);
+      tx.commit();
+    } catch (PersistenceException e) {
+      // Another node may have stored the same file at the same time, which is fine
+      logger.warn("Unable to store media metadata {} in the shared cache: {}", key, e.getMessage());
+      if (tx != null && tx.isActive())
+        tx.rollback();
+    } finally {
+      if (em != null)
+        em.close();
+    }
+  }
+
+  /** Removes all entries from the local cache. */
+  public void clear() {
+    cache.invalidateAll();
+  }
+
+  private Option<MediaContainerMetadata> get(String key) {
+    byte[] serialized = cache.getIfPresent(key);
+    if (serialized != null) {
+      logger.debug("Found media metadata {} in the local cache", key);
+    } else if (emf != null) {
+      serialized = getShared(key);
+      if (serialized != null) {
+        logger.debug("Found media metadata {} in the shared cache", key);
+        cache.put(key, serialized);
+      }
+    }
+    if (serialized == null)
+      return Option.none();
+
+    try (ObjectInputStream in = new RestrictedObjectInputStream(new ByteArrayInputStream(serialized))) {
+      return Option.some((MediaContainerMetadata) in.readObject());
+    } catch (IOException | ClassNotFoundException | ClassCastException e) {
+      logger.warn("Ignoring unreadable cache entry {}: {}", key, e.getMessage());
+      cache.invalidate(key);
+      return Option.none();
+    }
+  }
+
+  /** Reads an entry from the database and marks it as recently used. */
+  private byte[] getShared(String key) {
+    EntityManager em = null;
+    EntityTransaction tx = null;
+    try {
+      em = emf.createEntityManager();
+      MediaMetadataCacheEntryDto entry = em.find(MediaMetadataCacheEntryDto.class, key);
+      if (entry == null)
+        return null;
+      tx = em.getTransaction();
+      tx.begin();
+      em.createNamedQuery("MediaMetadataCacheEntry.touch").setParameter("key", key)
+              .setParameter("lastAccessed", new Date()).executeUpdate();
+      tx.commit();
+      return entry.getMetadata();
+    } catch (PersistenceException e) {
+      logger.warn("Unable to read media metadata {} from the shared cache: {}", key, e.getMessage());
+      if (tx != null && tx.isActive())
+        tx.rollback();
+      return null;
+    } finally {
+      if (em != null)
+        em.close();
+    }
+  }
+
+  /** Removes the least recently used entries which exceed the size of the shared cache. */
+  private void evict(EntityManager em) {
+    @SuppressWarnings("unchecked")
+    List<Date> oldest = em.createNamedQuery("MediaMetadataCacheEntry.lastAccessed").setFirstResult(sharedSize - 1)
+            .setMaxResults(1).getResultList();
+    if (oldest.isEmpty())
+      return;
+    int evicted = em.createNamedQuery("MediaMetadataCacheEntry.evict").setParameter("lastAccessed", oldest.get(0))
+            .executeUpdate();
+    if (evicted > 0)
+      logger.debug("Evicted {} media metadata entries from the shared cache", evicted);
+  }
+
+  /** Creates the cache key. */
+  static String key(Checksum checksum, long size, boolean accurateFrameCount) {
+    return checksum.getType().getName() + "-" + checksum.getValue() + "-" + size
+            + (accurateFrameCount ? "-accurate" : "");
+  }
+
+  /** Object input stream which refuses to deserialize anything but media metadata. */
+  private static final class RestrictedObjectInputStream extends ObjectInputStream {
+
+    RestrictedObjectInputStream(InputStream in) throws IOException {
+      super(in);
+    }
+
+    @Override
+    protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+      for (String prefix : ALLOWED_PACKAGES) {
+        if (desc.getName().startsWith(prefix))
+          return Class.forName(desc.getName(), false, MediaMetadataCache.class.getClassLoader());
+      }
+      throw new InvalidClassException(desc.getName(), "Not allowed in the media metadata cache");
+    }
+  }
+
+}
@@ -0,0 +1,95 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+package org.opencastproject.inspection.ffmpeg;
+
+import java.util.Date;
+
+import javax.persistence.Access;
+import javax.persistence.AccessType;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Lob;
+import javax.persistence.NamedQueries;
+import javax.persistence.NamedQuery;
+import javax.persistence.Table;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+
+/**
+ * Entity object for the media analyzer results shared by all nodes.
+ */
+@Entity(name = "MediaMetadataCacheEntry")
+@Access(AccessType.FIELD)
+@Table(name = "oc_inspection_cache")
+@NamedQueries({
+        @NamedQuery(name = "MediaMetadataCacheEntry.touch", query = "UPDATE MediaMetadataCacheEntry e "
+                + "SET e.lastAccessed = :lastAccessed WHERE e.key = :key"),
+        @NamedQuery(name = "MediaMetadataCacheEntry.lastAccessed", query = "SELECT e.lastAccessed "
+                + "FROM MediaMetadataCacheEntry e ORDER BY e.lastAccessed DESC"),
+        @NamedQuery(name = "MediaMetadataCacheEntry.evict", query = "DELETE FROM MediaMetadataCacheEntry e "
+                + "WHERE e.lastAccessed < :lastAccessed") })
+public class MediaMetadataCacheEntryDto {
+
+  @Id
+  @Column(name = "cache_key", length = 255)
+  private String key;
+
+  @Lob
+  @Column(name = "metadata", nullable = false)
+  private byte[] metadata;
+
+  @Column(name = "last_accessed", nullable = false)
+  @Temporal(TemporalType.TIMESTAMP)
+  private Date lastAccessed;
+
+  /**
+   * Default constructor
+   */
+  public MediaMetadataCacheEntryDto() {
+  }
+
+  public MediaMetadataCacheEntryDto(String key, byte[] metadata, Date lastAccessed) {
+    this.key = key;
+    this.metadata = metadata;
+    this.lastAccessed = lastAccessed;
+  }
+
+  public String getKey() {
+    return key;
+  }
+
+  /**
+   * Returns the serialized media metadata
+   *
+   * @return the serialized metadata
+   */
+  public byte[] getMetadata() {
+    return metadata;
+  }
+
+  public Date getLastAccessed() {
+    return lastAccessed;
+  }
+
+}
@@ -28,6 +28,9 @@ package org.opencastproject.inspection.ffmpeg.api;
  */
 public class AudioStreamMetadata extends StreamMetadata {
 
+  /** Serial version uid */
+  private static final long serialVersionUID = 1L;
+
   private Integer channels;
   private String channelPositions;
 
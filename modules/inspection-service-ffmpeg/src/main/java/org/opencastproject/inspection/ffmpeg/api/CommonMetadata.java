@@ -22,6 +22,7 @@
 
 package org.opencastproject.inspection.ffmpeg.api;
 
+import java.io.Serializable;
 import java.net.URL;
 import java.util.Date;
 import java.util.Locale;
@@ -29,7 +30,10 @@ import java.util.Locale;
 /**
  * Common metadata for all kinds of media objects.
  */
-public class CommonMetadata {
+public class CommonMetadata implements Serializable {
+
+  /** Serial version uid */
+  private static final long serialVersionUID = 1L;
 
   protected String format;
   protected String formatInfo;
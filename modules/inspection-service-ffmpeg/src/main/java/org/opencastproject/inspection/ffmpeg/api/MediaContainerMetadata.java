@@ -33,6 +33,9 @@ import java.util.List;
  */
 public class MediaContainerMetadata extends TemporalMetadata {
 
+  /** Serial version uid */
+  private static final long serialVersionUID = 1L;
+
   private List<VideoStreamMetadata> vMetadata = new ArrayList<VideoStreamMetadata>();
   private List<AudioStreamMetadata> aMetadata = new ArrayList<AudioStreamMetadata>();
 
@@ -27,6 +27,9 @@ package org.opencastproject.inspection.ffmpeg.api;
  */
 public class StreamMetadata extends TemporalMetadata {
 
+  /** Serial version uid */
+  private static final long serialVersionUID = 1L;
+
   protected String alignment;
 
   protected Long delay;
@@ -29,6 +29,9 @@ import org.opencastproject.mediapackage.track.BitRateMode;
  */
 public abstract class TemporalMetadata extends CommonMetadata {
 
+  /** Serial version uid */
+  private static final long serialVersionUID = 1L;
+
   // ms
   protected Long duration;
 
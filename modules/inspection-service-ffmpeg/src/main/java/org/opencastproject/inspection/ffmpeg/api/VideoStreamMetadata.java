@@ -32,6 +32,9 @@ import org.opencastproject.mediapackage.track.ScanType;
  */
 public class VideoStreamMetadata extends StreamMetadata {
 
+  /** Serial version uid */
+  private static final long serialVersionUID = 1L;
+
   protected String formatSettingsBVOP;
   protected String formatSettingsCABAC;
   protected String formatSettingsQPel;
@@ -0,0 +1,127 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.inspection.ffmpeg;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+import static org.opencastproject.util.persistence.PersistenceUtil.newTestEntityManagerFactory;
+
+import org.opencastproject.inspection.ffmpeg.api.MediaContainerMetadata;
+import org.opencastproject.inspection.ffmpeg.api.VideoStreamMetadata;
+import org.opencastproject.util.Checksum;
+import org.opencastproject.util.ChecksumType;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.persistence.EntityManagerFactory;
+
+public class MediaMetadataCacheTest {
+
+  private final Checksum checksum = Checksum.create(ChecksumType.DEFAULT_TYPE, "cc72b7a4f1a68b84fba6f0fb895da395");
+
+  private EntityManagerFactory emf;
+
+  @Before
+  public void setUp() {
+    emf = newTestEntityManagerFactory(MediaMetadataCache.PERSISTENCE_UNIT);
+  }
+
+  @After
+  public void tearDown() {
+    emf.close();
+  }
+
+  private MediaContainerMetadata createMetadata() {
+    MediaContainerMetadata metadata = new MediaContainerMetadata();
+    metadata.setDuration(1000L);
+    VideoStreamMetadata video = new VideoStreamMetadata();
+    video.setFrames(25L);
+    metadata.getVideoStreamMetadata().add(video);
+    return metadata;
+  }
+
+  @Test
+  public void testLocalCache() throws Exception {
+    MediaMetadataCache cache = new MediaMetadataCache(10);
+    assertTrue(cache.get(checksum, 100L, false).isNone());
+
+    cache.put(checksum, 100L, false, createMetadata());
+    assertEquals(1000L, cache.get(checksum, 100L, false).get().getDuration().longValue());
+    // A different size or an accurate frame count request must not be answered by this entry
+    assertTrue(cache.get(checksum, 101L, false).isNone());
+    assertTrue(cache.get(checksum, 100L, true).isNone());
+
+    // Accurate results satisfy all requests
+    cache.put(checksum, 200L, true, createMetadata());
+    assertTrue(cache.get(checksum, 200L, false).isSome());
+    assertTrue(cache.get(checksum, 200L, true).isSome());
+  }
+
+  @Test
+  public void testCopyOnGet() throws Exception {
+    MediaMetadataCache cache = new MediaMetadataCache(10);
+    MediaContainerMetadata metadata = createMetadata();
+    cache.put(checksum, 100L, false, metadata);
+    metadata.setDuration(2000L);
+
+    MediaContainerMetadata cached = cache.get(checksum, 100L, false).get();
+    assertEquals(1000L, cached.getDuration().longValue());
+    cached.getVideoStreamMetadata().clear();
+    assertNotSame(cached, cache.get(checksum, 100L, false).get());
+    assertEquals(1, cache.get(checksum, 100L, false).get().getVideoStreamMetadata().size());
+  }
+
+  @Test
+  public void testSharedCache() throws Exception {
+    new MediaMetadataCache(10, emf, 10).put(checksum, 100L, true, createMetadata());
+
+    // Another node looks up the entry
+    MediaMetadataCache cache = new MediaMetadataCache(10, emf, 10);
+    MediaContainerMetadata metadata = cache.get(checksum, 100L, true).get();
+    assertEquals(1000L, metadata.getDuration().longValue());
+    assertEquals(25L, metadata.getVideoStreamMetadata().get(0).getFrames().longValue());
+    assertTrue(cache.get(checksum, 100L, false).isSome());
+    assertTrue(cache.get(checksum, 101L, false).isNone());
+  }
+
+  @Test
+  public void testSharedCacheEviction() throws Exception {
+    MediaMetadataCache cache = new MediaMetadataCache(10, emf, 2);
+    cache.put(checksum, 100L, false, createMetadata());
+    Thread.sleep(10L);
+    cache.put(checksum, 200L, false, createMetadata());
+    Thread.sleep(10L);
+    // Reading the first entry on another node makes it the most recently used one
+    assertTrue(new MediaMetadataCache(10, emf, 2).get(checksum, 100L, false).isSome());
+    Thread.sleep(10L);
+    cache.put(checksum, 300L, false, createMetadata());
+
+    MediaMetadataCache other = new MediaMetadataCache(10, emf, 2);
+    assertTrue(other.get(checksum, 100L, false).isSome());
+    assertTrue(other.get(checksum, 200L, false).isNone());
+    assertTrue(other.get(checksum, 300L, false).isSome());
+  }
+
+}
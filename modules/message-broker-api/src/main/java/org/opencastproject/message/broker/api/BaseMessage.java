@@ -39,11 +39,21 @@ public class BaseMessage implements Serializable {
   private final String organization;
   private final String user;
   private final Serializable object;
+  private final boolean repopulating;
 
   public BaseMessage(Organization organization, User user, Serializable object) {
+    this(organization, user, object, false);
+  }
+
+  /**
+   * @param repopulating
+   *          whether the message is sent to repopulate a search index, see {@link #isRepopulating()}
+   */
+  public BaseMessage(Organization organization, User user, Serializable object, boolean repopulating) {
     this.organization = OrganizationParser.toXml(JaxbOrganization.fromOrganization(organization));
     this.user = UserParser.toXml(JaxbUser.fromUser(user));
     this.object = object;
+    this.repopulating = repopulating;
   }
 
   public Opt<String> getId() {
@@ -65,4 +75,14 @@ public class BaseMessage implements Serializable {
     return object;
   }
 
+  /**
+   * Returns whether the message resends data to rebuild a search index, rather than reporting a change, see
+   * {@link org.opencastproject.message.broker.api.index.AbstractIndexProducer#isRepopulating()}.
+   *
+   * @return whether the message has been sent while repopulating an index
+   */
+  public boolean isRepopulating() {
+    return repopulating;
+  }
+
 }
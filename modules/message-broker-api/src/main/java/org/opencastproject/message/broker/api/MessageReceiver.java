@@ -24,6 +24,7 @@ package org.opencastproject.message.broker.api;
 import org.opencastproject.message.broker.api.MessageSender.DestinationType;
 
 import java.io.Serializable;
+import java.util.List;
 import java.util.concurrent.FutureTask;
 
 public interface MessageReceiver extends MessageBrokerConnector {
@@ -39,4 +40,18 @@ public interface MessageReceiver extends MessageBrokerConnector {
    */
   FutureTask<Serializable> receiveSerializable(String destinationId, DestinationType type);
 
+  /**
+   * {@link java.util.concurrent.Future} for the next batch of {@link Serializable}s from {@link javax.jms.ObjectMessage}s.
+   * Waits for the first message, then takes the messages already waiting at the destination without blocking again.
+   *
+   * @param destinationId
+   *          The unique id for the queue or topic to listen to.
+   * @param type
+   *          The type of destination either queue or topic.
+   * @param maxMessages
+   *          The maximum number of messages to take.
+   * @return A non-empty list of {@link Serializable} {@link Object}s, in the order they have been received.
+   */
+  FutureTask<List<Serializable>> receiveSerializables(String destinationId, DestinationType type, int maxMessages);
+
 }
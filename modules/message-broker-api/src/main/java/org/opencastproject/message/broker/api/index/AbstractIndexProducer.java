@@ -69,9 +69,22 @@ public abstract class AbstractIndexProducer implements IndexProducer {
 
   public abstract String getSystemUserName();
 
+  /** Whether the current thread resends the data of a service to rebuild an index */
+  private static final ThreadLocal<Boolean> repopulating = new ThreadLocal<>();
+
   /** The message watcher */
   private MessageWatcher messageWatcher;
 
+  /**
+   * Returns whether the current thread resends the data of a service to rebuild an index. Messages sent meanwhile are
+   * marked, see {@link BaseMessage#isRepopulating()}, so the receivers only apply them to the index being rebuilt.
+   *
+   * @return whether the current thread repopulates an index
+   */
+  public static boolean isRepopulating() {
+    return repopulating.get() != null;
+  }
+
   /** Single thread executor */
   private final ExecutorService singleThreadExecutor = Executors.newSingleThreadExecutor();
 
@@ -271,7 +284,12 @@ public abstract class AbstractIndexProducer implements IndexProducer {
             continue;
           logger.info("Index '{}' has received a start repopulating command for service '{}'.",
                   indexObject.getIndexName(), getService());
-          repopulate(indexObject.getIndexName());
+          repopulating.set(true);
+          try {
+            repopulate(indexObject.getIndexName());
+          } finally {
+            repopulating.remove();
+          }
           logger.info("Index '{}' has finished repopulating service '{}'.", indexObject.getIndexName(), getService());
         } catch (InterruptedException e) {
           logger.error("Problem while getting {} message events", getClassName(), e);
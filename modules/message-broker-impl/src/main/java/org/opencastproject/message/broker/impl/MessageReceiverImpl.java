@@ -28,6 +28,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.FutureTask;
 
@@ -130,6 +132,52 @@ public class MessageReceiverImpl extends MessageBaseFacility implements MessageR
     }
   }
 
+  /**
+   * Get a batch of serializable objects from the message bus. Blocks until the first message arrives, then takes the
+   * messages already waiting at the destination using the same consumer.
+   *
+   * @param destinationId The destination queue or topic to pull the messages from.
+   * @param type The type of the destination either queue or topic.
+   * @param maxMessages The maximum number of messages to take.
+   * @return the serializable objects from the message bus
+   * @throws JMSException if an error occures during the communication with the message bus.
+   */
+  protected List<Serializable> getSerializables(String destinationId, DestinationType type, int maxMessages)
+          throws JMSException {
+    List<Serializable> objects = new ArrayList<>();
+    while (objects.isEmpty()) {
+      waitForConnection();
+      MessageConsumer consumer = null;
+      try {
+        consumer = createConsumer(destinationId, type);
+        if (consumer == null) {
+          logger.trace("Consumer could not be created.");
+          continue;
+        }
+        Message message = consumer.receive();
+        while (message != null) {
+          if (message instanceof ObjectMessage) {
+            objects.add(((ObjectMessage) message).getObject());
+          } else {
+            logger.debug("Skipping invalid message: {}", message);
+          }
+          if (objects.size() >= maxMessages)
+            break;
+          message = consumer.receiveNoWait();
+        }
+      } finally {
+        if (consumer != null) {
+          try {
+            consumer.close();
+          } catch (JMSException e) {
+            logger.error("Unable to close connections after receipt of messages", e);
+          }
+        }
+      }
+    }
+    return objects;
+  }
+
   @Override
   public FutureTask<Serializable> receiveSerializable(final String destinationId, final DestinationType type) {
     FutureTask<Serializable> futureTask = new FutureTask<Serializable>(new Callable<Serializable>() {
@@ -141,4 +189,15 @@ public class MessageReceiverImpl extends MessageBaseFacility implements MessageR
     return futureTask;
   }
 
+  @Override
+  public FutureTask<List<Serializable>> receiveSerializables(final String destinationId, final DestinationType type,
+          final int maxMessages) {
+    return new FutureTask<List<Serializable>>(new Callable<List<Serializable>>() {
+      @Override
+      public List<Serializable> call() throws JMSException {
+        return getSerializables(destinationId, type, maxMessages);
+      }
+    });
+  }
+
 }
@@ -23,6 +23,7 @@ package org.opencastproject.message.broker.impl;
 
 import org.opencastproject.message.broker.api.BaseMessage;
 import org.opencastproject.message.broker.api.MessageSender;
+import org.opencastproject.message.broker.api.index.AbstractIndexProducer;
 import org.opencastproject.security.api.SecurityService;
 
 import org.slf4j.Logger;
@@ -63,8 +64,8 @@ public class MessageSenderImpl extends MessageBaseFacility implements MessageSen
         if (session == null)
           return;
         // Create a message or use the provided one.
-        Message message = session.createObjectMessage(
-                new BaseMessage(securityService.getOrganization(), securityService.getUser(), object));
+        Message message = session.createObjectMessage(new BaseMessage(securityService.getOrganization(),
+                securityService.getUser(), object, AbstractIndexProducer.isRepopulating()));
 
         Destination destination;
         // Create the destination (Topic or Queue)
@@ -61,4 +61,18 @@ public interface OaiPmhDatabase {
    * @return a search result
    */
   SearchResult search(Query q);
+
+  /**
+   * Searches mediapackages from the OAI-PMH persistence storage without loading all of them at once. The items are
+   * fetched in chunks while iterating, so only a bounded number of items is held in memory.
+   *
+   * @param q
+   *          the query
+   * @param fetchSize
+   *          the maximum number of items to fetch at once
+   * @return the matching items
+   */
+  default SearchResultItems searchLazily(Query q, int fetchSize) {
+    return new SearchResultItems(this, q, fetchSize);
+  }
 }
@@ -44,5 +44,12 @@ public interface Query {
 
   Option<Integer> getOffset();
 
+  /**
+   * The mediapackage ID of the last item of the previous page. Together with the modification date given by
+   * {@link #getModifiedAfter()} it forms a keyset cursor, so a subsequent request continues right after that item
+   * even if several items share the same modification date.
+   */
+  Option<String> getLastMediaPackageId();
+
   boolean isSubsequentRequest();
 }
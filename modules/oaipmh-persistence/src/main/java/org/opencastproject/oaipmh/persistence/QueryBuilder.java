@@ -38,12 +38,28 @@ public class QueryBuilder {
   private Option<Date> modifiedBefore = none();
   private Option<Integer> limit = none();
   private Option<Integer> offset = none();
+  private Option<String> lastMediaPackageId = none();
   private boolean subsequentRequest = false;
 
   public static QueryBuilder query() {
     return new QueryBuilder();
   }
 
+  /** Create a builder initialized with all parameters of the given query. */
+  public static QueryBuilder copyOf(Query query) {
+    return new QueryBuilder()
+            .mediaPackageId(query.getMediaPackageId())
+            .repositoryId(query.getRepositoryId())
+            .seriesId(query.getSeriesId())
+            .isDeleted(query.isDeleted())
+            .modifiedAfter(query.getModifiedAfter())
+            .modifiedBefore(query.getModifiedBefore())
+            .limit(query.getLimit())
+            .offset(query.getOffset())
+            .lastMediaPackageId(query.getLastMediaPackageId())
+            .subsequentRequest(query.isSubsequentRequest());
+  }
+
   /** Create a query for a certain repository. */
   public static QueryBuilder queryRepo(String repositoryId) {
     return new QueryBuilder().repositoryId(repositoryId);
@@ -113,6 +129,11 @@ public class QueryBuilder {
     return this;
   }
 
+  public QueryBuilder isDeleted(Option<Boolean> deleted) {
+    this.deleted = deleted;
+    return this;
+  }
+
   public QueryBuilder limit(Option<Integer> limit) {
     this.limit = limit;
     return this;
@@ -123,11 +144,28 @@ public class QueryBuilder {
     return this;
   }
 
+  public QueryBuilder offset(Option<Integer> offset) {
+    this.offset = offset;
+    return this;
+  }
+
   public QueryBuilder offset(Integer offset) {
     this.offset = some(offset);
     return this;
   }
 
+  /** Continue after the item with the given mediapackage ID. Only evaluated for subsequent requests. */
+  public QueryBuilder lastMediaPackageId(Option<String> lastMediaPackageId) {
+    this.lastMediaPackageId = lastMediaPackageId;
+    return this;
+  }
+
+  /** Continue after the item with the given mediapackage ID. Only evaluated for subsequent requests. */
+  public QueryBuilder lastMediaPackageId(String lastMediaPackageId) {
+    this.lastMediaPackageId = some(lastMediaPackageId);
+    return this;
+  }
+
   /** Defaults to false. */
   public QueryBuilder subsequentRequest(boolean subsequentRequest) {
     this.subsequentRequest = subsequentRequest;
@@ -144,6 +182,7 @@ public class QueryBuilder {
     final Option<Date> modifiedBefore = this.modifiedBefore;
     final Option<Integer> limit = this.limit;
     final Option<Integer> offset = this.offset;
+    final Option<String> lastMediaPackageId = this.lastMediaPackageId;
     final boolean subsequentRequest = this.subsequentRequest;
 
     return new Query() {
@@ -179,6 +218,10 @@ public class QueryBuilder {
         return offset;
       }
 
+      @Override public Option<String> getLastMediaPackageId() {
+        return lastMediaPackageId;
+      }
+
       @Override public boolean isSubsequentRequest() {
         return subsequentRequest;
       }
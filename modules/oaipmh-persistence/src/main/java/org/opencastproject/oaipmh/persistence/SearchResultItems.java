@@ -0,0 +1,120 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+package org.opencastproject.oaipmh.persistence;
+
+import org.opencastproject.util.data.Option;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * The items matching a query, fetched lazily in chunks of a fixed size.
+ * <p>
+ * Each chunk continues right after the last item of the previous chunk using the keyset cursor of the query
+ * (modification date and mediapackage ID), so fetching a chunk costs the same no matter how deep into the result it
+ * is. The limit of the query still applies to the total number of items. The first chunk is kept, so checking
+ * {@link #isEmpty()} before iterating does not cost an additional query.
+ *
+ * @see OaiPmhDatabase#searchLazily(Query, int)
+ */
+public final class SearchResultItems implements Iterable<SearchResultItem> {
+  private final OaiPmhDatabase database;
+  private final Query query;
+  private final int fetchSize;
+  private List<SearchResultItem> firstChunk;
+
+  public SearchResultItems(OaiPmhDatabase database, Query query, int fetchSize) {
+    if (fetchSize < 1)
+      throw new IllegalArgumentException("The fetch size must be positive");
+    this.database = database;
+    this.query = query;
+    this.fetchSize = fetchSize;
+  }
+
+  /** Return true if no item matches the query. */
+  public boolean isEmpty() {
+    return getFirstChunk().isEmpty();
+  }
+
+  @Override
+  public Iterator<SearchResultItem> iterator() {
+    return new ChunkIterator();
+  }
+
+  private List<SearchResultItem> getFirstChunk() {
+    if (firstChunk == null)
+      firstChunk = fetch(null, query.getLimit().getOrElse(Integer.MAX_VALUE));
+    return firstChunk;
+  }
+
+  /**
+   * Fetch the next chunk.
+   *
+   * @param last
+   *          the last item of the previous chunk or null to fetch the first chunk
+   * @param remaining
+   *          the number of items left until the limit of the query is reached
+   */
+  private List<SearchResultItem> fetch(SearchResultItem last, int remaining) {
+    if (remaining <= 0)
+      return Collections.emptyList();
+    final QueryBuilder q = QueryBuilder.copyOf(query).limit(Math.min(fetchSize, remaining));
+    if (last != null) {
+      q.modifiedAfter(last.getModificationDate()).lastMediaPackageId(last.getId()).subsequentRequest(true)
+              .offset(Option.<Integer> none());
+    }
+    return database.search(q.build()).getItems();
+  }
+
+  private final class ChunkIterator implements Iterator<SearchResultItem> {
+    private Iterator<SearchResultItem> chunk = getFirstChunk().iterator();
+    private int chunkSize = firstChunk.size();
+    private int remaining = query.getLimit().getOrElse(Integer.MAX_VALUE) - chunkSize;
+    private SearchResultItem last;
+
+    @Override
+    public boolean hasNext() {
+      if (!chunk.hasNext() && last != null && chunkSize == fetchSize && remaining > 0) {
+        // the previous chunk was full, so there may be more
+        final List<SearchResultItem> next = fetch(last, remaining);
+        chunk = next.iterator();
+        chunkSize = next.size();
+        remaining -= chunkSize;
+        last = null;
+      }
+      return chunk.hasNext();
+    }
+
+    @Override
+    public SearchResultItem next() {
+      if (!hasNext())
+        throw new NoSuchElementException();
+      final SearchResultItem item = chunk.next();
+      if (!chunk.hasNext())
+        last = item;
+      return item;
+    }
+  }
+}
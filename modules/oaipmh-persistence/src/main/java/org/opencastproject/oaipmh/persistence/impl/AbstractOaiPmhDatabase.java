@@ -243,14 +243,23 @@ public abstract class AbstractOaiPmhDatabase implements OaiPmhDatabase {
         for (Date p : query.getModifiedAfter())
           predicates.add(cb.greaterThanOrEqualTo(c.get("modificationDate").as(Date.class), p));
       } else {
-        for (Date p : query.getModifiedAfter())
-          predicates.add(cb.greaterThan(c.get("modificationDate").as(Date.class), p));
+        for (Date p : query.getModifiedAfter()) {
+          // keyset cursor: continue after the last item of the previous page
+          final Predicate later = cb.greaterThan(c.get("modificationDate").as(Date.class), p);
+          if (query.getLastMediaPackageId().isSome()) {
+            predicates.add(cb.or(later, cb.and(cb.equal(c.get("modificationDate").as(Date.class), p),
+                    cb.greaterThan(c.<String> get("mediaPackageId"), query.getLastMediaPackageId().get()))));
+          } else {
+            predicates.add(later);
+          }
+        }
       }
       for (Date p : query.getModifiedBefore())
         predicates.add(cb.lessThanOrEqualTo(c.get("modificationDate").as(Date.class), p));
 
       q.where(cb.and(predicates.toArray(new Predicate[predicates.size()])));
-      q.orderBy(cb.asc(c.get("modificationDate")));
+      // the mediapackage ID makes the order total, which is required for keyset paging
+      q.orderBy(cb.asc(c.get("modificationDate")), cb.asc(c.get("mediaPackageId")));
 
       TypedQuery<OaiPmhEntity> typedQuery = em.createQuery(q);
       for (int maxResult : query.getLimit())
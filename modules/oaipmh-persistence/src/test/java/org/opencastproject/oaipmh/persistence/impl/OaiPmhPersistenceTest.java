@@ -222,6 +222,34 @@ public class OaiPmhPersistenceTest {
     Assert.assertEquals(mp2.getIdentifier().toString(), search.getItems().get(0).getId());
   }
 
+  @Test
+  public void testKeysetPaging() throws Exception {
+    oaiPmhDatabase.store(mp1, REPOSITORY_ID_1);
+    MediaPackage mp2 = (MediaPackage) mp1.clone();
+    mp2.setIdentifier(IdBuilderFactory.newInstance().newIdBuilder().createNew());
+    oaiPmhDatabase.store(mp2, REPOSITORY_ID_1);
+    MediaPackage mp3 = (MediaPackage) mp1.clone();
+    mp3.setIdentifier(IdBuilderFactory.newInstance().newIdBuilder().createNew());
+    oaiPmhDatabase.store(mp3, REPOSITORY_ID_1);
+
+    SearchResult search = oaiPmhDatabase.search(queryRepo(REPOSITORY_ID_1).limit(1).build());
+    Assert.assertEquals(1, search.size());
+    Assert.assertEquals(mp1.getIdentifier().toString(), search.getItems().get(0).getId());
+
+    for (MediaPackage expected : new MediaPackage[] { mp2, mp3 }) {
+      final SearchResultItem last = search.getItems().get(0);
+      search = oaiPmhDatabase.search(queryRepo(REPOSITORY_ID_1).modifiedAfter(last.getModificationDate())
+              .lastMediaPackageId(last.getId()).subsequentRequest(true).limit(1).build());
+      Assert.assertEquals(1, search.size());
+      Assert.assertEquals(expected.getIdentifier().toString(), search.getItems().get(0).getId());
+    }
+
+    final SearchResultItem last = search.getItems().get(0);
+    search = oaiPmhDatabase.search(queryRepo(REPOSITORY_ID_1).modifiedAfter(last.getModificationDate())
+            .lastMediaPackageId(last.getId()).subsequentRequest(true).limit(1).build());
+    Assert.assertEquals(0, search.size());
+  }
+
   @Test
   public void testRemovalOfOrphanedElements() throws Exception {
     oaiPmhDatabase.store(mp1, REPOSITORY_ID_1);
@@ -26,10 +26,10 @@ import org.opencastproject.oaipmh.Granularity;
 import org.opencastproject.oaipmh.matterhorn.MatterhornInlinedMetadataProvider;
 import org.opencastproject.oaipmh.matterhorn.MatterhornMetadataProvider;
 import org.opencastproject.oaipmh.persistence.OaiPmhDatabase;
-import org.opencastproject.oaipmh.util.ResumptionTokenStore;
 import org.opencastproject.util.data.Collections;
 import org.opencastproject.util.data.Option;
 
+import org.apache.commons.lang3.StringUtils;
 import org.osgi.service.component.ComponentContext;
 
 import java.util.List;
@@ -40,10 +40,14 @@ import java.util.List;
  */
 public class DefaultRepository extends OaiPmhRepository {
   private static final String PROP_ADMIN_EMAIL = "org.opencastproject.admin.email";
+  /** Secret to sign resumption tokens with. Has to be the same on all nodes. */
+  private static final String PROP_TOKEN_SECRET = "org.opencastproject.oaipmh.resumptiontoken.secret";
+  /** Used to sign resumption tokens if no dedicated secret is configured. It is shared by all nodes anyway. */
+  private static final String PROP_DIGEST_PASSWORD = "org.opencastproject.security.digest.pass";
 
   private OaiPmhDatabase persistence;
   private String adminEmail;
-  private final ResumptionTokenStore tokenStore = ResumptionTokenStore.create();
+  private ResumptionTokenCodec tokenCodec;
   private final List<MetadataProvider> metadataProviders =
           Collections.list(new MatterhornMetadataProvider(), new MatterhornInlinedMetadataProvider());
 
@@ -55,6 +59,10 @@ public class DefaultRepository extends OaiPmhRepository {
   /** OSGi callback */
   public void activate(ComponentContext cc) {
     adminEmail = getContextProperty(cc, PROP_ADMIN_EMAIL);
+    String secret = cc.getBundleContext().getProperty(PROP_TOKEN_SECRET);
+    if (StringUtils.isBlank(secret))
+      secret = getContextProperty(cc, PROP_DIGEST_PASSWORD);
+    tokenCodec = new ResumptionTokenCodec(secret);
   }
 
   @Override
@@ -84,12 +92,12 @@ public class DefaultRepository extends OaiPmhRepository {
 
   @Override
   public String saveQuery(ResumableQuery query) {
-    return tokenStore.put(query);
+    return tokenCodec.encode(query);
   }
 
   @Override
   public Option<ResumableQuery> getSavedQuery(String resumptionToken) {
-    return tokenStore.get(resumptionToken);
+    return tokenCodec.decode(resumptionToken);
   }
 
   @Override
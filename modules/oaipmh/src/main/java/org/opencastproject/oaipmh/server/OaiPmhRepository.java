@@ -37,8 +37,10 @@ import org.opencastproject.oaipmh.OaiPmhConstants;
 import org.opencastproject.oaipmh.OaiPmhUtil;
 import org.opencastproject.oaipmh.persistence.OaiPmhDatabase;
 import org.opencastproject.oaipmh.persistence.OaiPmhDatabaseException;
+import org.opencastproject.oaipmh.persistence.Query;
 import org.opencastproject.oaipmh.persistence.SearchResult;
 import org.opencastproject.oaipmh.persistence.SearchResultItem;
+import org.opencastproject.oaipmh.persistence.SearchResultItems;
 import org.opencastproject.oaipmh.util.XmlGen;
 import org.opencastproject.util.data.Function;
 import org.opencastproject.util.data.Function0;
@@ -51,10 +53,12 @@ import org.slf4j.LoggerFactory;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 
-import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.Date;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 
 /**
  * An OAI-PMH protocol compliant repository.
@@ -81,6 +85,8 @@ public abstract class OaiPmhRepository {
   private static final Logger logger = LoggerFactory.getLogger(OaiPmhRepository.class);
   private static final OaiDcMetadataProvider OAI_DC_METADATA_PROVIDER = new OaiDcMetadataProvider();
   private static final String OAI_NS = OaiPmhConstants.OAI_2_0_XML_NS;
+  /** Number of records fetched from the database at once while writing a list response */
+  private static final int FETCH_SIZE = 10;
 
   public abstract Granularity getRepositoryTimeGranularity();
 
@@ -95,13 +101,14 @@ public abstract class OaiPmhRepository {
   public abstract String getAdminEmail();
 
   /**
-   * Save a query.
+   * Save a query. Implementations should encode the query into the token itself, see {@link ResumptionTokenCodec}, so
+   * that any node can resume it.
    *
    * @return a resumption token
    */
   public abstract String saveQuery(ResumableQuery query);
 
-  /** Get a saved query. */
+  /** Get a saved query. Return none if the token is unknown or invalid. */
   public abstract Option<ResumableQuery> getSavedQuery(String resumptionToken);
 
   /** Maximum number of items returned by the list queries ListIdentifiers, ListRecords and ListSets. */
@@ -186,13 +193,17 @@ public abstract class OaiPmhRepository {
             return createIdDoesNotExistResponse(p);
           case 1:
             final SearchResultItem item = items.get(0);
-            return new OaiVerbXmlGen(OaiPmhRepository.this, p) {
+            return new StreamingOaiVerbXmlGen(OaiPmhRepository.this, p) {
               @Override
-              public Element create() {
+              protected Element createRequest() {
+                return request($a("identifier", p.getIdentifier().get()), metadataPrefixAttr(p));
+              }
+
+              @Override
+              protected Iterable<Node> createContent() {
                 // create the metadata for this item
                 Element metadata = metadataProvider.createMetadata(OaiPmhRepository.this, item, p.getSet());
-                return oai(request($a("identifier", p.getIdentifier().get()), metadataPrefixAttr(p)),
-                           verb(record(item, metadata)));
+                return Collections.<Node> singletonList(record(item, metadata));
               }
             };
           default:
@@ -258,14 +269,9 @@ public abstract class OaiPmhRepository {
       protected ListXmlGen respond(ListGenParams listParams) {
         return new ListXmlGen(listParams) {
           @Override
-          protected List<Node> createContent(final Option<String> set) {
-            return mlist(params.getResult().getItems()).map(new Function<SearchResultItem, Node>() {
-              @Override
-              public Node apply(SearchResultItem item) {
-                final Element metadata = params.getMetadataProvider().createMetadata(OaiPmhRepository.this, item, set);
-                return record(item, metadata);
-              }
-            }).value();
+          protected Node createItem(SearchResultItem item, Option<String> set) {
+            final Element metadata = params.getMetadataProvider().createMetadata(OaiPmhRepository.this, item, set);
+            return record(item, metadata);
           }
         };
       }
@@ -280,13 +286,8 @@ public abstract class OaiPmhRepository {
         // create XML response
         return new ListXmlGen(listParams) {
           @Override
-          protected List<Node> createContent(Option<String> set) {
-            return mlist(params.getResult().getItems()).map(new Function<SearchResultItem, Node>() {
-              @Override
-              public Node apply(SearchResultItem item) {
-                return header(item);
-              }
-            }).value();
+          protected Node createItem(SearchResultItem item, Option<String> set) {
+            return header(item);
           }
         };
       }
@@ -468,40 +469,41 @@ public abstract class OaiPmhRepository {
               .flatMap(getMetadataProviderFromToken)
               .orElse(getMetadataProvider.curry(metadataPrefix))) {
         try {
-          final SearchResult result;
+          final Query query;
           @SuppressWarnings("unchecked")
           final Option<String>[] set = new Option[]{p.getSet()};
           if (!resumptionTokenExists) {
             // start a new query
-            result = getPersistence().search(
-                    queryRepo(getRepositoryId())
-                            .modifiedAfter(from)
-                            .modifiedBefore(until)
-                            .limit(getResultLimit()).build());
+            query = queryRepo(getRepositoryId())
+                    .modifiedAfter(from)
+                    .modifiedBefore(until)
+                    .limit(getResultLimit()).build();
           } else {
             // resume query
-            result = getSavedQuery(p.getResumptionToken().get()).fold(new Option.Match<ResumableQuery, SearchResult>() {
+            query = getSavedQuery(p.getResumptionToken().get()).fold(new Option.Match<ResumableQuery, Query>() {
               @Override
-              public SearchResult some(ResumableQuery rq) {
+              public Query some(ResumableQuery rq) {
                 set[0] = rq.getSet();
-                return getPersistence().search(
-                        queryRepo(getRepositoryId())
-                                .modifiedAfter(rq.getLastResult())
-                                .modifiedBefore(rq.getUntil())
-                                .limit(getResultLimit())
-                                .subsequentRequest(true).build());
+                return queryRepo(getRepositoryId())
+                        .modifiedAfter(rq.getLastResult())
+                        .lastMediaPackageId(rq.getLastMediaPackageId())
+                        .modifiedBefore(rq.getUntil())
+                        .limit(getResultLimit())
+                        .subsequentRequest(true).build();
               }
 
               @Override
-              public SearchResult none() {
+              public Query none() {
                 // no resumable query found
                 throw new BadResumptionTokenException();
               }
             });
           }
-          if (result.size() > 0) {
+          // records are fetched while the response is written
+          final SearchResultItems items = getPersistence().searchLazily(query, FETCH_SIZE);
+          if (!items.isEmpty()) {
             return respond(new ListGenParams(OaiPmhRepository.this,
-                                             result,
+                                             items,
                                              metadataProvider,
                                              metadataPrefix,
                                              p.getResumptionToken(),
@@ -555,8 +557,11 @@ public abstract class OaiPmhRepository {
       };
     }
 
-    /** OAI XML response generation environment for list responses. */
-    abstract class ListXmlGen extends OaiVerbXmlGen {
+    /**
+     * OAI XML response generation environment for list responses. The items are fetched and turned into XML one by one
+     * while the response is written.
+     */
+    abstract class ListXmlGen extends StreamingOaiVerbXmlGen {
 
       protected final ListGenParams params;
 
@@ -565,21 +570,58 @@ public abstract class OaiPmhRepository {
         this.params = p;
       }
 
-      /** Implement to create your content. Gets placed as children of the verb node. */
-      protected abstract List<Node> createContent(Option<String> set);
+      /** Implement to create the node for a single item. Gets placed as child of the verb node. */
+      protected abstract Node createItem(SearchResultItem item, Option<String> set);
 
       @Override
-      public Element create() {
-        final List<Node> content = new ArrayList<Node>(createContent(params.getSet()));
-        if (content.size() == 0)
-          return createNoRecordsMatchResponse(params.getParams()).create();
-        content.add(resumptionToken(params.getResumptionToken(), params.getMetadataPrefix(), params.getResult(),
-                                    params.getUntil(), params.getSet()));
-        return oai(
-                request($a("metadataPrefix", params.getMetadataPrefix()),
-                        $aSome("from", params.getFrom().map(toSupportedGranularity)),
-                        $aSome("until", some(toSupportedGranularity(params.getUntil()))),
-                        $aSome("set", params.getSet())), verb(content));
+      protected Element createRequest() {
+        return request($a("metadataPrefix", params.getMetadataPrefix()),
+                       $aSome("from", params.getFrom().map(toSupportedGranularity)),
+                       $aSome("until", some(toSupportedGranularity(params.getUntil()))),
+                       $aSome("set", params.getSet()));
+      }
+
+      @Override
+      protected Iterable<Node> createContent() {
+        return new Iterable<Node>() {
+          @Override
+          public Iterator<Node> iterator() {
+            return new ContentIterator(params.getItems().iterator());
+          }
+        };
+      }
+
+      /** Creates the item nodes followed by the resumption token. */
+      private final class ContentIterator implements Iterator<Node> {
+        private final Iterator<SearchResultItem> items;
+        private SearchResultItem last;
+        private int count = 0;
+        private boolean tokenCreated = false;
+
+        ContentIterator(Iterator<SearchResultItem> items) {
+          this.items = items;
+        }
+
+        @Override
+        public boolean hasNext() {
+          return items.hasNext() || !tokenCreated;
+        }
+
+        @Override
+        public Node next() {
+          if (items.hasNext()) {
+            last = items.next();
+            count++;
+            return createItem(last, params.getSet());
+          }
+          if (tokenCreated)
+            throw new NoSuchElementException();
+          tokenCreated = true;
+          final Option<SearchResultItem> lastOfFullPage = count == getResultLimit()
+                  ? some(last) : Option.<SearchResultItem> none();
+          return resumptionToken(params.getResumptionToken(), params.getMetadataPrefix(), lastOfFullPage,
+                                 params.getUntil(), params.getSet());
+        }
       }
     }
 
@@ -591,7 +633,7 @@ public abstract class OaiPmhRepository {
 /** Parameter holder for the list generator. */
 final class ListGenParams {
   private final OaiPmhRepository repository;
-  private final SearchResult result;
+  private final SearchResultItems items;
   private final MetadataProvider metadataProvider;
   private final String metadataPrefix;
   private final Option<String> resumptionToken;
@@ -602,13 +644,13 @@ final class ListGenParams {
 
   // CHECKSTYLE:OFF
   ListGenParams(OaiPmhRepository repository,
-                SearchResult result, MetadataProvider metadataProvider,
+                SearchResultItems items, MetadataProvider metadataProvider,
                 String metadataPrefix, Option<String> resumptionToken,
                 Option<Date> from, Date until,
                 Option<String> set,
                 Params params) {
     this.repository = repository;
-    this.result = result;
+    this.items = items;
     this.metadataProvider = metadataProvider;
     this.resumptionToken = resumptionToken;
     this.metadataPrefix = metadataPrefix;
@@ -623,8 +665,9 @@ final class ListGenParams {
     return repository;
   }
 
-  public SearchResult getResult() {
-    return result;
+  /** The items of the page, fetched lazily. */
+  public SearchResultItems getItems() {
+    return items;
   }
 
   public MetadataProvider getMetadataProvider() {
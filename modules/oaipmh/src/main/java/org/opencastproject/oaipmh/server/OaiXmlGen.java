@@ -32,7 +32,6 @@ import org.opencastproject.metadata.dublincore.DublinCoreCatalog;
 import org.opencastproject.metadata.dublincore.DublinCoreValue;
 import org.opencastproject.oaipmh.OaiPmhConstants;
 import org.opencastproject.oaipmh.persistence.OaiPmhDatabaseException;
-import org.opencastproject.oaipmh.persistence.SearchResult;
 import org.opencastproject.oaipmh.persistence.SearchResultItem;
 import org.opencastproject.oaipmh.util.XmlGen;
 import org.opencastproject.util.data.Function;
@@ -135,16 +134,18 @@ public abstract class OaiXmlGen extends XmlGen {
 
   /**
    * Create the resumption token and store the query.
+   *
+   * @param lastItem
+   *          the last item of the current page if the page is full and more items may follow, none otherwise
    */
-  Node resumptionToken(final Option<String> resumptionToken, final String metadataPrefix, final SearchResult result,
-                       Date until, Option<String> set) {
+  Node resumptionToken(final Option<String> resumptionToken, final String metadataPrefix,
+                       final Option<SearchResultItem> lastItem, Date until, Option<String> set) {
     // compute the token value...
     final Option<Option<String>> token;
-    if (result.size() == result.getLimit()) {
-      SearchResultItem lastResult = result.getItems().get((int) (result.size() - 1));
+    if (lastItem.isSome()) {
       // more to come...
-      token = some(some(repository.saveQuery(new ResumableQuery(metadataPrefix, lastResult.getModificationDate(),
-                                                                until, set))));
+      token = some(some(repository.saveQuery(new ResumableQuery(metadataPrefix, lastItem.get().getModificationDate(),
+                                                                some(lastItem.get().getId()), until, set))));
     } else if (resumptionToken.isSome()) {
       // last page reached
       token = some(Option.<String>none());
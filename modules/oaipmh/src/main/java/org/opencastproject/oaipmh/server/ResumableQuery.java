@@ -35,11 +35,18 @@ public class ResumableQuery {
   private final Date until;
   private final Date lastResult;
   private final Option<String> set;
+  private final Option<String> lastMediaPackageId;
 
   ResumableQuery(String metadataPrefix, Date lastResult, Date until, Option<String> set) {
+    this(metadataPrefix, lastResult, Option.<String> none(), until, set);
+  }
+
+  ResumableQuery(String metadataPrefix, Date lastResult, Option<String> lastMediaPackageId, Date until,
+          Option<String> set) {
     this.until = until;
     this.metadataPrefix = metadataPrefix;
     this.lastResult = lastResult;
+    this.lastMediaPackageId = lastMediaPackageId;
     this.set = set;
   }
 
@@ -55,6 +62,11 @@ public class ResumableQuery {
     return lastResult;
   }
 
+  /** The mediapackage ID of the last result. Together with the date of the last result it forms a keyset cursor. */
+  Option<String> getLastMediaPackageId() {
+    return lastMediaPackageId;
+  }
+
   Option<String> getSet() {
     return set;
   }
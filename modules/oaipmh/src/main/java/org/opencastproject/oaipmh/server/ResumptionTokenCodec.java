@@ -0,0 +1,153 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+package org.opencastproject.oaipmh.server;
+
+import static org.opencastproject.util.data.Option.none;
+import static org.opencastproject.util.data.Option.some;
+
+import org.opencastproject.util.data.Option;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.Date;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Encodes a {@link ResumableQuery} into a self-contained resumption token and decodes it again.
+ * <p>
+ * The token carries the complete query state including the keyset cursor (modification date and mediapackage ID of
+ * the last item delivered), so no state needs to be kept on the server and any node sharing the same secret can serve
+ * the next page. Tokens are signed with HMAC-SHA256 to prevent harvesters from forging cursors.
+ */
+public final class ResumptionTokenCodec {
+  private static final Logger logger = LoggerFactory.getLogger(ResumptionTokenCodec.class);
+
+  private static final String ALGORITHM = "HmacSHA256";
+
+  /** Version of the token format */
+  private static final byte VERSION = 1;
+
+  private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+  private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+  private final SecretKeySpec key;
+
+  /**
+   * Creates a codec.
+   *
+   * @param secret
+   *          the secret to sign the tokens with. It has to be the same on all nodes serving the repository.
+   */
+  public ResumptionTokenCodec(String secret) {
+    if (secret == null || secret.isEmpty())
+      throw new IllegalArgumentException("The secret must not be empty");
+    this.key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+  }
+
+  /** Encode a query into a signed resumption token. */
+  public String encode(ResumableQuery query) {
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      out.writeByte(VERSION);
+      out.writeUTF(query.getMetadataPrefix());
+      writeDate(out, query.getLastResult());
+      writeOption(out, query.getLastMediaPackageId());
+      writeDate(out, query.getUntil());
+      writeOption(out, query.getSet());
+    } catch (IOException e) {
+      throw new IllegalStateException("Unable to create resumption token", e);
+    }
+    final byte[] payload = bytes.toByteArray();
+    return ENCODER.encodeToString(payload) + "." + ENCODER.encodeToString(sign(payload));
+  }
+
+  /** Decode a resumption token. Return none if the token is malformed or its signature does not match. */
+  public Option<ResumableQuery> decode(String token) {
+    final int separator = token.indexOf('.');
+    if (separator < 0)
+      return none();
+    try {
+      final byte[] payload = DECODER.decode(token.substring(0, separator));
+      final byte[] signature = DECODER.decode(token.substring(separator + 1));
+      if (!MessageDigest.isEqual(sign(payload), signature)) {
+        logger.debug("Rejecting resumption token with invalid signature");
+        return none();
+      }
+      try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+        if (in.readByte() != VERSION)
+          return none();
+        final String metadataPrefix = in.readUTF();
+        final Date lastResult = readDate(in);
+        final Option<String> lastMediaPackageId = readOption(in);
+        final Date until = readDate(in);
+        final Option<String> set = readOption(in);
+        return some(new ResumableQuery(metadataPrefix, lastResult, lastMediaPackageId, until, set));
+      }
+    } catch (IllegalArgumentException | IOException e) {
+      logger.debug("Rejecting malformed resumption token {}", token);
+      return none();
+    }
+  }
+
+  private byte[] sign(byte[] payload) {
+    try {
+      final Mac mac = Mac.getInstance(ALGORITHM);
+      mac.init(key);
+      return mac.doFinal(payload);
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("Unable to sign resumption token", e);
+    }
+  }
+
+  private static void writeDate(DataOutputStream out, Date date) throws IOException {
+    out.writeBoolean(date != null);
+    if (date != null)
+      out.writeLong(date.getTime());
+  }
+
+  private static Date readDate(DataInputStream in) throws IOException {
+    return in.readBoolean() ? new Date(in.readLong()) : null;
+  }
+
+  private static void writeOption(DataOutputStream out, Option<String> value) throws IOException {
+    out.writeBoolean(value.isSome());
+    if (value.isSome())
+      out.writeUTF(value.get());
+  }
+
+  private static Option<String> readOption(DataInputStream in) throws IOException {
+    return in.readBoolean() ? some(in.readUTF()) : Option.<String> none();
+  }
+}
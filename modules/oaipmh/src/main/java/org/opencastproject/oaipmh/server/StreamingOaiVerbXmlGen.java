@@ -0,0 +1,126 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+package org.opencastproject.oaipmh.server;
+
+import static org.opencastproject.oaipmh.OaiPmhConstants.OAI_2_0_SCHEMA_LOCATION;
+import static org.opencastproject.oaipmh.OaiPmhConstants.OAI_2_0_XML_NS;
+import static org.opencastproject.oaipmh.OaiPmhUtil.toUtcSecond;
+import static org.opencastproject.oaipmh.util.StaxUtil.writeNode;
+import static org.opencastproject.util.data.functions.Misc.chuck;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+
+import javax.xml.XMLConstants;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * XML generator for a regular OAI response which is written to the output stream node by node.
+ * <p>
+ * Only the request element and one content node at a time are built as DOM, so the memory needed to create the
+ * response does not depend on the number of records. {@link #create()} still builds the complete DOM.
+ * <p>
+ * The first content node is created before anything is written, so a request failing right away still ends up as an
+ * HTTP error. Once records have been sent, a failure closes the response with an error element instead of the
+ * remaining records and the resumption token, leaving well-formed XML behind.
+ */
+public abstract class StreamingOaiVerbXmlGen extends OaiVerbXmlGen {
+
+  private static final Logger logger = LoggerFactory.getLogger(StreamingOaiVerbXmlGen.class);
+
+  private static final XMLOutputFactory OUTPUT_FACTORY = XMLOutputFactory.newInstance();
+
+  /** The code of the error element closing a response which failed while being written */
+  static final String ERROR_INTERNAL = "internalError";
+
+  public StreamingOaiVerbXmlGen(OaiPmhRepository repository, Params p) {
+    super(repository, p);
+  }
+
+  /** Create the request element. */
+  protected abstract Element createRequest();
+
+  /** Return the children of the verb element. Implementations should create the nodes lazily while iterating. */
+  protected abstract Iterable<Node> createContent();
+
+  @Override
+  public Element create() {
+    final List<Node> content = new ArrayList<>();
+    for (Node node : createContent())
+      content.add(node);
+    return oai(createRequest(), verb(content));
+  }
+
+  @Override
+  public void generate(OutputStream out) {
+    final Iterator<Node> content = createContent().iterator();
+    Node node = content.hasNext() ? content.next() : null;
+    try {
+      final XMLStreamWriter w = OUTPUT_FACTORY.createXMLStreamWriter(out, "UTF-8");
+      w.writeStartDocument("UTF-8", "1.0");
+      w.writeStartElement(XMLConstants.DEFAULT_NS_PREFIX, "OAI-PMH", OAI_2_0_XML_NS);
+      w.writeDefaultNamespace(OAI_2_0_XML_NS);
+      w.setDefaultNamespace(OAI_2_0_XML_NS);
+      w.writeNamespace("xsi", XMLConstants.W3C_XML_SCHEMA_INSTANCE_NS_URI);
+      w.setPrefix("xsi", XMLConstants.W3C_XML_SCHEMA_INSTANCE_NS_URI);
+      w.writeAttribute("xsi", XMLConstants.W3C_XML_SCHEMA_INSTANCE_NS_URI, "schemaLocation",
+              OAI_2_0_SCHEMA_LOCATION);
+      writeNode(w, $eTxt("responseDate", OAI_2_0_XML_NS, toUtcSecond(new Date())));
+      writeNode(w, createRequest());
+      w.writeStartElement(XMLConstants.DEFAULT_NS_PREFIX, p.getVerb().getOrElse("NOVERB"), OAI_2_0_XML_NS);
+      Node error = null;
+      while (node != null) {
+        writeNode(w, node);
+        // hand each record over to the client right away
+        w.flush();
+        try {
+          node = content.hasNext() ? content.next() : null;
+        } catch (RuntimeException e) {
+          logger.error("Error creating OAI-PMH response content, aborting the response", e);
+          error = $e("error", OAI_2_0_XML_NS, $a("code", ERROR_INTERNAL),
+                  $txt("The response could not be completed. Please retry the request."));
+          node = null;
+        }
+      }
+      w.writeEndElement();
+      if (error != null)
+        writeNode(w, error);
+      w.writeEndElement();
+      w.writeEndDocument();
+      w.flush();
+      w.close();
+    } catch (XMLStreamException e) {
+      chuck(e);
+    }
+  }
+}
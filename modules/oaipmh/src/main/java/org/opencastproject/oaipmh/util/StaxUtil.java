@@ -0,0 +1,116 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+package org.opencastproject.oaipmh.util;
+
+import org.apache.commons.lang3.StringUtils;
+import org.w3c.dom.Attr;
+import org.w3c.dom.Document;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+import javax.xml.XMLConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * Writes DOM nodes to a StAX stream. Used to stream large responses where only single fragments are built as DOM.
+ */
+public final class StaxUtil {
+
+  private StaxUtil() {
+  }
+
+  /**
+   * Write a DOM node including all of its children to a stream writer. Namespace declarations are added as needed.
+   */
+  public static void writeNode(XMLStreamWriter w, Node node) throws XMLStreamException {
+    switch (node.getNodeType()) {
+      case Node.DOCUMENT_NODE:
+        writeNode(w, ((Document) node).getDocumentElement());
+        break;
+      case Node.ELEMENT_NODE:
+        writeElement(w, node);
+        break;
+      case Node.TEXT_NODE:
+        if (!node.getNodeValue().isEmpty())
+          w.writeCharacters(node.getNodeValue());
+        break;
+      case Node.CDATA_SECTION_NODE:
+        w.writeCData(node.getNodeValue());
+        break;
+      case Node.COMMENT_NODE:
+        w.writeComment(node.getNodeValue());
+        break;
+      default:
+        // processing instructions, entity references etc. are not produced by the generators
+        break;
+    }
+  }
+
+  private static void writeElement(XMLStreamWriter w, Node e) throws XMLStreamException {
+    final String ns = StringUtils.defaultString(e.getNamespaceURI());
+    final String prefix = StringUtils.defaultString(e.getPrefix());
+    final String localName = e.getLocalName() != null ? e.getLocalName() : e.getNodeName();
+    // check the binding before starting the element, since the writer binds the prefix of the element right away
+    final boolean bound = ns.equals(StringUtils.defaultString(w.getNamespaceContext().getNamespaceURI(prefix)));
+    w.writeStartElement(prefix, localName, ns);
+    if (!bound)
+      declare(w, prefix, ns);
+    final NamedNodeMap attrs = e.getAttributes();
+    // declarations first since attributes may refer to them
+    for (int i = 0; i < attrs.getLength(); i++) {
+      final Attr a = (Attr) attrs.item(i);
+      if (XMLConstants.XMLNS_ATTRIBUTE_NS_URI.equals(a.getNamespaceURI())) {
+        final String declared = XMLConstants.XMLNS_ATTRIBUTE.equals(a.getLocalName())
+                ? XMLConstants.DEFAULT_NS_PREFIX : a.getLocalName();
+        if (!a.getValue().equals(w.getNamespaceContext().getNamespaceURI(declared)))
+          declare(w, declared, a.getValue());
+      }
+    }
+    for (int i = 0; i < attrs.getLength(); i++) {
+      final Attr a = (Attr) attrs.item(i);
+      if (a.getNamespaceURI() == null) {
+        // DOM level 1 attribute, the name may still contain a prefix like in xsi:schemaLocation
+        w.writeAttribute(a.getName(), a.getValue());
+      } else if (!XMLConstants.XMLNS_ATTRIBUTE_NS_URI.equals(a.getNamespaceURI())) {
+        w.writeAttribute(StringUtils.defaultString(a.getPrefix()), a.getNamespaceURI(), a.getLocalName(),
+                a.getValue());
+      }
+    }
+    for (Node child = e.getFirstChild(); child != null; child = child.getNextSibling())
+      writeNode(w, child);
+    w.writeEndElement();
+  }
+
+  private static void declare(XMLStreamWriter w, String prefix, String ns) throws XMLStreamException {
+    if (XMLConstants.XML_NS_PREFIX.equals(prefix))
+      return;
+    if (prefix.isEmpty()) {
+      w.writeDefaultNamespace(ns);
+      w.setDefaultNamespace(ns);
+    } else {
+      w.writeNamespace(prefix, ns);
+      w.setPrefix(prefix, ns);
+    }
+  }
+}
@@ -25,6 +25,7 @@ import static org.hamcrest.CoreMatchers.equalTo;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.opencastproject.oaipmh.server.OaiPmhRepositoryTest.OaiPmhResponseStatus.IsError;
 import static org.opencastproject.oaipmh.server.OaiPmhRepositoryTest.OaiPmhResponseStatus.IsValid;
 import static org.opencastproject.util.EqualsUtil.eq;
@@ -76,6 +77,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.w3c.dom.Document;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -211,6 +213,61 @@ public class OaiPmhRepositoryTest {
                    hasXPath("count(//oai20:GetRecord/oai20:record/oai20:metadata)", NS_CTX, returningANumber(), equalTo(0.0))));
   }
 
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testStreamedListRecords() throws Exception {
+    for (String metadataPrefix : list("oai_dc", "matterhorn-inlined")) {
+      final XmlGen xmlGen = repo(oaiPmhPersistenceMock(searchResultItem("id-1", utcDate(2011, 5, 1), false),
+                                                       searchResultItem("id-2", utcDate(2011, 6, 1), true)),
+                                 Granularity.DAY)
+              .selectVerb(params("ListRecords", null, metadataPrefix, null, null, null));
+      final ByteArrayOutputStream out = new ByteArrayOutputStream();
+      xmlGen.generate(out);
+      final Source xml = the(XmlUtil.parseNs(out.toString("UTF-8")).right().value());
+      for (Matcher<Source> m : list(
+              hasXPath("//oai20:ListRecords/oai20:record/oai20:header[oai20:identifier='id-1']", NS_CTX),
+              hasXPath("//oai20:ListRecords/oai20:record/oai20:header[@status='deleted']", NS_CTX),
+              hasXPath("count(//oai20:ListRecords/oai20:record)", NS_CTX, returningANumber(), equalTo(2.0)),
+              hasXPath("count(//oai20:ListRecords/oai20:record/oai20:metadata/*)", NS_CTX, returningANumber(),
+                       equalTo(1.0)))) {
+        assertThat(xml, m);
+      }
+    }
+  }
+
+  @Test
+  public void testStreamedListIdentifiersFailingMidStream() throws Exception {
+    final XmlGen xmlGen = repo(oaiPmhPersistenceMock(searchResultItem("id-1", utcDate(2011, 5, 1), false),
+                                                     brokenSearchResultItem()),
+                               Granularity.DAY)
+            .selectVerb(params("ListIdentifiers", null, "oai_dc", null, null, null));
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    xmlGen.generate(out);
+    // the records already sent are followed by an error instead of the resumption token
+    final Source xml = the(XmlUtil.parseNs(out.toString("UTF-8")).right().value());
+    for (Matcher<Source> m : list(
+            hasXPath("count(//oai20:ListIdentifiers/oai20:header)", NS_CTX, returningANumber(), equalTo(1.0)),
+            hasXPath("count(//oai20:resumptionToken)", NS_CTX, returningANumber(), equalTo(0.0)),
+            hasXPath("/oai20:OAI-PMH/oai20:error/@code", NS_CTX, returningAString(),
+                     equalTo(StreamingOaiVerbXmlGen.ERROR_INTERNAL)))) {
+      assertThat(xml, m);
+    }
+  }
+
+  @Test
+  public void testStreamedListIdentifiersFailingImmediately() throws Exception {
+    final XmlGen xmlGen = repo(oaiPmhPersistenceMock(brokenSearchResultItem()), Granularity.DAY)
+            .selectVerb(params("ListIdentifiers", null, "oai_dc", null, null, null));
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try {
+      xmlGen.generate(out);
+      fail("Generating the response should fail");
+    } catch (IllegalStateException e) {
+      // nothing has been written yet, so the server can still answer with an HTTP error
+      assertEquals(0, out.size());
+    }
+  }
+
   @Test
   public void testMatterhornInlinedMetadataProvider() throws Exception {
     runChecks(OaiPmhConstants.VERB_LIST_RECORDS,
@@ -467,6 +524,14 @@ public class OaiPmhRepositoryTest {
     return item;
   }
 
+  private static SearchResultItem brokenSearchResultItem() {
+    final SearchResultItem item = EasyMock.createNiceMock(SearchResultItem.class);
+    EasyMock.expect(item.getId()).andThrow(new IllegalStateException("broken item")).anyTimes();
+    EasyMock.expect(item.getModificationDate()).andThrow(new IllegalStateException("broken item")).anyTimes();
+    EasyMock.replay(item);
+    return item;
+  }
+
   private static OaiPmhRepository repo(final OaiPmhDatabase persistence, final Granularity granularity) {
     return new OaiPmhRepository() {
       @Override
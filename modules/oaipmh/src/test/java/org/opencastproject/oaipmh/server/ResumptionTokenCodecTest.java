@@ -0,0 +1,73 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+package org.opencastproject.oaipmh.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.opencastproject.util.data.Option.some;
+
+import org.opencastproject.util.data.Option;
+
+import org.junit.Test;
+
+import java.util.Date;
+
+public class ResumptionTokenCodecTest {
+  private final ResumptionTokenCodec codec = new ResumptionTokenCodec("secret");
+
+  @Test
+  public void testRoundTrip() {
+    final Date lastResult = new Date(1500000000000L);
+    final Date until = new Date(1600000000000L);
+    final String token = codec.encode(new ResumableQuery("oai_dc", lastResult, some("mp-1"), until, some("set")));
+
+    // any codec sharing the secret must be able to decode the token
+    final ResumableQuery query = new ResumptionTokenCodec("secret").decode(token).get();
+    assertEquals("oai_dc", query.getMetadataPrefix());
+    assertEquals(lastResult, query.getLastResult());
+    assertEquals(some("mp-1"), query.getLastMediaPackageId());
+    assertEquals(until, query.getUntil());
+    assertEquals(some("set"), query.getSet());
+  }
+
+  @Test
+  public void testOptionalFields() {
+    final String token = codec.encode(new ResumableQuery("oai_dc", new Date(), null, Option.<String> none()));
+    final ResumableQuery query = codec.decode(token).get();
+    assertNull(query.getUntil());
+    assertTrue(query.getLastMediaPackageId().isNone());
+    assertTrue(query.getSet().isNone());
+  }
+
+  @Test
+  public void testRejectInvalidTokens() {
+    final String token = codec.encode(new ResumableQuery("oai_dc", new Date(), some("mp-1"), new Date(),
+            Option.<String> none()));
+    assertTrue(new ResumptionTokenCodec("other").decode(token).isNone());
+    assertTrue(codec.decode("A" + token).isNone());
+    assertTrue(codec.decode(token.substring(0, token.length() - 2)).isNone());
+    assertTrue(codec.decode("no-token").isNone());
+    assertTrue(codec.decode("%%%.%%%").isNone());
+  }
+}
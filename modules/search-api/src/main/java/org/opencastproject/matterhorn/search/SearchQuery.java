@@ -87,6 +87,24 @@ public interface SearchQuery {
    */
   int getOffset();
 
+  /**
+   * Pages through the search results with a cursor instead of an offset. Pass an empty string to get the first page
+   * and the cursor returned by {@link SearchResult#getNextCursor()} to get the following pages. Unlike offsets, cursors
+   * are not limited by the maximum result window and take the same time for every page.
+   *
+   * @param cursor
+   *          the cursor of the page to return
+   * @return the search query
+   */
+  SearchQuery withCursor(String cursor);
+
+  /**
+   * Returns the cursor of the page to return or <code>null</code> if the results are paged with an offset.
+   *
+   * @return the cursor
+   */
+  String getCursor();
+
   /**
    * Returns documents that contain the given text.
    *
@@ -86,6 +86,14 @@ public interface SearchResult<T> {
    */
   long getPage();
 
+  /**
+   * Returns the cursor of the next page if the query was paged with a cursor and there may be more results, or
+   * <code>null</code> otherwise.
+   *
+   * @return the cursor of the next page
+   */
+  String getNextCursor();
+
   /**
    * Returns the search time in milliseconds.
    * 
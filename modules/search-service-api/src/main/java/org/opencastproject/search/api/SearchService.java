@@ -108,4 +108,29 @@ public interface SearchService {
    * @throws SearchException
    */
   SearchResult getByQuery(String query, int limit, int offset) throws SearchException;
+
+  /**
+   * Finds the segments whose text matches the given text, in the episodes the current user may read. Each item of the
+   * result represents an episode and only contains its matching segments, including their time offsets.
+   *
+   * @param text
+   *          the text to search for
+   * @param mediaPackageId
+   *          the identifier of the episode to search in or <code>null</code> to search in all episodes
+   * @param limit
+   *          the maximum number of segments to return, all matching segments if 0
+   * @return the search result
+   * @throws SearchException
+   *           if an error occurs while searching for segments
+   */
+  SearchResult getSegmentsByText(String text, String mediaPackageId, int limit) throws SearchException;
+
+  /**
+   * Makes all changes to the search index visible immediately, regardless of the configured commit delay. Callers which
+   * need to read their own writes have to call this method after adding or deleting media packages.
+   *
+   * @throws SearchException
+   *           if committing the changes fails
+   */
+  void flush() throws SearchException;
 }
@@ -0,0 +1,187 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+package org.opencastproject.feed.impl;
+
+import org.opencastproject.security.api.Role;
+import org.opencastproject.security.api.User;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caches rendered feeds, keyed by the organization, the roles of the requesting user, the feed type and version, the
+ * query and the requested size.
+ * <p>
+ * Each entry remembers the revision of the search index it has been created from. Entries created from an older
+ * revision are no longer returned, so feeds are rendered again as soon as changes to the search index become visible.
+ */
+public class FeedCache {
+
+  /** The cached feeds */
+  private final Cache<String, Entry> cache;
+
+  /**
+   * Creates a new cache.
+   *
+   * @param maxSize
+   *          the maximum number of cached feeds
+   * @param ttl
+   *          time in seconds after which a feed is rendered again, regardless of changes to the search index
+   */
+  public FeedCache(long maxSize, long ttl) {
+    cache = CacheBuilder.newBuilder().maximumSize(maxSize).expireAfterWrite(ttl, TimeUnit.SECONDS).build();
+  }
+
+  /**
+   * Creates the cache key for a feed request.
+   *
+   * @param feedInfo
+   *          the requested feed
+   * @param organization
+   *          the organization identifier
+   * @param user
+   *          the requesting user
+   * @return the key
+   */
+  public static String createKey(FeedInfo feedInfo, String organization, User user) {
+    final Set<String> roles = new TreeSet<>();
+    for (Role role : user.getRoles()) {
+      roles.add(role.getName());
+    }
+    return StringUtils.join(Arrays.asList(organization, roles, feedInfo.toROMEVersion(),
+            StringUtils.join(feedInfo.getQuery(), '/'), feedInfo.getSize()), '\u0000');
+  }
+
+  /**
+   * Returns a cached feed.
+   *
+   * @param key
+   *          the key as created by {@link #createKey(FeedInfo, String, User)}
+   * @param revision
+   *          the current revision of the search index
+   * @return the feed or <code>null</code> if it is not cached or if it has been created from an older revision
+   */
+  public Entry get(String key, long revision) {
+    final Entry entry = cache.getIfPresent(key);
+    return entry == null || entry.getRevision() != revision ? null : entry;
+  }
+
+  /**
+   * Returns a cached feed regardless of the revision it has been created from.
+   *
+   * @param key
+   *          the key as created by {@link #createKey(FeedInfo, String, User)}
+   * @return the feed or <code>null</code> if it is not cached
+   */
+  public Entry getAnyRevision(String key) {
+    return cache.getIfPresent(key);
+  }
+
+  /**
+   * Caches a rendered feed.
+   *
+   * @param key
+   *          the key as created by {@link #createKey(FeedInfo, String, User)}
+   * @param entry
+   *          the rendered feed
+   */
+  public void put(String key, Entry entry) {
+    cache.put(key, entry);
+  }
+
+  /** Returns the number of cached feeds. */
+  public long size() {
+    return cache.size();
+  }
+
+  /**
+   * A rendered feed together with its validators.
+   */
+  public static final class Entry {
+
+    private final String content;
+    private final String contentType;
+    private final String encoding;
+    private final String eTag;
+    private final Date lastModified;
+    private final long revision;
+
+    /**
+     * Creates a cache entry.
+     *
+     * @param content
+     *          the rendered feed
+     * @param contentType
+     *          the media type of the feed
+     * @param encoding
+     *          the character encoding of the feed
+     * @param eTag
+     *          the entity tag identifying the content
+     * @param lastModified
+     *          the date the content last changed
+     * @param revision
+     *          the revision of the search index the feed has been created from
+     */
+    public Entry(String content, String contentType, String encoding, String eTag, Date lastModified, long revision) {
+      this.content = content;
+      this.contentType = contentType;
+      this.encoding = encoding;
+      this.eTag = eTag;
+      this.lastModified = lastModified;
+      this.revision = revision;
+    }
+
+    public String getContent() {
+      return content;
+    }
+
+    public String getContentType() {
+      return contentType;
+    }
+
+    public String getEncoding() {
+      return encoding;
+    }
+
+    public String getETag() {
+      return eTag;
+    }
+
+    public Date getLastModified() {
+      return lastModified;
+    }
+
+    public long getRevision() {
+      return revision;
+    }
+  }
+
+}
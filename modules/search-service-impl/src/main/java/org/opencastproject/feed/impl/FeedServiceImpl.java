@@ -24,8 +24,11 @@ package org.opencastproject.feed.impl;
 
 import org.opencastproject.feed.api.Feed;
 import org.opencastproject.feed.api.FeedGenerator;
+import org.opencastproject.search.impl.SearchServiceImpl;
 import org.opencastproject.security.api.Organization;
 import org.opencastproject.security.api.SecurityService;
+import org.opencastproject.util.Checksum;
+import org.opencastproject.util.ChecksumType;
 import org.opencastproject.util.doc.rest.RestParameter;
 import org.opencastproject.util.doc.rest.RestParameter.Type;
 import org.opencastproject.util.doc.rest.RestQuery;
@@ -37,10 +40,14 @@ import com.rometools.rome.io.SyndFeedOutput;
 import com.rometools.rome.io.WireFeedOutput;
 
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.osgi.service.component.ComponentContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 
 import javax.servlet.http.HttpServletRequest;
@@ -49,6 +56,8 @@ import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
@@ -76,6 +85,11 @@ import javax.ws.rs.core.Variant;
  * The servlet returns a HTTP status 200 with the feed data.
  * If the feed could not be found because the query is unknown a HTTP error 404 is returned
  * If the feed could not be build (wrong RSS or Atom version, corrupt data, etc) an HTTP error 500 is returned.
+ * If the feed has not changed since the client fetched it, as indicated by the <code>If-None-Match</code> or
+ * <code>If-Modified-Since</code> headers, a HTTP status 304 is returned.
+ * <p>
+ * Rendered feeds are cached until the search index changes, so that repeated polls of the same feed neither query the
+ * search index nor render the feed again.
  */
 public class FeedServiceImpl {
 
@@ -85,6 +99,18 @@ public class FeedServiceImpl {
   /** Name of the size parameter */
   private static final String PARAM_SIZE = "size";
 
+  /** Configuration key for the maximum number of cached feeds */
+  public static final String CACHE_SIZE_KEY = "org.opencastproject.feed.cache.size";
+
+  /** Configuration key for the time in seconds after which cached feeds are rendered again */
+  public static final String CACHE_TTL_KEY = "org.opencastproject.feed.cache.ttl";
+
+  /** The default maximum number of cached feeds */
+  public static final int DEFAULT_CACHE_SIZE = 500;
+
+  /** The default time in seconds after which cached feeds are rendered again */
+  public static final int DEFAULT_CACHE_TTL = 300;
+
   /** Logging facility */
   private static Logger logger = LoggerFactory.getLogger(FeedServiceImpl.class);
 
@@ -94,6 +120,32 @@ public class FeedServiceImpl {
   /** The security service */
   private SecurityService securityService = null;
 
+  /** The search service, providing the revision of the search index */
+  private volatile SearchServiceImpl searchService = null;
+
+  /** The cache of rendered feeds, <code>null</code> if caching is disabled */
+  private FeedCache cache = null;
+
+  /**
+   * OSGi callback to activate this component.
+   *
+   * @param cc
+   *          the component context
+   */
+  public void activate(ComponentContext cc) {
+    final int cacheSize = NumberUtils.toInt(
+            StringUtils.trimToNull(cc.getBundleContext().getProperty(CACHE_SIZE_KEY)), DEFAULT_CACHE_SIZE);
+    final int cacheTtl = NumberUtils.toInt(
+            StringUtils.trimToNull(cc.getBundleContext().getProperty(CACHE_TTL_KEY)), DEFAULT_CACHE_TTL);
+    if (cacheSize > 0 && cacheTtl > 0) {
+      logger.info("Caching up to {} feeds for at most {} seconds", cacheSize, cacheTtl);
+      cache = new FeedCache(cacheSize, cacheTtl);
+    } else {
+      logger.info("Caching of feeds is disabled");
+      cache = null;
+    }
+  }
+
   /*
    * Note: We're using Regex matching for the path here, instead of normal JAX-RS paths.  Previously this class was a servlet,
    * which was fine except that it had auth issues.  Removing the servlet fixed the auth issues, but then the paths (as written
@@ -113,6 +165,7 @@ public class FeedServiceImpl {
           @RestParameter(description = "Requested result size", name = "size", type = Type.INTEGER, isRequired = false)
       }, reponses = {
           @RestResponse(description = "Return the feed of the appropriate type", responseCode = HttpServletResponse.SC_OK),
+          @RestResponse(description = "The feed has not been modified", responseCode = HttpServletResponse.SC_NOT_MODIFIED),
           @RestResponse(description = "", responseCode = HttpServletResponse.SC_BAD_REQUEST),
           @RestResponse(description = "", responseCode = HttpServletResponse.SC_INTERNAL_SERVER_ERROR) }, returnDescription = "")
   public Response getFeed(@Context HttpServletRequest request) {
@@ -129,6 +182,21 @@ public class FeedServiceImpl {
       return Response.status(Status.BAD_REQUEST).build();
     }
 
+    // Return the cached feed if the search index has not changed since it has been rendered
+    final FeedCache cache = this.cache;
+    final SearchServiceImpl searchService = this.searchService;
+    String cacheKey = null;
+    long revision = 0L;
+    if (cache != null && searchService != null) {
+      cacheKey = FeedCache.createKey(feedInfo, organization.getId(), securityService.getUser());
+      revision = searchService.getIndexRevision();
+      FeedCache.Entry cached = cache.get(cacheKey, revision);
+      if (cached != null) {
+        logger.debug("Returning cached feed");
+        return createResponse(request, cached);
+      }
+    }
+
     // Set the content type
     if (feedInfo.getType().equals(Feed.Type.Atom))
       contentType = "application/atom+xml";
@@ -153,8 +221,6 @@ public class FeedServiceImpl {
       return Response.status(Status.NOT_FOUND).build();
     }
 
-    // Set character encoding
-    Variant v = new Variant(MediaType.valueOf(contentType), null, feed.getEncoding());
     String outputString = null;
     try {
       if (feedInfo.getType().equals(Feed.Type.RSS)) {
@@ -170,7 +236,74 @@ public class FeedServiceImpl {
       return Response.serverError().build();
     }
 
-    return Response.ok(outputString, v).build();
+    String eTag;
+    try {
+      eTag = Checksum.createFor(ChecksumType.DEFAULT_TYPE, outputString).getValue();
+    } catch (IOException e) {
+      return Response.serverError().build();
+    }
+    // Keep the modification date if the feed has been rendered again without changes
+    FeedCache.Entry previous = cacheKey != null ? cache.getAnyRevision(cacheKey) : null;
+    Date lastModified;
+    if (previous != null && previous.getETag().equals(eTag))
+      lastModified = previous.getLastModified();
+    else if (feed.getUpdatedDate() != null)
+      lastModified = feed.getUpdatedDate();
+    else
+      lastModified = new Date();
+
+    FeedCache.Entry entry = new FeedCache.Entry(outputString, contentType, feed.getEncoding(), eTag, lastModified,
+            revision);
+    if (cacheKey != null)
+      cache.put(cacheKey, entry);
+    return createResponse(request, entry);
+  }
+
+  /**
+   * Creates the response for a rendered feed. If the client already has the current version of the feed, a
+   * <code>304 Not Modified</code> response without the feed is returned.
+   *
+   * @param request
+   *          the request
+   * @param feed
+   *          the rendered feed
+   * @return the response
+   */
+  private Response createResponse(HttpServletRequest request, FeedCache.Entry feed) {
+    final EntityTag eTag = new EntityTag(feed.getETag());
+    if (isNotModified(request, feed)) {
+      return Response.notModified(eTag).lastModified(feed.getLastModified()).build();
+    }
+    // Set character encoding
+    Variant v = new Variant(MediaType.valueOf(feed.getContentType()), null, feed.getEncoding());
+    return Response.ok(feed.getContent(), v).tag(eTag).lastModified(feed.getLastModified()).build();
+  }
+
+  /**
+   * Checks the <code>If-None-Match</code> header or, if it is missing, the <code>If-Modified-Since</code> header of the
+   * request.
+   *
+   * @return <code>true</code> if the client already has the current version of the feed
+   */
+  private static boolean isNotModified(HttpServletRequest request, FeedCache.Entry feed) {
+    final String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+    if (StringUtils.isNotBlank(ifNoneMatch)) {
+      for (String tag : ifNoneMatch.split(",")) {
+        tag = StringUtils.removeStart(tag.trim(), "W/");
+        if ("*".equals(tag) || feed.getETag().equals(StringUtils.strip(tag, "\""))) {
+          return true;
+        }
+      }
+      return false;
+    }
+    long ifModifiedSince;
+    try {
+      ifModifiedSince = request.getDateHeader(HttpHeaders.IF_MODIFIED_SINCE);
+    } catch (IllegalArgumentException e) {
+      return false;
+    }
+    // HTTP dates have a precision of one second
+    return ifModifiedSince >= 0 && feed.getLastModified().getTime() / 1000 <= ifModifiedSince / 1000;
   }
 
   /**
@@ -245,6 +378,27 @@ public class FeedServiceImpl {
     feeds.remove(generator);
   }
 
+  /**
+   * OSGi callback to set the search service.
+   *
+   * @param searchService
+   *          the search service
+   */
+  void setSearchService(SearchServiceImpl searchService) {
+    this.searchService = searchService;
+  }
+
+  /**
+   * OSGi callback to unset the search service.
+   *
+   * @param searchService
+   *          the search service
+   */
+  void unsetSearchService(SearchServiceImpl searchService) {
+    if (this.searchService == searchService)
+      this.searchService = null;
+  }
+
   /**
    * OSGi callback to set the security service.
    *
@@ -133,6 +133,23 @@ public class SearchRestService extends AbstractJobProducerEndpoint {
     }
   }
 
+  @POST
+  @Path("flush")
+  @RestQuery(name = "flush", description = "Makes all changes to the search index visible immediately, regardless of "
+          + "the configured commit delay.", reponses = {
+          @RestResponse(description = "The changes are visible", responseCode = HttpServletResponse.SC_NO_CONTENT),
+          @RestResponse(description = "There has been an internal error and the changes could not be committed",
+                  responseCode = HttpServletResponse.SC_INTERNAL_SERVER_ERROR) }, returnDescription = "")
+  public Response flush() {
+    try {
+      searchService.flush();
+      return Response.noContent().build();
+    } catch (SearchException e) {
+      logger.warn("Unable to commit the search index changes", e);
+      return Response.serverError().build();
+    }
+  }
+
   @GET
   @Path("series.{format:xml|json}")
   @Produces({ MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON })
@@ -239,6 +256,52 @@ public class SearchRestService extends AbstractJobProducerEndpoint {
           @QueryParam("limit") int limit, @QueryParam("offset") int offset, @QueryParam("admin") boolean admin,
           @PathParam("format") String format) throws SearchException, UnauthorizedException {
     // CHECKSTYLE:ON
+    SearchQuery search = createEpisodeQuery(id, text, seriesId, sort, tags, flavors, limit, offset);
+
+    // Build the response
+    ResponseBuilder rb = Response.ok();
+
+    if (admin) {
+      rb.entity(searchService.getForAdministrativeRead(search));
+    } else {
+      rb.entity(searchService.getByQuery(search));
+    }
+
+    if ("json".equals(format)) {
+      rb.type(MediaType.APPLICATION_JSON);
+    } else {
+      rb.type(MediaType.TEXT_XML);
+    }
+
+    return rb.build();
+  }
+
+  // CHECKSTYLE:OFF
+  @GET
+  @Path("engage.json")
+  @Produces(MediaType.APPLICATION_JSON)
+  @RestQuery(name = "engage", description = "Search for episodes matching the query parameters and return their precomputed player projections, containing only the metadata, tracks, previews and segments needed for playback.", restParameters = {
+          @RestParameter(description = "The ID of the single episode to be returned, if it exists.", isRequired = false, name = "id", type = RestParameter.Type.STRING),
+          @RestParameter(description = "Any episode that matches this free-text query.", isRequired = false, name = "q", type = RestParameter.Type.STRING),
+          @RestParameter(description = "Any episode that belongs to specified series id.", isRequired = false, name = "sid", type = RestParameter.Type.STRING),
+          @RestParameter(name = "sort", isRequired = false, description = "The sort order.  May include any "
+                  + "of the following: DATE_CREATED, DATE_PUBLISHED, TITLE, SERIES_ID, MEDIA_PACKAGE_ID, CREATOR, "
+                  + "CONTRIBUTOR, LANGUAGE, LICENSE, SUBJECT, DESCRIPTION, PUBLISHER.  Add '_DESC' to reverse the sort order (e.g. TITLE_DESC).", type = RestParameter.Type.STRING),
+          @RestParameter(defaultValue = "20", description = "The maximum number of items to return per page.", isRequired = false, name = "limit", type = RestParameter.Type.STRING),
+          @RestParameter(defaultValue = "0", description = "The page number.", isRequired = false, name = "offset", type = RestParameter.Type.STRING) }, reponses = { @RestResponse(description = "The request was processed succesfully.", responseCode = HttpServletResponse.SC_OK) }, returnDescription = "The paging information and the projections of the matching episodes, expressed as json.")
+  public Response getEngage(@QueryParam("id") String id, @QueryParam("q") String text,
+          @QueryParam("sid") String seriesId, @QueryParam("sort") String sort, @QueryParam("tag") String[] tags, @QueryParam("flavor") String[] flavors,
+          @QueryParam("limit") int limit, @QueryParam("offset") int offset) throws SearchException {
+    // CHECKSTYLE:ON
+    SearchQuery search = createEpisodeQuery(id, text, seriesId, sort, tags, flavors, limit, offset);
+    return Response.ok(searchService.getEngageByQuery(search)).type(MediaType.APPLICATION_JSON).build();
+  }
+
+  /**
+   * Creates the query for the episode endpoints from the request parameters.
+   */
+  private SearchQuery createEpisodeQuery(String id, String text, String seriesId, String sort, String[] tags,
+          String[] flavors, int limit, int offset) {
     // Prepare the flavors
     List<MediaPackageElementFlavor> flavorSet = new ArrayList<MediaPackageElementFlavor>();
     if (flavors != null) {
@@ -282,21 +345,29 @@ public class SearchRestService extends AbstractJobProducerEndpoint {
       }
     }
 
-    // Build the response
-    ResponseBuilder rb = Response.ok();
-
-    if (admin) {
-      rb.entity(searchService.getForAdministrativeRead(search));
-    } else {
-      rb.entity(searchService.getByQuery(search));
-    }
+    return search;
+  }
 
+  @GET
+  @Path("segments.{format:xml|json}")
+  @Produces({ MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON })
+  @RestQuery(name = "segments", description = "Search for the segments whose text matches the query. The results contain the matching episodes, each with only its matching segments and their time offsets.", pathParameters = { @RestParameter(description = "The output format (json or xml) of the response body.", isRequired = true, name = "format", type = RestParameter.Type.STRING) }, restParameters = {
+          @RestParameter(description = "The text to search for.", isRequired = true, name = "q", type = RestParameter.Type.STRING),
+          @RestParameter(description = "The ID of the episode to search in.", isRequired = false, name = "id", type = RestParameter.Type.STRING),
+          @RestParameter(defaultValue = "0", description = "The maximum number of segments to return, 0 for all.", isRequired = false, name = "limit", type = RestParameter.Type.STRING) }, reponses = {
+          @RestResponse(description = "The request was processed succesfully.", responseCode = HttpServletResponse.SC_OK),
+          @RestResponse(description = "No text to search for was given.", responseCode = HttpServletResponse.SC_BAD_REQUEST) }, returnDescription = "The matching segments, grouped by episode, expressed as xml or json.")
+  public Response getSegments(@QueryParam("q") String text, @QueryParam("id") String id,
+          @QueryParam("limit") int limit, @PathParam("format") String format) throws SearchException {
+    if (StringUtils.isBlank(text))
+      return Response.status(Response.Status.BAD_REQUEST).build();
+
+    ResponseBuilder rb = Response.ok(searchService.getSegmentsByText(text, StringUtils.trimToNull(id), limit));
     if ("json".equals(format)) {
       rb.type(MediaType.APPLICATION_JSON);
     } else {
       rb.type(MediaType.TEXT_XML);
     }
-
     return rb.build();
   }
 
@@ -0,0 +1,306 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.search.impl;
+
+import org.opencastproject.mediapackage.MediaPackage;
+import org.opencastproject.mediapackage.MediaPackageParser;
+import org.opencastproject.search.impl.jmx.SearchIndexRebuildMXBean;
+import org.opencastproject.search.impl.persistence.SearchEntity;
+import org.opencastproject.search.impl.persistence.SearchServiceDatabase;
+import org.opencastproject.search.impl.persistence.SearchServiceDatabaseException;
+import org.opencastproject.search.impl.solr.SolrIndexManager;
+import org.opencastproject.security.api.AccessControlList;
+import org.opencastproject.security.api.AccessControlParser;
+import org.opencastproject.security.api.Organization;
+import org.opencastproject.security.api.OrganizationDirectoryService;
+import org.opencastproject.security.api.SecurityService;
+import org.opencastproject.security.util.SecurityUtil;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.common.SolrInputDocument;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Rebuilds the search index from the search database.
+ * <p>
+ * The entries are read page by page in the order of their identifiers. The documents of a page are created in parallel,
+ * which includes loading the mpeg-7 catalogs and series metadata, and are then posted to solr at once. After each page,
+ * the identifier of its last entry is stored as a checkpoint, so an interrupted rebuild resumes after the last complete
+ * page instead of starting over.
+ */
+public class SearchIndexRebuild implements SearchIndexRebuildMXBean {
+
+  /** The logging facility */
+  private static final Logger logger = LoggerFactory.getLogger(SearchIndexRebuild.class);
+
+  /** The number of entries processed at once */
+  public static final int DEFAULT_PAGE_SIZE = 200;
+
+  /** Marks a checkpoint of a rebuild which has not completed any page yet */
+  private static final String CHECKPOINT_START = "";
+
+  private final SearchServiceDatabase persistence;
+  private final SolrIndexManager indexManager;
+  private final SecurityService securityService;
+  private final OrganizationDirectoryService organizationDirectory;
+
+  /** The file storing the checkpoint, <code>null</code> to not store checkpoints */
+  private final File checkpointFile;
+
+  /** The number of parallel threads creating documents */
+  private final int parallelism;
+
+  /** The number of entries processed at once */
+  private final int pageSize;
+
+  private volatile boolean running = false;
+  private final AtomicLong total = new AtomicLong();
+  private final AtomicLong processed = new AtomicLong();
+  private final AtomicLong failed = new AtomicLong();
+  private final AtomicLong processedByRun = new AtomicLong();
+  private volatile long startTime = 0L;
+
+  /**
+   * Creates a rebuild engine.
+   *
+   * @param persistence
+   *          the search database
+   * @param indexManager
+   *          the index to rebuild
+   * @param securityService
+   *          the security service
+   * @param organizationDirectory
+   *          the organization directory
+   * @param checkpointFile
+   *          the file storing the checkpoint, <code>null</code> to not store checkpoints
+   * @param parallelism
+   *          the number of parallel threads creating documents
+   * @param pageSize
+   *          the number of entries processed at once
+   */
+  public SearchIndexRebuild(SearchServiceDatabase persistence, SolrIndexManager indexManager,
+          SecurityService securityService, OrganizationDirectoryService organizationDirectory, File checkpointFile,
+          int parallelism, int pageSize) {
+    this.persistence = persistence;
+    this.indexManager = indexManager;
+    this.securityService = securityService;
+    this.organizationDirectory = organizationDirectory;
+    this.checkpointFile = checkpointFile;
+    this.parallelism = Math.max(parallelism, 1);
+    this.pageSize = Math.max(pageSize, 1);
+  }
+
+  /**
+   * Returns whether a previous rebuild has been interrupted and has to be resumed.
+   *
+   * @return <code>true</code> if there is a checkpoint
+   */
+  public boolean isInterrupted() {
+    return checkpointFile != null && checkpointFile.isFile();
+  }
+
+  /**
+   * Rebuilds the index, resuming after the checkpoint of an interrupted rebuild.
+   *
+   * @param systemUserName
+   *          the name of the system user to index the entries as
+   * @throws SearchServiceDatabaseException
+   *           if the entries cannot be loaded from the database
+   * @throws SolrServerException
+   *           if the documents cannot be posted to solr
+   */
+  public synchronized void run(String systemUserName) throws SearchServiceDatabaseException, SolrServerException {
+    String lastId = readCheckpoint();
+    if (lastId == null) {
+      logger.info("Starting population of search index from database");
+      processed.set(0);
+      failed.set(0);
+      writeCheckpoint(CHECKPOINT_START);
+    } else {
+      logger.info("Resuming population of search index from database after media package '{}'", lastId);
+    }
+
+    total.set(persistence.countMediaPackages());
+    processedByRun.set(0);
+    startTime = System.currentTimeMillis();
+    running = true;
+    final ForkJoinPool pool = new ForkJoinPool(parallelism);
+    try {
+      List<SearchEntity> page = persistence.getSearchEntities(StringUtils.trimToNull(lastId), pageSize);
+      while (!page.isEmpty()) {
+        indexManager.addAll(createDocuments(pool, page, systemUserName));
+        lastId = page.get(page.size() - 1).getMediaPackageId();
+        writeCheckpoint(lastId);
+        processed.addAndGet(page.size());
+        processedByRun.addAndGet(page.size());
+        logger.info("Populated search index with {} of {} media packages ({} per second)", processed.get(),
+                total.get(), String.format("%.1f", getRate()));
+        page = persistence.getSearchEntities(lastId, pageSize);
+      }
+    } finally {
+      running = false;
+      pool.shutdownNow();
+    }
+
+    if (failed.get() > 0)
+      logger.error("Skipped {} erroneous search entries while populating the search index", failed.get());
+    logger.info("Finished populating search index");
+    deleteCheckpoint();
+  }
+
+  /**
+   * Creates the index documents for a page of entries in parallel. Entries which cannot be indexed are skipped.
+   */
+  private List<SolrInputDocument> createDocuments(ForkJoinPool pool, List<SearchEntity> page,
+          final String systemUserName) throws SolrServerException {
+    final List<Callable<List<SolrInputDocument>>> tasks = new ArrayList<>(page.size());
+    for (final SearchEntity entity : page) {
+      tasks.add(new Callable<List<SolrInputDocument>>() {
+        @Override
+        public List<SolrInputDocument> call() {
+          return createDocuments(entity, systemUserName);
+        }
+      });
+    }
+
+    final List<SolrInputDocument> documents = new ArrayList<>();
+    try {
+      for (Future<List<SolrInputDocument>> result : pool.invokeAll(tasks)) {
+        documents.addAll(result.get());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SolrServerException("Interrupted while populating the search index");
+    } catch (ExecutionException e) {
+      throw new SolrServerException(e.getCause());
+    }
+    return documents;
+  }
+
+  /**
+   * Creates the index documents of a single entry in the security context of its organization.
+   */
+  private List<SolrInputDocument> createDocuments(SearchEntity entity, String systemUserName) {
+    final String mediaPackageId = entity.getMediaPackageId();
+    try {
+      final Organization organization = organizationDirectory.getOrganization(entity.getOrganization());
+      securityService.setOrganization(organization);
+      securityService.setUser(SecurityUtil.createSystemUser(systemUserName, organization));
+
+      final MediaPackage mediaPackage = MediaPackageParser.getFromXml(entity.getMediaPackageXML());
+      final AccessControlList acl = entity.getAccessControl() == null ? null
+              : AccessControlParser.parseAcl(entity.getAccessControl());
+      return indexManager.createInputDocuments(mediaPackage, acl, entity.getDeletionDate(),
+              entity.getModificationDate());
+    } catch (Exception e) {
+      logger.error("Unable to index search instance {}:", mediaPackageId, e);
+      failed.incrementAndGet();
+      return Collections.emptyList();
+    } finally {
+      securityService.setOrganization(null);
+      securityService.setUser(null);
+    }
+  }
+
+  private String readCheckpoint() {
+    if (!isInterrupted())
+      return null;
+    try {
+      return FileUtils.readFileToString(checkpointFile, StandardCharsets.UTF_8);
+    } catch (IOException e) {
+      logger.warn("Unable to read search index checkpoint, starting over: {}", e.getMessage());
+      return null;
+    }
+  }
+
+  private void writeCheckpoint(String lastId) {
+    if (checkpointFile == null)
+      return;
+    try {
+      FileUtils.writeStringToFile(checkpointFile, lastId, StandardCharsets.UTF_8);
+    } catch (IOException e) {
+      logger.warn("Unable to write search index checkpoint: {}", e.getMessage());
+    }
+  }
+
+  private void deleteCheckpoint() {
+    if (checkpointFile != null)
+      FileUtils.deleteQuietly(checkpointFile);
+  }
+
+  /**
+   * @see org.opencastproject.search.impl.jmx.SearchIndexRebuildMXBean#isRunning()
+   */
+  @Override
+  public boolean isRunning() {
+    return running;
+  }
+
+  /**
+   * @see org.opencastproject.search.impl.jmx.SearchIndexRebuildMXBean#getTotal()
+   */
+  @Override
+  public long getTotal() {
+    return total.get();
+  }
+
+  /**
+   * @see org.opencastproject.search.impl.jmx.SearchIndexRebuildMXBean#getProcessed()
+   */
+  @Override
+  public long getProcessed() {
+    return processed.get();
+  }
+
+  /**
+   * @see org.opencastproject.search.impl.jmx.SearchIndexRebuildMXBean#getFailed()
+   */
+  @Override
+  public long getFailed() {
+    return failed.get();
+  }
+
+  /**
+   * @see org.opencastproject.search.impl.jmx.SearchIndexRebuildMXBean#getRate()
+   */
+  @Override
+  public double getRate() {
+    final long elapsed = System.currentTimeMillis() - startTime;
+    return startTime == 0L || elapsed == 0 ? 0.0 : processedByRun.get() * 1000.0 / elapsed;
+  }
+
+}
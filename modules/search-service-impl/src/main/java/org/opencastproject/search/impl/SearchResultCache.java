@@ -0,0 +1,273 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.search.impl;
+
+import org.opencastproject.mediapackage.MediaPackageElementFlavor;
+import org.opencastproject.search.api.SearchQuery;
+import org.opencastproject.search.api.SearchResult;
+import org.opencastproject.search.api.SearchResultImpl;
+import org.opencastproject.search.api.SearchResultItem;
+import org.opencastproject.search.api.SearchResultItemImpl;
+import org.opencastproject.security.api.Role;
+import org.opencastproject.security.api.User;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches search results for read queries, keyed by the normalized query and the roles of the user running it, since
+ * the roles determine which items are visible.
+ * <p>
+ * Each entry remembers the episodes and series its result contains. When a media package is added to or removed from
+ * the index, only the entries which contain it, which explicitly ask for it or its series, or which are not restricted
+ * to a single media package or series at all, are invalidated.
+ * <p>
+ * Every invalidation starts a new generation of the cache. A result is only cached if no invalidation happened while
+ * its query was running, since it may not reflect the change.
+ * <p>
+ * The cache keeps its own copy of each result and hands out a new copy on every hit, so callers may modify the result
+ * they get without affecting other callers. The result items themselves are shared and must not be modified.
+ * <p>
+ * Invalidation only covers changes made on this node. Results cached on other nodes serving search requests are
+ * updated once their time to live expires.
+ */
+public class SearchResultCache {
+
+  /** The cached results */
+  private final Cache<String, Entry> cache;
+
+  /** The number of entries removed because of index updates */
+  private final AtomicLong invalidations = new AtomicLong();
+
+  /** The number of invalidations so far */
+  private final AtomicLong generation = new AtomicLong();
+
+  /**
+   * Creates a new cache.
+   *
+   * @param maxSize
+   *          the maximum number of cached results
+   * @param ttl
+   *          time in seconds after which a result is evicted
+   */
+  public SearchResultCache(long maxSize, long ttl) {
+    cache = CacheBuilder.newBuilder().maximumSize(maxSize).expireAfterWrite(ttl, TimeUnit.SECONDS).recordStats()
+            .build();
+  }
+
+  /**
+   * Creates the cache key for a query.
+   *
+   * @param q
+   *          the query
+   * @param organization
+   *          the organization identifier
+   * @param user
+   *          the user running the query
+   * @return the key
+   */
+  public static String createKey(SearchQuery q, String organization, User user) {
+    final Set<String> roles = new TreeSet<>();
+    for (Role role : user.getRoles()) {
+      roles.add(role.getName());
+    }
+    final Set<String> tags = new TreeSet<>();
+    if (q.getElementTags() != null) {
+      for (String tag : q.getElementTags()) {
+        if (StringUtils.isNotBlank(tag))
+          tags.add(tag.trim());
+      }
+    }
+    final Set<String> flavors = new TreeSet<>();
+    if (q.getElementFlavors() != null) {
+      for (MediaPackageElementFlavor flavor : q.getElementFlavors()) {
+        flavors.add(flavor.toString());
+      }
+    }
+    return StringUtils.join(Arrays.asList(organization, roles, StringUtils.trimToEmpty(q.getId()),
+            StringUtils.trimToEmpty(q.getSeriesId()), StringUtils.trimToEmpty(q.getText()),
+            StringUtils.trimToEmpty(q.getQuery()), q.isIncludeEpisodes(), q.isIncludeSeries(), tags, flavors,
+            q.getDeletedDate() == null ? "" : q.getDeletedDate().getTime(), q.getSort(), q.isSortAscending(),
+            q.getLimit(), q.getOffset()), '\u0000');
+  }
+
+  /**
+   * Returns a cached result.
+   *
+   * @param key
+   *          the key as created by {@link #createKey(SearchQuery, String, User)}
+   * @return the result or <code>null</code> if it is not cached
+   */
+  public SearchResult get(String key) {
+    final Entry entry = cache.getIfPresent(key);
+    return entry == null ? null : copy(entry.result);
+  }
+
+  /**
+   * Returns the current generation of the cache, which has to be read before running a query whose result is to be
+   * cached.
+   *
+   * @return the generation
+   */
+  public long getGeneration() {
+    return generation.get();
+  }
+
+  /**
+   * Caches the result of a query, unless the cache has been invalidated since the query started.
+   *
+   * @param key
+   *          the key as created by {@link #createKey(SearchQuery, String, User)}
+   * @param q
+   *          the query
+   * @param result
+   *          the result
+   * @param generation
+   *          the generation of the cache as returned by {@link #getGeneration()} before the query started
+   * @return whether the result has been cached
+   */
+  public boolean put(String key, SearchQuery q, SearchResult result, long generation) {
+    if (this.generation.get() != generation)
+      return false;
+    final Entry entry = new Entry(q, copy(result));
+    cache.put(key, entry);
+    // An invalidation running concurrently may already have passed this key
+    if (this.generation.get() != generation) {
+      cache.asMap().remove(key, entry);
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Invalidates all results which may be affected by a change of the given media package.
+   *
+   * @param mediaPackageId
+   *          the identifier of the added or removed media package
+   * @param seriesId
+   *          the identifier of its series, may be <code>null</code>
+   */
+  public void invalidate(String mediaPackageId, String seriesId) {
+    generation.incrementAndGet();
+    final Iterator<Map.Entry<String, Entry>> entries = cache.asMap().entrySet().iterator();
+    while (entries.hasNext()) {
+      if (entries.next().getValue().isAffectedBy(mediaPackageId, seriesId)) {
+        entries.remove();
+        invalidations.incrementAndGet();
+      }
+    }
+  }
+
+  /**
+   * Invalidates all results.
+   */
+  public void invalidateAll() {
+    generation.incrementAndGet();
+    invalidations.addAndGet(cache.size());
+    cache.invalidateAll();
+  }
+
+  /** Returns the cache statistics. */
+  public CacheStats getStats() {
+    return cache.stats();
+  }
+
+  /** Returns the number of cached results. */
+  public long size() {
+    return cache.size();
+  }
+
+  /** Returns the number of results removed because of index updates. */
+  public long getInvalidationCount() {
+    return invalidations.get();
+  }
+
+  /**
+   * Creates a copy of a result sharing its items.
+   *
+   * @param result
+   *          the result to copy
+   * @return the copy
+   */
+  private static SearchResultImpl copy(SearchResult result) {
+    final SearchResultImpl copy = result.getQuery() == null ? new SearchResultImpl()
+            : new SearchResultImpl(result.getQuery());
+    for (SearchResultItem item : result.getItems()) {
+      copy.addItem((SearchResultItemImpl) item);
+    }
+    copy.setOffset(result.getOffset());
+    copy.setLimit(result.getLimit());
+    copy.setTotal(result.getTotalSize());
+    copy.setSearchTime(result.getSearchTime());
+    return copy;
+  }
+
+  /**
+   * A cached result together with the identifiers it depends on.
+   */
+  private static final class Entry {
+
+    private final SearchResultImpl result;
+
+    /** The identifier the query is restricted to */
+    private final String queryId;
+
+    /** The series the query is restricted to */
+    private final String querySeriesId;
+
+    /** The identifiers of the episodes and series items contained in the result */
+    private final Set<String> ids = new HashSet<>();
+
+    Entry(SearchQuery q, SearchResultImpl result) {
+      this.result = result;
+      this.queryId = StringUtils.trimToNull(q.getId());
+      this.querySeriesId = StringUtils.trimToNull(q.getSeriesId());
+      for (SearchResultItem item : result.getItems()) {
+        ids.add(item.getId());
+      }
+    }
+
+    boolean isAffectedBy(String mediaPackageId, String seriesId) {
+      if (ids.contains(mediaPackageId) || (seriesId != null && ids.contains(seriesId)))
+        return true;
+      if (queryId != null)
+        return queryId.equals(mediaPackageId) || queryId.equals(seriesId);
+      if (querySeriesId != null)
+        return querySeriesId.equals(seriesId);
+      // Any change may add a new item to an unrestricted query
+      return true;
+    }
+  }
+
+}
@@ -35,13 +35,13 @@ import org.opencastproject.search.api.SearchException;
 import org.opencastproject.search.api.SearchQuery;
 import org.opencastproject.search.api.SearchResult;
 import org.opencastproject.search.api.SearchService;
+import org.opencastproject.search.impl.jmx.SearchCacheStatistics;
 import org.opencastproject.search.impl.persistence.SearchServiceDatabase;
 import org.opencastproject.search.impl.persistence.SearchServiceDatabaseException;
 import org.opencastproject.search.impl.solr.SolrIndexManager;
 import org.opencastproject.search.impl.solr.SolrRequester;
 import org.opencastproject.security.api.AccessControlList;
 import org.opencastproject.security.api.AuthorizationService;
-import org.opencastproject.security.api.Organization;
 import org.opencastproject.security.api.OrganizationDirectoryService;
 import org.opencastproject.security.api.SecurityService;
 import org.opencastproject.security.api.UnauthorizedException;
@@ -54,7 +54,8 @@ import org.opencastproject.serviceregistry.api.ServiceRegistryException;
 import org.opencastproject.solr.SolrServerFactory;
 import org.opencastproject.util.LoadUtil;
 import org.opencastproject.util.NotFoundException;
-import org.opencastproject.util.data.Tuple;
+import org.opencastproject.util.OsgiUtil;
+import org.opencastproject.util.jmx.JmxUtil;
 import org.opencastproject.workspace.api.Workspace;
 
 import org.apache.commons.io.FileUtils;
@@ -63,7 +64,6 @@ import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.solr.client.solrj.SolrServer;
 import org.apache.solr.client.solrj.SolrServerException;
-import org.osgi.framework.ServiceException;
 import org.osgi.service.cm.ConfigurationException;
 import org.osgi.service.cm.ManagedService;
 import org.osgi.service.component.ComponentContext;
@@ -80,13 +80,17 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.Dictionary;
-import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.ObjectInstance;
 
 /**
  * A Solr-based {@link SearchService} implementation.
  */
-public final class SearchServiceImpl extends AbstractJobProducer implements SearchService, ManagedService {
+public class SearchServiceImpl extends AbstractJobProducer implements SearchService, ManagedService {
 
   /** Log facility */
   private static final Logger logger = LoggerFactory.getLogger(SearchServiceImpl.class);
@@ -112,6 +116,39 @@ public final class SearchServiceImpl extends AbstractJobProducer implements Sear
   /** The key to look for in the service configuration file to override the {@link DEFAULT_DELETE_JOB_LOAD} */
   public static final String DELETE_JOB_LOAD_KEY = "job.load.delete";
 
+  /** The key to configure the maximum number of cached search results, 0 to disable caching */
+  public static final String CACHE_SIZE_KEY = "cache.size";
+
+  /** The key to configure the time in seconds after which a cached search result expires */
+  public static final String CACHE_TTL_KEY = "cache.ttl";
+
+  /** The default maximum number of cached search results */
+  public static final int DEFAULT_CACHE_SIZE = 1000;
+
+  /** The default time in seconds after which a cached search result expires */
+  public static final int DEFAULT_CACHE_TTL = 60;
+
+  /** The key to configure the time in milliseconds within which index changes have to become visible */
+  public static final String COMMIT_DELAY_KEY = "index.commit.delay";
+
+  /** The key to configure the maximum number of documents sent to the index at once */
+  public static final String BATCH_SIZE_KEY = "index.batch.size";
+
+  /** The default time in milliseconds within which index changes have to become visible, 0 to commit immediately */
+  public static final int DEFAULT_COMMIT_DELAY = 0;
+
+  /** The key to configure the number of threads creating index documents while populating the index */
+  public static final String REBUILD_PARALLELISM_KEY = "index.rebuild.parallelism";
+
+  /** The file in the bundle's data area storing the progress of the index population */
+  private static final String REBUILD_CHECKPOINT_FILE = "search-index-rebuild.checkpoint";
+
+  /** The JMX type of the index rebuild progress */
+  private static final String JMX_INDEX_REBUILD_TYPE = "SearchIndexRebuild";
+
+  /** The JMX type of the cache statistics */
+  private static final String JMX_CACHE_STATISTICS_TYPE = "SearchCacheStatistics";
+
   /** The load introduced on the system by creating an add job */
   private float addJobLoad = DEFAULT_ADD_JOB_LOAD;
 
@@ -121,6 +158,18 @@ public final class SearchServiceImpl extends AbstractJobProducer implements Sear
   /** counter how often the index has already been tried to populate */
   private int retriesToPopulateIndex = 0;
 
+  /** Time in seconds after which a failed population of the index is resumed */
+  private static final int POPULATE_RETRY_DELAY = 30;
+
+  /** Resumes a failed population of the index */
+  private final ScheduledExecutorService rebuildRetryExecutor = Executors.newSingleThreadScheduledExecutor();
+
+  /** Rebuilds the index from the database */
+  private SearchIndexRebuild indexRebuild;
+
+  /** The number of threads creating index documents while populating the index */
+  private int rebuildParallelism = Runtime.getRuntime().availableProcessors();
+
   /** List of available operations on jobs */
   private enum Operation {
     Add, Delete
@@ -163,6 +212,24 @@ public final class SearchServiceImpl extends AbstractJobProducer implements Sear
   /** The optional Mediapackage serializer */
   protected MediaPackageSerializer serializer = null;
 
+  /** The cache of read query results, <code>null</code> if caching is disabled */
+  private volatile SearchResultCache cache = new SearchResultCache(DEFAULT_CACHE_SIZE, DEFAULT_CACHE_TTL);
+
+  /** The JMX business object for the cache statistics */
+  private final SearchCacheStatistics cacheStatistics = new SearchCacheStatistics();
+
+  /** The JMX bean object instance */
+  private ObjectInstance registeredMXBean;
+
+  /** The JMX bean object instance of the index rebuild */
+  private ObjectInstance registeredRebuildMXBean;
+
+  /** Time in milliseconds within which index changes have to become visible */
+  private int commitDelay = DEFAULT_COMMIT_DELAY;
+
+  /** The maximum number of documents sent to the index at once */
+  private int batchSize = SolrIndexManager.DEFAULT_BATCH_SIZE;
+
   /**
    * Creates a new instance of the search service.
    */
@@ -230,6 +297,15 @@ public final class SearchServiceImpl extends AbstractJobProducer implements Sear
     solrRequester = new SolrRequester(solrServer, securityService, serializer);
     indexManager = new SolrIndexManager(solrServer, workspace, mdServices, seriesService, mpeg7CatalogService,
             securityService);
+    indexManager.setCommitPolicy(commitDelay, batchSize);
+
+    cacheStatistics.setCache(cache);
+    registeredMXBean = JmxUtil.registerMXBean(cacheStatistics, JMX_CACHE_STATISTICS_TYPE);
+
+    indexRebuild = new SearchIndexRebuild(persistence, indexManager, securityService, organizationDirectory,
+            cc.getBundleContext().getDataFile(REBUILD_CHECKPOINT_FILE), rebuildParallelism,
+            SearchIndexRebuild.DEFAULT_PAGE_SIZE);
+    registeredRebuildMXBean = JmxUtil.registerMXBean(indexRebuild, JMX_INDEX_REBUILD_TYPE);
 
     String systemUserName = cc.getBundleContext().getProperty(SecurityUtil.PROPERTY_KEY_SYS_USER);
     populateIndex(systemUserName);
@@ -239,6 +315,13 @@ public final class SearchServiceImpl extends AbstractJobProducer implements Sear
    * Service deactivator, called via declarative services configuration.
    */
   public void deactivate() {
+    rebuildRetryExecutor.shutdownNow();
+    if (registeredMXBean != null)
+      JmxUtil.unregisterMXBean(registeredMXBean);
+    if (registeredRebuildMXBean != null)
+      JmxUtil.unregisterMXBean(registeredRebuildMXBean);
+    if (indexManager != null)
+      indexManager.shutdown();
     SolrServerFactory.shutdown(solrServer);
   }
 
@@ -367,7 +450,9 @@ public final class SearchServiceImpl extends AbstractJobProducer implements Sear
     Date now = new Date();
 
     try {
-      if (indexManager.add(mediaPackage, acl, now)) {
+      final boolean added = indexManager.add(mediaPackage, acl, now);
+      invalidateCache(mediaPackage.getIdentifier().toString(), mediaPackage.getSeries());
+      if (added) {
         logger.info("Added mediapackage `{}` to the search index, using ACL `{}`", mediaPackage, acl);
       } else {
         logger.warn("Failed to add mediapackage {} to the search index", mediaPackage.getIdentifier());
@@ -414,6 +499,9 @@ public final class SearchServiceImpl extends AbstractJobProducer implements Sear
           NotFoundException {
     SearchResult result;
     try {
+      // Make sure recently added media packages are found
+      if (indexManager.hasPendingChanges())
+        indexManager.flush();
       result = solrRequester.getForWrite(new SearchQuery().withId(mediaPackageId));
       if (result.getItems().length == 0) {
         logger.warn(
@@ -436,7 +524,9 @@ public final class SearchServiceImpl extends AbstractJobProducer implements Sear
         throw new SearchException(e);
       }
 
-      return indexManager.delete(mediaPackageId, now);
+      final boolean deleted = indexManager.delete(mediaPackageId, now);
+      invalidateCache(mediaPackageId, result.getItems()[0].getDcIsPartOf());
+      return deleted;
     } catch (SolrServerException e) {
       logger.info("Could not delete media package with id {} from search index", mediaPackageId);
       throw new SearchException(e);
@@ -453,25 +543,120 @@ public final class SearchServiceImpl extends AbstractJobProducer implements Sear
     try {
       logger.info("Clearing the search index");
       indexManager.clear();
+      SearchResultCache cache = this.cache;
+      if (cache != null)
+        cache.invalidateAll();
+    } catch (SolrServerException e) {
+      throw new SearchException(e);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @see org.opencastproject.search.api.SearchService#flush()
+   */
+  @Override
+  public void flush() throws SearchException {
+    try {
+      indexManager.flush();
     } catch (SolrServerException e) {
       throw new SearchException(e);
     }
   }
 
+  /**
+   * Returns the revision of the search index, which changes each time changes to the index become visible. Results
+   * read after calling this method are at least as recent as the returned revision, so data derived from them can be
+   * reused as long as the revision stays the same.
+   *
+   * @return the revision
+   */
+  public long getIndexRevision() {
+    return indexManager.getRevision();
+  }
+
   /**
    * {@inheritDoc}
    *
    * @see org.opencastproject.search.api.SearchService#getByQuery(org.opencastproject.search.api.SearchQuery)
    */
   public SearchResult getByQuery(SearchQuery q) throws SearchException {
+    final SearchResultCache cache = this.cache;
+    String key = null;
+    boolean cacheable = false;
+    long generation = 0L;
+    if (cache != null) {
+      key = SearchResultCache.createKey(q, securityService.getOrganization().getId(), securityService.getUser());
+      SearchResult cached = cache.get(key);
+      if (cached != null) {
+        logger.debug("Returning cached result for query object '{}'", q);
+        return cached;
+      }
+      // Read the generation first: changes are pending before their invalidation starts a new generation.
+      // Results may be outdated as long as changes are not yet committed.
+      generation = cache.getGeneration();
+      cacheable = !indexManager.hasPendingChanges();
+    }
     try {
       logger.debug("Searching index using query object '" + q + "'");
-      return solrRequester.getForRead(q);
+      SearchResult result = solrRequester.getForRead(q);
+      if (cacheable)
+        cache.put(key, q, result, generation);
+      return result;
     } catch (SolrServerException e) {
       throw new SearchException(e);
     }
   }
 
+  /**
+   * {@inheritDoc}
+   *
+   * @see org.opencastproject.search.api.SearchService#getSegmentsByText(java.lang.String, java.lang.String, int)
+   */
+  @Override
+  public SearchResult getSegmentsByText(String text, String mediaPackageId, int limit) throws SearchException {
+    try {
+      logger.debug("Searching segments matching '{}'", text);
+      return solrRequester.getSegmentsForRead(text, mediaPackageId, limit);
+    } catch (SolrServerException e) {
+      throw new SearchException(e);
+    }
+  }
+
+  /**
+   * Returns the precomputed engage projections of the episodes matching the query, see
+   * {@link SolrRequester#getEngageForRead(SearchQuery)}.
+   *
+   * @param q
+   *          the search query
+   * @return the search result as JSON string
+   * @throws SearchException
+   *           if the search index cannot be queried
+   */
+  public String getEngageByQuery(SearchQuery q) throws SearchException {
+    try {
+      logger.debug("Searching engage projections using query object '{}'", q);
+      return solrRequester.getEngageForRead(q);
+    } catch (SolrServerException e) {
+      throw new SearchException(e);
+    }
+  }
+
+  /**
+   * Removes all cached results which may be affected by an update of the given media package.
+   *
+   * @param mediaPackageId
+   *          the identifier of the added or removed media package
+   * @param seriesId
+   *          the identifier of its series, may be <code>null</code>
+   */
+  private void invalidateCache(String mediaPackageId, String seriesId) {
+    final SearchResultCache cache = this.cache;
+    if (cache != null)
+      cache.invalidate(mediaPackageId, seriesId);
+  }
+
   /**
    * {@inheritDoc}
    *
@@ -490,94 +675,53 @@ public final class SearchServiceImpl extends AbstractJobProducer implements Sear
     }
   }
 
-  protected void populateIndex(String systemUserName) {
-    long instancesInSolr = 0L;
+  /**
+   * Populates the search index from the database if the index is empty or if a previous population has been
+   * interrupted.
+   *
+   * @param systemUserName
+   *          the name of the system user
+   */
+  protected void populateIndex(final String systemUserName) {
+    if (indexRebuild == null)
+      indexRebuild = new SearchIndexRebuild(persistence, indexManager, securityService, organizationDirectory, null,
+              rebuildParallelism, SearchIndexRebuild.DEFAULT_PAGE_SIZE);
 
+    long instancesInSolr = 0L;
     try {
       instancesInSolr = indexManager.count();
     } catch (Exception e) {
       throw new IllegalStateException(e);
     }
 
-    if (instancesInSolr > 0) {
+    if (instancesInSolr > 0 && !indexRebuild.isInterrupted()) {
       logger.debug("Search index found");
       return;
     }
 
-    if (instancesInSolr == 0L) {
+    if (instancesInSolr == 0L)
       logger.info("No search index found");
-      logger.info("Starting population of search index from database");
-      Iterator<Tuple<MediaPackage, String>> mediaPackages;
-      try {
-        mediaPackages = persistence.getAllMediaPackages();
-      } catch (SearchServiceDatabaseException e) {
-        logger.error("Unable to load the search entries: {}", e.getMessage());
-        throw new ServiceException(e.getMessage());
-      }
-      int errors = 0;
-      while (mediaPackages.hasNext()) {
-        try {
-          Tuple<MediaPackage, String> mediaPackage = mediaPackages.next();
-
-          String mediaPackageId = mediaPackage.getA().getIdentifier().toString();
-
-          Organization organization = organizationDirectory.getOrganization(mediaPackage.getB());
-          securityService.setOrganization(organization);
-          securityService.setUser(SecurityUtil.createSystemUser(systemUserName, organization));
-
-          AccessControlList acl = persistence.getAccessControlList(mediaPackageId);
-          Date modificationDate = persistence.getModificationDate(mediaPackageId);
-          Date deletionDate = persistence.getDeletionDate(mediaPackageId);
-
-          indexManager.add(mediaPackage.getA(), acl, deletionDate, modificationDate);
-        } catch (Exception e) {
-          logger.error("Unable to index search instances:", e);
-          if (retryToPopulateIndex(systemUserName)) {
-            logger.warn("Trying to re-index search index later. Aborting for now.");
-            return;
-          }
-          errors++;
-        } finally {
-          securityService.setOrganization(null);
-          securityService.setUser(null);
-        }
-      }
-      if (errors > 0)
-        logger.error("Skipped {} erroneous search entries while populating the search index", errors);
-      logger.info("Finished populating search index");
-    }
-  }
-
-  private boolean retryToPopulateIndex(final String systemUserName) {
-    if (retriesToPopulateIndex > 0) {
-      return false;
-    }
-
-    long instancesInSolr = 0L;
 
     try {
-      instancesInSolr = indexManager.count();
-    } catch (Exception e) {
-      throw new IllegalStateException(e);
-    }
-
-    if (instancesInSolr > 0) {
-      logger.debug("Search index found, other files could be indexed. No retry needed.");
-      return false;
-    }
-
-    retriesToPopulateIndex++;
-
-      new Thread() {
+      indexRebuild.run(systemUserName);
+      SearchResultCache cache = this.cache;
+      if (cache != null)
+        cache.invalidateAll();
+    } catch (SearchServiceDatabaseException | SolrServerException e) {
+      logger.error("Unable to populate the search index: {}", e.getMessage());
+      if (retriesToPopulateIndex > 0) {
+        logger.error("Giving up populating the search index, it will be resumed on the next start");
+        return;
+      }
+      retriesToPopulateIndex++;
+      logger.warn("Trying to resume populating the search index in {} seconds", POPULATE_RETRY_DELAY);
+      rebuildRetryExecutor.schedule(new Runnable() {
+        @Override
         public void run() {
-          try {
-            Thread.sleep(30000);
-          } catch (InterruptedException ex) {
-          }
           populateIndex(systemUserName);
         }
-      }.start();
-    return true;
+      }, POPULATE_RETRY_DELAY, TimeUnit.SECONDS);
+    }
   }
 
   /**
@@ -733,5 +877,23 @@ public final class SearchServiceImpl extends AbstractJobProducer implements Sear
   public void updated(@SuppressWarnings("rawtypes") Dictionary properties) throws ConfigurationException {
     addJobLoad = LoadUtil.getConfiguredLoadValue(properties, ADD_JOB_LOAD_KEY, DEFAULT_ADD_JOB_LOAD, serviceRegistry);
     deleteJobLoad = LoadUtil.getConfiguredLoadValue(properties, DELETE_JOB_LOAD_KEY, DEFAULT_DELETE_JOB_LOAD, serviceRegistry);
+
+    commitDelay = OsgiUtil.getOptCfgAsInt(properties, COMMIT_DELAY_KEY).getOrElse(DEFAULT_COMMIT_DELAY);
+    batchSize = OsgiUtil.getOptCfgAsInt(properties, BATCH_SIZE_KEY).getOrElse(SolrIndexManager.DEFAULT_BATCH_SIZE);
+    if (indexManager != null)
+      indexManager.setCommitPolicy(commitDelay, batchSize);
+    rebuildParallelism = OsgiUtil.getOptCfgAsInt(properties, REBUILD_PARALLELISM_KEY)
+            .getOrElse(Runtime.getRuntime().availableProcessors());
+
+    final int cacheSize = OsgiUtil.getOptCfgAsInt(properties, CACHE_SIZE_KEY).getOrElse(DEFAULT_CACHE_SIZE);
+    final int cacheTtl = OsgiUtil.getOptCfgAsInt(properties, CACHE_TTL_KEY).getOrElse(DEFAULT_CACHE_TTL);
+    if (cacheSize > 0 && cacheTtl > 0) {
+      logger.info("Caching up to {} search results for {} seconds", cacheSize, cacheTtl);
+      cache = new SearchResultCache(cacheSize, cacheTtl);
+    } else {
+      logger.info("Caching of search results is disabled");
+      cache = null;
+    }
+    cacheStatistics.setCache(cache);
   }
 }
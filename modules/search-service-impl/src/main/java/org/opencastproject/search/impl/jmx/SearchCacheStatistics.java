@@ -0,0 +1,94 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.search.impl.jmx;
+
+import org.opencastproject.search.impl.SearchResultCache;
+
+/**
+ * Exposes the statistics of the search result cache.
+ */
+public class SearchCacheStatistics implements SearchCacheStatisticsMXBean {
+
+  /** The statistics of a disabled cache */
+  private static final SearchResultCache NO_CACHE = new SearchResultCache(0, 1);
+
+  private volatile SearchResultCache cache = NO_CACHE;
+
+  /**
+   * Sets the cache to report on.
+   *
+   * @param cache
+   *          the cache, <code>null</code> if caching is disabled
+   */
+  public void setCache(SearchResultCache cache) {
+    this.cache = cache == null ? NO_CACHE : cache;
+  }
+
+  /**
+   * @see org.opencastproject.search.impl.jmx.SearchCacheStatisticsMXBean#getHitCount()
+   */
+  @Override
+  public long getHitCount() {
+    return cache.getStats().hitCount();
+  }
+
+  /**
+   * @see org.opencastproject.search.impl.jmx.SearchCacheStatisticsMXBean#getMissCount()
+   */
+  @Override
+  public long getMissCount() {
+    return cache.getStats().missCount();
+  }
+
+  /**
+   * @see org.opencastproject.search.impl.jmx.SearchCacheStatisticsMXBean#getHitRatio()
+   */
+  @Override
+  public double getHitRatio() {
+    return cache.getStats().hitRate();
+  }
+
+  /**
+   * @see org.opencastproject.search.impl.jmx.SearchCacheStatisticsMXBean#getEvictionCount()
+   */
+  @Override
+  public long getEvictionCount() {
+    return cache.getStats().evictionCount();
+  }
+
+  /**
+   * @see org.opencastproject.search.impl.jmx.SearchCacheStatisticsMXBean#getInvalidationCount()
+   */
+  @Override
+  public long getInvalidationCount() {
+    return cache.getInvalidationCount();
+  }
+
+  /**
+   * @see org.opencastproject.search.impl.jmx.SearchCacheStatisticsMXBean#getSize()
+   */
+  @Override
+  public long getSize() {
+    return cache.size();
+  }
+
+}
@@ -0,0 +1,71 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.search.impl.jmx;
+
+/**
+ * JMX Bean interface exposing search result cache statistics.
+ */
+public interface SearchCacheStatisticsMXBean {
+
+  /**
+   * Gets the number of queries answered from the cache
+   *
+   * @return the number of hits
+   */
+  long getHitCount();
+
+  /**
+   * Gets the number of queries which had to be run against the index
+   *
+   * @return the number of misses
+   */
+  long getMissCount();
+
+  /**
+   * Gets the ratio of queries answered from the cache
+   *
+   * @return the hit ratio between 0 and 1
+   */
+  double getHitRatio();
+
+  /**
+   * Gets the number of results evicted because of the size or time limit
+   *
+   * @return the number of evictions
+   */
+  long getEvictionCount();
+
+  /**
+   * Gets the number of results removed because the index has been updated
+   *
+   * @return the number of invalidations
+   */
+  long getInvalidationCount();
+
+  /**
+   * Gets the number of cached results
+   *
+   * @return the number of results
+   */
+  long getSize();
+
+}
@@ -0,0 +1,64 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.search.impl.jmx;
+
+/**
+ * JMX Bean interface exposing the progress of a search index rebuild.
+ */
+public interface SearchIndexRebuildMXBean {
+
+  /**
+   * Gets whether a rebuild is currently running
+   *
+   * @return <code>true</code> if the index is being rebuilt
+   */
+  boolean isRunning();
+
+  /**
+   * Gets the number of media packages to index
+   *
+   * @return the number of media packages
+   */
+  long getTotal();
+
+  /**
+   * Gets the number of media packages processed so far, including the ones indexed before the rebuild was resumed
+   *
+   * @return the number of media packages
+   */
+  long getProcessed();
+
+  /**
+   * Gets the number of media packages which could not be indexed
+   *
+   * @return the number of media packages
+   */
+  long getFailed();
+
+  /**
+   * Gets the number of media packages indexed per second by the current run
+   *
+   * @return the indexing rate
+   */
+  double getRate();
+
+}
@@ -40,6 +40,8 @@ import javax.persistence.TemporalType;
 @Table(name = "oc_search")
 @NamedQueries({
         @NamedQuery(name = "Search.findAll", query = "SELECT s FROM SearchEntity s"),
+        @NamedQuery(name = "Search.findAllAfterId", query = "SELECT s FROM SearchEntity s WHERE s.mediaPackageId > :mediaPackageId ORDER BY s.mediaPackageId"),
+        @NamedQuery(name = "Search.findAllOrderedById", query = "SELECT s FROM SearchEntity s ORDER BY s.mediaPackageId"),
         @NamedQuery(name = "Search.getCount", query = "SELECT COUNT(s) FROM SearchEntity s"),
         @NamedQuery(name = "Search.findById", query = "SELECT s FROM SearchEntity s WHERE s.mediaPackageId=:mediaPackageId"),
         @NamedQuery(name = "Search.findBySeriesId", query = "SELECT s FROM SearchEntity s WHERE s.seriesId=:seriesId"),
@@ -29,6 +29,7 @@ import org.opencastproject.util.data.Tuple;
 
 import java.util.Date;
 import java.util.Iterator;
+import java.util.List;
 
 /**
  * API that defines persistent storage of series.
@@ -45,6 +46,29 @@ public interface SearchServiceDatabase {
    */
   Iterator<Tuple<MediaPackage, String>> getAllMediaPackages() throws SearchServiceDatabaseException;
 
+  /**
+   * Returns a page of search entries ordered by media package identifier, e.g. to process all entries without loading
+   * them at once.
+   *
+   * @param afterId
+   *          the identifier of the last entry of the previous page, or <code>null</code> for the first page
+   * @param limit
+   *          the maximum number of entries to return
+   * @return the entries, an empty list if there are no more entries
+   * @throws SearchServiceDatabaseException
+   *           if exception occurs
+   */
+  List<SearchEntity> getSearchEntities(String afterId, int limit) throws SearchServiceDatabaseException;
+
+  /**
+   * Returns the number of search entries in persistent storage.
+   *
+   * @return the number of entries
+   * @throws SearchServiceDatabaseException
+   *           if exception occurs
+   */
+  long countMediaPackages() throws SearchServiceDatabaseException;
+
   /**
    * Returns the organization id of the selected media package
    *
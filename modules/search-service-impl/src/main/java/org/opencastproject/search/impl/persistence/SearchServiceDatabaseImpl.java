@@ -206,6 +206,53 @@ public class SearchServiceDatabaseImpl implements SearchServiceDatabase {
     return mediaPackageList.iterator();
   }
 
+  /**
+   * {@inheritDoc}
+   *
+   * @see org.opencastproject.search.impl.persistence.SearchServiceDatabase#getSearchEntities(String, int)
+   */
+  @Override
+  public List<SearchEntity> getSearchEntities(String afterId, int limit) throws SearchServiceDatabaseException {
+    EntityManager em = null;
+    try {
+      em = emf.createEntityManager();
+      TypedQuery<SearchEntity> query;
+      if (afterId == null) {
+        query = em.createNamedQuery("Search.findAllOrderedById", SearchEntity.class);
+      } else {
+        query = em.createNamedQuery("Search.findAllAfterId", SearchEntity.class).setParameter("mediaPackageId",
+                afterId);
+      }
+      return query.setMaxResults(limit).getResultList();
+    } catch (Exception e) {
+      logger.error("Could not retrieve episodes after {}: {}", afterId, e.getMessage());
+      throw new SearchServiceDatabaseException(e);
+    } finally {
+      if (em != null)
+        em.close();
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @see org.opencastproject.search.impl.persistence.SearchServiceDatabase#countMediaPackages()
+   */
+  @Override
+  public long countMediaPackages() throws SearchServiceDatabaseException {
+    EntityManager em = null;
+    try {
+      em = emf.createEntityManager();
+      return ((Number) em.createNamedQuery("Search.getCount").getSingleResult()).longValue();
+    } catch (Exception e) {
+      logger.error("Could not count episodes: {}", e.getMessage());
+      throw new SearchServiceDatabaseException(e);
+    } finally {
+      if (em != null)
+        em.close();
+    }
+  }
+
   /**
    * {@inheritDoc}
    *
@@ -0,0 +1,270 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+package org.opencastproject.search.impl.solr;
+
+import org.opencastproject.mediapackage.Attachment;
+import org.opencastproject.mediapackage.MediaPackage;
+import org.opencastproject.mediapackage.MediaPackageElement;
+import org.opencastproject.mediapackage.MediaPackageElements;
+import org.opencastproject.mediapackage.MediaPackageReference;
+import org.opencastproject.mediapackage.MediaPackageSerializer;
+import org.opencastproject.mediapackage.Stream;
+import org.opencastproject.mediapackage.Track;
+import org.opencastproject.mediapackage.VideoStream;
+import org.opencastproject.util.DateTimeSupport;
+
+import org.apache.solr.common.SolrInputDocument;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * Builds the engage projection of an episode: a compact JSON document containing the metadata, tracks, previews and
+ * segments the players need. The projection is created once at publish time and stored with the episode, so search
+ * requests for the players neither transfer nor parse the media package XML.
+ * <p>
+ * Like the media package XML, the projection holds the element URLs as they were when the episode was indexed. They
+ * are passed through the media package serializer when the projection is read, see
+ * {@link #decodeURIs(String, MediaPackageSerializer)}.
+ */
+public final class EngageProjection {
+
+  private static final Logger logger = LoggerFactory.getLogger(EngageProjection.class);
+
+  private EngageProjection() {
+  }
+
+  /**
+   * Creates the engage projection of a media package while it is being indexed.
+   *
+   * @param mediaPackage
+   *          the media package
+   * @param organization
+   *          the organization the media package belongs to
+   * @param doc
+   *          the episode's input document, already containing the segment fields
+   * @return the projection as JSON string
+   */
+  public static String create(MediaPackage mediaPackage, String organization, SolrInputDocument doc) {
+    Map<String, Object> fields = new HashMap<String, Object>();
+    for (String name : doc.getFieldNames())
+      fields.put(name, doc.getFieldValue(name));
+    return create(mediaPackage, organization, fields);
+  }
+
+  /**
+   * Creates the engage projection of a media package.
+   *
+   * @param mediaPackage
+   *          the media package
+   * @param organization
+   *          the organization the media package belongs to
+   * @param fields
+   *          the fields of the episode's index document, used to pick up the segments
+   * @return the projection as JSON string
+   */
+  @SuppressWarnings("unchecked")
+  public static String create(MediaPackage mediaPackage, String organization, Map<String, ?> fields) {
+    JSONObject json = new JSONObject();
+    json.put("id", mediaPackage.getIdentifier().toString());
+    json.put("org", organization);
+    putIfNotNull(json, "title", mediaPackage.getTitle());
+    putIfNotNull(json, "series", mediaPackage.getSeries());
+    putIfNotNull(json, "seriestitle", mediaPackage.getSeriesTitle());
+    putIfNotNull(json, "language", mediaPackage.getLanguage());
+    putIfNotNull(json, "license", mediaPackage.getLicense());
+    putIfNotNull(json, "duration", mediaPackage.getDuration());
+    if (mediaPackage.getDate() != null)
+      json.put("created", DateTimeSupport.toUTC(mediaPackage.getDate().getTime()));
+    json.put("creators", toArray(mediaPackage.getCreators()));
+    json.put("contributors", toArray(mediaPackage.getContributors()));
+    json.put("subjects", toArray(mediaPackage.getSubjects()));
+
+    JSONArray tracks = new JSONArray();
+    for (Track track : mediaPackage.getTracks()) {
+      JSONObject t = element(track);
+      putIfNotNull(t, "duration", track.getDuration());
+      t.put("video", track.hasVideo());
+      t.put("audio", track.hasAudio());
+      t.put("live", track.isLive());
+      for (Stream stream : track.getStreams()) {
+        if (stream instanceof VideoStream) {
+          VideoStream video = (VideoStream) stream;
+          if (video.getFrameWidth() != null && video.getFrameHeight() != null)
+            t.put("resolution", video.getFrameWidth() + "x" + video.getFrameHeight());
+          putIfNotNull(t, "framerate", video.getFrameRate());
+          break;
+        }
+      }
+      tracks.add(t);
+    }
+    json.put("tracks", tracks);
+
+    // Segment previews are part of the segments below
+    JSONArray attachments = new JSONArray();
+    for (Attachment attachment : mediaPackage.getAttachments()) {
+      if (MediaPackageElements.PRESENTATION_SEGMENT_PREVIEW.equals(attachment.getFlavor()))
+        continue;
+      attachments.add(element(attachment));
+    }
+    json.put("attachments", attachments);
+
+    json.put("segments", segments(fields));
+    return json.toJSONString();
+  }
+
+  /**
+   * Decodes the URLs of the tracks and attachments of a stored projection using the given serializer, the same way the
+   * element URLs are decoded when the media package is loaded from the index.
+   *
+   * @param projection
+   *          the stored projection
+   * @param serializer
+   *          the media package serializer
+   * @return the projection with the decoded URLs or the projection as it is if it cannot be read
+   */
+  public static String decodeURIs(String projection, MediaPackageSerializer serializer) {
+    JSONObject json;
+    try {
+      json = (JSONObject) new JSONParser().parse(projection);
+    } catch (ParseException | ClassCastException e) {
+      logger.warn("Unable to read stored engage projection: {}", e.getMessage());
+      return projection;
+    }
+    decodeURIs((JSONArray) json.get("tracks"), serializer);
+    decodeURIs((JSONArray) json.get("attachments"), serializer);
+    return json.toJSONString();
+  }
+
+  @SuppressWarnings("unchecked")
+  private static void decodeURIs(JSONArray elements, MediaPackageSerializer serializer) {
+    if (elements == null)
+      return;
+    for (Object element : elements) {
+      JSONObject json = (JSONObject) element;
+      Object url = json.get("url");
+      if (url == null)
+        continue;
+      try {
+        json.put("url", serializer.decodeURI(new URI(url.toString())).toString());
+      } catch (URISyntaxException e) {
+        logger.warn("Unable to decode URL {} of element {}: {}", url, json.get("id"), e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Creates the common part of the JSON representation of a media package element.
+   */
+  @SuppressWarnings("unchecked")
+  private static JSONObject element(MediaPackageElement element) {
+    JSONObject json = new JSONObject();
+    json.put("id", element.getIdentifier());
+    if (element.getFlavor() != null)
+      json.put("type", element.getFlavor().toString());
+    if (element.getMimeType() != null)
+      json.put("mimetype", element.getMimeType().toString());
+    if (element.getURI() != null)
+      json.put("url", element.getURI().toString());
+    json.put("tags", toArray(element.getTags()));
+    MediaPackageReference ref = element.getReference();
+    if (ref != null)
+      json.put("ref", ref.getType() + ":" + ref.getIdentifier());
+    return json;
+  }
+
+  /**
+   * Collects the segments from the segment text and hint fields of an index document, in the order of their index.
+   */
+  @SuppressWarnings("unchecked")
+  private static JSONArray segments(Map<String, ?> fields) {
+    TreeMap<Integer, JSONObject> segments = new TreeMap<Integer, JSONObject>();
+    for (Map.Entry<String, ?> field : fields.entrySet()) {
+      if (!field.getKey().startsWith(Schema.SEGMENT_TEXT_PREFIX))
+        continue;
+      String suffix = field.getKey().substring(Schema.SEGMENT_TEXT_PREFIX.length());
+      Object hintValue = fields.get(Schema.SEGMENT_HINT_PREFIX + suffix);
+      if (hintValue == null)
+        continue;
+
+      Properties hints = new Properties();
+      try {
+        hints.load(new StringReader(hintValue.toString()));
+      } catch (IOException e) {
+        logger.warn("Cannot load hint properties of segment {}", suffix);
+        continue;
+      }
+      if (hints.getProperty("time") == null || hints.getProperty("duration") == null)
+        continue;
+
+      int index = Integer.parseInt(suffix);
+      JSONObject segment = new JSONObject();
+      segment.put("index", index);
+      segment.put("time", Long.parseLong(hints.getProperty("time")));
+      segment.put("duration", Long.parseLong(hints.getProperty("duration")));
+      segment.put("text", field.getValue() != null ? field.getValue().toString() : "");
+      JSONArray previews = new JSONArray();
+      for (String name : hints.stringPropertyNames()) {
+        if (!name.startsWith("preview."))
+          continue;
+        JSONObject preview = new JSONObject();
+        preview.put("ref", name.substring("preview.".length()));
+        preview.put("url", hints.getProperty(name));
+        previews.add(preview);
+      }
+      segment.put("previews", previews);
+      segments.put(index, segment);
+    }
+    JSONArray result = new JSONArray();
+    result.addAll(segments.values());
+    return result;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static JSONArray toArray(String[] values) {
+    JSONArray array = new JSONArray();
+    if (values != null)
+      array.addAll(Arrays.asList(values));
+    return array;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static void putIfNotNull(JSONObject json, String key, Object value) {
+    if (value != null)
+      json.put(key, value);
+  }
+
+}
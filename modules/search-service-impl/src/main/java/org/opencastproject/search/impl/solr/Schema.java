@@ -97,6 +97,7 @@ public final class Schema {
   public static final String OC_MEDIAPACKAGE = "oc_mediapackage";
   public static final String OC_KEYWORDS = "oc_keywords";
   public static final String OC_COVER = "oc_cover";
+  public static final String OC_ENGAGE = "oc_engage";
   public static final String OC_MODIFIED = "oc_modified";
   public static final String OC_DELETED = "oc_deleted";
   public static final String OC_MEDIATYPE = "oc_mediatype";
@@ -124,6 +125,19 @@ public final class Schema {
    */
   public static final String SEGMENT_HINT_PREFIX = "oc_hint_";
 
+  /**
+   * The media type of the documents holding a single segment of an episode.
+   */
+  public static final String SEGMENT_MEDIATYPE = "Segment";
+
+  // Segment document fields
+  public static final String OC_SEGMENT_MEDIAPACKAGE = "oc_segment_mediapackage";
+  public static final String OC_SEGMENT_INDEX = "oc_segment_index";
+  public static final String OC_SEGMENT_TIME = "oc_segment_time";
+  public static final String OC_SEGMENT_DURATION = "oc_segment_duration";
+  public static final String OC_SEGMENT_TEXT = "oc_segment_text";
+  public static final String OC_SEGMENT_HINT = "oc_segment_hint";
+
   /**
    * The solr highlighting tag to use.
    */
@@ -504,6 +518,14 @@ public final class Schema {
     doc.setField(OC_COVER, cover);
   }
 
+  public static String getOcEngage(SolrDocument doc) {
+    return mkString(doc.get(OC_ENGAGE));
+  }
+
+  public static void setOcEngage(SolrInputDocument doc, String engage) {
+    doc.setField(OC_ENGAGE, engage);
+  }
+
   public static Date getOcModified(SolrDocument doc) {
     return (Date) doc.get(OC_MODIFIED);
   }
@@ -556,6 +578,59 @@ public final class Schema {
     doc.setField(SEGMENT_HINT_PREFIX + segmentHint.getSuffix(), segmentHint.getValue());
   }
 
+  public static String getOcSegmentMediapackage(SolrDocument doc) {
+    return mkString(doc.get(OC_SEGMENT_MEDIAPACKAGE));
+  }
+
+  public static String getOcSegmentMediapackage(SolrInputDocument doc) {
+    SolrInputField f = doc.get(OC_SEGMENT_MEDIAPACKAGE);
+    return f != null ? mkString(f.getFirstValue()) : null;
+  }
+
+  public static void setOcSegmentMediapackage(SolrInputDocument doc, String mediapackage) {
+    doc.setField(OC_SEGMENT_MEDIAPACKAGE, mediapackage);
+  }
+
+  public static Integer getOcSegmentIndex(SolrDocument doc) {
+    return (Integer) doc.get(OC_SEGMENT_INDEX);
+  }
+
+  public static void setOcSegmentIndex(SolrInputDocument doc, int index) {
+    doc.setField(OC_SEGMENT_INDEX, index);
+  }
+
+  public static Long getOcSegmentTime(SolrDocument doc) {
+    return (Long) doc.get(OC_SEGMENT_TIME);
+  }
+
+  public static void setOcSegmentTime(SolrInputDocument doc, long time) {
+    doc.setField(OC_SEGMENT_TIME, time);
+  }
+
+  public static Long getOcSegmentDuration(SolrDocument doc) {
+    return (Long) doc.get(OC_SEGMENT_DURATION);
+  }
+
+  public static void setOcSegmentDuration(SolrInputDocument doc, long duration) {
+    doc.setField(OC_SEGMENT_DURATION, duration);
+  }
+
+  public static String getOcSegmentText(SolrDocument doc) {
+    return mkString(doc.get(OC_SEGMENT_TEXT));
+  }
+
+  public static void setOcSegmentText(SolrInputDocument doc, String text) {
+    doc.setField(OC_SEGMENT_TEXT, text);
+  }
+
+  public static String getOcSegmentHint(SolrDocument doc) {
+    return mkString(doc.get(OC_SEGMENT_HINT));
+  }
+
+  public static void setOcSegmentHint(SolrInputDocument doc, String hint) {
+    doc.setField(OC_SEGMENT_HINT, hint);
+  }
+
   //
 
   /**
@@ -91,6 +91,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -99,11 +100,20 @@ import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Properties;
+import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Utility class used to manage the search index.
@@ -116,6 +126,36 @@ public class SolrIndexManager {
   /** Connection to the database */
   private SolrServer solrServer = null;
 
+  /** The default number of documents sent to solr at once */
+  public static final int DEFAULT_BATCH_SIZE = 100;
+
+  /** Documents which have not yet been sent to solr */
+  private final List<SolrInputDocument> pendingDocuments = new ArrayList<SolrInputDocument>();
+
+  /** The episodes whose segment documents have to be removed before the pending documents are sent */
+  private final Set<String> pendingSegmentDeletions = new LinkedHashSet<String>();
+
+  /** Whether documents have been sent to solr but not yet been committed */
+  private boolean uncommitted = false;
+
+  /** Time in milliseconds until changes have to become visible, 0 to commit each change immediately */
+  private long commitDelay = 0L;
+
+  /** The number of documents sent to solr at once */
+  private int batchSize = DEFAULT_BATCH_SIZE;
+
+  /** The minimum time in milliseconds before failed changes are sent again */
+  private static final long MIN_RETRY_DELAY = 1000L;
+
+  /** Runs the delayed commits */
+  private ScheduledExecutorService commitExecutor = null;
+
+  /** The next delayed commit */
+  private ScheduledFuture<?> scheduledCommit = null;
+
+  /** Incremented with each commit, i.e. each time changes become visible */
+  private final AtomicLong revision = new AtomicLong();
+
   /**
    * Factor multiplied to fine tune relevance and confidence impact on important keyword decision. importance =
    * RELEVANCE_BOOST * relevance + confidence
@@ -204,15 +244,219 @@ public class SolrIndexManager {
    * @throws SolrServerException
    *           if an errors occurs while talking to solr
    */
-  public void clear() throws SolrServerException {
+  public synchronized void clear() throws SolrServerException {
+    pendingDocuments.clear();
+    pendingSegmentDeletions.clear();
     try {
       solrServer.deleteByQuery("*:*");
-      solrServer.commit();
+      commit();
+    } catch (IOException e) {
+      throw new SolrServerException(e);
+    }
+  }
+
+  /**
+   * Sets the time after which changes have to become visible in the search index. Changes made within this time are
+   * sent to solr in batches and committed together, which avoids a commit for each single media package. With a delay
+   * of 0, each change is committed immediately.
+   *
+   * @param commitDelay
+   *          the delay in milliseconds
+   * @param batchSize
+   *          the maximum number of documents to send to solr at once
+   */
+  public synchronized void setCommitPolicy(long commitDelay, int batchSize) {
+    this.commitDelay = Math.max(commitDelay, 0L);
+    this.batchSize = Math.max(batchSize, 1);
+    if (this.commitDelay > 0 && commitExecutor == null) {
+      commitExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+          Thread thread = new Thread(r, "Search index commit");
+          thread.setDaemon(true);
+          return thread;
+        }
+      });
+    }
+  }
+
+  /**
+   * Returns whether changes have been made which are not yet visible in the search index.
+   *
+   * @return <code>true</code> if changes are pending
+   */
+  public synchronized boolean hasPendingChanges() {
+    return uncommitted || !pendingDocuments.isEmpty() || !pendingSegmentDeletions.isEmpty();
+  }
+
+  /**
+   * Sends all pending changes to solr and commits them, so that they become visible to subsequent queries. Changes
+   * which fail are kept and retried after the commit delay.
+   *
+   * @throws SolrServerException
+   *           if an errors occurs while talking to solr
+   */
+  public synchronized void flush() throws SolrServerException {
+    if (scheduledCommit != null) {
+      scheduledCommit.cancel(false);
+      scheduledCommit = null;
+    }
+    if (!hasPendingChanges())
+      return;
+    try {
+      sendPendingDocuments();
+      commit();
     } catch (IOException e) {
       throw new SolrServerException(e);
+    } finally {
+      if (hasPendingChanges())
+        scheduleCommit(Math.max(commitDelay, MIN_RETRY_DELAY));
+    }
+  }
+
+  /**
+   * Commits all pending changes and stops the delayed commits.
+   */
+  public synchronized void shutdown() {
+    try {
+      flush();
+    } catch (SolrServerException e) {
+      logger.warn("Unable to commit pending changes to the search index: {}", e.getMessage());
+    }
+    if (commitExecutor != null) {
+      commitExecutor.shutdownNow();
+      commitExecutor = null;
+    }
+  }
+
+  /**
+   * Queues documents for indexing. Depending on the commit policy, they are sent and committed immediately or within
+   * the commit delay.
+   *
+   * @param documents
+   *          the documents, <code>null</code> values are ignored
+   */
+  private synchronized void update(SolrInputDocument... documents) throws SolrServerException, IOException {
+    // Remember the queue, so the documents of this update can be withdrawn if sending them fails
+    final List<SolrInputDocument> previousDocuments = new ArrayList<SolrInputDocument>(pendingDocuments);
+    final Set<String> previousSegmentDeletions = new LinkedHashSet<String>(pendingSegmentDeletions);
+    final boolean previouslyUncommitted = uncommitted;
+    for (SolrInputDocument document : documents) {
+      queue(document);
+    }
+    try {
+      if (commitDelay == 0 || commitExecutor == null) {
+        flush();
+        return;
+      }
+      if (pendingDocuments.size() >= batchSize)
+        sendPendingDocuments();
+    } catch (SolrServerException | IOException e) {
+      // Fail this update only. The changes queued before have already been reported as successful and are retried.
+      pendingDocuments.clear();
+      pendingDocuments.addAll(previousDocuments);
+      pendingSegmentDeletions.clear();
+      pendingSegmentDeletions.addAll(previousSegmentDeletions);
+      if (!previouslyUncommitted)
+        discardUncommitted();
+      throw e;
+    }
+    scheduleCommit(commitDelay);
+  }
+
+  /** Schedules the next delayed commit, unless one is scheduled already or changes are committed immediately. */
+  private void scheduleCommit(long delay) {
+    if (scheduledCommit != null || commitExecutor == null)
+      return;
+    scheduledCommit = commitExecutor.schedule(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          flush();
+        } catch (Exception e) {
+          logger.error("Unable to commit changes to the search index, they will be sent again", e);
+        }
+      }
+    }, delay, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Discards the changes sent to solr but not yet committed. Must only be called if all of them belong to a failed
+   * update, since the changes of other updates have already been reported as successful.
+   */
+  private void discardUncommitted() {
+    if (!uncommitted)
+      return;
+    try {
+      solrServer.rollback();
+      uncommitted = false;
+    } catch (SolrServerException | IOException e) {
+      logger.warn("Unable to discard the changes of a failed update of the search index: {}", e.getMessage());
     }
   }
 
+  /**
+   * Adds a document to the pending documents. Since an episode's segments are replaced as a whole, the segment
+   * documents of an episode are removed once the episode itself is updated.
+   *
+   * @param document
+   *          the document, <code>null</code> is ignored
+   */
+  private void queue(SolrInputDocument document) {
+    if (document == null)
+      return;
+    if (SearchResultItemType.AudioVisual.toString().equals(document.getFieldValue(Schema.OC_MEDIATYPE))) {
+      String mediaPackageId = (String) document.getFieldValue(Schema.ID);
+      pendingSegmentDeletions.add(mediaPackageId);
+      for (Iterator<SolrInputDocument> i = pendingDocuments.iterator(); i.hasNext();) {
+        if (mediaPackageId.equals(Schema.getOcSegmentMediapackage(i.next())))
+          i.remove();
+      }
+    }
+    pendingDocuments.add(document);
+  }
+
+  /**
+   * Sends the pending documents to solr in a single request, without committing them. The documents stay pending
+   * until solr accepted them, so they are sent again if this fails.
+   */
+  private void sendPendingDocuments() throws SolrServerException, IOException {
+    if (pendingDocuments.isEmpty() && pendingSegmentDeletions.isEmpty())
+      return;
+    if (!pendingSegmentDeletions.isEmpty()) {
+      StringBuilder ids = new StringBuilder();
+      for (String mediaPackageId : pendingSegmentDeletions) {
+        if (ids.length() > 0)
+          ids.append(" OR ");
+        ids.append(ClientUtils.escapeQueryChars(mediaPackageId));
+      }
+      solrServer.deleteByQuery(Schema.OC_SEGMENT_MEDIAPACKAGE + ":(" + ids + ")");
+      uncommitted = true;
+    }
+    if (!pendingDocuments.isEmpty()) {
+      solrServer.add(pendingDocuments);
+      uncommitted = true;
+    }
+    pendingDocuments.clear();
+    pendingSegmentDeletions.clear();
+  }
+
+  private void commit() throws SolrServerException, IOException {
+    solrServer.commit();
+    uncommitted = false;
+    revision.incrementAndGet();
+  }
+
+  /**
+   * Returns the revision of the search index, which changes each time changes to the index become visible. Results
+   * read from the index after a call to this method are at least as recent as the returned revision.
+   *
+   * @return the revision
+   */
+  public long getRevision() {
+    return revision.get();
+  }
+
   /**
    * Removes the entry with the given <code>id</code> from the database. The entry can either be a series or an episode.
    *
@@ -225,6 +469,10 @@ public class SolrIndexManager {
    */
   public boolean delete(String id, Date deletionDate) throws SolrServerException {
     try {
+      // The episode might only be pending
+      if (hasPendingChanges())
+        flush();
+
       // Load the existing episode
       QueryResponse solrResponse = null;
       try {
@@ -250,8 +498,7 @@ public class SolrIndexManager {
 
       // Set the oc_deleted field to the current date, then update
       Schema.setOcDeleted(inputDocument, deletionDate);
-      solrServer.add(inputDocument);
-      solrServer.commit();
+      update(inputDocument);
       return true;
     } catch (IOException e) {
       throw new SolrServerException(e);
@@ -290,11 +537,11 @@ public class SolrIndexManager {
       }
 
       // Post everything to the search index
-      if (episodeDocument != null)
-        solrServer.add(episodeDocument);
-      if (seriesDocument != null)
-        solrServer.add(seriesDocument);
-      solrServer.commit();
+      List<SolrInputDocument> documents = new ArrayList<SolrInputDocument>();
+      documents.add(episodeDocument);
+      documents.add(seriesDocument);
+      documents.addAll(createSegmentInputDocuments(episodeDocument));
+      update(documents.toArray(new SolrInputDocument[documents.size()]));
       return true;
     } catch (Exception e) {
       throw new SolrServerException(e);
@@ -321,10 +568,38 @@ public class SolrIndexManager {
    */
   public boolean add(MediaPackage sourceMediaPackage, AccessControlList acl, Date deletionDate, Date modificationDate)
           throws SolrServerException {
+    List<SolrInputDocument> documents = createInputDocuments(sourceMediaPackage, acl, deletionDate, modificationDate);
     try {
-      SolrInputDocument episodeDocument = createEpisodeInputDocument(sourceMediaPackage, acl);
+      update(documents.toArray(new SolrInputDocument[documents.size()]));
+      return true;
+    } catch (IOException e) {
+      throw new SolrServerException(e);
+    }
+  }
 
-      SolrInputDocument seriesDocument = createSeriesInputDocument(sourceMediaPackage.getSeries(), acl);
+  /**
+   * Creates the solr input documents for a media package without posting them. The documents can be created
+   * concurrently, as long as the security context of the calling thread is set to the media package's organization.
+   *
+   * @param mediaPackage
+   *          the media package
+   * @param acl
+   *          the access control list for this mediapackage
+   * @param deletionDate
+   *          the deletion date, may be <code>null</code>
+   * @param modificationDate
+   *          the modification date
+   * @return the episode document, the series document if the media package belongs to a series, followed by the
+   *         documents of the episode's segments
+   * @throws SolrServerException
+   *           if the documents cannot be created
+   */
+  public List<SolrInputDocument> createInputDocuments(MediaPackage mediaPackage, AccessControlList acl,
+          Date deletionDate, Date modificationDate) throws SolrServerException {
+    try {
+      SolrInputDocument episodeDocument = createEpisodeInputDocument(mediaPackage, acl);
+
+      SolrInputDocument seriesDocument = createSeriesInputDocument(mediaPackage.getSeries(), acl);
       if (seriesDocument != null)
         Schema.enrich(episodeDocument, seriesDocument);
 
@@ -332,18 +607,39 @@ public class SolrIndexManager {
       if (deletionDate != null)
         Schema.setOcDeleted(episodeDocument, deletionDate);
 
-      solrServer.add(episodeDocument);
-      solrServer.add(seriesDocument);
-      solrServer.commit();
-      return true;
+      List<SolrInputDocument> documents = new ArrayList<SolrInputDocument>();
+      documents.add(episodeDocument);
+      if (seriesDocument != null)
+        documents.add(seriesDocument);
+      // Deleted episodes must not be found when searching their segments
+      if (deletionDate == null)
+        documents.addAll(createSegmentInputDocuments(episodeDocument));
+      return documents;
     } catch (Exception e) {
-      try {
-        solrServer.rollback();
-      } catch (IOException e1) {
-        throw new SolrServerException(e1);
+      throw new SolrServerException(e);
+    }
+  }
+
+  /**
+   * Posts documents created by {@link #createInputDocuments(MediaPackage, AccessControlList, Date, Date)} to solr in
+   * batches and commits them, regardless of the commit delay.
+   *
+   * @param documents
+   *          the documents
+   * @throws SolrServerException
+   *           if an errors occurs while talking to solr
+   */
+  public synchronized void addAll(List<SolrInputDocument> documents) throws SolrServerException {
+    try {
+      for (int i = 0; i < documents.size(); i += batchSize) {
+        for (SolrInputDocument document : documents.subList(i, Math.min(i + batchSize, documents.size())))
+          queue(document);
+        sendPendingDocuments();
       }
+    } catch (IOException e) {
       throw new SolrServerException(e);
     }
+    flush();
   }
 
   /**
@@ -404,6 +700,10 @@ public class SolrIndexManager {
       logger.debug("No segmentation catalog found");
     }
 
+    // /
+    // Add the precomputed projection served to the players
+    Schema.setOcEngage(doc, EngageProjection.create(mediaPackage, securityService.getOrganization().getId(), doc));
+
     // /
     // Add authorization
     setAuthorization(doc, securityService, acl);
@@ -411,6 +711,57 @@ public class SolrIndexManager {
     return doc;
   }
 
+  /**
+   * Creates a solr input document for each segment of an episode that contains text. The segment documents carry the
+   * segment's time offsets and the episode's access control, so the segments matching a text can be searched directly.
+   *
+   * @param episodeDocument
+   *          the episode's input document, containing the segment text and hint fields
+   * @return the segment documents
+   */
+  static List<SolrInputDocument> createSegmentInputDocuments(SolrInputDocument episodeDocument) {
+    String mediaPackageId = (String) episodeDocument.getFieldValue(Schema.ID);
+    List<SolrInputDocument> segments = new ArrayList<SolrInputDocument>();
+    for (String field : episodeDocument.getFieldNames()) {
+      if (!field.startsWith(Schema.SEGMENT_TEXT_PREFIX))
+        continue;
+      Object text = episodeDocument.getFieldValue(field);
+      if (text == null || text.toString().trim().isEmpty())
+        continue;
+      String suffix = field.substring(Schema.SEGMENT_TEXT_PREFIX.length());
+      Object hint = episodeDocument.getFieldValue(Schema.SEGMENT_HINT_PREFIX + suffix);
+      if (hint == null)
+        continue;
+
+      Properties hints = new Properties();
+      try {
+        hints.load(new StringReader(hint.toString()));
+      } catch (IOException e) {
+        logger.warn("Cannot load hint properties of segment {} of episode {}", suffix, mediaPackageId);
+        continue;
+      }
+      if (hints.getProperty("time") == null || hints.getProperty("duration") == null)
+        continue;
+
+      SolrInputDocument doc = new SolrInputDocument();
+      Schema.setId(doc, mediaPackageId + "/segment/" + suffix);
+      Schema.setOcMediatype(doc, Schema.SEGMENT_MEDIATYPE);
+      Schema.setOrganization(doc, (String) episodeDocument.getFieldValue(Schema.OC_ORGANIZATION));
+      Schema.setOcSegmentMediapackage(doc, mediaPackageId);
+      Schema.setOcSegmentIndex(doc, Integer.parseInt(suffix));
+      Schema.setOcSegmentTime(doc, Long.parseLong(hints.getProperty("time")));
+      Schema.setOcSegmentDuration(doc, Long.parseLong(hints.getProperty("duration")));
+      Schema.setOcSegmentText(doc, text.toString());
+      Schema.setOcSegmentHint(doc, hint.toString());
+      for (String name : episodeDocument.getFieldNames()) {
+        if (name.startsWith(Schema.OC_ACL_PREFIX))
+          doc.setField(name, episodeDocument.getFieldValue(name));
+      }
+      segments.add(doc);
+    }
+    return segments;
+  }
+
   static void addEpisodeMetadata(final SolrInputDocument doc, final StaticMetadata md) {
     Schema.fill(doc, new Schema.FieldCollector() {
       @Override
@@ -1258,7 +1609,8 @@ public class SolrIndexManager {
    */
   public long count() throws SearchServiceDatabaseException {
     try {
-      QueryResponse response = solrServer.query(new SolrQuery("*:*"));
+      QueryResponse response = solrServer.query(new SolrQuery("*:* AND -" + Schema.OC_MEDIATYPE + ":"
+              + Schema.SEGMENT_MEDIATYPE));
       return response.getResults().getNumFound();
     } catch (SolrServerException e) {
       throw new SearchServiceDatabaseException(e);
@@ -61,9 +61,13 @@ import org.slf4j.LoggerFactory;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Properties;
 import java.util.Set;
@@ -695,34 +699,11 @@ public class SolrRequester {
     if (sb.length() == 0)
       sb.append("*:*");
 
-    if (applyPermissions) {
-      sb.append(" AND ").append(Schema.OC_ORGANIZATION).append(":")
-              .append(SolrUtils.clean(securityService.getOrganization().getId()));
-      User user = securityService.getUser();
-      Set<Role> roles = user.getRoles();
-      boolean userHasAnonymousRole = false;
-      if (roles.size() > 0) {
-        sb.append(" AND (");
-        StringBuilder roleList = new StringBuilder();
-        for (Role role : roles) {
-          if (roleList.length() > 0)
-            roleList.append(" OR ");
-          roleList.append(Schema.OC_ACL_PREFIX).append(action).append(":").append(SolrUtils.clean(role.getName()));
-          if (role.getName().equalsIgnoreCase(securityService.getOrganization().getAnonymousRole())) {
-            userHasAnonymousRole = true;
-          }
-        }
-        if (!userHasAnonymousRole) {
-          if (roleList.length() > 0)
-            roleList.append(" OR ");
-          roleList.append(Schema.OC_ACL_PREFIX).append(action).append(":")
-                  .append(SolrUtils.clean(securityService.getOrganization().getAnonymousRole()));
-        }
+    if (applyPermissions)
+      appendPermissions(sb, action);
 
-        sb.append(roleList.toString());
-        sb.append(")");
-      }
-    }
+    // Segments are only searched by getSegmentsForRead(String, String, int)
+    sb.append(" AND -").append(Schema.OC_MEDIATYPE).append(":").append(Schema.SEGMENT_MEDIATYPE);
 
     if (!q.isIncludeEpisodes()) {
       if (sb.length() > 0)
@@ -766,6 +747,43 @@ public class SolrRequester {
     return query;
   }
 
+  /**
+   * Restricts a query to the documents of the current organization the current user may perform the action on.
+   *
+   * @param sb
+   *          the query
+   * @param action
+   *          the action to check the permissions for
+   */
+  private void appendPermissions(StringBuilder sb, String action) {
+    sb.append(" AND ").append(Schema.OC_ORGANIZATION).append(":")
+            .append(SolrUtils.clean(securityService.getOrganization().getId()));
+    User user = securityService.getUser();
+    Set<Role> roles = user.getRoles();
+    boolean userHasAnonymousRole = false;
+    if (roles.size() > 0) {
+      sb.append(" AND (");
+      StringBuilder roleList = new StringBuilder();
+      for (Role role : roles) {
+        if (roleList.length() > 0)
+          roleList.append(" OR ");
+        roleList.append(Schema.OC_ACL_PREFIX).append(action).append(":").append(SolrUtils.clean(role.getName()));
+        if (role.getName().equalsIgnoreCase(securityService.getOrganization().getAnonymousRole())) {
+          userHasAnonymousRole = true;
+        }
+      }
+      if (!userHasAnonymousRole) {
+        if (roleList.length() > 0)
+          roleList.append(" OR ");
+        roleList.append(Schema.OC_ACL_PREFIX).append(action).append(":")
+                .append(SolrUtils.clean(securityService.getOrganization().getAnonymousRole()));
+      }
+
+      sb.append(roleList.toString());
+      sb.append(")");
+    }
+  }
+
   /**
    * Returns the search results, regardless of permissions. This should be used for maintenance purposes only.
    *
@@ -805,6 +823,202 @@ public class SolrRequester {
     return createSearchResult(query);
   }
 
+  /**
+   * Returns the engage projections of the episodes that match the query and are accessible for read by the current
+   * user, wrapped into a JSON document together with the paging information. The projections are taken from the index
+   * as they are, so no media package needs to be parsed. Only the element URLs are passed through the media package
+   * serializer, if there is one.
+   * <p>
+   * Episodes indexed before projections were stored have none. Their projection is created from the media package on
+   * every request, it is not written back to the index since this would require re-adding the complete document. Such
+   * episodes get a stored projection once they are indexed again, e.g. when the search index is rebuilt.
+   *
+   * @param q
+   *          the search query
+   * @return the search result as JSON string
+   * @throws SolrServerException
+   *           if the solr server is not working as expected
+   */
+  public String getEngageForRead(SearchQuery q) throws SolrServerException {
+    SolrQuery query = getForAction(q, READ.toString(), true);
+    // Only episodes have a projection, filter in the query so the paging information matches the results
+    query.addFilterQuery(Schema.OC_MEDIATYPE + ":" + SearchResultItemType.AudioVisual);
+    query.setFields(Schema.ID + " " + Schema.OC_ENGAGE + " " + Schema.SCORE);
+
+    QueryResponse solrResponse = null;
+    try {
+      solrResponse = solrServer.query(query);
+    } catch (Exception e) {
+      throw new SolrServerException(e);
+    }
+
+    StringBuilder results = new StringBuilder();
+    for (SolrDocument doc : solrResponse.getResults()) {
+      String engage = Schema.getOcEngage(doc);
+      if (engage == null) {
+        engage = createEngageProjection(Schema.getId(doc));
+      } else if (serializer != null) {
+        engage = EngageProjection.decodeURIs(engage, serializer);
+      }
+      if (engage == null)
+        continue;
+      if (results.length() > 0)
+        results.append(",");
+      results.append(engage);
+    }
+
+    return new StringBuilder("{\"total\":").append(solrResponse.getResults().getNumFound())
+            .append(",\"offset\":").append(solrResponse.getResults().getStart())
+            .append(",\"limit\":").append(solrResponse.getResults().size())
+            .append(",\"searchTime\":").append(solrResponse.getQTime())
+            .append(",\"results\":[").append(results).append("]}").toString();
+  }
+
+  /**
+   * Returns the segments whose text matches the given text, of the episodes that are accessible for read by the
+   * current user. The segments are grouped by episode, each item of the result only contains the matching segments.
+   * The total of the result is the number of all matching segments, regardless of the limit. The matching terms are
+   * counted from the highlighting of the segment text, which uses the term vectors stored with the segments instead of
+   * analyzing the text again.
+   *
+   * @param text
+   *          the text to search for
+   * @param mediaPackageId
+   *          the episode to search in or <code>null</code> to search all episodes
+   * @param limit
+   *          the maximum number of segments to return, all segments if 0 or less
+   * @return the search result
+   * @throws SolrServerException
+   *           if the solr server is not working as expected
+   */
+  public SearchResult getSegmentsForRead(String text, String mediaPackageId, int limit) throws SolrServerException {
+    StringBuilder sb = new StringBuilder();
+    sb.append(Schema.OC_MEDIATYPE).append(":").append(Schema.SEGMENT_MEDIATYPE);
+    sb.append(" AND ").append(Schema.OC_SEGMENT_TEXT).append(":(").append(SolrUtils.clean(text)).append(")");
+    if (StringUtils.isNotBlank(mediaPackageId))
+      sb.append(" AND ").append(Schema.OC_SEGMENT_MEDIAPACKAGE).append(":").append(SolrUtils.clean(mediaPackageId));
+    appendPermissions(sb, READ.toString());
+
+    SolrQuery query = new SolrQuery(sb.toString());
+    query.setRows(limit > 0 ? limit : Integer.MAX_VALUE);
+    query.setFields("* score");
+    query.setHighlight(true);
+    query.addHighlightField(Schema.OC_SEGMENT_TEXT);
+    query.setHighlightFragsize(0);
+    query.setHighlightSimplePre("<" + Schema.HIGHLIGHT_MATCH + ">");
+    query.setHighlightSimplePost("</" + Schema.HIGHLIGHT_MATCH + ">");
+
+    QueryResponse solrResponse = null;
+    try {
+      solrResponse = solrServer.query(query);
+    } catch (Exception e) {
+      throw new SolrServerException(e);
+    }
+
+    Map<String, SearchResultItemImpl> items = new LinkedHashMap<String, SearchResultItemImpl>();
+    for (SolrDocument doc : solrResponse.getResults()) {
+      String episode = Schema.getOcSegmentMediapackage(doc);
+      SearchResultItemImpl item = items.get(episode);
+      if (item == null) {
+        item = new SearchResultItemImpl();
+        item.setId(episode);
+        item.setOrganization(Schema.getOrganization(doc));
+        item.setMediaType(SearchResultItemType.AudioVisual);
+        item.setScore(Schema.getScore(doc));
+        items.put(episode, item);
+      }
+
+      MediaSegmentImpl segment = new MediaSegmentImpl(Schema.getOcSegmentIndex(doc));
+      segment.setTime(Schema.getOcSegmentTime(doc));
+      segment.setDuration(Schema.getOcSegmentDuration(doc));
+      segment.setText(Schema.getOcSegmentText(doc));
+      segment.setHit(true);
+      segment.setRelevance(countMatches(solrResponse, Schema.getId(doc)));
+      Properties segmentHints = new Properties();
+      try {
+        segmentHints.load(new StringReader(Schema.getOcSegmentHint(doc)));
+      } catch (IOException e) {
+        logger.warn("Cannot load hint properties.");
+      }
+      for (String name : segmentHints.stringPropertyNames()) {
+        if (name.startsWith("preview."))
+          segment.addPreview(segmentHints.getProperty(name), name.substring("preview.".length()));
+      }
+      item.addSegment(segment);
+    }
+
+    SearchResultImpl result = new SearchResultImpl(query.getQuery());
+    result.setSearchTime(solrResponse.getQTime());
+    result.setLimit(limit);
+    result.setTotal(solrResponse.getResults().getNumFound());
+    for (SearchResultItemImpl item : items.values())
+      result.addItem(item);
+    return result;
+  }
+
+  /**
+   * Counts the highlighted terms of a segment document.
+   *
+   * @param solrResponse
+   *          the response containing the highlighting
+   * @param id
+   *          the identifier of the segment document
+   * @return the number of highlighted terms, at least 1
+   */
+  private static int countMatches(QueryResponse solrResponse, String id) {
+    Map<String, Map<String, List<String>>> highlighting = solrResponse.getHighlighting();
+    if (highlighting == null || highlighting.get(id) == null)
+      return 1;
+    List<String> fragments = highlighting.get(id).get(Schema.OC_SEGMENT_TEXT);
+    if (fragments == null)
+      return 1;
+    int matches = 0;
+    for (String fragment : fragments)
+      matches += StringUtils.countMatches(fragment, "<" + Schema.HIGHLIGHT_MATCH + ">");
+    return Math.max(matches, 1);
+  }
+
+  /**
+   * Creates the engage projection for an episode which was indexed before projections were stored with the episodes.
+   *
+   * @param id
+   *          the episode identifier
+   * @return the projection or <code>null</code> if it cannot be created
+   * @throws SolrServerException
+   *           if the solr server is not working as expected
+   */
+  private String createEngageProjection(String id) throws SolrServerException {
+    logger.debug("Episode {} has no stored engage projection, creating it from the media package", id);
+    SolrQuery query = new SolrQuery(Schema.ID + ":" + SolrUtils.clean(id));
+    query.setFields("*");
+    QueryResponse solrResponse = null;
+    try {
+      solrResponse = solrServer.query(query);
+    } catch (Exception e) {
+      throw new SolrServerException(e);
+    }
+    if (solrResponse.getResults().isEmpty())
+      return null;
+
+    SolrDocument doc = solrResponse.getResults().get(0);
+    String mediaPackageFieldValue = Schema.getOcMediapackage(doc);
+    if (mediaPackageFieldValue == null)
+      return null;
+    MediaPackageBuilder builder = MediaPackageBuilderFactory.newInstance().newMediaPackageBuilder();
+    if (serializer != null)
+      builder.setSerializer(serializer);
+    try {
+      MediaPackage mediaPackage = builder.loadFromXml(mediaPackageFieldValue);
+      Map<String, Object> fields = new HashMap<String, Object>();
+      for (String name : doc.getFieldNames())
+        fields.put(name, doc.getFieldValue(name));
+      return EngageProjection.create(mediaPackage, Schema.getOrganization(doc), fields);
+    } catch (Exception e) {
+      logger.warn("Unable to read media package {} from search index", id, e);
+      return null;
+    }
+  }
+
   /**
    * Sets the security service.
    *
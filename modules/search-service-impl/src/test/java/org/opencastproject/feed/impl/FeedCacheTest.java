@@ -0,0 +1,80 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+package org.opencastproject.feed.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.opencastproject.feed.api.Feed;
+import org.opencastproject.security.api.DefaultOrganization;
+import org.opencastproject.security.api.JaxbRole;
+import org.opencastproject.security.api.JaxbUser;
+import org.opencastproject.security.api.User;
+
+import org.junit.Test;
+
+import java.util.Date;
+
+public class FeedCacheTest {
+
+  private final DefaultOrganization organization = new DefaultOrganization();
+  private final User student = new JaxbUser("student", "test", organization, new JaxbRole("ROLE_STUDENT",
+          organization));
+  private final User teacher = new JaxbUser("teacher", "test", organization, new JaxbRole("ROLE_TEACHER",
+          organization));
+
+  @Test
+  public void testKey() {
+    FeedInfo series = new FeedInfo(Feed.Type.RSS, 2.0f, new String[] { "series", "s1" });
+    assertEquals(key(series, student),
+            key(new FeedInfo(Feed.Type.RSS, 2.0f, new String[] { "series", "s1" }), student));
+    assertNotEquals(key(series, student), key(series, teacher));
+    assertNotEquals(key(series, student),
+            key(new FeedInfo(Feed.Type.Atom, 1.0f, new String[] { "series", "s1" }), student));
+    assertNotEquals(key(series, student),
+            key(new FeedInfo(Feed.Type.RSS, 2.0f, new String[] { "series", "s2" }), student));
+    assertNotEquals(key(series, student),
+            key(new FeedInfo(Feed.Type.RSS, 2.0f, new String[] { "series", "s1" }, 10), student));
+  }
+
+  @Test
+  public void testRevision() {
+    FeedCache cache = new FeedCache(10, 60);
+    String key = key(new FeedInfo(Feed.Type.RSS, 2.0f, new String[] { "latest" }), student);
+    FeedCache.Entry entry = new FeedCache.Entry("<rss/>", "application/rss+xml", "UTF-8", "abc", new Date(), 3L);
+    cache.put(key, entry);
+
+    assertSame(entry, cache.get(key, 3L));
+    // the search index changed since the feed has been rendered
+    assertNull(cache.get(key, 4L));
+    assertSame(entry, cache.getAnyRevision(key));
+    assertNull(cache.get(key(new FeedInfo(Feed.Type.RSS, 2.0f, new String[] { "latest" }), teacher), 3L));
+  }
+
+  private String key(FeedInfo feedInfo, User user) {
+    return FeedCache.createKey(feedInfo, organization.getId(), user);
+  }
+
+}
@@ -0,0 +1,165 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.feed.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+
+import org.opencastproject.feed.api.Content.Mode;
+import org.opencastproject.feed.api.Feed;
+import org.opencastproject.feed.api.FeedGenerator;
+import org.opencastproject.search.impl.SearchServiceImpl;
+import org.opencastproject.security.api.DefaultOrganization;
+import org.opencastproject.security.api.JaxbRole;
+import org.opencastproject.security.api.JaxbUser;
+import org.opencastproject.security.api.Organization;
+import org.opencastproject.security.api.SecurityService;
+
+import org.easymock.EasyMock;
+import org.junit.Before;
+import org.junit.Test;
+import org.osgi.framework.BundleContext;
+import org.osgi.service.component.ComponentContext;
+
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+
+public class FeedServiceImplTest {
+
+  private static final String FEED_PATH = "/rss/2.0/test";
+
+  /** The revision of the search index */
+  private final AtomicLong revision = new AtomicLong(1);
+
+  /** The title of the rendered feed */
+  private String title = "Test Feed";
+
+  /** The number of rendered feeds */
+  private final AtomicInteger rendered = new AtomicInteger();
+
+  private FeedServiceImpl service;
+
+  @Before
+  public void setUp() throws Exception {
+    final DefaultOrganization organization = new DefaultOrganization();
+    final SecurityService securityService = EasyMock.createNiceMock(SecurityService.class);
+    EasyMock.expect(securityService.getOrganization()).andReturn(organization).anyTimes();
+    EasyMock.expect(securityService.getUser()).andReturn(new JaxbUser("student", "test", organization,
+            new JaxbRole("ROLE_STUDENT", organization))).anyTimes();
+
+    final SearchServiceImpl searchService = EasyMock.createNiceMock(SearchServiceImpl.class);
+    EasyMock.expect(searchService.getIndexRevision()).andAnswer(() -> revision.get()).anyTimes();
+
+    final FeedGenerator generator = EasyMock.createNiceMock(FeedGenerator.class);
+    EasyMock.expect(generator.getIdentifier()).andReturn("test").anyTimes();
+    EasyMock.expect(generator.accept(EasyMock.<String[]> anyObject())).andReturn(true).anyTimes();
+    EasyMock.expect(generator.createFeed(EasyMock.<Feed.Type> anyObject(), EasyMock.<String[]> anyObject(),
+            EasyMock.anyInt(), EasyMock.<Organization> anyObject())).andAnswer(() -> {
+              rendered.incrementAndGet();
+              final FeedImpl feed = new FeedImpl(Feed.Type.RSS, "http://localhost/feeds" + FEED_PATH,
+                      new PlainTextContent(title), new HtmlContent("generated by a unit test", Mode.Escaped),
+                      "http://localhost/feeds" + FEED_PATH);
+              feed.setUpdatedDate(new Date(1500000000000L));
+              return feed;
+            }).anyTimes();
+
+    final BundleContext bundleContext = EasyMock.createNiceMock(BundleContext.class);
+    final ComponentContext cc = EasyMock.createNiceMock(ComponentContext.class);
+    EasyMock.expect(cc.getBundleContext()).andReturn(bundleContext).anyTimes();
+    EasyMock.replay(securityService, searchService, generator, bundleContext, cc);
+
+    service = new FeedServiceImpl();
+    service.setSecurityService(securityService);
+    service.setSearchService(searchService);
+    service.addFeedGenerator(generator);
+    service.activate(cc);
+  }
+
+  @Test
+  public void testFeedWithETag() {
+    final Response response = service.getFeed(request(null, -1));
+    assertEquals(Status.OK.getStatusCode(), response.getStatus());
+    assertNotNull(eTag(response));
+    assertEquals(new Date(1500000000000L), response.getMetadata().getFirst(HttpHeaders.LAST_MODIFIED));
+    assertNotNull(response.getEntity());
+  }
+
+  @Test
+  public void testNotModifiedOnMatchingETag() {
+    final String eTag = eTag(service.getFeed(request(null, -1)));
+    final Response response = service.getFeed(request("\"" + eTag + "\"", -1));
+    assertEquals(Status.NOT_MODIFIED.getStatusCode(), response.getStatus());
+    assertEquals(eTag, eTag(response));
+    // the cached feed has been returned
+    assertEquals(1, rendered.get());
+
+    assertEquals(Status.OK.getStatusCode(), service.getFeed(request("\"other\"", -1)).getStatus());
+  }
+
+  @Test
+  public void testNotModifiedSinceLastModification() {
+    final Response first = service.getFeed(request(null, -1));
+    final long lastModified = ((Date) first.getMetadata().getFirst(HttpHeaders.LAST_MODIFIED)).getTime();
+    assertEquals(Status.NOT_MODIFIED.getStatusCode(), service.getFeed(request(null, lastModified)).getStatus());
+    assertEquals(Status.OK.getStatusCode(), service.getFeed(request(null, lastModified - 1000)).getStatus());
+  }
+
+  @Test
+  public void testRevisionBump() {
+    final String eTag = eTag(service.getFeed(request(null, -1)));
+
+    // the feed is rendered again but has not changed
+    revision.incrementAndGet();
+    Response response = service.getFeed(request("\"" + eTag + "\"", -1));
+    assertEquals(Status.NOT_MODIFIED.getStatusCode(), response.getStatus());
+    assertEquals(2, rendered.get());
+
+    // the feed has changed
+    revision.incrementAndGet();
+    title = "Changed Feed";
+    response = service.getFeed(request("\"" + eTag + "\"", -1));
+    assertEquals(Status.OK.getStatusCode(), response.getStatus());
+    assertNotEquals(eTag, eTag(response));
+    assertEquals(3, rendered.get());
+  }
+
+  private static String eTag(Response response) {
+    return ((EntityTag) response.getMetadata().getFirst(HttpHeaders.ETAG)).getValue();
+  }
+
+  private static HttpServletRequest request(String ifNoneMatch, long ifModifiedSince) {
+    final HttpServletRequest request = EasyMock.createNiceMock(HttpServletRequest.class);
+    EasyMock.expect(request.getPathInfo()).andReturn(FEED_PATH).anyTimes();
+    EasyMock.expect(request.getHeader(HttpHeaders.IF_NONE_MATCH)).andReturn(ifNoneMatch).anyTimes();
+    EasyMock.expect(request.getDateHeader(HttpHeaders.IF_MODIFIED_SINCE)).andReturn(ifModifiedSince).anyTimes();
+    EasyMock.replay(request);
+    return request;
+  }
+}
@@ -0,0 +1,150 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.search.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.opencastproject.search.api.SearchQuery;
+import org.opencastproject.search.api.SearchResult;
+import org.opencastproject.search.api.SearchResultImpl;
+import org.opencastproject.search.api.SearchResultItemImpl;
+import org.opencastproject.security.api.DefaultOrganization;
+import org.opencastproject.security.api.JaxbRole;
+import org.opencastproject.security.api.JaxbUser;
+import org.opencastproject.security.api.User;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class SearchResultCacheTest {
+
+  private final DefaultOrganization organization = new DefaultOrganization();
+  private final User student = new JaxbUser("student", "test", organization, new JaxbRole("ROLE_STUDENT",
+          organization));
+  private final User teacher = new JaxbUser("teacher", "test", organization, new JaxbRole("ROLE_TEACHER",
+          organization));
+
+  private SearchResultCache cache;
+
+  @Before
+  public void setUp() {
+    cache = new SearchResultCache(100, 60);
+  }
+
+  @Test
+  public void testKeyDependsOnRoles() {
+    SearchQuery q = new SearchQuery().withId("mp");
+    assertEquals(key(q, student), key(new SearchQuery().withId(" mp "), student));
+    assertNotEquals(key(q, student), key(q, teacher));
+  }
+
+  @Test
+  public void testInvalidation() {
+    SearchQuery episode = new SearchQuery().withId("mp1");
+    SearchQuery series = new SearchQuery().withSeriesId("series1");
+    SearchQuery otherSeries = new SearchQuery().withSeriesId("series2");
+    SearchQuery all = new SearchQuery();
+    cache.put(key(episode, student), episode, result(item("mp1", "series1")), cache.getGeneration());
+    cache.put(key(series, student), series, result(item("mp1", "series1")), cache.getGeneration());
+    cache.put(key(otherSeries, student), otherSeries, result(item("mp3", "series2")), cache.getGeneration());
+    cache.put(key(all, student), all, result(item("mp1", "series1"), item("mp3", "series2")), cache.getGeneration());
+
+    // A new episode of the first series
+    cache.invalidate("mp2", "series1");
+    assertNotNull(cache.get(key(episode, student)));
+    assertNull(cache.get(key(series, student)));
+    assertNotNull(cache.get(key(otherSeries, student)));
+    assertNull(cache.get(key(all, student)));
+    assertEquals(2, cache.getInvalidationCount());
+
+    // An update of the first episode
+    cache.invalidate("mp1", null);
+    assertNull(cache.get(key(episode, student)));
+    assertNotNull(cache.get(key(otherSeries, student)));
+  }
+
+  @Test
+  public void testInvalidationOfEmptyResult() {
+    SearchQuery episode = new SearchQuery().withId("mp1");
+    cache.put(key(episode, student), episode, result(), cache.getGeneration());
+    cache.invalidate("mp2", null);
+    assertNotNull(cache.get(key(episode, student)));
+    cache.invalidate("mp1", null);
+    assertNull(cache.get(key(episode, student)));
+  }
+
+  @Test
+  public void testResultOfQueryRunningDuringInvalidationIsNotCached() {
+    SearchQuery episode = new SearchQuery().withId("mp1");
+    final long generation = cache.getGeneration();
+    // The media package is updated while the query is running
+    cache.invalidate("mp1", null);
+    assertFalse(cache.put(key(episode, student), episode, result(item("mp1", null)), generation));
+    assertNull(cache.get(key(episode, student)));
+
+    assertTrue(cache.put(key(episode, student), episode, result(item("mp1", null)), cache.getGeneration()));
+    assertNotNull(cache.get(key(episode, student)));
+  }
+
+  @Test
+  public void testCallersDoNotShareResults() {
+    SearchQuery episode = new SearchQuery().withId("mp1");
+    SearchResultImpl result = result(item("mp1", null));
+    result.setSearchTime(42);
+    cache.put(key(episode, student), episode, result, cache.getGeneration());
+    result.setSearchTime(0);
+
+    SearchResultImpl first = (SearchResultImpl) cache.get(key(episode, student));
+    assertEquals(42, first.getSearchTime());
+    first.setSearchTime(7);
+    SearchResult second = cache.get(key(episode, student));
+    assertNotSame(first, second);
+    assertEquals(42, second.getSearchTime());
+    assertEquals("mp1", second.getItems()[0].getId());
+  }
+
+  private String key(SearchQuery q, User user) {
+    return SearchResultCache.createKey(q, organization.getId(), user);
+  }
+
+  private static SearchResultItemImpl item(String id, String seriesId) {
+    SearchResultItemImpl item = new SearchResultItemImpl();
+    item.setId(id);
+    item.setDcIsPartOf(seriesId);
+    return item;
+  }
+
+  private static SearchResultImpl result(SearchResultItemImpl... items) {
+    SearchResultImpl result = new SearchResultImpl("query");
+    for (SearchResultItemImpl item : items) {
+      result.addItem(item);
+    }
+    return result;
+  }
+
+}
@@ -23,7 +23,9 @@
 package org.opencastproject.search.impl;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 import static org.opencastproject.security.api.Permissions.Action.READ;
 import static org.opencastproject.security.api.Permissions.Action.WRITE;
 import static org.opencastproject.util.persistence.PersistenceUtil.newTestEntityManagerFactory;
@@ -273,6 +275,23 @@ public class SearchServiceImplTest {
     assertEquals(0, result.size());
   }
 
+  /**
+   * Test whether changes are committed in batches if a commit delay is configured.
+   */
+  @Test
+  public void testCommitDelay() throws Exception {
+    service.getSolrIndexManager().setCommitPolicy(60000, 10);
+    service.addSynchronously(getMediaPackage("/manifest-simple.xml"));
+
+    SearchQuery q = new SearchQuery().withId("10.0000/1");
+    assertTrue(service.getSolrIndexManager().hasPendingChanges());
+    assertEquals(0, service.getByQuery(q).size());
+
+    service.flush();
+    assertFalse(service.getSolrIndexManager().hasPendingChanges());
+    assertEquals(1, service.getByQuery(q).size());
+  }
+
   /**
    * Adds a simple media package that has a dublin core for the episode only.
    */
@@ -121,6 +121,23 @@ public class SearchServicePersistenceTest {
     Assert.assertEquals(deletionDate, searchDatabase.getDeletionDate(mediaPackage.getIdentifier().toString()));
   }
 
+  @Test
+  public void testPaging() throws Exception {
+    for (int i = 0; i < 5; i++) {
+      MediaPackage mp = MediaPackageBuilderFactory.newInstance().newMediaPackageBuilder().createNew();
+      searchDatabase.storeMediaPackage(mp, accessControlList, new Date());
+    }
+    Assert.assertEquals(5, searchDatabase.countMediaPackages());
+
+    List<SearchEntity> firstPage = searchDatabase.getSearchEntities(null, 3);
+    Assert.assertEquals(3, firstPage.size());
+    String lastId = firstPage.get(2).getMediaPackageId();
+    List<SearchEntity> secondPage = searchDatabase.getSearchEntities(lastId, 3);
+    Assert.assertEquals(2, secondPage.size());
+    Assert.assertTrue(secondPage.get(0).getMediaPackageId().compareTo(lastId) > 0);
+    Assert.assertTrue(searchDatabase.getSearchEntities(secondPage.get(1).getMediaPackageId(), 3).isEmpty());
+  }
+
   @Test
   public void testRetrieving() throws Exception {
     boolean exception = false;
@@ -0,0 +1,132 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+package org.opencastproject.search.impl.solr;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import org.opencastproject.mediapackage.MediaPackage;
+import org.opencastproject.mediapackage.MediaPackageBuilderFactory;
+import org.opencastproject.mediapackage.MediaPackageSerializer;
+
+import org.apache.solr.common.SolrInputDocument;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.net.URI;
+
+/**
+ * Tests for the {@link EngageProjection}.
+ */
+public class EngageProjectionTest {
+
+  @Test
+  public void testCreate() throws Exception {
+    MediaPackage mediaPackage;
+    InputStream in = getClass().getResourceAsStream("/manifest-engage.xml");
+    try {
+      mediaPackage = MediaPackageBuilderFactory.newInstance().newMediaPackageBuilder().loadFromXml(in);
+    } finally {
+      in.close();
+    }
+
+    SolrInputDocument doc = new SolrInputDocument();
+    Schema.setSegmentText(doc, new DField<String>("second segment", "1"));
+    Schema.setSegmentHint(doc, new DField<String>("time=1000\nduration=13546\n", "1"));
+    Schema.setSegmentText(doc, new DField<String>("first segment", "0"));
+    Schema.setSegmentHint(doc, new DField<String>(
+            "time=0\nduration=1000\npreview.track-1=http://localhost/segment-0.jpg\n", "0"));
+
+    JSONObject json = (JSONObject) new JSONParser().parse(EngageProjection.create(mediaPackage, "mh_default_org",
+            doc));
+    assertEquals("10.0000/5", json.get("id"));
+    assertEquals("mh_default_org", json.get("org"));
+    assertEquals("Engage", json.get("title"));
+    assertEquals("10.0000/6", json.get("series"));
+    assertEquals(14546L, json.get("duration"));
+    assertEquals("Opencast", ((JSONArray) json.get("creators")).get(0));
+
+    JSONArray tracks = (JSONArray) json.get("tracks");
+    assertEquals(1, tracks.size());
+    JSONObject track = (JSONObject) tracks.get(0);
+    assertEquals("presentation/delivery", track.get("type"));
+    assertEquals("video/mp4", track.get("mimetype"));
+    assertEquals("http://localhost/presentation.mp4", track.get("url"));
+    assertEquals("640x480", track.get("resolution"));
+    assertEquals("engage-download", ((JSONArray) track.get("tags")).get(0));
+
+    // Segment previews are only part of the segments
+    JSONArray attachments = (JSONArray) json.get("attachments");
+    assertEquals(1, attachments.size());
+    assertEquals("presentation/player+preview", ((JSONObject) attachments.get(0)).get("type"));
+
+    JSONArray segments = (JSONArray) json.get("segments");
+    assertEquals(2, segments.size());
+    JSONObject first = (JSONObject) segments.get(0);
+    assertEquals(0L, first.get("time"));
+    assertEquals(1000L, first.get("duration"));
+    assertEquals("first segment", first.get("text"));
+    JSONObject preview = (JSONObject) ((JSONArray) first.get("previews")).get(0);
+    assertEquals("track-1", preview.get("ref"));
+    assertEquals("http://localhost/segment-0.jpg", preview.get("url"));
+    JSONObject second = (JSONObject) segments.get(1);
+    assertEquals(1000L, second.get("time"));
+    assertFalse(((String) second.get("text")).isEmpty());
+  }
+
+  @Test
+  public void testDecodeURIs() throws Exception {
+    MediaPackageSerializer serializer = new MediaPackageSerializer() {
+      @Override
+      public URI encodeURI(URI uri) {
+        return uri;
+      }
+
+      @Override
+      public URI decodeURI(URI uri) {
+        return URI.create(uri.toString().replace("http://localhost/", "https://cdn.example.org/"));
+      }
+
+      @Override
+      public int getRanking() {
+        return 0;
+      }
+    };
+    String projection = "{\"id\":\"10.0000/5\","
+            + "\"tracks\":[{\"id\":\"track-1\",\"url\":\"http://localhost/presentation.mp4\"}],"
+            + "\"attachments\":[{\"id\":\"attachment-1\"}],\"segments\":[]}";
+
+    JSONObject json = (JSONObject) new JSONParser().parse(EngageProjection.decodeURIs(projection, serializer));
+    JSONObject track = (JSONObject) ((JSONArray) json.get("tracks")).get(0);
+    assertEquals("https://cdn.example.org/presentation.mp4", track.get("url"));
+    JSONObject attachment = (JSONObject) ((JSONArray) json.get("attachments")).get(0);
+    assertFalse(attachment.containsKey("url"));
+
+    // Projections which cannot be read are returned as they are
+    assertEquals("not json", EngageProjection.decodeURIs("not json", serializer));
+  }
+
+}
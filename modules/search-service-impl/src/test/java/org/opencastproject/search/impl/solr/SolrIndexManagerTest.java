@@ -0,0 +1,69 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+package org.opencastproject.search.impl.solr;
+
+import static org.junit.Assert.assertEquals;
+
+import org.opencastproject.search.api.SearchResultItem.SearchResultItemType;
+
+import org.apache.solr.common.SolrInputDocument;
+import org.junit.Test;
+
+import java.util.List;
+
+/**
+ * Tests for the {@link SolrIndexManager}.
+ */
+public class SolrIndexManagerTest {
+
+  @Test
+  public void testCreateSegmentInputDocuments() throws Exception {
+    SolrInputDocument episode = new SolrInputDocument();
+    Schema.setId(episode, "10.0000/5");
+    Schema.setOcMediatype(episode, SearchResultItemType.AudioVisual.toString());
+    Schema.setOrganization(episode, "mh_default_org");
+    Schema.setOcAcl(episode, new DField<String>("ROLE_STUDENT", "read"));
+    Schema.setSegmentText(episode, new DField<String>("first slide", "0"));
+    Schema.setSegmentHint(episode, new DField<String>(
+            "time=0\nduration=1000\npreview.track-1=http://localhost/segment-0.jpg\n", "0"));
+    // Segments without text cannot be found
+    Schema.setSegmentText(episode, new DField<String>(" ", "1"));
+    Schema.setSegmentHint(episode, new DField<String>("time=1000\nduration=1000\n", "1"));
+    Schema.setSegmentText(episode, new DField<String>("third slide", "2"));
+    Schema.setSegmentHint(episode, new DField<String>("time=2000\nduration=500\n", "2"));
+
+    List<SolrInputDocument> segments = SolrIndexManager.createSegmentInputDocuments(episode);
+    assertEquals(2, segments.size());
+    SolrInputDocument third = segments.get(0).getFieldValue(Schema.OC_SEGMENT_INDEX).equals(2) ? segments.get(0)
+            : segments.get(1);
+    assertEquals("10.0000/5/segment/2", third.getFieldValue(Schema.ID));
+    assertEquals(Schema.SEGMENT_MEDIATYPE, third.getFieldValue(Schema.OC_MEDIATYPE));
+    assertEquals("mh_default_org", third.getFieldValue(Schema.OC_ORGANIZATION));
+    assertEquals("10.0000/5", Schema.getOcSegmentMediapackage(third));
+    assertEquals(2000L, third.getFieldValue(Schema.OC_SEGMENT_TIME));
+    assertEquals(500L, third.getFieldValue(Schema.OC_SEGMENT_DURATION));
+    assertEquals("third slide", third.getFieldValue(Schema.OC_SEGMENT_TEXT));
+    assertEquals("ROLE_STUDENT", third.getFieldValue(Schema.OC_ACL_PREFIX + "read"));
+  }
+
+}
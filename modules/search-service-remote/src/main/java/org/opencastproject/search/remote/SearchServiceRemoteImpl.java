@@ -35,6 +35,7 @@ import org.opencastproject.security.api.UnauthorizedException;
 import org.opencastproject.serviceregistry.api.RemoteBase;
 
 import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
 import org.apache.http.NameValuePair;
 import org.apache.http.client.entity.UrlEncodedFormEntity;
 import org.apache.http.client.methods.HttpDelete;
@@ -182,6 +183,48 @@ public class SearchServiceRemoteImpl extends RemoteBase implements SearchService
     throw new SearchException("Unable to perform getByQuery from remote search index");
   }
 
+  /**
+   * {@inheritDoc}
+   *
+   * @see org.opencastproject.search.api.SearchService#getSegmentsByText(java.lang.String, java.lang.String, int)
+   */
+  @Override
+  public SearchResult getSegmentsByText(String text, String mediaPackageId, int limit) throws SearchException {
+    List<NameValuePair> queryStringParams = new ArrayList<NameValuePair>();
+    queryStringParams.add(new BasicNameValuePair("q", text));
+    if (mediaPackageId != null)
+      queryStringParams.add(new BasicNameValuePair("id", mediaPackageId));
+    queryStringParams.add(new BasicNameValuePair("limit", Integer.toString(limit)));
+    HttpGet get = new HttpGet("/segments.xml?" + URLEncodedUtils.format(queryStringParams, "UTF-8"));
+    HttpResponse response = getResponse(get);
+    try {
+      if (response != null)
+        return SearchResultImpl.valueOf(response.getEntity().getContent());
+    } catch (Exception e) {
+      throw new SearchException("Unable to parse getSegmentsByText response from remote search index", e);
+    } finally {
+      closeConnection(response);
+    }
+    throw new SearchException("Unable to perform getSegmentsByText from remote search index");
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @see org.opencastproject.search.api.SearchService#flush()
+   */
+  @Override
+  public void flush() throws SearchException {
+    HttpResponse response = getResponse(new HttpPost("/flush"), HttpStatus.SC_NO_CONTENT);
+    try {
+      if (response != null)
+        return;
+    } finally {
+      closeConnection(response);
+    }
+    throw new SearchException("Unable to commit the changes of a remote search index");
+  }
+
   /**
    * Builds the a search URL.
    *
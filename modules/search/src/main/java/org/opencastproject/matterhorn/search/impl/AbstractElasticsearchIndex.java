@@ -36,6 +36,8 @@ import org.apache.logging.log4j.core.config.builder.api.ConfigurationBuilderFact
 import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.ResourceAlreadyExistsException;
 import org.elasticsearch.action.DocWriteResponse;
+import org.elasticsearch.action.admin.indices.alias.IndicesAliasesRequest.AliasActions;
+import org.elasticsearch.action.admin.indices.alias.IndicesAliasesRequestBuilder;
 import org.elasticsearch.action.admin.indices.create.CreateIndexRequest;
 import org.elasticsearch.action.admin.indices.create.CreateIndexResponse;
 import org.elasticsearch.action.admin.indices.delete.DeleteIndexRequest;
@@ -55,6 +57,8 @@ import org.elasticsearch.action.search.SearchType;
 import org.elasticsearch.action.support.WriteRequest;
 import org.elasticsearch.action.support.master.AcknowledgedResponse;
 import org.elasticsearch.client.Client;
+import org.elasticsearch.cluster.metadata.AliasMetaData;
+import org.elasticsearch.common.collect.ImmutableOpenMap;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.settings.loader.JsonSettingsLoader;
 import org.elasticsearch.common.transport.InetSocketTransportAddress;
@@ -75,9 +79,17 @@ import java.net.InetAddress;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * A search index implementation based on ElasticSearch.
@@ -90,18 +102,36 @@ public abstract class AbstractElasticsearchIndex implements SearchIndex {
   /** The Elasticsearch maximum results window size */
   private static final int ELASTICSEARCH_INDEX_MAX_RESULT_WINDOW = Integer.MAX_VALUE;
 
+  /** The field making the sort order unique when paging with cursors */
+  private static final String CURSOR_TIE_BREAKER = "_uid";
+
   /** Configuration key defining the address of an external Elasticsearch server */
   public static final String ELASTICSEARCH_SERVER_ADDRESS_KEY = "org.opencastproject.elasticsearch.server.address";
 
   /** Configuration key defining the port of an external Elasticsearch server */
   public static final String ELASTICSEARCH_SERVER_PORT_KEY = "org.opencastproject.elasticsearch.server.port";
 
+  /**
+   * Configuration key defining when writes become searchable. May be overridden per index by inserting the index name,
+   * e.g. <code>org.opencastproject.elasticsearch.adminui.refresh.policy</code>.
+   */
+  public static final String ELASTICSEARCH_REFRESH_POLICY_KEY = "org.opencastproject.elasticsearch.refresh.policy";
+
   /** Identifier of the root entry */
   private static final String ROOT_ID = "root";
 
   /** Type of the document containing the index version information */
   private static final String VERSION_TYPE = "version";
 
+  /** Identifier of the entry recording the progress of a rebuild */
+  private static final String REBUILD_ID = "rebuild";
+
+  /** Field of the rebuild entry holding the completed parts of the rebuild */
+  private static final String REBUILD_COMPLETED = "completed";
+
+  /** Completed part marking a rebuilt index which the index name has been switched to */
+  private static final String REBUILD_FINISHED = "finished";
+
   /** The index identifier */
   private String index = null;
 
@@ -117,6 +147,12 @@ public abstract class AbstractElasticsearchIndex implements SearchIndex {
   /** List of sites with prepared index */
   private final List<String> preparedIndices = new ArrayList<>();
 
+  /** The physical index being rebuilt, which all writes go to in addition to the index itself */
+  private volatile String shadowIndex = null;
+
+  /** The index the current thread reads from and exclusively writes to, see {@link #setTarget(String)} */
+  private final ThreadLocal<String> target = new ThreadLocal<>();
+
   /** The version number */
   private int indexVersion = -1;
 
@@ -132,6 +168,21 @@ public abstract class AbstractElasticsearchIndex implements SearchIndex {
   /** Port of an external Elasticsearch server to connect to */
   private int externalServerPort = 9300;
 
+  /** The refresh policy used for writes */
+  private WriteRequest.RefreshPolicy refreshPolicy = WriteRequest.RefreshPolicy.IMMEDIATE;
+
+  /** The number of documents with writes which may not be searchable yet that are tracked before refreshing */
+  static final int MAX_UNREFRESHED_WRITES = 10000;
+
+  /** Counter of writes which are not searchable before the next refresh */
+  private final AtomicLong writeGeneration = new AtomicLong();
+
+  /** The write generation covered by the last refresh triggered by this index */
+  private final AtomicLong refreshedGeneration = new AtomicLong();
+
+  /** The generation of the last write which may not be searchable yet, by document type and identifier */
+  private final ConcurrentMap<String, Long> unrefreshedWrites = new ConcurrentHashMap<>();
+
   /**
    * Returns an array of document types for the index. For every one of these, the corresponding document type
    * definition will be loaded.
@@ -161,6 +212,113 @@ public abstract class AbstractElasticsearchIndex implements SearchIndex {
     // Silently fall back to port 9300
     externalServerPort = Integer.parseInt(StringUtils.defaultIfBlank(
             ctx.getBundleContext().getProperty(ELASTICSEARCH_SERVER_PORT_KEY), "9300"));
+
+    // The index specific refresh policy takes precedence over the general one
+    String indexRefreshPolicyKey = ELASTICSEARCH_REFRESH_POLICY_KEY.replace(".refresh.",
+            "." + getIndexName() + ".refresh.");
+    String policy = StringUtils.trimToNull(StringUtils.defaultIfBlank(
+            ctx.getBundleContext().getProperty(indexRefreshPolicyKey),
+            ctx.getBundleContext().getProperty(ELASTICSEARCH_REFRESH_POLICY_KEY)));
+    if (policy != null) {
+      try {
+        refreshPolicy = WriteRequest.RefreshPolicy.valueOf(policy.toUpperCase());
+      } catch (IllegalArgumentException e) {
+        throw new ComponentException("Invalid refresh policy '" + policy + "' for index " + getIndexName());
+      }
+    }
+    logger.info("Writes to index '{}' use refresh policy {}", getIndexName(), refreshPolicy);
+  }
+
+  /**
+   * Returns the refresh policy to use for writes to this index.
+   *
+   * @return the refresh policy
+   */
+  protected WriteRequest.RefreshPolicy getRefreshPolicy() {
+    return refreshPolicy;
+  }
+
+  /**
+   * Sets the refresh policy to use for writes to this index.
+   *
+   * @param refreshPolicy
+   *          the refresh policy
+   */
+  void setRefreshPolicy(WriteRequest.RefreshPolicy refreshPolicy) {
+    this.refreshPolicy = refreshPolicy;
+  }
+
+  /**
+   * Records a write of a document to this index using the refresh policy of this index.
+   *
+   * @param type
+   *          the document type
+   * @param uid
+   *          the document identifier
+   * @see #recordWrite(WriteRequest.RefreshPolicy, String, String)
+   */
+  protected void recordWrite(String type, String uid) {
+    recordWrite(refreshPolicy, type, uid);
+  }
+
+  /**
+   * Records a write of a document to this index. With the {@link WriteRequest.RefreshPolicy#NONE} policy, the write
+   * may not be searchable yet, so {@link #awaitWrite(String, String)} refreshes the index before the document is read
+   * again.
+   * <p>
+   * Writes are tracked for the document, not for the writing thread, since resources are written and read again by
+   * different threads, e.g. by the message receivers of different destinations or the threads processing the
+   * partitions of a batch. If too many documents are tracked, the index is refreshed.
+   *
+   * @param policy
+   *          the refresh policy the write has been sent with
+   * @param type
+   *          the document type
+   * @param uid
+   *          the document identifier
+   */
+  protected void recordWrite(WriteRequest.RefreshPolicy policy, String type, String uid) {
+    if (policy != WriteRequest.RefreshPolicy.NONE)
+      return;
+    unrefreshedWrites.put(type + "/" + uid, writeGeneration.incrementAndGet());
+    if (unrefreshedWrites.size() > MAX_UNREFRESHED_WRITES)
+      refresh();
+  }
+
+  /**
+   * Makes sure all writes of a document acknowledged so far are searchable, for callers which have to read the latest
+   * state of a document, e.g. to modify and write it again. The index is refreshed only if one of these writes may not
+   * be covered by a refresh yet.
+   * <p>
+   * Other queries are not affected. With the {@link WriteRequest.RefreshPolicy#NONE} policy, they see writes once
+   * Elasticsearch refreshes the index periodically.
+   *
+   * @param type
+   *          the document type
+   * @param uid
+   *          the document identifier
+   */
+  public void awaitWrite(String type, String uid) {
+    Long generation = unrefreshedWrites.get(type + "/" + uid);
+    if (generation != null && generation > refreshedGeneration.get())
+      refresh();
+  }
+
+  /**
+   * Refreshes the index and forgets about the writes covered by the refresh.
+   */
+  private void refresh() {
+    long generation = writeGeneration.get();
+    List<String> targets = getTargets();
+    nodeClient.admin().indices().prepareRefresh(targets.toArray(new String[targets.size()])).execute().actionGet();
+    long refreshed;
+    do {
+      refreshed = refreshedGeneration.get();
+    } while (refreshed < generation && !refreshedGeneration.compareAndSet(refreshed, generation));
+    for (Iterator<Long> i = unrefreshedWrites.values().iterator(); i.hasNext();) {
+      if (i.next() <= generation)
+        i.remove();
+    }
   }
 
   /**
@@ -189,7 +347,10 @@ public abstract class AbstractElasticsearchIndex implements SearchIndex {
       IndicesExistsResponse indicesExistsResponse = nodeClient.admin().indices()
               .exists(new IndicesExistsRequest(getIndexName())).actionGet();
       if (indicesExistsResponse.isExists()) {
-        AcknowledgedResponse delete = nodeClient.admin().indices().delete(new DeleteIndexRequest(getIndexName()))
+        // After a rebuild, the index name is an alias of the physical index
+        Set<String> targets = getAliasTargets();
+        String[] physical = targets.isEmpty() ? new String[] { getIndexName() } : targets.toArray(new String[0]);
+        AcknowledgedResponse delete = nodeClient.admin().indices().delete(new DeleteIndexRequest(physical))
                 .actionGet();
         if (!delete.isAcknowledged())
           logger.error("Index '{}' could not be deleted", getIndexName());
@@ -209,6 +370,248 @@ public abstract class AbstractElasticsearchIndex implements SearchIndex {
     }
   }
 
+  /**
+   * Returns the physical indices all writes go to. This is the index itself and, while the index is being rebuilt,
+   * the shadow index the rebuild writes to. If the current thread has chosen a target by {@link #setTarget(String)},
+   * it only writes to that index.
+   *
+   * @return the names of the indices to write to
+   */
+  protected List<String> getWriteIndices() {
+    String t = target.get();
+    return t != null ? Collections.singletonList(t) : getTargets();
+  }
+
+  /**
+   * Returns the indices whose content is maintained separately: the index itself and, while the index is being
+   * rebuilt, the shadow index. Writers which read a resource before writing it should do this for each of these
+   * indices, see {@link #setTarget(String)}, so the content of the shadow index is based on the rebuilt state instead
+   * of the state of the index itself.
+   *
+   * @return the names of the indices
+   */
+  public List<String> getTargets() {
+    String shadow = shadowIndex;
+    return shadow == null ? Collections.singletonList(index) : Arrays.asList(index, shadow);
+  }
+
+  /**
+   * Makes the current thread read from and exclusively write to one of the indices returned by {@link #getTargets()},
+   * until the target is reset.
+   *
+   * @param target
+   *          the name of the index or <code>null</code> to read from the index and write to all indices again
+   */
+  public void setTarget(String target) {
+    if (target == null) {
+      this.target.remove();
+    } else {
+      this.target.set(target);
+    }
+  }
+
+  /**
+   * Returns the index the current thread reads from, which is the index itself unless the thread has chosen another
+   * target by {@link #setTarget(String)}.
+   *
+   * @return the name of the index to read from
+   */
+  protected String getReadIndex() {
+    String t = target.get();
+    return t != null ? t : index;
+  }
+
+  /**
+   * Returns the shadow index the index is currently rebuilt in.
+   *
+   * @return the name of the shadow index or <code>null</code> if the index is not being rebuilt
+   */
+  protected String getShadowIndex() {
+    return shadowIndex;
+  }
+
+  /**
+   * Creates an empty shadow index to rebuild the index in. All writes go to the shadow index as well, until it either
+   * replaces the index by {@link #switchToShadowIndex()} or is discarded by {@link #discardShadowIndex(String)}. Writes
+   * continue if the rebuild is interrupted, so the rebuild can be resumed without losing any changes made meanwhile.
+   *
+   * @return the name of the shadow index
+   * @throws SearchIndexException
+   *           if the shadow index cannot be created
+   * @throws IOException
+   *           if loading of the index settings fails
+   */
+  protected String createShadowIndex() throws SearchIndexException, IOException {
+    String shadow = index + "_" + System.currentTimeMillis();
+    createIndex(shadow);
+    shadowIndex = shadow;
+    logger.info("Rebuilding index '{}' in shadow index '{}'", index, shadow);
+    return shadow;
+  }
+
+  /**
+   * Looks for the shadow index of an interrupted rebuild, i.e. a physical index of this index which the index name does
+   * not point to. Indices which the index name has been switched to before are left over from a later rebuild and are
+   * deleted.
+   *
+   * @return the name of the newest such shadow index or <code>null</code> if there is none
+   */
+  protected String findShadowIndex() {
+    Set<String> live = getAliasTargets();
+    String prefix = index + "_";
+    String found = null;
+    for (String candidate : nodeClient.admin().indices().prepareGetIndex().setIndices(prefix + "*").execute()
+            .actionGet().getIndices()) {
+      if (live.contains(candidate) || !candidate.substring(prefix.length()).matches("\\d+"))
+        continue;
+      if (loadRebuildCheckpoint(candidate).contains(REBUILD_FINISHED)) {
+        logger.warn("Deleting index '{}' which has been replaced by a later rebuild", candidate);
+        discardShadowIndex(candidate);
+        continue;
+      }
+      if (found == null || Long.parseLong(candidate.substring(prefix.length())) > Long
+              .parseLong(found.substring(prefix.length())))
+        found = candidate;
+    }
+    return found;
+  }
+
+  /**
+   * Continues writing to the shadow index of an interrupted rebuild, e.g. after a restart.
+   *
+   * @param shadow
+   *          the name of the shadow index, as returned by {@link #findShadowIndex()}
+   * @throws SearchIndexException
+   *           if the shadow index does not match the current index version
+   * @throws IOException
+   *           if loading of the index settings fails
+   */
+  protected void resumeShadowIndex(String shadow) throws SearchIndexException, IOException {
+    createIndex(shadow);
+    shadowIndex = shadow;
+    logger.info("Resuming rebuild of index '{}' in shadow index '{}'", index, shadow);
+  }
+
+  /**
+   * Deletes a shadow index which cannot be used for a rebuild.
+   *
+   * @param shadow
+   *          the name of the shadow index
+   */
+  protected void discardShadowIndex(String shadow) {
+    if (shadow.equals(shadowIndex))
+      shadowIndex = null;
+    preparedIndices.remove(shadow);
+    AcknowledgedResponse delete = nodeClient.admin().indices().delete(new DeleteIndexRequest(shadow)).actionGet();
+    if (!delete.isAcknowledged())
+      logger.error("Shadow index '{}' could not be deleted", shadow);
+  }
+
+  /**
+   * Makes the index name point to the shadow index in a single step and removes the physical index it pointed to
+   * before. Queries see either the old or the rebuilt content at any time.
+   *
+   * @throws SearchIndexException
+   *           if the index name cannot be switched
+   */
+  protected void switchToShadowIndex() throws SearchIndexException {
+    String shadow = shadowIndex;
+    if (shadow == null)
+      throw new IllegalStateException("Index '" + index + "' is not being rebuilt");
+
+    // Mark the rebuild as finished first, so the index is not mistaken for a shadow index once it has been replaced
+    try {
+      nodeClient.prepareIndex(shadow, VERSION_TYPE, REBUILD_ID)
+              .setSource(REBUILD_COMPLETED, Collections.singletonList(REBUILD_FINISHED)).execute().actionGet();
+    } catch (ElasticsearchException e) {
+      throw new SearchIndexException("Unable to finish the rebuild of index '" + index + "' in '" + shadow + "'", e);
+    }
+
+    Set<String> previous = getAliasTargets();
+    nodeClient.admin().indices().prepareRefresh(shadow).execute().actionGet();
+    IndicesAliasesRequestBuilder aliases = nodeClient.admin().indices().prepareAliases();
+    if (previous.isEmpty()) {
+      // Before the first rebuild, the index name refers to a physical index
+      aliases.addAliasAction(AliasActions.removeIndex().index(index));
+    }
+    for (String target : previous) {
+      aliases.removeAlias(target, index);
+    }
+    aliases.addAlias(shadow, index);
+    try {
+      if (!aliases.execute().actionGet().isAcknowledged())
+        throw new SearchIndexException("Switching index '" + index + "' to '" + shadow + "' was not acknowledged");
+    } catch (ElasticsearchException e) {
+      throw new SearchIndexException("Unable to switch index '" + index + "' to '" + shadow + "'", e);
+    }
+    shadowIndex = null;
+    preparedIndices.remove(shadow);
+    logger.info("Index '{}' now points to rebuilt index '{}'", index, shadow);
+
+    for (String target : previous) {
+      try {
+        nodeClient.admin().indices().delete(new DeleteIndexRequest(target)).actionGet();
+      } catch (ElasticsearchException e) {
+        logger.warn("Unable to delete index '{}' replaced by a rebuild: {}", target, e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Returns the physical indices the index name is an alias of.
+   *
+   * @return the physical indices, empty if the index name refers to a physical index itself
+   */
+  private Set<String> getAliasTargets() {
+    Set<String> targets = new HashSet<>();
+    ImmutableOpenMap<String, List<AliasMetaData>> aliases = nodeClient.admin().indices().prepareGetAliases(index)
+            .execute().actionGet().getAliases();
+    Iterator<String> indices = aliases.keysIt();
+    while (indices.hasNext()) {
+      String target = indices.next();
+      if (!aliases.get(target).isEmpty())
+        targets.add(target);
+    }
+    return targets;
+  }
+
+  /**
+   * Records which parts of a rebuild are complete in the shadow index, so an interrupted rebuild does not need to
+   * repeat them.
+   *
+   * @param shadow
+   *          the name of the shadow index
+   * @param completed
+   *          the completed parts
+   */
+  protected void storeRebuildCheckpoint(String shadow, Collection<String> completed) {
+    try {
+      nodeClient.prepareIndex(shadow, VERSION_TYPE, REBUILD_ID)
+              .setSource(REBUILD_COMPLETED, new ArrayList<>(completed)).execute().actionGet();
+    } catch (ElasticsearchException e) {
+      logger.warn("Unable to record the progress of the rebuild in '{}': {}", shadow, e.getMessage());
+    }
+  }
+
+  /**
+   * Returns the parts of a rebuild which have been completed in a shadow index.
+   *
+   * @param shadow
+   *          the name of the shadow index
+   * @return the completed parts
+   */
+  protected List<String> loadRebuildCheckpoint(String shadow) {
+    List<String> completed = new ArrayList<>();
+    GetResponse response = nodeClient.prepareGet(shadow, VERSION_TYPE, REBUILD_ID).setStoredFields(REBUILD_COMPLETED)
+            .execute().actionGet();
+    if (response.isExists() && response.getField(REBUILD_COMPLETED) != null) {
+      for (Object part : response.getField(REBUILD_COMPLETED).getValues()) {
+        completed.add(part.toString());
+      }
+    }
+    return completed;
+  }
+
   /**
    * Removes the given document from the specified index.
    *
@@ -232,9 +635,15 @@ public abstract class AbstractElasticsearchIndex implements SearchIndex {
 
     logger.debug("Removing element with id '{}' from searching index", uid);
 
-    DeleteRequestBuilder deleteRequest = nodeClient.prepareDelete(index, type, uid);
-    deleteRequest.setRefreshPolicy(WriteRequest.RefreshPolicy.IMMEDIATE);
-    DeleteResponse delete = deleteRequest.execute().actionGet();
+    DeleteResponse delete = null;
+    for (String writeIndex : getWriteIndices()) {
+      DeleteRequestBuilder deleteRequest = nodeClient.prepareDelete(writeIndex, type, uid);
+      deleteRequest.setRefreshPolicy(refreshPolicy);
+      DeleteResponse response = deleteRequest.execute().actionGet();
+      if (delete == null)
+        delete = response;
+    }
+    recordWrite(type, uid);
     if (delete.getResult().equals(DocWriteResponse.Result.NOT_FOUND)) {
       logger.trace("Document {} to delete was not found", uid);
       return false;
@@ -258,14 +667,18 @@ public abstract class AbstractElasticsearchIndex implements SearchIndex {
     for (ElasticsearchDocument doc : documents) {
       String type = doc.getType();
       String uid = doc.getUID();
-      bulkRequest.add(nodeClient.prepareIndex(index, type, uid).setSource(doc));
+      for (String writeIndex : getWriteIndices()) {
+        bulkRequest.add(nodeClient.prepareIndex(writeIndex, type, uid).setSource(doc));
+      }
     }
 
-    // Make sure the operations are searchable immediately
-    bulkRequest.setRefreshPolicy(WriteRequest.RefreshPolicy.IMMEDIATE);
+    bulkRequest.setRefreshPolicy(refreshPolicy);
 
     try {
       BulkResponse bulkResponse = bulkRequest.execute().actionGet();
+      for (ElasticsearchDocument doc : documents) {
+        recordWrite(doc.getType(), doc.getUID());
+      }
 
       // Check for errors
       if (bulkResponse.hasFailures()) {
@@ -509,7 +922,7 @@ public abstract class AbstractElasticsearchIndex implements SearchIndex {
    */
   protected SearchRequestBuilder getSearchRequestBuilder(SearchQuery query, QueryBuilder queryBuilder) {
 
-    SearchRequestBuilder requestBuilder = getSearchClient().prepareSearch(getIndexName());
+    SearchRequestBuilder requestBuilder = getSearchClient().prepareSearch(getReadIndex());
     requestBuilder.setSearchType(SearchType.QUERY_THEN_FETCH);
     requestBuilder.setPreference("_local");
 
@@ -528,11 +941,18 @@ public abstract class AbstractElasticsearchIndex implements SearchIndex {
     requestBuilder.setTypes(query.getTypes());
 
     // Pagination
-    if (query.getOffset() >= 0)
+    SearchCursor cursor = query.getCursor() != null ? SearchCursor.parse(query) : null;
+    if (cursor != null && cursor.getSortValues() == null)
+      requestBuilder.setFrom(cursor.getPosition());
+    else if (query.getOffset() >= 0 && cursor == null)
       requestBuilder.setFrom(query.getOffset());
 
     int limit = ELASTICSEARCH_INDEX_MAX_RESULT_WINDOW;
-    if (query.getLimit() > 0) {
+    if (cursor != null) {
+      // cursors are not subject to the result window, only the page itself is
+      if (query.getLimit() > 0)
+        limit = Math.min(query.getLimit(), ELASTICSEARCH_INDEX_MAX_RESULT_WINDOW);
+    } else if (query.getLimit() > 0) {
       // limit + offset may not exceed some limit
       // this limit seems to be Integer.MAX_VALUE in elasticsearch v1.3 (as we currently use)
       // elasticsearch version 2.1 onwards documented this behaviour by index.max_result_window
@@ -560,6 +980,13 @@ public abstract class AbstractElasticsearchIndex implements SearchIndex {
       }
     }
 
+    // Cursors continue after the sort values of the last hit, which need to be unique
+    if (cursor != null) {
+      requestBuilder.addSort(CURSOR_TIE_BREAKER, SortOrder.ASC);
+      if (cursor.getSortValues() != null)
+        requestBuilder.searchAfter(cursor.getSortValues());
+    }
+
     return requestBuilder;
   }
 
@@ -72,6 +72,9 @@ public class AbstractSearchQuery implements SearchQuery {
   /** The query limit */
   protected int limit = -1;
 
+  /** The cursor of the page to return */
+  protected String cursor = null;
+
   /** The map with the sort orders */
   private final Map<String, Order> sortOrders = new LinkedHashMap<String, Order>();
 
@@ -182,6 +185,23 @@ public class AbstractSearchQuery implements SearchQuery {
     return offset;
   }
 
+  /**
+   * @see org.opencastproject.matterhorn.search.SearchQuery#withCursor(String)
+   */
+  @Override
+  public SearchQuery withCursor(String cursor) {
+    this.cursor = cursor;
+    return this;
+  }
+
+  /**
+   * @see org.opencastproject.matterhorn.search.SearchQuery#getCursor()
+   */
+  @Override
+  public String getCursor() {
+    return cursor;
+  }
+
   /**
    * @see org.opencastproject.matterhorn.search.SearchQuery#withText(String)
    */
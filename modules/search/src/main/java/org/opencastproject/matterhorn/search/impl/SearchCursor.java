@@ -0,0 +1,197 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+package org.opencastproject.matterhorn.search.impl;
+
+import org.opencastproject.matterhorn.search.SearchQuery;
+import org.opencastproject.matterhorn.search.SearchQuery.Order;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map.Entry;
+
+/**
+ * The position of a page of search results, see {@link SearchQuery#withCursor(String)}.
+ * <p>
+ * A cursor holds the sort values of the last hit of the previous page, which the page continues after. Elasticsearch
+ * cannot continue after missing sort values, so if the last hit has one, the cursor holds the number of hits before
+ * the page instead, which is used as offset. A cursor is only valid for the sort order it has been created with.
+ */
+public final class SearchCursor {
+
+  /** The cursor of the first page */
+  private static final String FIRST_PAGE = "";
+
+  /** The fingerprint of the sort order of the query */
+  private final String sortOrder;
+
+  /** The number of hits before the page */
+  private final int position;
+
+  /** The sort values of the last hit before the page, or <code>null</code> to continue at the position */
+  private final Object[] sortValues;
+
+  private SearchCursor(String sortOrder, int position, Object[] sortValues) {
+    this.sortOrder = sortOrder;
+    this.position = position;
+    this.sortValues = sortValues;
+  }
+
+  /**
+   * Returns the cursor of a query.
+   *
+   * @param query
+   *          the query paging with a cursor
+   * @return the cursor
+   * @throws IllegalArgumentException
+   *           if the cursor is malformed or has been created for a different sort order
+   */
+  public static SearchCursor parse(SearchQuery query) {
+    String cursor = query.getCursor();
+    String sortOrder = getSortOrder(query);
+    if (cursor == null || FIRST_PAGE.equals(cursor))
+      return new SearchCursor(sortOrder, 0, null);
+    try {
+      String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\.", -1);
+      if (parts.length < 2 || !sortOrder.equals(parts[0]))
+        throw new IllegalArgumentException("Cursor " + cursor + " does not match the sort order");
+      int position = Integer.parseInt(parts[1]);
+      if (position < 0)
+        throw new IllegalArgumentException("Malformed cursor " + cursor);
+      if (parts.length == 2)
+        return new SearchCursor(sortOrder, position, null);
+      // The sort values of the sort orders and the tie-breaker
+      if (parts.length != 3 + getSortOrderCount(query))
+        throw new IllegalArgumentException("Cursor " + cursor + " does not match the sort order");
+      Object[] sortValues = new Object[parts.length - 2];
+      for (int i = 0; i < sortValues.length; i++) {
+        String part = parts[i + 2];
+        String value = new String(Base64.getUrlDecoder().decode(part.substring(1)), StandardCharsets.UTF_8);
+        switch (part.charAt(0)) {
+          case 'l':
+            sortValues[i] = Long.valueOf(value);
+            break;
+          case 'd':
+            sortValues[i] = Double.valueOf(value);
+            break;
+          case 'b':
+            sortValues[i] = Boolean.valueOf(value);
+            break;
+          case 's':
+            sortValues[i] = value;
+            break;
+          default:
+            throw new IllegalArgumentException("Malformed cursor " + cursor);
+        }
+      }
+      return new SearchCursor(sortOrder, position, sortValues);
+    } catch (IndexOutOfBoundsException | IllegalArgumentException e) {
+      throw new IllegalArgumentException("Malformed cursor " + cursor, e);
+    }
+  }
+
+  /**
+   * Returns the cursor of the page following this one.
+   *
+   * @param hits
+   *          the number of hits of this page
+   * @param lastSortValues
+   *          the sort values of the last hit of this page
+   * @return the cursor of the next page
+   */
+  public SearchCursor next(int hits, Object[] lastSortValues) {
+    for (Object value : lastSortValues) {
+      if (value == null)
+        return new SearchCursor(sortOrder, position + hits, null);
+    }
+    return new SearchCursor(sortOrder, position + hits, lastSortValues);
+  }
+
+  /**
+   * Returns the number of hits before the page.
+   *
+   * @return the position
+   */
+  public int getPosition() {
+    return position;
+  }
+
+  /**
+   * Returns the sort values the page continues after.
+   *
+   * @return the sort values or <code>null</code> if the page continues at {@link #getPosition()}
+   */
+  public Object[] getSortValues() {
+    return sortValues;
+  }
+
+  /**
+   * Serializes the cursor into an opaque string, which can be passed to {@link SearchQuery#withCursor(String)}.
+   *
+   * @return the cursor
+   */
+  public String serialize() {
+    StringBuilder cursor = new StringBuilder(sortOrder).append('.').append(position);
+    if (sortValues != null) {
+      for (Object value : sortValues) {
+        cursor.append('.');
+        if (value instanceof Long || value instanceof Integer) {
+          cursor.append('l');
+        } else if (value instanceof Double || value instanceof Float) {
+          cursor.append('d');
+        } else if (value instanceof Boolean) {
+          cursor.append('b');
+        } else {
+          cursor.append('s');
+        }
+        cursor.append(Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(value.toString().getBytes(StandardCharsets.UTF_8)));
+      }
+    }
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.toString().getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Returns a short fingerprint of the sort order of a query.
+   */
+  private static String getSortOrder(SearchQuery query) {
+    StringBuilder sortOrder = new StringBuilder();
+    for (Entry<String, Order> entry : query.getSortOrders().entrySet()) {
+      if (entry.getValue() != Order.None)
+        sortOrder.append(entry.getKey()).append(':').append(entry.getValue()).append(',');
+    }
+    return Integer.toHexString(sortOrder.toString().hashCode());
+  }
+
+  /**
+   * Returns the number of fields a query is sorted by.
+   */
+  private static int getSortOrderCount(SearchQuery query) {
+    int count = 0;
+    for (Order order : query.getSortOrders().values()) {
+      if (order != Order.None)
+        count++;
+    }
+    return count;
+  }
+
+}
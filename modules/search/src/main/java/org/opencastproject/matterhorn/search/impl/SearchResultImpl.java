@@ -55,6 +55,9 @@ public class SearchResultImpl<T> implements SearchResult<T> {
   /** The search result */
   protected List<SearchResultItem<T>> result = null;
 
+  /** The cursor of the next page */
+  protected String nextCursor = null;
+
   /**
    * Creates a search result that was created using the given query. Note that <code>hits</code> indicates the overall
    * number of appearances of the search term, while size is equal to the number of documents that contain those
@@ -154,6 +157,25 @@ public class SearchResultImpl<T> implements SearchResult<T> {
     this.time = time;
   }
 
+  /**
+   * Sets the cursor of the next page.
+   *
+   * @param nextCursor
+   *          the cursor
+   */
+  public void setNextCursor(String nextCursor) {
+    this.nextCursor = nextCursor;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @see org.opencastproject.matterhorn.search.SearchResult#getNextCursor()
+   */
+  public String getNextCursor() {
+    return nextCursor;
+  }
+
   /**
    * {@inheritDoc}
    * 
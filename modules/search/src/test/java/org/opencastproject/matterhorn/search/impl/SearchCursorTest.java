@@ -0,0 +1,82 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+package org.opencastproject.matterhorn.search.impl;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.opencastproject.matterhorn.search.SearchQuery;
+import org.opencastproject.matterhorn.search.SearchQuery.Order;
+
+import org.junit.Test;
+
+/**
+ * Test case for {@link SearchCursor}.
+ */
+public class SearchCursorTest {
+
+  private SearchQuery createQuery(String cursor) {
+    return new AbstractSearchQuery("content").withSortOrder("title", Order.Ascending)
+            .withSortOrder("date", Order.Descending).withCursor(cursor);
+  }
+
+  @Test
+  public void testSerialize() {
+    Object[] sortValues = new Object[] { "Title. With dots", 1429175556000L, "content#4fd0ef66" };
+    String cursor = SearchCursor.parse(createQuery("")).next(10, sortValues).serialize();
+
+    SearchCursor parsed = SearchCursor.parse(createQuery(cursor));
+    assertEquals(10, parsed.getPosition());
+    assertArrayEquals(sortValues, parsed.getSortValues());
+
+    Object[] otherValues = new Object[] { 0.5, true, "content#4fd0ef67" };
+    cursor = parsed.next(10, otherValues).serialize();
+    parsed = SearchCursor.parse(createQuery(cursor));
+    assertEquals(20, parsed.getPosition());
+    assertArrayEquals(otherValues, parsed.getSortValues());
+  }
+
+  @Test
+  public void testMissingSortValue() {
+    // Elasticsearch cannot continue after a missing value, so the cursor continues at the position
+    String cursor = SearchCursor.parse(createQuery("")).next(10, new Object[] { null, 1L, "content#1" }).serialize();
+    SearchCursor parsed = SearchCursor.parse(createQuery(cursor));
+    assertEquals(10, parsed.getPosition());
+    assertNull(parsed.getSortValues());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testMalformedCursor() {
+    SearchCursor.parse(createQuery("not a cursor"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testDifferentSortOrder() {
+    String cursor = SearchCursor.parse(createQuery("")).next(10, new Object[] { "title", 1L, "content#1" })
+            .serialize();
+    SearchCursor.parse(new AbstractSearchQuery("content").withSortOrder("title", Order.Descending)
+            .withSortOrder("date", Order.Descending).withCursor(cursor));
+  }
+
+}
@@ -22,12 +22,24 @@
 
 package org.opencastproject.matterhorn.search.impl;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.opencastproject.matterhorn.search.impl.SearchIndexImplStub.CONTENT_TYPE;
 
 import org.opencastproject.matterhorn.search.SearchMetadata;
+import org.opencastproject.matterhorn.search.SearchQuery;
+import org.opencastproject.matterhorn.search.SearchQuery.Order;
 
+import org.elasticsearch.action.support.WriteRequest;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.sort.FieldSortBuilder;
+import org.elasticsearch.search.sort.SortBuilder;
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
@@ -38,7 +50,12 @@ import org.junit.rules.TemporaryFolder;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Test case for {@link AbstractElasticsearchIndex}.
@@ -108,6 +125,136 @@ public class SearchIndexTest {
     assertEquals(indexVersion, idx.getIndexVersion());
   }
 
+  @Test
+  public void testRebuildInShadowIndex() throws Exception {
+    populateIndex();
+    assertNull(idx.findShadowIndex());
+
+    String shadow = idx.createShadowIndex();
+    assertEquals(Arrays.asList(indexName, shadow), idx.getWriteIndices());
+    ElasticsearchDocument doc = new ElasticsearchDocument("rebuilt", CONTENT_TYPE,
+            new ArrayList<SearchMetadata<?>>());
+    idx.update(doc);
+    assertTrue(idx.getSearchClient().prepareGet(shadow, CONTENT_TYPE, "rebuilt").get().isExists());
+    assertFalse(idx.getSearchClient().prepareGet(shadow, CONTENT_TYPE, "0").get().isExists());
+
+    // A writer reading from the shadow index only writes to it
+    idx.setTarget(shadow);
+    try {
+      assertEquals(Collections.singletonList(shadow), idx.getWriteIndices());
+      idx.update(new ElasticsearchDocument("shadow-only", CONTENT_TYPE, new ArrayList<SearchMetadata<?>>()));
+    } finally {
+      idx.setTarget(null);
+    }
+    assertTrue(idx.getSearchClient().prepareGet(shadow, CONTENT_TYPE, "shadow-only").get().isExists());
+    assertFalse(idx.getSearchClient().prepareGet(indexName, CONTENT_TYPE, "shadow-only").get().isExists());
+
+    // An interrupted rebuild keeps receiving writes and is found again along with its progress
+    idx.storeRebuildCheckpoint(shadow, Arrays.asList("Series", "Themes"));
+    assertEquals(Arrays.asList(indexName, shadow), idx.getWriteIndices());
+    assertEquals(shadow, idx.findShadowIndex());
+    idx.resumeShadowIndex(shadow);
+    assertEquals(Arrays.asList("Series", "Themes"), idx.loadRebuildCheckpoint(shadow));
+
+    idx.switchToShadowIndex();
+    assertNull(idx.getShadowIndex());
+    assertNull(idx.findShadowIndex());
+    assertEquals(Collections.singletonList(indexName), idx.getWriteIndices());
+    assertTrue(idx.getSearchClient().prepareGet(indexName, CONTENT_TYPE, "rebuilt").get().isExists());
+    assertFalse(idx.getSearchClient().prepareGet(indexName, CONTENT_TYPE, "0").get().isExists());
+    assertEquals(indexVersion, idx.getIndexVersion());
+
+    // A rebuilt index left over after being replaced is not mistaken for the shadow index of an interrupted rebuild
+    String replacement = indexName + "_replacement";
+    idx.getSearchClient().admin().indices().prepareCreate(replacement).get();
+    idx.getSearchClient().admin().indices().prepareAliases().removeAlias(shadow, indexName)
+            .addAlias(replacement, indexName).get();
+    assertNull(idx.findShadowIndex());
+    assertFalse(idx.getSearchClient().admin().indices().prepareExists(shadow).get().isExists());
+  }
+
+  @Test
+  public void testRefreshPolicyNone() throws Exception {
+    // Without the periodic refresh, documents only become searchable by an explicit refresh
+    setRefreshInterval("-1");
+    idx.setRefreshPolicy(WriteRequest.RefreshPolicy.NONE);
+    try {
+      // Writes of other threads are seen as well, e.g. of the threads processing the partitions of a message batch
+      ExecutorService executor = Executors.newSingleThreadExecutor();
+      try {
+        executor.submit(new Callable<Integer>() {
+          @Override
+          public Integer call() throws Exception {
+            return populateIndex();
+          }
+        }).get();
+      } finally {
+        executor.shutdown();
+      }
+      assertEquals(0, countContent());
+      idx.awaitWrite(CONTENT_TYPE, "5");
+      assertEquals(10, countContent());
+
+      // Reading a document which has not been written since does not refresh the index
+      idx.delete(CONTENT_TYPE, "0");
+      idx.awaitWrite(CONTENT_TYPE, "5");
+      idx.awaitWrite("other", "0");
+      assertEquals(10, countContent());
+      idx.awaitWrite(CONTENT_TYPE, "0");
+      assertEquals(9, countContent());
+    } finally {
+      idx.setRefreshPolicy(WriteRequest.RefreshPolicy.IMMEDIATE);
+      setRefreshInterval("1s");
+    }
+  }
+
+  /**
+   * Test method for
+   * {@link AbstractElasticsearchIndex#getSearchRequestBuilder(org.opencastproject.matterhorn.search.SearchQuery,
+   * org.elasticsearch.index.query.QueryBuilder)} with cursors.
+   */
+  @Test
+  public void testCursorRequest() throws Exception {
+    SearchQuery query = new AbstractSearchQuery(CONTENT_TYPE).withSortOrder("title", Order.Ascending).withLimit(5)
+            .withCursor("");
+    SearchSourceBuilder source = idx.getSearchRequestBuilder(query, QueryBuilders.matchAllQuery()).request().source();
+    assertEquals(Arrays.asList("title", "_uid"), getSortFields(source));
+    assertNull(source.searchAfter());
+    assertEquals(5, source.size());
+
+    // The next page continues after the sort values of the last hit
+    Object[] lastSortValues = new Object[] { "Test entry 5", CONTENT_TYPE + "#4" };
+    query.withCursor(SearchCursor.parse(query).next(5, lastSortValues).serialize());
+    source = idx.getSearchRequestBuilder(query, QueryBuilders.matchAllQuery()).request().source();
+    assertEquals(Arrays.asList("title", "_uid"), getSortFields(source));
+    assertArrayEquals(lastSortValues, source.searchAfter());
+    assertEquals(-1, source.from());
+
+    // A missing sort value cannot be continued after, so the page continues at its position
+    query.withCursor(SearchCursor.parse(query).next(5, new Object[] { null, CONTENT_TYPE + "#4" }).serialize());
+    source = idx.getSearchRequestBuilder(query, QueryBuilders.matchAllQuery()).request().source();
+    assertNull(source.searchAfter());
+    assertEquals(10, source.from());
+  }
+
+  private List<String> getSortFields(SearchSourceBuilder source) {
+    List<String> fields = new ArrayList<String>();
+    for (SortBuilder<?> sort : source.sorts()) {
+      fields.add(((FieldSortBuilder) sort).getFieldName());
+    }
+    return fields;
+  }
+
+  private void setRefreshInterval(String interval) {
+    idx.getSearchClient().admin().indices().prepareUpdateSettings(indexName)
+            .setSettings(Settings.builder().put("index.refresh_interval", interval)).get();
+  }
+
+  private long countContent() {
+    return idx.getSearchClient().prepareSearch(indexName).setTypes(CONTENT_TYPE).setSize(0).get().getHits()
+            .getTotalHits();
+  }
+
   /**
    * Adds sample pages to the search index and returns the number of documents added.
    *
@@ -38,6 +38,7 @@ import static org.opencastproject.util.OsgiUtil.getOptContextProperty;
 
 import org.opencastproject.job.api.Job;
 import org.opencastproject.job.api.Job.Status;
+import org.opencastproject.job.api.JobImpl;
 import org.opencastproject.job.jpa.JpaJob;
 import org.opencastproject.rest.RestConstants;
 import org.opencastproject.security.api.Organization;
@@ -50,6 +51,7 @@ import org.opencastproject.security.api.UserDirectoryService;
 import org.opencastproject.serviceregistry.api.HostRegistration;
 import org.opencastproject.serviceregistry.api.IncidentService;
 import org.opencastproject.serviceregistry.api.Incidents;
+import org.opencastproject.serviceregistry.api.JobQuery;
 import org.opencastproject.serviceregistry.api.JaxbServiceStatistics;
 import org.opencastproject.serviceregistry.api.ServiceRegistration;
 import org.opencastproject.serviceregistry.api.ServiceRegistry;
@@ -104,8 +106,10 @@ import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
@@ -180,6 +184,10 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
   /** Configuration key for the retrieval of service statistics: Do not consider jobs older than max_job_age (in days) */
   protected static final String OPT_SERVICE_STATISTICS_MAX_JOB_AGE = "org.opencastproject.statistics.services.max_job_age";
 
+  /** Configuration key for the interval to reconcile the service statistics with the database (in seconds) */
+  protected static final String OPT_SERVICE_STATISTICS_RECONCILE_INTERVAL
+          = "org.opencastproject.statistics.services.reconcile_interval";
+
   /** The http client to use when connecting to remote servers */
   protected TrustedHttpClient client = null;
 
@@ -202,6 +210,9 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
   /** Default setting on service statistics retrieval */
   static final int DEFAULT_SERVICE_STATISTICS_MAX_JOB_AGE = 14;
 
+  /** Default interval to reconcile the service statistics with the database, in seconds */
+  static final long DEFAULT_SERVICE_STATISTICS_RECONCILE_INTERVAL = 30;
+
   /** Default value for {@link #maxAttemptsBeforeErrorState} */
   private static final int MAX_FAILURE_BEFORE_ERROR_STATE = 1;
 
@@ -249,6 +260,18 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
   /** Maximum age of jobs being considering for service statistics */
   protected int maxJobAge = DEFAULT_SERVICE_STATISTICS_MAX_JOB_AGE;
 
+  /** Interval to reconcile the service statistics with the database, in seconds */
+  protected long statisticsReconcileInterval = DEFAULT_SERVICE_STATISTICS_RECONCILE_INTERVAL;
+
+  /** The service statistics, updated on job state transitions */
+  private final ServiceStatisticsCounters statisticsCounters = new ServiceStatisticsCounters();
+
+  /** The number of reconciliation intervals without a statistics request after which reconciliation is paused */
+  static final int SERVICE_STATISTICS_IDLE_INTERVALS = 10;
+
+  /** Lock making sure only one service statistics reconciliation runs at a time */
+  private final Object statisticsReconcileLock = new Object();
+
   /** A static list of statuses that influence how load balancing is calculated */
   protected static final List<Status> JOB_STATUSES_INFLUENCING_LOAD_BALANCING;
 
@@ -636,6 +659,7 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
       }
 
       tx.commit();
+      reconcileServiceStatisticsLater();
       logger.debug("Jobs with IDs '{}' deleted", jobIds);
     } finally {
       if (em != null)
@@ -800,6 +824,19 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
       }
     }
 
+    String reconcileIntervalString = StringUtils.trimToNull(
+            (String) properties.get(OPT_SERVICE_STATISTICS_RECONCILE_INTERVAL));
+    if (reconcileIntervalString != null) {
+      try {
+        statisticsReconcileInterval = Math.max(0, Long.parseLong(reconcileIntervalString));
+        logger.info("Set service statistics reconciliation interval to {} seconds", statisticsReconcileInterval);
+      } catch (NumberFormatException e) {
+        logger.warn("Can not set service statistics reconciliation interval to {}. {} must be an integer",
+                reconcileIntervalString, OPT_SERVICE_STATISTICS_RECONCILE_INTERVAL);
+      }
+    }
+    statisticsCounters.invalidate();
+
     long dispatchDelay = DEFAULT_DISPATCH_START_DELAY;
 
     // Stop the current scheduled executors so we can configure new ones
@@ -808,7 +845,7 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
       dispatchDelay = dispatchInterval;
     }
 
-    scheduledExecutor = Executors.newScheduledThreadPool(2);
+    scheduledExecutor = Executors.newScheduledThreadPool(3);
 
     // Schedule the service heartbeat if the interval is > 0
     if (heartbeatInterval > 0) {
@@ -823,6 +860,13 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
       scheduledExecutor.scheduleWithFixedDelay(new JobDispatcher(), dispatchDelay, dispatchInterval,
               TimeUnit.MILLISECONDS);
     }
+
+    // Schedule the reconciliation of the service statistics with the database
+    if (statisticsReconcileInterval > 0) {
+      logger.debug("Starting service statistics reconciliation at an interval of {}s", statisticsReconcileInterval);
+      scheduledExecutor.scheduleWithFixedDelay(new ServiceStatisticsReconciler(), 0, statisticsReconcileInterval,
+              TimeUnit.SECONDS);
+    }
   }
 
   /**
@@ -997,10 +1041,12 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
       if (fromDb == null) {
         throw new NoResultException();
       }
+      ServiceRegistrationJpaImpl originalService = fromDb.getProcessorServiceRegistration();
       update(fromDb, job);
 
       em.merge(fromDb);
       tx.commit();
+      updateServiceStatistics(originalJob, originalService, fromDb);
       job.setVersion(fromDb.toJob().getVersion());
       setJobUri(job);
       return job;
@@ -1013,6 +1059,51 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
     }
   }
 
+  /**
+   * Moves a job between the service statistics counters if its status or processing service changed.
+   *
+   * @param originalJob
+   *          the job before the update
+   * @param originalService
+   *          the processing service before the update
+   * @param job
+   *          the updated job
+   */
+  private void updateServiceStatistics(JpaJob originalJob, ServiceRegistrationJpaImpl originalService, JpaJob job) {
+    Long originalServiceId = originalService == null ? null : originalService.getId();
+    ServiceRegistrationJpaImpl service = job.getProcessorServiceRegistration();
+    Long serviceId = service == null ? null : service.getId();
+    if (originalJob.getStatus() == job.getStatus() && Objects.equals(originalServiceId, serviceId))
+      return;
+    statisticsCounters.transition(originalServiceId, originalJob.getStatus(), originalJob.getQueueTime(),
+            originalJob.getRunTime(), serviceId, job.getStatus(), job.getQueueTime(), job.getRunTime());
+  }
+
+  /**
+   * Applies the committed status changes of several jobs to the service statistics counters.
+   *
+   * @param transitions
+   *          the status changes
+   */
+  private void updateServiceStatistics(List<StatisticsTransition> transitions) {
+    for (StatisticsTransition transition : transitions) {
+      updateServiceStatistics(transition.originalJob, transition.originalService, transition.job);
+    }
+  }
+
+  /** The state of a job before it is changed outside of {@link #updateInternal(EntityManager, JpaJob)} */
+  private static final class StatisticsTransition {
+    private final JpaJob originalJob;
+    private final ServiceRegistrationJpaImpl originalService;
+    private final JpaJob job;
+
+    private StatisticsTransition(JpaJob job) {
+      this.originalJob = JpaJob.from(job.toJob());
+      this.originalService = job.getProcessorServiceRegistration();
+      this.job = job;
+    }
+  }
+
   private void dumpJobs(JpaJob originalJob, JpaJob fromDb) {
     try {
       if (originalJob == null) {
@@ -1468,6 +1559,7 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
       query.setParameter("statuses", statuses);
       @SuppressWarnings("unchecked")
       List<JpaJob> undispatchableJobs = query.getResultList();
+      List<StatisticsTransition> transitions = new ArrayList<StatisticsTransition>();
       for (JpaJob job : undispatchableJobs) {
         // Make sure the job was processed on this host
         String jobHost = "";
@@ -1479,11 +1571,13 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
 
         } else {
           logger.info("Cancelling the running undispatchable job {}, it was orphaned on this host", job);
+          transitions.add(new StatisticsTransition(job));
           job.setStatus(Status.CANCELED);
           em.merge(job);
         }
       }
       tx.commit();
+      updateServiceStatistics(transitions);
     } catch (Exception e) {
       logger.error("Unable to clean undispatchable jobs! {}", e.getMessage());
       if (tx != null && tx.isActive()) {
@@ -1523,6 +1617,7 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
       query.setParameter("serviceType", serviceType);
 
       List<JpaJob> unregisteredJobs = query.getResultList();
+      List<StatisticsTransition> transitions = new ArrayList<StatisticsTransition>();
       for (JpaJob job : unregisteredJobs) {
         if (job.isDispatchable()) {
           em.refresh(job);
@@ -1531,7 +1626,8 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
             continue;
           if (job.getRootJob() != null && Status.PAUSED.equals(job.getRootJob().getStatus())) {
             JpaJob rootJob = job.getRootJob();
-            cancelAllChildren(rootJob, em);
+            cancelAllChildren(rootJob, em, transitions);
+            transitions.add(new StatisticsTransition(rootJob));
             rootJob.setStatus(Status.RESTART);
             rootJob.setOperation(START_OPERATION);
             em.merge(rootJob);
@@ -1539,17 +1635,20 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
           }
 
           logger.info("Marking child jobs from job {} as canceled", job);
-          cancelAllChildren(job, em);
+          cancelAllChildren(job, em, transitions);
           logger.info("Rescheduling lost job {}", job);
+          transitions.add(new StatisticsTransition(job));
           job.setStatus(Status.RESTART);
           job.setProcessorServiceRegistration(null);
         } else {
           logger.info("Marking lost job {} as failed", job);
+          transitions.add(new StatisticsTransition(job));
           job.setStatus(Status.FAILED);
         }
         em.merge(job);
       }
       tx.commit();
+      updateServiceStatistics(transitions);
     } catch (Exception e) {
       if (tx != null && tx.isActive()) {
         tx.rollback();
@@ -1568,13 +1667,16 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
    *          the parent job
    * @param em
    *          the entity manager
+   * @param transitions
+   *          the status changes to apply to the service statistics once they are committed
    */
-  private void cancelAllChildren(JpaJob job, EntityManager em) {
+  private void cancelAllChildren(JpaJob job, EntityManager em, List<StatisticsTransition> transitions) {
     for (JpaJob child : job.getChildJobs()) {
       em.refresh(child);
       if (Status.CANCELED.equals(job.getStatus()))
         continue;
-      cancelAllChildren(child, em);
+      cancelAllChildren(child, em, transitions);
+      transitions.add(new StatisticsTransition(child));
       child.setStatus(Status.CANCELED);
       em.merge(child);
     }
@@ -1814,6 +1916,205 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
     }
   }
 
+  /** The entities joined by job queries */
+  private static final String JOB_QUERY_FROM = " FROM Job j LEFT JOIN j.creatorServiceRegistration cs"
+          + " LEFT JOIN cs.hostRegistration ch LEFT JOIN j.processorServiceRegistration ps"
+          + " LEFT JOIN ps.hostRegistration ph LEFT JOIN j.parentJob pj LEFT JOIN j.rootJob rj";
+
+  /** The job properties loaded by job queries without payloads */
+  private static final String JOB_QUERY_PROJECTION = "j.id, j.creator, j.organization, j.version,"
+          + " COALESCE(ps.serviceType, cs.serviceType), j.operation, j.status, ch.baseUrl, ph.baseUrl, j.dateCreated,"
+          + " j.dateStarted, j.dateCompleted, j.queueTime, j.runTime, pj.id, rj.id, j.dispatchable, j.jobLoad";
+
+  /**
+   * {@inheritDoc}
+   *
+   * @see org.opencastproject.serviceregistry.api.ServiceRegistry#getJobs(JobQuery)
+   */
+  @Override
+  public List<Job> getJobs(JobQuery jobQuery) throws ServiceRegistryException {
+    Map<String, Object> parameters = new HashMap<>();
+    String condition = getJobQueryCondition(jobQuery, parameters);
+    String order = getJobQuerySortField(jobQuery.getSort()) + (jobQuery.isSortAscending() ? " ASC" : " DESC");
+    String idOrder = jobQuery.isSortAscending() ? "j.id ASC" : "j.id DESC";
+    String select = jobQuery.isWithPayload() ? "SELECT j" : "SELECT " + JOB_QUERY_PROJECTION;
+    EntityManager em = null;
+    try {
+      em = emf.createEntityManager();
+      Query query = em.createQuery(select + JOB_QUERY_FROM + condition + " ORDER BY " + order + ", " + idOrder);
+      for (Map.Entry<String, Object> parameter : parameters.entrySet()) {
+        query.setParameter(parameter.getKey(), parameter.getValue());
+      }
+      if (jobQuery.getOffset() > 0)
+        query.setFirstResult(jobQuery.getOffset());
+      if (jobQuery.getLimit() > 0)
+        query.setMaxResults(jobQuery.getLimit());
+
+      List<Job> jobs = new ArrayList<>();
+      for (Object row : query.getResultList()) {
+        if (row instanceof JpaJob) {
+          jobs.add(setJobUri((JpaJob) row).toJob());
+        } else {
+          jobs.add(toJob((Object[]) row));
+        }
+      }
+      return jobs;
+    } catch (Exception e) {
+      throw new ServiceRegistryException(e);
+    } finally {
+      if (em != null)
+        em.close();
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @see org.opencastproject.serviceregistry.api.ServiceRegistry#countJobs(JobQuery)
+   */
+  @Override
+  public long countJobs(JobQuery jobQuery) throws ServiceRegistryException {
+    Map<String, Object> parameters = new HashMap<>();
+    String condition = getJobQueryCondition(jobQuery, parameters);
+    EntityManager em = null;
+    try {
+      em = emf.createEntityManager();
+      Query query = em.createQuery("SELECT COUNT(j)" + JOB_QUERY_FROM + condition);
+      for (Map.Entry<String, Object> parameter : parameters.entrySet()) {
+        query.setParameter(parameter.getKey(), parameter.getValue());
+      }
+      return ((Number) query.getSingleResult()).longValue();
+    } catch (Exception e) {
+      throw new ServiceRegistryException(e);
+    } finally {
+      if (em != null)
+        em.close();
+    }
+  }
+
+  /**
+   * Creates the where clause for the filters and the keyset of a job query.
+   *
+   * @param jobQuery
+   *          the job query
+   * @param parameters
+   *          the query parameters, which are added to
+   * @return the where clause, which is empty if there are no filters
+   */
+  private static String getJobQueryCondition(JobQuery jobQuery, Map<String, Object> parameters) {
+    final String jobType = "COALESCE(ps.serviceType, cs.serviceType)";
+    List<String> conditions = new ArrayList<>();
+    if (!jobQuery.getIds().isEmpty()) {
+      conditions.add("j.id IN :ids");
+      parameters.put("ids", jobQuery.getIds());
+    }
+    if (jobQuery.getJobType() != null) {
+      conditions.add(jobType + " = :jobType");
+      parameters.put("jobType", jobQuery.getJobType());
+    }
+    if (jobQuery.getProcessingHost() != null) {
+      conditions.add("LOWER(ph.baseUrl) = :processingHost");
+      parameters.put("processingHost", jobQuery.getProcessingHost().toLowerCase());
+    }
+    if (jobQuery.getCreator() != null) {
+      conditions.add("LOWER(j.creator) = :creator");
+      parameters.put("creator", jobQuery.getCreator().toLowerCase());
+    }
+    if (!jobQuery.getStatuses().isEmpty()) {
+      List<Integer> statuses = new ArrayList<>();
+      for (Status status : jobQuery.getStatuses()) {
+        statuses.add(status.ordinal());
+      }
+      conditions.add("j.status IN :statuses");
+      parameters.put("statuses", statuses);
+    }
+    for (int i = 0; i < jobQuery.getExcludedOperations().size(); i++) {
+      conditions.add("(j.operation IS NULL OR j.operation <> :excludedOperation" + i + ")");
+      parameters.put("excludedOperation" + i, jobQuery.getExcludedOperations().get(i));
+    }
+    if (jobQuery.getText() != null) {
+      String text = jobQuery.getText();
+      List<String> matches = new ArrayList<>();
+      matches.add("LOWER(ph.baseUrl) = :text");
+      matches.add("LOWER(" + jobType + ") = :text");
+      matches.add("LOWER(j.operation) = :text");
+      matches.add("LOWER(j.creator) = :text");
+      parameters.put("text", text.toLowerCase());
+      for (Status status : Status.values()) {
+        if (status.toString().equalsIgnoreCase(text)) {
+          matches.add("j.status = :textStatus");
+          parameters.put("textStatus", status.ordinal());
+        }
+      }
+      if (text.matches("\\d{1,18}")) {
+        matches.add("j.id = :textId");
+        matches.add("rj.id = :textId");
+        parameters.put("textId", Long.parseLong(text));
+      }
+      conditions.add("(" + StringUtils.join(matches, " OR ") + ")");
+    }
+    Job after = jobQuery.getAfter();
+    if (after != null) {
+      String field = getJobQuerySortField(jobQuery.getSort());
+      String comparison = jobQuery.isSortAscending() ? " > " : " < ";
+      conditions.add("(" + field + comparison + ":afterValue OR (" + field + " = :afterValue AND j.id" + comparison
+              + ":afterId))");
+      parameters.put("afterValue", jobQuery.getSortValue(after));
+      parameters.put("afterId", after.getId());
+    }
+    return conditions.isEmpty() ? "" : " WHERE " + StringUtils.join(conditions, " AND ");
+  }
+
+  /**
+   * Returns the query expression of a job sort field.
+   *
+   * @param sort
+   *          the sort field
+   * @return the expression
+   */
+  private static String getJobQuerySortField(JobQuery.Sort sort) {
+    switch (sort) {
+      case ID:
+        return "j.id";
+      case TYPE:
+        return "COALESCE(ps.serviceType, cs.serviceType)";
+      case OPERATION:
+        return "j.operation";
+      case STATUS:
+        return "j.status";
+      case CREATOR:
+        return "j.creator";
+      case PROCESSING_HOST:
+        return "ph.baseUrl";
+      case DATE_STARTED:
+        return "j.dateStarted";
+      case DATE_CREATED:
+      default:
+        return "j.dateCreated";
+    }
+  }
+
+  /**
+   * Creates a job without payload and arguments from the properties loaded by a job query.
+   *
+   * @param row
+   *          the properties, in the order of {@link #JOB_QUERY_PROJECTION}
+   * @return the job
+   */
+  private Job toJob(Object[] row) {
+    long id = ((Number) row[0]).longValue();
+    URI uri = null;
+    try {
+      uri = new URI(jobHost + "/services/job/" + id + ".xml");
+    } catch (URISyntaxException e) {
+      logger.warn("Can not set the job URI", e);
+    }
+    return new JobImpl(id, (String) row[1], (String) row[2], ((Number) row[3]).longValue(), (String) row[4],
+            (String) row[5], new ArrayList<String>(), Status.values()[((Number) row[6]).intValue()], (String) row[7],
+            (String) row[8], (Date) row[9], (Date) row[10], (Date) row[11], (Long) row[12], (Long) row[13], null,
+            (Long) row[14], (Long) row[15], (Boolean) row[16], uri, (Float) row[17]);
+  }
+
   /**
    * Get the list of jobs with status from the given statuses.
    *
@@ -2068,78 +2369,24 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
    */
   @Override
   public List<ServiceStatistics> getServiceStatistics() throws ServiceRegistryException {
-    Date now = new Date();
-    return getServiceStatistics(
-             DateUtils.addDays(now, -maxJobAge),
-             DateUtils.addDays(now, 1)); // Avoid glitches around 'now' by setting the endDate to 'tomorrow'
-  }
-
-  /**
-   * Gets performance and runtime statistics for each known service registration.
-   * For the statistics, only jobs created within the time interval [startDate, endDate] are being considered
-   *
-   * @param startDate
-   *          Only jobs created after this data are considered for statistics
-   * @param endDate
-   *          Only jobs created before this data are considered for statistics
-   * @return the service statistics
-   * @throws ServiceRegistryException
-   *           if there is a problem accessing the service registry
-   */
-  private List<ServiceStatistics> getServiceStatistics(Date startDate, Date endDate) throws ServiceRegistryException {
     EntityManager em = null;
     try {
       em = emf.createEntityManager();
-      Map<Long, JaxbServiceStatistics> statsMap = new HashMap<Long, JaxbServiceStatistics>();
+      statisticsCounters.request();
+      // The counters are reconciled in the background, unless they have never been or this is disabled
+      if (statisticsReconcileInterval == 0 || !statisticsCounters.isReconciled()) {
+        reconcileServiceStatistics(em);
+      }
 
       // Make sure we also include the services that have no processing history so far
+      List<ServiceStatistics> stats = new ArrayList<ServiceStatistics>();
       List<ServiceRegistrationJpaImpl> services = em.createNamedQuery("ServiceRegistration.getAll").getResultList();
       for (ServiceRegistrationJpaImpl s : services) {
-        statsMap.put(s.getId(), new JaxbServiceStatistics(s));
-      }
-
-      Query query = em.createNamedQuery("ServiceRegistration.statistics");
-      query.setParameter("minDateCreated", startDate, TemporalType.TIMESTAMP);
-      query.setParameter("maxDateCreated", endDate, TemporalType.TIMESTAMP);
-
-      List queryResults = query.getResultList();
-      for (Object result : queryResults) {
-        Object[] oa = (Object[]) result;
-        Number serviceRegistrationId = ((Number) oa[0]);
-        if (serviceRegistrationId == null || serviceRegistrationId.longValue() == 0)
-          continue;
-        Status status = Status.values()[((Number) oa[1]).intValue()];
-        Number count = (Number) oa[2];
-        Number meanQueueTime = (Number) oa[3];
-        Number meanRunTime = (Number) oa[4];
-
-        // The statistics query returns a cartesian product, so we need to iterate over them to build up the objects
-        JaxbServiceStatistics stats = statsMap.get(serviceRegistrationId.longValue());
-        if (stats == null)
-          continue;
-
-        // the status will be null if there are no jobs at all associated with this service registration
-        if (status != null) {
-          switch (status) {
-            case RUNNING:
-              stats.setRunningJobs(count.intValue());
-              break;
-            case QUEUED:
-            case DISPATCHING:
-              stats.setQueuedJobs(count.intValue());
-              break;
-            case FINISHED:
-              stats.setMeanRunTime(meanRunTime.longValue());
-              stats.setMeanQueueTime(meanQueueTime.longValue());
-              stats.setFinishedJobs(count.intValue());
-              break;
-            default:
-              break;
-          }
-        }
+        JaxbServiceStatistics serviceStats = new JaxbServiceStatistics(s);
+        statisticsCounters.apply(s.getId(), serviceStats);
+        stats.add(serviceStats);
       }
 
-      List<ServiceStatistics> stats = new ArrayList<ServiceStatistics>(statsMap.values());
       Collections.sort(stats, new Comparator<ServiceStatistics>() {
         @Override
         public int compare(ServiceStatistics o1, ServiceStatistics o2) {
@@ -2159,6 +2406,48 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
     }
   }
 
+  /**
+   * Reconciles the service statistics counters with the jobs in the database. Only jobs created within the last
+   * {@link #maxJobAge} days are being considered.
+   *
+   * @param em
+   *          the entity manager
+   */
+  private void reconcileServiceStatistics(EntityManager em) {
+    synchronized (statisticsReconcileLock) {
+      // Status changes made while the query runs are applied again to its results
+      statisticsCounters.startReconcile();
+      Date now = new Date();
+      Query query = em.createNamedQuery("ServiceRegistration.statistics");
+      query.setParameter("minDateCreated", DateUtils.addDays(now, -maxJobAge), TemporalType.TIMESTAMP);
+      // Avoid glitches around 'now' by setting the endDate to 'tomorrow'
+      query.setParameter("maxDateCreated", DateUtils.addDays(now, 1), TemporalType.TIMESTAMP);
+      try {
+        List<Object[]> results = query.getResultList();
+        statisticsCounters.reconcile(results);
+      } catch (RuntimeException e) {
+        statisticsCounters.invalidate();
+        throw e;
+      }
+    }
+  }
+
+  /**
+   * Reconciles the service statistics counters with the database in the background, or marks them as stale if there
+   * is no background reconciliation.
+   */
+  private void reconcileServiceStatisticsLater() {
+    if (scheduledExecutor == null || statisticsReconcileInterval == 0) {
+      statisticsCounters.invalidate();
+      return;
+    }
+    try {
+      scheduledExecutor.execute(new ServiceStatisticsReconciler());
+    } catch (RejectedExecutionException e) {
+      statisticsCounters.invalidate();
+    }
+  }
+
   /**
    * Do not look at this, it will burn your eyes! This is due to JPA's inability to do a left outer join with join
    * conditions.
@@ -3263,6 +3552,41 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
 
   }
 
+  /**
+   * Reconciles the service statistics counters with the database, which accounts for jobs handled by other nodes,
+   * deleted jobs and jobs leaving the statistics time window.
+   */
+  class ServiceStatisticsReconciler implements Runnable {
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see java.lang.Runnable#run()
+     */
+    @Override
+    public void run() {
+      // Skip the query while nobody looks at the statistics, they are reconciled again when they are requested next
+      long idle = TimeUnit.SECONDS.toMillis(statisticsReconcileInterval * SERVICE_STATISTICS_IDLE_INTERVALS);
+      if (!statisticsCounters.isRequested(idle)) {
+        statisticsCounters.invalidate();
+        return;
+      }
+      logger.debug("Reconciling service statistics");
+      EntityManager em = null;
+      try {
+        em = emf.createEntityManager();
+        reconcileServiceStatistics(em);
+      } catch (Exception e) {
+        logger.warn("Unable to reconcile the service statistics: {}", e.getMessage());
+        statisticsCounters.invalidate();
+      } finally {
+        if (em != null)
+          em.close();
+      }
+    }
+
+  }
+
   /** A periodic check on each service registration to ensure that it is still alive. */
   class JobProducerHeartbeat implements Runnable {
 
@@ -0,0 +1,266 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+package org.opencastproject.serviceregistry.impl;
+
+import org.opencastproject.job.api.Job.Status;
+import org.opencastproject.serviceregistry.api.JaxbServiceStatistics;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Job counters and run and queue times of each service registration.
+ * <p>
+ * The counters are updated on every job state transition handled by this service registry and reconciled with the
+ * job table from time to time, which accounts for transitions handled by other nodes, deleted jobs and jobs leaving
+ * the statistics time window. Like the statistics query, only jobs assigned to a service registration are counted.
+ * <p>
+ * Transitions made while the statistics query runs may or may not be part of its results, so they are recorded from
+ * {@link #startReconcile()} on and applied again to the results in {@link #reconcile(List)}. This may count a job whose
+ * state change has been committed just before the query started twice until the next reconciliation, but no state
+ * change is lost.
+ */
+class ServiceStatisticsCounters {
+
+  /** The counters of a single service registration */
+  private static final class Counters {
+    private long queued = 0;
+    private long running = 0;
+    private long finished = 0;
+    private long queueTime = 0;
+    private long runTime = 0;
+  }
+
+  /** A job state transition, see {@link ServiceStatisticsCounters#transition} */
+  private static final class Transition {
+    private final Long fromService;
+    private final Status fromStatus;
+    private final Long fromQueueTime;
+    private final Long fromRunTime;
+    private final Long toService;
+    private final Status toStatus;
+    private final Long toQueueTime;
+    private final Long toRunTime;
+
+    private Transition(Long fromService, Status fromStatus, Long fromQueueTime, Long fromRunTime, Long toService,
+            Status toStatus, Long toQueueTime, Long toRunTime) {
+      this.fromService = fromService;
+      this.fromStatus = fromStatus;
+      this.fromQueueTime = fromQueueTime;
+      this.fromRunTime = fromRunTime;
+      this.toService = toService;
+      this.toStatus = toStatus;
+      this.toQueueTime = toQueueTime;
+      this.toRunTime = toRunTime;
+    }
+  }
+
+  /** The counters by service registration id */
+  private final Map<Long, Counters> counters = new HashMap<Long, Counters>();
+
+  /** Time of the last reconciliation in milliseconds, or -1 if the counters have to be reconciled */
+  private long reconciled = -1;
+
+  /** Time the statistics have last been requested in milliseconds, or -1 if they have never been requested */
+  private long requested = -1;
+
+  /** The transitions made since the current reconciliation started, or <code>null</code> if none is running */
+  private List<Transition> pendingTransitions = null;
+
+  /**
+   * Returns whether the counters have been reconciled with the database.
+   *
+   * @return <code>false</code> if the counters have never been reconciled or have been invalidated since
+   */
+  synchronized boolean isReconciled() {
+    return reconciled >= 0;
+  }
+
+  /**
+   * Marks the counters as stale, so they are reconciled on the next access.
+   */
+  synchronized void invalidate() {
+    reconciled = -1;
+    pendingTransitions = null;
+  }
+
+  /**
+   * Marks the statistics as requested.
+   */
+  synchronized void request() {
+    requested = System.currentTimeMillis();
+  }
+
+  /**
+   * Returns whether the statistics have been requested recently.
+   *
+   * @param interval
+   *          the time in milliseconds
+   * @return <code>true</code> if the statistics have been requested within the given time
+   */
+  synchronized boolean isRequested(long interval) {
+    return requested >= 0 && System.currentTimeMillis() - requested <= interval;
+  }
+
+  /**
+   * Starts recording transitions, which are applied again to the results of the statistics query by
+   * {@link #reconcile(List)}. This has to be called before the query is run.
+   */
+  synchronized void startReconcile() {
+    pendingTransitions = new ArrayList<Transition>();
+  }
+
+  /**
+   * Replaces all counters with the results of the <code>ServiceRegistration.statistics</code> query.
+   *
+   * @param results
+   *          rows of service registration id, status, number of jobs, mean queue time and mean run time
+   */
+  synchronized void reconcile(List<Object[]> results) {
+    counters.clear();
+    for (Object[] row : results) {
+      Number serviceRegistrationId = (Number) row[0];
+      if (serviceRegistrationId == null || serviceRegistrationId.longValue() == 0 || row[1] == null)
+        continue;
+      Status status = Status.values()[((Number) row[1]).intValue()];
+      long count = ((Number) row[2]).longValue();
+      Counters c = get(serviceRegistrationId.longValue());
+      switch (status) {
+        case RUNNING:
+          c.running += count;
+          break;
+        case QUEUED:
+        case DISPATCHING:
+          c.queued += count;
+          break;
+        case FINISHED:
+          c.finished += count;
+          c.queueTime += Math.round(toDouble((Number) row[3]) * count);
+          c.runTime += Math.round(toDouble((Number) row[4]) * count);
+          break;
+        default:
+          break;
+      }
+    }
+    if (pendingTransitions != null) {
+      for (Transition t : pendingTransitions) {
+        count(t);
+      }
+      pendingTransitions = null;
+    }
+    reconciled = System.currentTimeMillis();
+  }
+
+  /**
+   * Moves a job from one state to another.
+   *
+   * @param fromService
+   *          the service registration id the job was assigned to, may be <code>null</code>
+   * @param fromStatus
+   *          the previous job status
+   * @param fromQueueTime
+   *          the previous queue time of the job
+   * @param fromRunTime
+   *          the previous run time of the job
+   * @param toService
+   *          the service registration id the job is assigned to now, may be <code>null</code>
+   * @param toStatus
+   *          the new job status
+   * @param toQueueTime
+   *          the new queue time of the job
+   * @param toRunTime
+   *          the new run time of the job
+   */
+  synchronized void transition(Long fromService, Status fromStatus, Long fromQueueTime, Long fromRunTime,
+          Long toService, Status toStatus, Long toQueueTime, Long toRunTime) {
+    Transition transition = new Transition(fromService, fromStatus, fromQueueTime, fromRunTime, toService, toStatus,
+            toQueueTime, toRunTime);
+    count(transition);
+    if (pendingTransitions != null)
+      pendingTransitions.add(transition);
+  }
+
+  /**
+   * Copies the counters of a service registration to its statistics.
+   *
+   * @param serviceRegistrationId
+   *          the service registration id
+   * @param stats
+   *          the statistics to fill
+   */
+  synchronized void apply(long serviceRegistrationId, JaxbServiceStatistics stats) {
+    Counters c = counters.get(serviceRegistrationId);
+    if (c == null)
+      return;
+    stats.setQueuedJobs((int) Math.max(0, c.queued));
+    stats.setRunningJobs((int) Math.max(0, c.running));
+    stats.setFinishedJobs((int) Math.max(0, c.finished));
+    if (c.finished > 0) {
+      stats.setMeanQueueTime(Math.max(0, c.queueTime / c.finished));
+      stats.setMeanRunTime(Math.max(0, c.runTime / c.finished));
+    }
+  }
+
+  private void count(Transition t) {
+    count(t.fromService, t.fromStatus, t.fromQueueTime, t.fromRunTime, -1);
+    count(t.toService, t.toStatus, t.toQueueTime, t.toRunTime, 1);
+  }
+
+  private void count(Long service, Status status, Long queueTime, Long runTime, int delta) {
+    if (service == null || status == null)
+      return;
+    switch (status) {
+      case RUNNING:
+        get(service).running += delta;
+        break;
+      case QUEUED:
+      case DISPATCHING:
+        get(service).queued += delta;
+        break;
+      case FINISHED:
+        Counters c = get(service);
+        c.finished += delta;
+        c.queueTime += delta * (queueTime == null ? 0 : queueTime);
+        c.runTime += delta * (runTime == null ? 0 : runTime);
+        break;
+      default:
+        break;
+    }
+  }
+
+  private Counters get(long service) {
+    Counters c = counters.get(service);
+    if (c == null) {
+      c = new Counters();
+      counters.put(service, c);
+    }
+    return c;
+  }
+
+  private static double toDouble(Number n) {
+    return n == null ? 0 : n.doubleValue();
+  }
+
+}
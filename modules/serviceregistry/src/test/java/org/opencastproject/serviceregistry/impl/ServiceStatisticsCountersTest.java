@@ -0,0 +1,120 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+package org.opencastproject.serviceregistry.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.opencastproject.job.api.Job.Status;
+import org.opencastproject.serviceregistry.api.JaxbServiceStatistics;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ServiceStatisticsCountersTest {
+
+  private ServiceStatisticsCounters counters;
+
+  @Before
+  public void setUp() {
+    counters = new ServiceStatisticsCounters();
+    List<Object[]> results = new ArrayList<Object[]>();
+    results.add(new Object[] { 1L, Status.QUEUED.ordinal(), 2L, 0.0, 0.0 });
+    results.add(new Object[] { 1L, Status.DISPATCHING.ordinal(), 1L, 0.0, 0.0 });
+    results.add(new Object[] { 1L, Status.RUNNING.ordinal(), 1L, 0.0, 0.0 });
+    results.add(new Object[] { 1L, Status.FINISHED.ordinal(), 2L, 100.0, 1000.0 });
+    results.add(new Object[] { null, Status.QUEUED.ordinal(), 5L, 0.0, 0.0 });
+    counters.reconcile(results);
+  }
+
+  @Test
+  public void testReconcile() {
+    JaxbServiceStatistics stats = new JaxbServiceStatistics();
+    counters.apply(1L, stats);
+    assertEquals(3, stats.getQueuedJobs());
+    assertEquals(1, stats.getRunningJobs());
+    assertEquals(2, stats.getFinishedJobs());
+    assertEquals(100L, stats.getMeanQueueTime());
+    assertEquals(1000L, stats.getMeanRunTime());
+    assertTrue(counters.isReconciled());
+    counters.invalidate();
+    assertFalse(counters.isReconciled());
+  }
+
+  @Test
+  public void testTransition() {
+    counters.transition(null, Status.QUEUED, 0L, 0L, 1L, Status.DISPATCHING, 0L, 0L);
+    counters.transition(1L, Status.DISPATCHING, 0L, 0L, 1L, Status.RUNNING, 400L, 0L);
+    counters.transition(1L, Status.RUNNING, 400L, 0L, 1L, Status.FINISHED, 400L, 2000L);
+    counters.transition(1L, Status.RUNNING, 0L, 0L, 2L, Status.RUNNING, 0L, 0L);
+
+    JaxbServiceStatistics stats = new JaxbServiceStatistics();
+    counters.apply(1L, stats);
+    assertEquals(3, stats.getQueuedJobs());
+    assertEquals(0, stats.getRunningJobs());
+    assertEquals(3, stats.getFinishedJobs());
+    assertEquals(200L, stats.getMeanQueueTime());
+    assertEquals(1333L, stats.getMeanRunTime());
+
+    JaxbServiceStatistics other = new JaxbServiceStatistics();
+    counters.apply(2L, other);
+    assertEquals(1, other.getRunningJobs());
+  }
+
+  @Test
+  public void testTransitionDuringReconcile() {
+    counters.startReconcile();
+    counters.transition(1L, Status.RUNNING, 0L, 0L, 1L, Status.FINISHED, 400L, 2000L);
+
+    // The results of the query have been read before the transition
+    List<Object[]> results = new ArrayList<Object[]>();
+    results.add(new Object[] { 1L, Status.RUNNING.ordinal(), 1L, 0.0, 0.0 });
+    counters.reconcile(results);
+
+    JaxbServiceStatistics stats = new JaxbServiceStatistics();
+    counters.apply(1L, stats);
+    assertEquals(0, stats.getRunningJobs());
+    assertEquals(1, stats.getFinishedJobs());
+
+    // Transitions after the reconciliation are not applied again by the next one
+    counters.transition(1L, Status.QUEUED, 0L, 0L, 1L, Status.RUNNING, 0L, 0L);
+    counters.startReconcile();
+    counters.reconcile(results);
+    stats = new JaxbServiceStatistics();
+    counters.apply(1L, stats);
+    assertEquals(1, stats.getRunningJobs());
+    assertEquals(0, stats.getFinishedJobs());
+  }
+
+  @Test
+  public void testRequested() {
+    assertFalse(counters.isRequested(1000L));
+    counters.request();
+    assertTrue(counters.isRequested(1000L));
+  }
+
+}
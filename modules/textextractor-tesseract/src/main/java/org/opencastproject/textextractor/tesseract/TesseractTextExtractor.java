@@ -43,6 +43,7 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Dictionary;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Commandline wrapper around tesseract' <code>tesseract</code> command.
@@ -65,9 +66,19 @@ public class TesseractTextExtractor implements TextExtractor, ManagedService {
   public static final String TESSERACT_OPTS_CONFIG_KEY =
     "org.opencastproject.textanalyzer.tesseract.options";
 
+  /** Configuration property that defines the time in seconds after which tesseract is killed */
+  public static final String TESSERACT_TIMEOUT_CONFIG_KEY =
+    "org.opencastproject.textanalyzer.tesseract.timeout";
+
+  /** Default time in seconds after which tesseract is killed */
+  public static final long TESSERACT_TIMEOUT_DEFAULT = 300L;
+
   /** Binary of the tesseract command */
   protected String binary = null;
 
+  /** Time in seconds after which tesseract is killed, 0 to wait indefinitely */
+  protected long timeout = TESSERACT_TIMEOUT_DEFAULT;
+
   /** Additional options for the tesseract command */
   protected String addOptions = "";
 
@@ -106,6 +117,17 @@ public class TesseractTextExtractor implements TextExtractor, ManagedService {
     this.addOptions = addOptions;
   }
 
+  /**
+   * Sets the time after which tesseract is killed.
+   *
+   * @param timeout
+   *          the timeout in seconds, 0 to wait indefinitely
+   */
+  public void setTimeout(long timeout) {
+    logger.info("Setting timeout for Tesseract to {} seconds", timeout);
+    this.timeout = timeout;
+  }
+
   /**
    * Returns the additional options for tesseract..
    *
@@ -148,7 +170,7 @@ public class TesseractTextExtractor implements TextExtractor, ManagedService {
           }
           return true;
         }
-      });
+      }, timeout, TimeUnit.SECONDS);
       if (exitCode != 0) {
         throw new TextExtractorException("Text analyzer " + binary + " exited with code " + exitCode);
       }
@@ -196,6 +218,15 @@ public class TesseractTextExtractor implements TextExtractor, ManagedService {
       logger.info("Setting additional options for Tesseract path to '{}'", addopts);
       this.addOptions = addopts;
     }
+    /* Set the time after which tesseract is killed */
+    String timeoutopt = (String) properties.get(TESSERACT_TIMEOUT_CONFIG_KEY);
+    if (timeoutopt != null) {
+      try {
+        setTimeout(Long.parseLong(timeoutopt.trim()));
+      } catch (NumberFormatException e) {
+        throw new ConfigurationException(TESSERACT_TIMEOUT_CONFIG_KEY, "must be a number of seconds");
+      }
+    }
   }
 
   public void activate(ComponentContext cc) {
@@ -216,6 +247,15 @@ public class TesseractTextExtractor implements TextExtractor, ManagedService {
       logger.info("No additional options for Tesseract");
       this.addOptions = "";
     }
+    /* Set the time after which tesseract is killed */
+    String timeoutopt = cc.getBundleContext().getProperty(TESSERACT_TIMEOUT_CONFIG_KEY);
+    if (timeoutopt != null) {
+      try {
+        setTimeout(Long.parseLong(timeoutopt.trim()));
+      } catch (NumberFormatException e) {
+        logger.warn("Ignoring invalid {}: {}", TESSERACT_TIMEOUT_CONFIG_KEY, timeoutopt);
+      }
+    }
   }
 
   private static final Pred<String> fnLogDebug = new Pred<String>() {
@@ -39,9 +39,11 @@ import org.opencastproject.serviceregistry.api.ServiceRegistryException;
 import org.opencastproject.timelinepreviews.api.TimelinePreviewsException;
 import org.opencastproject.timelinepreviews.api.TimelinePreviewsService;
 import org.opencastproject.util.IoSupport;
+import org.opencastproject.util.LineReader;
 import org.opencastproject.util.LoadUtil;
 import org.opencastproject.util.MimeTypes;
 import org.opencastproject.util.NotFoundException;
+import org.opencastproject.util.OutputTail;
 import org.opencastproject.util.UnknownFileTypeException;
 import org.opencastproject.workspace.api.Workspace;
 
@@ -54,12 +56,10 @@ import org.osgi.service.component.ComponentContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.net.URI;
 import java.util.Arrays;
 import java.util.Dictionary;
@@ -399,14 +399,16 @@ TimelinePreviewsService, ManagedService {
     pbuilder.redirectErrorStream(true);
     Process ffmpegProcess = null;
     exitCode = 1;
-    BufferedReader errStream = null;
+    LineReader errStream = null;
+    OutputTail errors = new OutputTail();
     try {
       ffmpegProcess = pbuilder.start();
 
-      errStream = new BufferedReader(new InputStreamReader(ffmpegProcess.getInputStream()));
+      errStream = new LineReader(ffmpegProcess.getInputStream(), LineReader.CONSOLE_MAX_LINE_LENGTH);
       String line = errStream.readLine();
       while (line != null) {
         logger.error("FFmpeg error: " + line);
+        errors.add(line);
         line = errStream.readLine();
       }
       exitCode = ffmpegProcess.waitFor();
@@ -428,7 +430,7 @@ TimelinePreviewsService, ManagedService {
 
     if (exitCode != 0)
       throw new TimelinePreviewsException("Generating timeline preview for track " + track.getIdentifier()
-              + " failed: ffmpeg process exited abnormally with exit code " + exitCode);
+              + " failed: ffmpeg process exited abnormally with exit code " + exitCode + ":\n" + errors);
 
     // put timeline previews image into workspace
     FileInputStream timelinepreviewsFileInputStream = null;
@@ -38,4 +38,14 @@ public class UserTrackingException extends Exception {
   public UserTrackingException(Exception cause) {
     super(cause);
   }
+
+  /**
+   * Constructs a UserTrackingException with a message describing the problem.
+   *
+   * @param message
+   *          the message
+   */
+  public UserTrackingException(String message) {
+    super(message);
+  }
 }
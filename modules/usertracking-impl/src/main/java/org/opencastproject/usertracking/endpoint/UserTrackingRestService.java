@@ -21,13 +21,16 @@
 
 package org.opencastproject.usertracking.endpoint;
 
+import static javax.servlet.http.HttpServletResponse.SC_ACCEPTED;
 import static javax.servlet.http.HttpServletResponse.SC_CREATED;
 import static javax.servlet.http.HttpServletResponse.SC_OK;
+import static javax.servlet.http.HttpServletResponse.SC_SERVICE_UNAVAILABLE;
 
 import org.opencastproject.rest.RestConstants;
 import org.opencastproject.security.api.SecurityService;
 import org.opencastproject.systems.OpencastConstants;
 import org.opencastproject.usertracking.api.UserSession;
+import org.opencastproject.usertracking.api.UserTrackingCapacityException;
 import org.opencastproject.usertracking.api.UserTrackingException;
 import org.opencastproject.usertracking.api.UserTrackingService;
 import org.opencastproject.usertracking.impl.UserActionImpl;
@@ -257,7 +260,9 @@ public class UserTrackingRestService {
           @RestParameter(name = "type", description = "The episode identifier", isRequired = true, type = Type.STRING),
           @RestParameter(name = "in", description = "The beginning of the time range", isRequired = true, type = Type.STRING),
           @RestParameter(name = "out", description = "The end of the time range", isRequired = false, type = Type.STRING),
-          @RestParameter(name = "playing", description = "Whether the player is currently playing", isRequired = false, type = Type.STRING)}, reponses = { @RestResponse(responseCode = SC_CREATED, description = "An XML representation of the user action") })
+          @RestParameter(name = "playing", description = "Whether the player is currently playing", isRequired = false, type = Type.STRING)}, reponses = { @RestResponse(responseCode = SC_CREATED, description = "An XML representation of the user action"),
+                  @RestResponse(responseCode = SC_ACCEPTED, description = "The footprint will be stored with the next periodic write"),
+                  @RestResponse(responseCode = SC_SERVICE_UNAVAILABLE, description = "Too many footprints are waiting to be written, the footprint has been dropped") })
   public Response addFootprint(@FormParam("id") String mediapackageId, @FormParam("in") String inString,
           @FormParam("out") String outString, @FormParam("type") String type, @FormParam("playing") String isPlaying,
           @Context HttpServletRequest request) {
@@ -322,10 +327,18 @@ public class UserTrackingRestService {
       } else {
         a = (UserActionImpl) usertrackingService.addUserTrackingEvent(a, s);
       }
+    } catch (UserTrackingCapacityException e) {
+      // aggregated footprints are rejected while too many of them are waiting to be written
+      throw new WebApplicationException(e, Status.SERVICE_UNAVAILABLE);
     } catch (UserTrackingException e) {
       throw new WebApplicationException(e);
     }
 
+    // aggregated footprints are written later and may not have an ID yet
+    if (a.getId() == null) {
+      return Response.status(Status.ACCEPTED).entity(a).build();
+    }
+
     URI uri;
     try {
       uri = new URI(UrlSupport.concat(new String[] { serverUrl, serviceUrl, "action", a.getId().toString(), ".xml" }));
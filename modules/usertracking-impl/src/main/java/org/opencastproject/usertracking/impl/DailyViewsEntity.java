@@ -0,0 +1,108 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+package org.opencastproject.usertracking.impl;
+
+import java.util.Date;
+
+import javax.persistence.Access;
+import javax.persistence.AccessType;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.NamedQueries;
+import javax.persistence.NamedQuery;
+import javax.persistence.Table;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+
+/**
+ * Views and watched seconds of a mediapackage on a single day, pre-aggregated from the user actions as they are
+ * written.
+ */
+@IdClass(DailyViewsEntityId.class)
+@Entity(name = "DailyViews")
+@Access(AccessType.FIELD)
+@Table(name = "oc_user_action_daily")
+@NamedQueries({
+        @NamedQuery(name = "DailyViews.increment", query = "UPDATE DailyViews d SET d.views = d.views + :views, d.firstViews = d.firstViews + :firstViews, d.played = d.played + :played WHERE d.mediapackageId = :mediapackageId AND d.day = :day"),
+        @NamedQuery(name = "DailyViews.countViewsOfMediapackage", query = "SELECT SUM(d.firstViews) FROM DailyViews d WHERE d.mediapackageId = :mediapackageId"),
+        @NamedQuery(name = "DailyViews.groupByMediapackage", query = "SELECT d.mediapackageId, SUM(d.firstViews), SUM(d.played) FROM DailyViews d GROUP BY d.mediapackageId ORDER BY d.mediapackageId"),
+        @NamedQuery(name = "DailyViews.groupByMediapackageByIntervall", query = "SELECT d.mediapackageId, SUM(d.views), SUM(d.played) FROM DailyViews d WHERE :begin <= d.day AND d.day <= :end GROUP BY d.mediapackageId ORDER BY d.mediapackageId") })
+public class DailyViewsEntity {
+
+  @Id
+  @Column(name = "mediapackage", length = 128, nullable = false)
+  private String mediapackageId;
+
+  @Id
+  @Column(name = "view_day", nullable = false)
+  @Temporal(TemporalType.DATE)
+  private Date day;
+
+  /** Number of sessions with actions on this day */
+  @Column(name = "views", nullable = false)
+  private long views;
+
+  /** Number of sessions whose first action on this mediapackage happened on this day */
+  @Column(name = "first_views", nullable = false)
+  private long firstViews;
+
+  /** Sum of the length of all actions which happened on this day */
+  @Column(name = "played", nullable = false)
+  private long played;
+
+  /**
+   * No-arg constructor needed by JPA
+   */
+  public DailyViewsEntity() {
+  }
+
+  public DailyViewsEntity(String mediapackageId, Date day, long views, long firstViews, long played) {
+    this.mediapackageId = mediapackageId;
+    this.day = day;
+    this.views = views;
+    this.firstViews = firstViews;
+    this.played = played;
+  }
+
+  public String getMediapackageId() {
+    return mediapackageId;
+  }
+
+  public Date getDay() {
+    return day;
+  }
+
+  public long getViews() {
+    return views;
+  }
+
+  public long getFirstViews() {
+    return firstViews;
+  }
+
+  public long getPlayed() {
+    return played;
+  }
+}
@@ -0,0 +1,69 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.usertracking.impl;
+
+import java.io.Serializable;
+import java.util.Date;
+import java.util.Objects;
+
+/**
+ * IdClass for {@link DailyViewsEntity}
+ */
+public class DailyViewsEntityId implements Serializable {
+
+  private static final long serialVersionUID = -2467312245893405921L;
+
+  private String mediapackageId;
+  private Date day;
+
+  public DailyViewsEntityId() {
+  }
+
+  public DailyViewsEntityId(String mediapackageId, Date day) {
+    this.mediapackageId = mediapackageId;
+    this.day = day;
+  }
+
+  public String getMediapackageId() {
+    return mediapackageId;
+  }
+
+  public Date getDay() {
+    return day;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(mediapackageId, day);
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (obj == this)
+      return true;
+    if (!(obj instanceof DailyViewsEntityId))
+      return false;
+    DailyViewsEntityId id = (DailyViewsEntityId) obj;
+    return Objects.equals(id.getMediapackageId(), mediapackageId) && Objects.equals(id.getDay(), day);
+  }
+
+}
@@ -0,0 +1,268 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+package org.opencastproject.usertracking.impl;
+
+import org.opencastproject.usertracking.api.UserAction;
+import org.opencastproject.usertracking.api.UserSession;
+import org.opencastproject.usertracking.api.UserTrackingCapacityException;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In-memory aggregation of player footprints.
+ * <p>
+ * The player reports the watched interval every few seconds. Instead of writing each report to the database, the
+ * footprints of a session are merged into one segment as long as they are contiguous, i.e. as long as the inpoint of a
+ * new footprint matches the outpoint of the current segment. The segments are written to the database in batches by
+ * {@link UserTrackingServiceImpl}, see {@link #beginFlush()} and {@link #completeFlush(List, boolean)}.
+ * <p>
+ * The number of segments held in memory is bounded. Footprints which would exceed this bound are dropped.
+ */
+public class FootprintAggregator {
+
+  /** Default maximum number of segments held in memory */
+  public static final int DEFAULT_CAPACITY = 10000;
+
+  /** Maximum number of segments held in memory */
+  private final int capacity;
+
+  /** Time in milliseconds after which the segment of an inactive session is removed once it has been written */
+  private final long idleTimeout;
+
+  /** The current segment of each session */
+  private final Map<String, Segment> sessions = new HashMap<>();
+
+  /** Segments which have been superseded by a new segment of the same session but not been written yet */
+  private Set<Segment> closed = new LinkedHashSet<>();
+
+  /** Number of footprints dropped because the capacity was exceeded since {@link #takeDropped()} was called last */
+  private long dropped = 0;
+
+  /**
+   * Creates an aggregator.
+   *
+   * @param capacity
+   *          the maximum number of segments held in memory
+   * @param idleTimeout
+   *          time in milliseconds after which the segment of an inactive session is removed once it has been written
+   */
+  public FootprintAggregator(int capacity, long idleTimeout) {
+    this.capacity = capacity;
+    this.idleTimeout = idleTimeout;
+  }
+
+  /**
+   * Adds a footprint.
+   *
+   * @param a
+   *          the footprint, with its session set
+   * @return the ID of the database entry the footprint has been merged into, if it is already known, or
+   *         <code>null</code>
+   * @throws UserTrackingCapacityException
+   *           if the footprint has been dropped because the capacity is exceeded
+   */
+  public synchronized Long add(UserAction a) throws UserTrackingCapacityException {
+    final UserSession session = a.getSession();
+    final Segment current = sessions.get(session.getSessionId());
+    if (current != null && current.mediapackageId.equals(a.getMediapackageId())
+            && current.outpoint == a.getInpoint()) {
+      current.outpoint = a.getOutpoint();
+      current.touch();
+      return current.id;
+    }
+    if (size() >= capacity) {
+      dropped++;
+      throw new UserTrackingCapacityException("Footprint aggregation capacity of " + capacity + " segments exceeded");
+    }
+    if (current != null && current.isDirty())
+      closed.add(current);
+    sessions.put(session.getSessionId(), new Segment(a));
+    return null;
+  }
+
+  /**
+   * Takes all segments which have to be written. Pass them to {@link #completeFlush(List, boolean)} afterwards.
+   */
+  public synchronized List<Segment> beginFlush() {
+    final List<Segment> flush = new ArrayList<>();
+    for (Segment s : closed) {
+      if (s.isDirty())
+        flush.add(s.snapshot());
+    }
+    closed = new LinkedHashSet<>();
+    for (Segment s : sessions.values()) {
+      if (s.isDirty())
+        flush.add(s.snapshot());
+    }
+    return flush;
+  }
+
+  /**
+   * Completes a flush started with {@link #beginFlush()}.
+   *
+   * @param flushed
+   *          the segments returned by {@link #beginFlush()}, with their database IDs set if they have been written
+   * @param success
+   *          whether the segments have been written
+   */
+  public synchronized void completeFlush(List<Segment> flushed, boolean success) {
+    for (Segment snapshot : flushed) {
+      final Segment s = snapshot.origin;
+      if (success) {
+        s.id = snapshot.id;
+        s.flushedVersion = Math.max(s.flushedVersion, snapshot.version);
+      } else if (sessions.get(s.sessionId) != s && !closed.contains(s)) {
+        // retry closed segments with the next flush, current segments are still dirty anyway
+        if (size() < capacity)
+          closed.add(s);
+        else
+          dropped++;
+      }
+    }
+    final long threshold = System.currentTimeMillis() - idleTimeout;
+    for (Iterator<Segment> i = sessions.values().iterator(); i.hasNext();) {
+      final Segment s = i.next();
+      if (!s.isDirty() && s.lastUpdate < threshold)
+        i.remove();
+    }
+  }
+
+  /** Return true if there are footprints which have not been written yet. */
+  public synchronized boolean hasPendingChanges() {
+    if (!closed.isEmpty())
+      return true;
+    for (Segment s : sessions.values()) {
+      if (s.isDirty())
+        return true;
+    }
+    return false;
+  }
+
+  /** Return the number of segments held in memory. */
+  public synchronized int size() {
+    return sessions.size() + closed.size();
+  }
+
+  /** Return the number of footprints dropped because the capacity was exceeded since the last call and reset it. */
+  public synchronized long takeDropped() {
+    final long result = dropped;
+    dropped = 0;
+    return result;
+  }
+
+  /**
+   * A contiguous interval watched in a session. The values of snapshots taken for a flush do not change while they are
+   * written.
+   */
+  public static final class Segment {
+    private final Segment origin;
+    private final String sessionId;
+    private final UserSession session;
+    private final String mediapackageId;
+    private final boolean playing;
+    private final Date created;
+    private int inpoint;
+    private int outpoint;
+    private Long id;
+    private int version;
+    private int flushedVersion = -1;
+    private long lastUpdate = System.currentTimeMillis();
+
+    private Segment(UserAction a) {
+      this.origin = this;
+      this.session = a.getSession();
+      this.sessionId = session.getSessionId();
+      this.mediapackageId = a.getMediapackageId();
+      this.playing = a.getIsPlaying();
+      this.created = a.getCreated() != null ? a.getCreated() : new Date();
+      this.inpoint = a.getInpoint();
+      this.outpoint = a.getOutpoint();
+    }
+
+    private Segment(Segment s) {
+      this.origin = s;
+      this.session = s.session;
+      this.sessionId = s.sessionId;
+      this.mediapackageId = s.mediapackageId;
+      this.playing = s.playing;
+      this.created = s.created;
+      this.inpoint = s.inpoint;
+      this.outpoint = s.outpoint;
+      this.id = s.id;
+      this.version = s.version;
+    }
+
+    private Segment snapshot() {
+      return new Segment(this);
+    }
+
+    private void touch() {
+      version++;
+      lastUpdate = System.currentTimeMillis();
+    }
+
+    private boolean isDirty() {
+      return flushedVersion < version;
+    }
+
+    public UserSession getSession() {
+      return session;
+    }
+
+    public String getMediapackageId() {
+      return mediapackageId;
+    }
+
+    public boolean isPlaying() {
+      return playing;
+    }
+
+    public Date getCreated() {
+      return created;
+    }
+
+    public int getInpoint() {
+      return inpoint;
+    }
+
+    public int getOutpoint() {
+      return outpoint;
+    }
+
+    /** The ID of the database entry of this segment or <code>null</code> if it has not been written yet. */
+    public Long getId() {
+      return id;
+    }
+
+    public void setId(Long id) {
+      this.id = id;
+    }
+  }
+}
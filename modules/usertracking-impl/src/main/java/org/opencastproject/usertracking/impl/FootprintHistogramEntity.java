@@ -0,0 +1,82 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+package org.opencastproject.usertracking.impl;
+
+import javax.persistence.Access;
+import javax.persistence.AccessType;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.NamedQueries;
+import javax.persistence.NamedQuery;
+import javax.persistence.Table;
+
+/**
+ * Change of the number of footprints covering a position of a mediapackage. Every footprint adds one at its inpoint
+ * and subtracts one at its outpoint, so the number of views of a second is the sum of all changes up to that second.
+ */
+@IdClass(FootprintHistogramEntityId.class)
+@Entity(name = "FootprintHistogram")
+@Access(AccessType.FIELD)
+@Table(name = "oc_user_footprint_histogram")
+@NamedQueries({
+        @NamedQuery(name = "FootprintHistogram.increment", query = "UPDATE FootprintHistogram h SET h.delta = h.delta + :delta WHERE h.mediapackageId = :mediapackageId AND h.position = :position"),
+        @NamedQuery(name = "FootprintHistogram.findByMediapackage", query = "SELECT h FROM FootprintHistogram h WHERE h.mediapackageId = :mediapackageId ORDER BY h.position") })
+public class FootprintHistogramEntity {
+
+  @Id
+  @Column(name = "mediapackage", length = 128, nullable = false)
+  private String mediapackageId;
+
+  @Id
+  @Column(name = "position", nullable = false)
+  private int position;
+
+  @Column(name = "delta", nullable = false)
+  private int delta;
+
+  /**
+   * No-arg constructor needed by JPA
+   */
+  public FootprintHistogramEntity() {
+  }
+
+  public FootprintHistogramEntity(String mediapackageId, int position, int delta) {
+    this.mediapackageId = mediapackageId;
+    this.position = position;
+    this.delta = delta;
+  }
+
+  public String getMediapackageId() {
+    return mediapackageId;
+  }
+
+  public int getPosition() {
+    return position;
+  }
+
+  public int getDelta() {
+    return delta;
+  }
+}
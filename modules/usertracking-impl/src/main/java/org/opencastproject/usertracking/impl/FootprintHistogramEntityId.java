@@ -0,0 +1,68 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.usertracking.impl;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * IdClass for {@link FootprintHistogramEntity}
+ */
+public class FootprintHistogramEntityId implements Serializable {
+
+  private static final long serialVersionUID = 6372450914522108372L;
+
+  private String mediapackageId;
+  private int position;
+
+  public FootprintHistogramEntityId() {
+  }
+
+  public FootprintHistogramEntityId(String mediapackageId, int position) {
+    this.mediapackageId = mediapackageId;
+    this.position = position;
+  }
+
+  public String getMediapackageId() {
+    return mediapackageId;
+  }
+
+  public int getPosition() {
+    return position;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(mediapackageId, position);
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (obj == this)
+      return true;
+    if (!(obj instanceof FootprintHistogramEntityId))
+      return false;
+    FootprintHistogramEntityId id = (FootprintHistogramEntityId) obj;
+    return Objects.equals(id.getMediapackageId(), mediapackageId) && id.getPosition() == position;
+  }
+
+}
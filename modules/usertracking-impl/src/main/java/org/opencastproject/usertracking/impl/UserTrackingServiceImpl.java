@@ -28,6 +28,7 @@ import org.opencastproject.usertracking.api.ReportItem;
 import org.opencastproject.usertracking.api.UserAction;
 import org.opencastproject.usertracking.api.UserActionList;
 import org.opencastproject.usertracking.api.UserSession;
+import org.opencastproject.usertracking.api.UserTrackingCapacityException;
 import org.opencastproject.usertracking.api.UserTrackingException;
 import org.opencastproject.usertracking.api.UserTrackingService;
 import org.opencastproject.usertracking.endpoint.FootprintImpl;
@@ -37,6 +38,7 @@ import org.opencastproject.usertracking.endpoint.ReportItemImpl;
 import org.opencastproject.util.NotFoundException;
 
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
 import org.osgi.service.cm.ConfigurationException;
 import org.osgi.service.cm.ManagedService;
 import org.slf4j.Logger;
@@ -44,11 +46,18 @@ import org.slf4j.LoggerFactory;
 
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collection;
 import java.util.Dictionary;
 import java.util.GregorianCalendar;
 import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
@@ -73,6 +82,8 @@ public class UserTrackingServiceImpl implements UserTrackingService, ManagedServ
   public static final String IP_LOGGING = "org.opencastproject.usertracking.log.ip";
   public static final String USER_LOGGING = "org.opencastproject.usertracking.log.user";
   public static final String SESSION_LOGGING = "org.opencastproject.usertracking.log.session";
+  public static final String FOOTPRINT_FLUSH_INTERVAL = "org.opencastproject.usertracking.footprint.flush.interval";
+  public static final String FOOTPRINT_QUEUE_SIZE = "org.opencastproject.usertracking.footprint.queue.size";
 
   private static final Logger logger = LoggerFactory.getLogger(UserTrackingServiceImpl.class);
 
@@ -81,6 +92,22 @@ public class UserTrackingServiceImpl implements UserTrackingService, ManagedServ
   private boolean logUser = true;
   private boolean logSession = true;
 
+  /** Interval in seconds in which aggregated footprints are written to the database, 0 to write them immediately */
+  private int footprintFlushInterval = 0;
+
+  /** Aggregates footprints in memory if footprints are written periodically */
+  private volatile FootprintAggregator footprintAggregator = null;
+
+  /** Guards the aggregator so that no footprint is added to it once it has been replaced */
+  private final ReadWriteLock footprintAggregatorLock = new ReentrantReadWriteLock();
+
+  /** The view statistics rows known to exist */
+  private final ViewStatisticsUpdate.ExistingRows existingStatisticsRows = new ViewStatisticsUpdate.ExistingRows(
+          ViewStatisticsUpdate.ExistingRows.DEFAULT_CAPACITY);
+
+  /** Writes aggregated footprints to the database */
+  private ScheduledExecutorService footprintExecutor = null;
+
   /** The factory used to generate the entity manager */
   protected EntityManagerFactory emf = null;
 
@@ -98,6 +125,13 @@ public class UserTrackingServiceImpl implements UserTrackingService, ManagedServ
     logger.debug("activate()");
   }
 
+  /**
+   * Deactivation callback. Writes the aggregated footprints to the database.
+   */
+  public synchronized void deactivate() {
+    configureFootprintAggregation(0, 0);
+  }
+
   @Override
   public void updated(Dictionary props) throws ConfigurationException {
     if (props == null) {
@@ -121,16 +155,81 @@ public class UserTrackingServiceImpl implements UserTrackingService, ManagedServ
     if (val != null && String.class.isInstance(val)) {
       logSession = Boolean.valueOf((String) val);
     }
+    int flushInterval = 0;
+    val = props.get(FOOTPRINT_FLUSH_INTERVAL);
+    if (val != null && String.class.isInstance(val)) {
+      flushInterval = NumberUtils.toInt(StringUtils.trimToNull((String) val), 0);
+    }
+    int queueSize = FootprintAggregator.DEFAULT_CAPACITY;
+    val = props.get(FOOTPRINT_QUEUE_SIZE);
+    if (val != null && String.class.isInstance(val)) {
+      queueSize = NumberUtils.toInt(StringUtils.trimToNull((String) val), FootprintAggregator.DEFAULT_CAPACITY);
+    }
+    configureFootprintAggregation(flushInterval, queueSize);
+  }
 
+  /**
+   * Enables or disables the aggregation of footprints. Footprints aggregated so far are written to the database.
+   *
+   * @param flushInterval
+   *          interval in seconds in which aggregated footprints are written, 0 to write each footprint immediately
+   * @param queueSize
+   *          the maximum number of footprint segments held in memory
+   */
+  synchronized void configureFootprintAggregation(int flushInterval, int queueSize) {
+    if (footprintExecutor != null) {
+      footprintExecutor.shutdown();
+      try {
+        footprintExecutor.awaitTermination(1, TimeUnit.MINUTES);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      footprintExecutor = null;
+    }
+    footprintFlushInterval = Math.max(0, flushInterval);
+    // segments of inactive sessions are kept for a few intervals so that a paused player can continue the segment
+    final FootprintAggregator next = footprintFlushInterval == 0 ? null
+            : new FootprintAggregator(queueSize, TimeUnit.SECONDS.toMillis(4L * footprintFlushInterval));
+    // swap the aggregator before writing the old one, so that footprints are never added to it after its last flush
+    final FootprintAggregator previous;
+    footprintAggregatorLock.writeLock().lock();
+    try {
+      previous = footprintAggregator;
+      footprintAggregator = next;
+    } finally {
+      footprintAggregatorLock.writeLock().unlock();
+    }
+    if (previous != null)
+      flushFootprints(previous);
+    if (next == null)
+      return;
+
+    logger.info("Writing aggregated footprints every {} seconds, holding at most {} footprints in memory",
+            footprintFlushInterval, queueSize);
+    footprintExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+      @Override
+      public Thread newThread(Runnable r) {
+        Thread thread = new Thread(r, "User tracking footprints");
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+    footprintExecutor.scheduleWithFixedDelay(new Runnable() {
+      @Override
+      public void run() {
+        flushFootprints(next);
+      }
+    }, footprintFlushInterval, footprintFlushInterval, TimeUnit.SECONDS);
   }
 
   public int getViews(String mediapackageId) {
     EntityManager em = null;
     try {
       em = emf.createEntityManager();
-      Query q = em.createNamedQuery("countSessionsOfMediapackage");
+      Query q = em.createNamedQuery("DailyViews.countViewsOfMediapackage");
       q.setParameter("mediapackageId", mediapackageId);
-      return ((Long) q.getSingleResult()).intValue();
+      Number views = (Number) q.getSingleResult();
+      return views == null ? 0 : views.intValue();
     } finally {
       if (em != null && em.isOpen()) {
         em.close();
@@ -138,53 +237,216 @@ public class UserTrackingServiceImpl implements UserTrackingService, ManagedServ
     }
   }
 
-  @SuppressWarnings("unchecked")
+  /**
+   * {@inheritDoc}
+   * <p>
+   * If footprints are aggregated, the footprint is written to the database with the next periodic flush. The returned
+   * action only carries an ID if it has been merged into a footprint which has already been written. Footprints are
+   * rejected with a {@link UserTrackingCapacityException} if the aggregation capacity is exceeded.
+   */
   public UserAction addUserFootprint(UserAction a, UserSession session) throws UserTrackingException {
     a.setType(FOOTPRINT_KEY);
-    EntityManager em = null;
-    EntityTransaction tx = null;
     if (!logIp) session.setUserIp("-omitted-");
     if (!logUser) session.setUserId("-omitted-");
     if (!logSession) session.setSessionId("-omitted-");
+
+    footprintAggregatorLock.readLock().lock();
+    try {
+      final FootprintAggregator aggregator = footprintAggregator;
+      if (aggregator != null) {
+        a.setSession(session);
+        try {
+          a.setId(aggregator.add(a));
+        } catch (UserTrackingCapacityException e) {
+          logger.debug("Dropping footprint of session {}: {}", session.getSessionId(), e.getMessage());
+          throw e;
+        }
+        return a;
+      }
+    } finally {
+      footprintAggregatorLock.readLock().unlock();
+    }
+
+    EntityManager em = null;
+    EntityTransaction tx = null;
     try {
       em = emf.createEntityManager();
       tx = em.getTransaction();
       tx.begin();
-      UserSession userSession = populateSession(em, session);
+      ViewStatisticsUpdate statistics = new ViewStatisticsUpdate();
+      a = storeFootprint(em, a, session, statistics);
+      statistics.apply(em, emf, existingStatisticsRows);
+      tx.commit();
+      return a;
+    } catch (Exception e) {
+      if (tx != null && tx.isActive()) {
+        tx.rollback();
+      }
+      throw new UserTrackingException(e);
+    } finally {
+      if (em != null && em.isOpen()) {
+        em.close();
+      }
+    }
+  }
 
-      Query q = em.createNamedQuery("findLastUserFootprintOfSession");
-      q.setMaxResults(1);
-      q.setParameter("session", userSession);
-      Collection<UserAction> userActions = q.getResultList();
+  /**
+   * Stores a footprint, merging it into the last footprint of the session if that one ends where the new one starts.
+   *
+   * @return the stored footprint
+   */
+  private UserAction storeFootprint(EntityManager em, UserAction a, UserSession session,
+          ViewStatisticsUpdate statistics) {
+    UserSession userSession = populateSession(em, session);
+    final UserAction lastAction = findLastAction(em, userSession, "findLastUserActionsOfSession");
+    final UserAction last = lastAction == null || FOOTPRINT_KEY.equals(lastAction.getType()) ? lastAction
+            : findLastAction(em, userSession, "findLastUserFootprintOfSession");
+
+    if (last != null) {
+      if (last.getMediapackageId().equals(a.getMediapackageId()) && last.getType().equals(a.getType())
+              && last.getOutpoint() == a.getInpoint()) {
+        //We are assuming in this case that the sessions match and are unchanged (IP wise, for example)
+        int previousOutpoint = last.getOutpoint();
+        last.setOutpoint(a.getOutpoint());
+        statistics.extendFootprint(last, previousOutpoint);
+        return last;
+      }
+    }
+    a.setSession(userSession);
+    persistAction(em, a, lastAction, statistics);
+    return a;
+  }
 
-      if (userActions.size() >= 1) {
-        UserAction last = userActions.iterator().next();
-        if (last.getMediapackageId().equals(a.getMediapackageId()) && last.getType().equals(a.getType())
-                && last.getOutpoint() == a.getInpoint()) {
-          //We are assuming in this case that the sessions match and are unchanged (IP wise, for example)
-          last.setOutpoint(a.getOutpoint());
-          a = last;
-          a.setId(last.getId());
-        } else {
-          a.setSession(userSession);
-          em.persist(a);
-        }
-      } else {
-        a.setSession(userSession);
-        em.persist(a);
+  /**
+   * Returns the most recent user action of a session found by the given named query.
+   *
+   * @return the action or <code>null</code> if the session has none
+   */
+  @SuppressWarnings("unchecked")
+  private UserAction findLastAction(EntityManager em, UserSession session, String queryName) {
+    Query q = em.createNamedQuery(queryName);
+    q.setMaxResults(1);
+    q.setParameter("session", session);
+    List<UserAction> userActions = q.getResultList();
+    return userActions.isEmpty() ? null : userActions.get(0);
+  }
+
+  /**
+   * Persists a new user action and accounts for it in the view statistics. The action's session must be persisted.
+   * <p>
+   * Whether the action starts a view is derived from the last action of the session. Only if the session has switched
+   * to a different mediapackage, its actions have to be counted.
+   *
+   * @param lastAction
+   *          the most recent action of the session or <code>null</code> if it has none
+   */
+  private void persistAction(EntityManager em, UserAction a, UserAction lastAction,
+          ViewStatisticsUpdate statistics) {
+    boolean firstView;
+    boolean firstViewOfDay;
+    if (lastAction == null) {
+      firstView = true;
+      firstViewOfDay = true;
+    } else if (lastAction.getMediapackageId().equals(a.getMediapackageId())) {
+      // the last action is the most recent one, so if it is from an earlier day there is none on this day
+      firstView = false;
+      firstViewOfDay = !ViewStatisticsUpdate.toDay(lastAction.getCreated())
+              .equals(ViewStatisticsUpdate.toDay(a.getCreated()));
+    } else {
+      Query q = em.createNamedQuery("countUserActionsOfSessionAndMediapackage");
+      q.setParameter("session", a.getSession());
+      q.setParameter("mediapackageId", a.getMediapackageId());
+      firstView = ((Long) q.getSingleResult()) == 0;
+      firstViewOfDay = firstView;
+      if (!firstView) {
+        Calendar begin = Calendar.getInstance();
+        begin.setTime(ViewStatisticsUpdate.toDay(a.getCreated()));
+        Calendar end = (Calendar) begin.clone();
+        end.add(Calendar.DATE, 1);
+        q = em.createNamedQuery("countUserActionsOfSessionAndMediapackageByIntervall");
+        q.setParameter("session", a.getSession());
+        q.setParameter("mediapackageId", a.getMediapackageId());
+        q.setParameter("begin", begin, TemporalType.TIMESTAMP);
+        q.setParameter("end", end, TemporalType.TIMESTAMP);
+        firstViewOfDay = ((Long) q.getSingleResult()) == 0;
       }
+    }
+    em.persist(a);
+    statistics.addAction(a, FOOTPRINT_KEY.equals(a.getType()), firstView, firstViewOfDay);
+  }
+
+  /**
+   * Writes the aggregated footprints to the database in a single transaction. If this fails, the footprints are kept
+   * and written with the next flush.
+   */
+  void flushFootprints() {
+    final FootprintAggregator aggregator = footprintAggregator;
+    if (aggregator != null)
+      flushFootprints(aggregator);
+  }
+
+  private void flushFootprints(FootprintAggregator aggregator) {
+    final List<FootprintAggregator.Segment> segments = aggregator.beginFlush();
+    if (segments.isEmpty()) {
+      aggregator.completeFlush(segments, true);
+      return;
+    }
+    EntityManager em = null;
+    EntityTransaction tx = null;
+    try {
+      em = emf.createEntityManager();
+      tx = em.getTransaction();
+      tx.begin();
+      final ViewStatisticsUpdate statistics = new ViewStatisticsUpdate();
+      final List<UserAction> written = new ArrayList<>(segments.size());
+      for (FootprintAggregator.Segment segment : segments) {
+        written.add(writeSegment(em, segment, statistics));
+      }
+      statistics.apply(em, emf, existingStatisticsRows);
       tx.commit();
-      return a;
+      for (int i = 0; i < segments.size(); i++) {
+        segments.get(i).setId(written.get(i).getId());
+      }
+      aggregator.completeFlush(segments, true);
+      logger.debug("Wrote {} aggregated footprints", segments.size());
     } catch (Exception e) {
       if (tx != null && tx.isActive()) {
         tx.rollback();
       }
-      throw new UserTrackingException(e);
+      aggregator.completeFlush(segments, false);
+      logger.warn("Unable to write {} aggregated footprints, retrying with the next flush", segments.size(), e);
     } finally {
       if (em != null && em.isOpen()) {
         em.close();
       }
     }
+    final long dropped = aggregator.takeDropped();
+    if (dropped > 0) {
+      logger.warn("{} footprints have been dropped since the last write since more than {} footprints were waiting "
+              + "to be written", dropped, aggregator.size());
+    }
+  }
+
+  private UserAction writeSegment(EntityManager em, FootprintAggregator.Segment segment,
+          ViewStatisticsUpdate statistics) {
+    if (segment.getId() != null) {
+      // the segment has been extended since it was written last
+      final UserActionImpl existing = em.find(UserActionImpl.class, segment.getId());
+      if (existing != null) {
+        final int previousOutpoint = existing.getOutpoint();
+        existing.setOutpoint(segment.getOutpoint());
+        statistics.extendFootprint(existing, previousOutpoint);
+        return existing;
+      }
+    }
+    final UserActionImpl a = new UserActionImpl();
+    a.setType(FOOTPRINT_KEY);
+    a.setMediapackageId(segment.getMediapackageId());
+    a.setInpoint(segment.getInpoint());
+    a.setOutpoint(segment.getOutpoint());
+    a.setIsPlaying(segment.isPlaying());
+    a.setCreated(segment.getCreated());
+    return storeFootprint(em, a, segment.getSession(), statistics);
   }
 
   public UserAction addUserTrackingEvent(UserAction a, UserSession session) throws UserTrackingException {
@@ -199,7 +461,9 @@ public class UserTrackingServiceImpl implements UserTrackingService, ManagedServ
       tx.begin();
       UserSession userSession = populateSession(em, session);
       a.setSession(userSession);
-      em.persist(a);
+      ViewStatisticsUpdate statistics = new ViewStatisticsUpdate();
+      persistAction(em, a, findLastAction(em, userSession, "findLastUserActionsOfSession"), statistics);
+      statistics.apply(em, emf, existingStatisticsRows);
       tx.commit();
       return a;
     } catch (Exception e) {
@@ -538,7 +802,7 @@ public class UserTrackingServiceImpl implements UserTrackingService, ManagedServ
     EntityManager em = null;
     try {
       em = emf.createEntityManager();
-      Query q = em.createNamedQuery("countSessionsGroupByMediapackage");
+      Query q = em.createNamedQuery("DailyViews.groupByMediapackage");
       q.setFirstResult(offset);
       if (limit > 0)
         q.setMaxResults(limit);
@@ -562,6 +826,13 @@ public class UserTrackingServiceImpl implements UserTrackingService, ManagedServ
     }
   }
 
+  /**
+   * {@inheritDoc}
+   * <p>
+   * The report is created from statistics aggregated per day, so the time of day of the interval's boundaries is not
+   * taken into account. A session which has been active on several days of the interval counts as a view on each of
+   * these days.
+   */
   public Report getReport(String from, String to, int offset, int limit) throws ParseException {
     Report report = new ReportImpl();
     report.setLimit(limit);
@@ -589,12 +860,12 @@ public class UserTrackingServiceImpl implements UserTrackingService, ManagedServ
     EntityManager em = null;
     try {
       em = emf.createEntityManager();
-      Query q = em.createNamedQuery("countSessionsGroupByMediapackageByIntervall");
+      Query q = em.createNamedQuery("DailyViews.groupByMediapackageByIntervall");
       q.setFirstResult(offset);
       if (limit > 0)
         q.setMaxResults(limit);
-      q.setParameter("begin", calBegin, TemporalType.TIMESTAMP);
-      q.setParameter("end", calEnd, TemporalType.TIMESTAMP);
+      q.setParameter("begin", ViewStatisticsUpdate.toDay(calBegin.getTime()), TemporalType.DATE);
+      q.setParameter("end", ViewStatisticsUpdate.toDay(calEnd.getTime()), TemporalType.DATE);
 
       @SuppressWarnings("unchecked")
       List<Object[]> result = q.getResultList();
@@ -616,17 +887,15 @@ public class UserTrackingServiceImpl implements UserTrackingService, ManagedServ
   }
 
   public FootprintList getFootprints(String mediapackageId, String userId) {
-    EntityManager em = null;
     if (! logUser) userId = null;
+    if (StringUtils.trimToNull(userId) == null)
+      return getFootprintHistogram(mediapackageId);
+
+    EntityManager em = null;
     try {
       em = emf.createEntityManager();
-      Query q = null;
-      if (StringUtils.trimToNull(userId) == null) {
-        q = em.createNamedQuery("findUserActionsByTypeAndMediapackageIdOrderByOutpointDESC");
-      } else {
-        q = em.createNamedQuery("findUserActionsByTypeAndMediapackageIdByUserOrderByOutpointDESC");
-        q.setParameter("userid", userId);
-      }
+      Query q = em.createNamedQuery("findUserActionsByTypeAndMediapackageIdByUserOrderByOutpointDESC");
+      q.setParameter("userid", userId);
       q.setParameter("type", FOOTPRINT_KEY);
       q.setParameter("mediapackageId", mediapackageId);
       @SuppressWarnings("unchecked")
@@ -666,6 +935,50 @@ public class UserTrackingServiceImpl implements UserTrackingService, ManagedServ
     }
   }
 
+  /**
+   * Creates the footprints of all users from the pre-aggregated footprint histogram of a mediapackage.
+   */
+  private FootprintList getFootprintHistogram(String mediapackageId) {
+    EntityManager em = null;
+    try {
+      em = emf.createEntityManager();
+      Query q = em.createNamedQuery("FootprintHistogram.findByMediapackage");
+      q.setParameter("mediapackageId", mediapackageId);
+      @SuppressWarnings("unchecked")
+      List<FootprintHistogramEntity> histogram = q.getResultList();
+
+      FootprintList list = new FootprintsListImpl();
+      int current = 0;
+      int last = -1;
+      for (FootprintHistogramEntity h : histogram) {
+        if (last == -1 && h.getPosition() > 0) {
+          // nobody watched the beginning
+          list.add(createFootprint(0, 0));
+          last = 0;
+        }
+        current += h.getDelta();
+        if (last != current) {
+          list.add(createFootprint(h.getPosition(), current));
+        }
+        last = current;
+      }
+      if (last == -1)
+        list.add(createFootprint(0, 0));
+      return list;
+    } finally {
+      if (em != null && em.isOpen()) {
+        em.close();
+      }
+    }
+  }
+
+  private static Footprint createFootprint(int position, int views) {
+    Footprint footprint = new FootprintImpl();
+    footprint.setPosition(position);
+    footprint.setViews(views);
+    return footprint;
+  }
+
   /**
    * {@inheritDoc}
    *
@@ -0,0 +1,261 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+package org.opencastproject.usertracking.impl;
+
+import org.opencastproject.usertracking.api.UserAction;
+
+import org.apache.commons.lang3.time.DateUtils;
+import org.apache.commons.lang3.tuple.Pair;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.EntityTransaction;
+import javax.persistence.PersistenceException;
+import javax.persistence.Query;
+import javax.persistence.TemporalType;
+
+/**
+ * Collects the changes to the pre-aggregated view statistics caused by the user actions written in a single
+ * transaction. Changes of the same statistics row are combined, so each row is updated only once per transaction.
+ */
+class ViewStatisticsUpdate {
+
+  /** The logging facility */
+  private static final Logger logger = LoggerFactory.getLogger(ViewStatisticsUpdate.class);
+
+  /** Views, first views and played seconds by mediapackage and day */
+  private final Map<Pair<String, Date>, long[]> days = new LinkedHashMap<>();
+
+  /** Footprint changes by mediapackage and position */
+  private final Map<Pair<String, Integer>, Integer> histogram = new LinkedHashMap<>();
+
+  /**
+   * Returns the day the given date falls on.
+   */
+  static Date toDay(Date date) {
+    return DateUtils.truncate(date, Calendar.DATE);
+  }
+
+  /**
+   * Accounts for a newly written user action.
+   *
+   * @param a
+   *          the user action
+   * @param footprint
+   *          whether the action is a footprint
+   * @param firstView
+   *          whether this is the first action of the session on the mediapackage
+   * @param firstViewOfDay
+   *          whether this is the first action of the session on the mediapackage on the day the action was created
+   */
+  void addAction(UserAction a, boolean footprint, boolean firstView, boolean firstViewOfDay) {
+    addDay(a.getMediapackageId(), a.getCreated(), firstViewOfDay ? 1 : 0, firstView ? 1 : 0, a.getLength());
+    if (footprint)
+      addFootprint(a.getMediapackageId(), a.getInpoint(), a.getOutpoint(), 1);
+  }
+
+  /**
+   * Accounts for a footprint which has been extended to a new outpoint.
+   *
+   * @param a
+   *          the footprint, already carrying the new outpoint
+   * @param previousOutpoint
+   *          the outpoint before the footprint has been extended
+   */
+  void extendFootprint(UserAction a, int previousOutpoint) {
+    addDay(a.getMediapackageId(), a.getCreated(), 0, 0, a.getOutpoint() - previousOutpoint);
+    addFootprint(a.getMediapackageId(), a.getInpoint(), previousOutpoint, -1);
+    addFootprint(a.getMediapackageId(), a.getInpoint(), a.getOutpoint(), 1);
+  }
+
+  private void addDay(String mediapackageId, Date created, long views, long firstViews, long played) {
+    final Pair<String, Date> key = Pair.of(mediapackageId, toDay(created));
+    long[] values = days.get(key);
+    if (values == null) {
+      values = new long[3];
+      days.put(key, values);
+    }
+    values[0] += views;
+    values[1] += firstViews;
+    values[2] += played;
+  }
+
+  private void addFootprint(String mediapackageId, int inpoint, int outpoint, int count) {
+    // footprints ending before they start or starting before the media do not count
+    if (inpoint < 0 || outpoint <= inpoint)
+      return;
+    addPosition(mediapackageId, inpoint, count);
+    addPosition(mediapackageId, outpoint, -count);
+  }
+
+  private void addPosition(String mediapackageId, int position, int delta) {
+    final Pair<String, Integer> key = Pair.of(mediapackageId, position);
+    final Integer current = histogram.get(key);
+    histogram.put(key, current == null ? delta : current + delta);
+  }
+
+  /**
+   * Writes the collected changes within the transaction of the given entity manager.
+   * <p>
+   * The changes are written as atomic increments. Statistics rows this node has not seen yet are created up front,
+   * each in a transaction of its own. Concurrent transactions creating the same row therefore neither fail nor lose
+   * their changes: the losing insert is ignored and both increments are applied to the row created by the winner. Rows
+   * are never removed, so once a row is known to exist, writing changes to it takes a single update.
+   *
+   * @param em
+   *          the entity manager of the transaction to write the changes in
+   * @param emf
+   *          the factory to create the entity managers for creating missing rows with
+   * @param existing
+   *          the rows known to exist
+   */
+  void apply(EntityManager em, EntityManagerFactory emf, ExistingRows existing) {
+    for (Map.Entry<Pair<String, Date>, long[]> entry : days.entrySet()) {
+      final long[] values = entry.getValue();
+      if (values[0] == 0 && values[1] == 0 && values[2] == 0)
+        continue;
+      final String mediapackageId = entry.getKey().getLeft();
+      final Date day = entry.getKey().getRight();
+      final DailyViewsEntityId id = new DailyViewsEntityId(mediapackageId, day);
+      if (!existing.contains(id)
+              && createIfMissing(emf, DailyViewsEntity.class, id, new DailyViewsEntity(mediapackageId, day, 0, 0, 0)))
+        existing.add(id);
+    }
+    for (Map.Entry<Pair<String, Integer>, Integer> entry : histogram.entrySet()) {
+      if (entry.getValue() == 0)
+        continue;
+      final String mediapackageId = entry.getKey().getLeft();
+      final int position = entry.getKey().getRight();
+      final FootprintHistogramEntityId id = new FootprintHistogramEntityId(mediapackageId, position);
+      if (!existing.contains(id) && createIfMissing(emf, FootprintHistogramEntity.class, id,
+              new FootprintHistogramEntity(mediapackageId, position, 0)))
+        existing.add(id);
+    }
+
+    for (Map.Entry<Pair<String, Date>, long[]> entry : days.entrySet()) {
+      final long[] values = entry.getValue();
+      if (values[0] == 0 && values[1] == 0 && values[2] == 0)
+        continue;
+      final Query q = em.createNamedQuery("DailyViews.increment");
+      q.setParameter("mediapackageId", entry.getKey().getLeft());
+      q.setParameter("day", entry.getKey().getRight(), TemporalType.DATE);
+      q.setParameter("views", values[0]);
+      q.setParameter("firstViews", values[1]);
+      q.setParameter("played", values[2]);
+      if (q.executeUpdate() == 0) {
+        existing.remove(new DailyViewsEntityId(entry.getKey().getLeft(), entry.getKey().getRight()));
+        throw new IllegalStateException("Daily views of " + entry.getKey() + " vanished while being updated");
+      }
+    }
+    for (Map.Entry<Pair<String, Integer>, Integer> entry : histogram.entrySet()) {
+      if (entry.getValue() == 0)
+        continue;
+      final Query q = em.createNamedQuery("FootprintHistogram.increment");
+      q.setParameter("mediapackageId", entry.getKey().getLeft());
+      q.setParameter("position", entry.getKey().getRight());
+      q.setParameter("delta", entry.getValue());
+      if (q.executeUpdate() == 0) {
+        existing.remove(new FootprintHistogramEntityId(entry.getKey().getLeft(), entry.getKey().getRight()));
+        throw new IllegalStateException("Footprint histogram of " + entry.getKey() + " vanished while being updated");
+      }
+    }
+    days.clear();
+    histogram.clear();
+  }
+
+  /**
+   * Creates an empty statistics row unless it already exists. A row created concurrently by another transaction makes
+   * the insert fail, which is ignored since the row is there either way.
+   *
+   * @return whether the row is known to exist now
+   */
+  private static <A> boolean createIfMissing(EntityManagerFactory emf, Class<A> entityClass, Object id, A empty) {
+    EntityManager em = null;
+    EntityTransaction tx = null;
+    try {
+      em = emf.createEntityManager();
+      if (em.find(entityClass, id) != null)
+        return true;
+      tx = em.getTransaction();
+      tx.begin();
+      em.persist(empty);
+      tx.commit();
+      return true;
+    } catch (PersistenceException e) {
+      if (tx != null && tx.isActive()) {
+        tx.rollback();
+      }
+      // the row has been created by a concurrent transaction, if not the following increment will fail
+      logger.debug("Unable to create statistics row {}: {}", id, e.getMessage());
+      return false;
+    } finally {
+      if (em != null && em.isOpen()) {
+        em.close();
+      }
+    }
+  }
+
+  /**
+   * The identifiers of the statistics rows known to exist. The number of remembered rows is bounded, rows which have
+   * not been written for a long time are forgotten first.
+   */
+  static final class ExistingRows {
+
+    /** Default maximum number of remembered rows */
+    static final int DEFAULT_CAPACITY = 100000;
+
+    private final Set<Object> ids;
+
+    ExistingRows(final int capacity) {
+      ids = Collections.newSetFromMap(Collections.synchronizedMap(new LinkedHashMap<Object, Boolean>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Object, Boolean> eldest) {
+          return size() > capacity;
+        }
+      }));
+    }
+
+    boolean contains(Object id) {
+      return ids.contains(id);
+    }
+
+    void add(Object id) {
+      ids.add(id);
+    }
+
+    void remove(Object id) {
+      ids.remove(id);
+    }
+  }
+}
@@ -0,0 +1,109 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+package org.opencastproject.usertracking.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.opencastproject.usertracking.api.UserAction;
+import org.opencastproject.usertracking.api.UserSession;
+import org.opencastproject.usertracking.api.UserTrackingCapacityException;
+
+import org.junit.Test;
+
+import java.util.List;
+
+public class FootprintAggregatorTest {
+
+  @Test
+  public void testMerging() throws Exception {
+    FootprintAggregator aggregator = new FootprintAggregator(10, 0);
+    assertNull(aggregator.add(footprint("s1", "mp", 0, 10)));
+    aggregator.add(footprint("s1", "mp", 10, 20));
+    aggregator.add(footprint("s2", "mp", 0, 5));
+    // not contiguous
+    aggregator.add(footprint("s1", "mp", 50, 60));
+    assertEquals(3, aggregator.size());
+
+    List<FootprintAggregator.Segment> segments = aggregator.beginFlush();
+    assertEquals(3, segments.size());
+    assertEquals(0, segments.get(0).getInpoint());
+    assertEquals(20, segments.get(0).getOutpoint());
+
+    long id = 1;
+    Long current = null;
+    for (FootprintAggregator.Segment segment : segments) {
+      segment.setId(id++);
+      if (segment.getInpoint() == 50)
+        current = segment.getId();
+    }
+    aggregator.completeFlush(segments, true);
+    assertFalse(aggregator.hasPendingChanges());
+
+    // extending a written segment reports its ID
+    assertEquals(current, aggregator.add(footprint("s1", "mp", 60, 70)));
+    assertTrue(aggregator.hasPendingChanges());
+  }
+
+  @Test
+  public void testFailedFlush() throws Exception {
+    FootprintAggregator aggregator = new FootprintAggregator(10, 0);
+    aggregator.add(footprint("s1", "mp", 0, 10));
+    aggregator.add(footprint("s1", "mp", 50, 60));
+    List<FootprintAggregator.Segment> segments = aggregator.beginFlush();
+    assertEquals(2, segments.size());
+    aggregator.completeFlush(segments, false);
+    assertEquals(2, aggregator.beginFlush().size());
+  }
+
+  @Test
+  public void testCapacity() throws Exception {
+    FootprintAggregator aggregator = new FootprintAggregator(2, 0);
+    aggregator.add(footprint("s1", "mp", 0, 10));
+    aggregator.add(footprint("s2", "mp", 0, 10));
+    // contiguous footprints are still merged
+    aggregator.add(footprint("s1", "mp", 10, 20));
+    try {
+      aggregator.add(footprint("s3", "mp", 0, 10));
+      fail("Footprint exceeding the capacity must be dropped");
+    } catch (UserTrackingCapacityException e) {
+      assertEquals(1, aggregator.takeDropped());
+      // the count is reset once it has been taken
+      assertEquals(0, aggregator.takeDropped());
+    }
+  }
+
+  private static UserAction footprint(String sessionId, String mediapackageId, int in, int out) {
+    UserSession session = new UserSessionImpl();
+    session.setSessionId(sessionId);
+    UserAction a = new UserActionImpl();
+    a.setSession(session);
+    a.setMediapackageId(mediapackageId);
+    a.setInpoint(in);
+    a.setOutpoint(out);
+    return a;
+  }
+}
@@ -28,6 +28,7 @@ import org.opencastproject.usertracking.api.Report;
 import org.opencastproject.usertracking.api.UserAction;
 import org.opencastproject.usertracking.api.UserActionList;
 import org.opencastproject.usertracking.api.UserSession;
+import org.opencastproject.usertracking.api.UserTrackingCapacityException;
 
 import org.apache.commons.lang3.StringUtils;
 import org.junit.Assert;
@@ -178,6 +179,49 @@ public class UserTrackingServiceImplTest {
     verifyFootprintViewsAndPositions(list, 2, 30, 0);
   }
 
+  @Test
+  public void testAggregatedFootprints() throws Exception {
+    service.configureFootprintAggregation(60, 100);
+    UserSession session = createUserSession("session123", "me", "127.0.0.1");
+    service.addUserFootprint(createUserAction(UserTrackingServiceImpl.FOOTPRINT_KEY, "mp", 10, 20, new Date(), session), session);
+    service.addUserFootprint(createUserAction(UserTrackingServiceImpl.FOOTPRINT_KEY, "mp", 20, 30, new Date(), session), session);
+
+    // nothing has been written yet
+    Assert.assertEquals(0, service.getViews("mp"));
+
+    service.flushFootprints();
+    Assert.assertEquals(1, service.getViews("mp"));
+    Assert.assertEquals(1, service.getUserActionsByType(UserTrackingServiceImpl.FOOTPRINT_KEY, 0, 10).getTotal());
+    FootprintList list = getFootprintList("mp", null, 3);
+    verifyFootprintViewsAndPositions(list, 1, 10, 1);
+    verifyFootprintViewsAndPositions(list, 2, 30, 0);
+
+    // continuing the segment after it has been written updates the existing entry
+    UserAction continued = service.addUserFootprint(
+            createUserAction(UserTrackingServiceImpl.FOOTPRINT_KEY, "mp", 30, 40, new Date(), session), session);
+    Assert.assertNotNull(continued.getId());
+    // a jump starts a new segment
+    service.addUserFootprint(createUserAction(UserTrackingServiceImpl.FOOTPRINT_KEY, "mp", 100, 110, new Date(), session), session);
+
+    // disabling the aggregation writes the remaining footprints
+    service.configureFootprintAggregation(0, 0);
+    Assert.assertEquals(2, service.getUserActionsByType(UserTrackingServiceImpl.FOOTPRINT_KEY, 0, 10).getTotal());
+    list = getFootprintList("mp", null, 5);
+    verifyFootprintViewsAndPositions(list, 2, 40, 0);
+    verifyFootprintViewsAndPositions(list, 3, 100, 1);
+
+    // footprints exceeding the capacity are rejected
+    service.configureFootprintAggregation(60, 1);
+    service.addUserFootprint(createUserAction(UserTrackingServiceImpl.FOOTPRINT_KEY, "mp", 0, 10, new Date(), session), session);
+    UserSession other = createUserSession("session456", "someone else", "127.0.0.1");
+    try {
+      service.addUserFootprint(createUserAction(UserTrackingServiceImpl.FOOTPRINT_KEY, "mp", 0, 10, new Date(), other), other);
+      Assert.fail("Footprint exceeding the capacity must be rejected");
+    } catch (UserTrackingCapacityException e) {
+      // expected
+    }
+  }
+
   /**
    * Tests basic user action lists and reports
    * @throws Exception
@@ -895,6 +939,44 @@ public class UserTrackingServiceImplTest {
     Assert.assertEquals(1, rep.getViews());
   }
 
+  /**
+   * Tests that the pre-aggregated statistics count sessions active on several days once overall and once per day
+   * @throws Exception
+   */
+  @Test
+  public void testViewStatistics() throws Exception {
+    DateFormat df = new SimpleDateFormat("yyyyMMdd");
+    Calendar cal = Calendar.getInstance();
+    Date today = cal.getTime();
+    cal.add(Calendar.DAY_OF_YEAR, -1);
+    Date yesterday = cal.getTime();
+
+    createAndVerifyUserAction(UserTrackingServiceImpl.FOOTPRINT_KEY, "session1", "mp", "me", "127.0.0.1", 0, 10, yesterday);
+    createAndVerifyUserAction("arbitraryType", "session1", "mp", "me", "127.0.0.1", 10, 10, today);
+    createAndVerifyUserAction(UserTrackingServiceImpl.FOOTPRINT_KEY, "session1", "mp", "me", "127.0.0.1", 30, 40, today);
+    // continuing a footprint extends the existing one
+    createAndVerifyUserAction(UserTrackingServiceImpl.FOOTPRINT_KEY, "session1", "mp", "me", "127.0.0.1", 40, 45, today);
+    Assert.assertEquals(1, service.getViews("mp"));
+
+    Report rep = service.getReport(0, 10);
+    Assert.assertEquals(1, rep.getViews());
+    Assert.assertEquals(25, rep.getPlayed());
+
+    rep = service.getReport(df.format(yesterday), df.format(today), 0, 10);
+    Assert.assertEquals(2, rep.getViews());
+    Assert.assertEquals(25, rep.getPlayed());
+
+    rep = service.getReport(df.format(today), df.format(today), 0, 10);
+    Assert.assertEquals(1, rep.getViews());
+    Assert.assertEquals(15, rep.getPlayed());
+
+    FootprintList list = getFootprintList("mp", null, 4);
+    verifyFootprintViewsAndPositions(list, 0, 0, 1);
+    verifyFootprintViewsAndPositions(list, 1, 10, 0);
+    verifyFootprintViewsAndPositions(list, 2, 30, 1);
+    verifyFootprintViewsAndPositions(list, 3, 45, 0);
+  }
+
   /**
    * Tests report generation with date and time restrictions
    * @throws Exception
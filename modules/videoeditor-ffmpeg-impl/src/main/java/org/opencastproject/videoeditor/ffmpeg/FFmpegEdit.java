@@ -26,17 +26,22 @@ import org.opencastproject.util.IoSupport;
 import org.opencastproject.videoeditor.impl.VideoClip;
 import org.opencastproject.videoeditor.impl.VideoEditorProperties;
 
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.osgi.framework.BundleContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
 import java.io.InputStreamReader;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
 import java.util.Properties;
@@ -117,6 +122,84 @@ public class FFmpegEdit {
     return run(cmd);
   }
 
+  /**
+   * Processes the edits of a single source file segment by segment. Each clip is encoded into its own segment, taking
+   * segments which have been encoded before from the cache, and the segments are then concatenated without re-encoding.
+   * Moving a single cut point therefore only causes the affected segments to be encoded again.
+   *
+   * @param inputfile
+   *          the source file
+   * @param sourceChecksum
+   *          the checksum of the source file
+   * @param dest
+   *          the output file
+   * @param outputSize
+   *          the output resolution, see {@link #makeEdits(List, String, String, List, boolean, boolean)}
+   * @param cleanclips
+   *          the clips to keep
+   * @param hasAudio
+   *          whether the source has an audio stream
+   * @param hasVideo
+   *          whether the source has a video stream
+   * @param cache
+   *          the segment cache
+   * @return the error message, or <code>null</code> if processing succeeded
+   */
+  public String processEdits(String inputfile, String sourceChecksum, String dest, String outputSize,
+          List<VideoClip> cleanclips, boolean hasAudio, boolean hasVideo, SegmentCache cache) throws Exception {
+    final String profile = StringUtils.join(Arrays.asList(ffmpegProperties, ffmpegScaleFilter, videoCodec, audioCodec,
+            outputSize, vfade, afade, hasAudio, hasVideo), "|");
+
+    cache.cleanup();
+    cache.beginUse();
+    try {
+      return processCachedEdits(inputfile, sourceChecksum, dest, outputSize, cleanclips, hasAudio, hasVideo, cache,
+              profile);
+    } finally {
+      cache.endUse();
+    }
+  }
+
+  /* Encodes the missing segments and concatenates all of them, while the segments are marked as in use */
+  private String processCachedEdits(String inputfile, String sourceChecksum, String dest, String outputSize,
+          List<VideoClip> cleanclips, boolean hasAudio, boolean hasVideo, SegmentCache cache, String profile)
+          throws Exception {
+    final File destFile = new File(dest);
+    final String extension = "." + FilenameUtils.getExtension(dest);
+    List<String> concatList = new ArrayList<String>();
+    for (VideoClip clip : cleanclips) {
+      File segment = cache.getSegment(sourceChecksum, clip.getStart(), clip.getEnd(), profile, extension);
+      if (segment.isFile() && cache.touch(segment)) {
+        logger.debug("Reusing cached segment {} for clip {}-{}", segment, clip.getStart(), clip.getEnd());
+      } else {
+        File encoded = new File(destFile.getParentFile(), segment.getName());
+        List<String> cmd = makeEdits(Collections.singletonList(inputfile), encoded.getAbsolutePath(), outputSize,
+                Collections.singletonList(new VideoClip(0, clip.getStart(), clip.getEnd())), hasAudio, hasVideo);
+        String error = run(cmd);
+        if (error != null)
+          return error;
+        try {
+          cache.put(encoded, segment);
+        } catch (IOException e) {
+          // Another job may have cached the same segment in the meantime
+          if (!segment.isFile())
+            throw e;
+          FileUtils.deleteQuietly(encoded);
+        }
+      }
+      concatList.add("file '" + segment.getAbsolutePath().replace("'", "'\\''") + "'");
+    }
+
+    File listFile = new File(destFile.getParentFile(), destFile.getName() + ".txt");
+    FileUtils.writeLines(listFile, "UTF-8", concatList);
+    try {
+      return run(new ArrayList<String>(Arrays.asList("-y", "-f", "concat", "-safe", "0", "-i",
+              listFile.getAbsolutePath(), "-c", "copy", dest)));
+    } finally {
+      FileUtils.deleteQuietly(listFile);
+    }
+  }
+
   /* Run the ffmpeg command with the params
    * Takes a list of words as params, the output is logged
    */
@@ -0,0 +1,177 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.videoeditor.ffmpeg;
+
+import org.opencastproject.util.Checksum;
+import org.opencastproject.util.ChecksumType;
+
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Directory of encoded editor segments, keyed by the source checksum, the in and out points and the encoding settings.
+ * <p>
+ * When an edit is saved again, usually only a single cut point moved. Segments which did not change are taken from this
+ * cache instead of being encoded again. Segments which were not used for the configured maximum age are removed.
+ * <p>
+ * Editing jobs hold the lock returned by {@link #beginUse()} while they look up, write and concatenate segments, and
+ * the cleanup is skipped while any job does so.
+ */
+public class SegmentCache {
+
+  private static final Logger logger = LoggerFactory.getLogger(SegmentCache.class);
+
+  /** Shared by all editing jobs of this node as the read lock, taken by the cleanup as the write lock */
+  private static final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  /** The directory holding the segments */
+  private final File directory;
+
+  /** Time in milliseconds after which unused segments are removed */
+  private final long maxAge;
+
+  /**
+   * Creates a segment cache.
+   *
+   * @param directory
+   *          the directory to store the segments in
+   * @param maxAge
+   *          time in milliseconds after which unused segments are removed
+   */
+  public SegmentCache(File directory, long maxAge) {
+    this.directory = directory;
+    this.maxAge = maxAge;
+  }
+
+  /**
+   * Returns the file a segment is cached in. The file does not exist if the segment has not been encoded before.
+   *
+   * @param sourceChecksum
+   *          the checksum of the source file
+   * @param start
+   *          the in-point in seconds
+   * @param end
+   *          the out-point in seconds
+   * @param profile
+   *          a description of all settings the segment is encoded with
+   * @param extension
+   *          the file extension, including the dot
+   * @return the segment file
+   * @throws IOException
+   *           if the cache key cannot be created
+   */
+  public File getSegment(String sourceChecksum, double start, double end, String profile, String extension)
+          throws IOException {
+    final DecimalFormat f = new DecimalFormat("0.00", new DecimalFormatSymbols(Locale.US));
+    final String key = sourceChecksum + ";" + f.format(start) + ";" + f.format(end) + ";" + profile;
+    return new File(directory, Checksum.createFor(ChecksumType.DEFAULT_TYPE, key).getValue() + extension);
+  }
+
+  /**
+   * Marks the segments as in use until {@link #endUse()} is called, so they are not removed by a cleanup.
+   */
+  public void beginUse() {
+    lock.readLock().lock();
+  }
+
+  /**
+   * Releases the segments marked by {@link #beginUse()}.
+   */
+  public void endUse() {
+    lock.readLock().unlock();
+  }
+
+  /**
+   * Marks a segment as used, so it is kept for another full maximum age.
+   *
+   * @param segment
+   *          the segment file
+   * @return <code>false</code> if the segment does not exist (anymore) and has to be encoded
+   */
+  public boolean touch(File segment) {
+    if (segment.setLastModified(System.currentTimeMillis()))
+      return true;
+    logger.debug("Unable to update modification time of {}", segment);
+    return false;
+  }
+
+  /**
+   * Stores a freshly encoded segment in the cache.
+   *
+   * @param encoded
+   *          the encoded file, which is moved into the cache
+   * @param segment
+   *          the segment file as returned by {@link #getSegment(String, double, double, String, String)}
+   * @throws IOException
+   *           if the file cannot be moved
+   */
+  public void put(File encoded, File segment) throws IOException {
+    FileUtils.forceMkdir(directory);
+    FileUtils.deleteQuietly(segment);
+    FileUtils.moveFile(encoded, segment);
+  }
+
+  /**
+   * Removes segments which have not been used within the maximum age, unless segments are in use on this node.
+   * <p>
+   * Segments are renamed before they are deleted, so a segment used by another node sharing the workspace in the
+   * meantime is restored instead.
+   */
+  public void cleanup() {
+    if (!lock.writeLock().tryLock()) {
+      logger.debug("Editor segments are in use, skipping cleanup");
+      return;
+    }
+    try {
+      final File[] segments = directory.listFiles();
+      if (segments == null)
+        return;
+      final long threshold = System.currentTimeMillis() - maxAge;
+      for (File segment : segments) {
+        if (segment.getName().startsWith(".") || segment.lastModified() >= threshold)
+          continue;
+        final File removed = new File(directory, "." + segment.getName());
+        if (!segment.renameTo(removed))
+          continue;
+        if (removed.lastModified() >= threshold) {
+          if (!segment.exists() && !removed.renameTo(segment))
+            logger.debug("Unable to restore editor segment {}", segment);
+          continue;
+        }
+        if (FileUtils.deleteQuietly(removed))
+          logger.debug("Removed unused editor segment {}", segment);
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+}
@@ -41,4 +41,10 @@ public interface VideoEditorProperties {
   String VIDEO_FADE = "video.fade";
   String DEFAULT_EXTENSION = ".mp4";
 
+  /** Whether to encode edits segment by segment and reuse unchanged segments */
+  String SEGMENT_CACHE = "segment.cache";
+
+  /** Hours after which unused cached segments are removed */
+  String SEGMENT_CACHE_MAX_AGE = "segment.cache.max.age";
+
 }
@@ -50,6 +50,7 @@ import org.opencastproject.util.NotFoundException;
 import org.opencastproject.videoeditor.api.ProcessFailedException;
 import org.opencastproject.videoeditor.api.VideoEditorService;
 import org.opencastproject.videoeditor.ffmpeg.FFmpegEdit;
+import org.opencastproject.videoeditor.ffmpeg.SegmentCache;
 import org.opencastproject.workspace.api.Workspace;
 
 import org.apache.commons.io.FileUtils;
@@ -74,6 +75,7 @@ import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.TimeUnit;
 
 import javax.xml.bind.JAXBException;
 
@@ -95,6 +97,8 @@ public class VideoEditorServiceImpl extends AbstractJobProducer implements Video
   private static final String JOB_TYPE = "org.opencastproject.videoeditor";
   private static final String COLLECTION_ID = "videoeditor";
   private static final String SINK_FLAVOR_SUBTYPE = "trimmed";
+  private static final String SEGMENT_CACHE_DIRECTORY = "editor-segments";
+  private static final long DEFAULT_SEGMENT_CACHE_MAX_AGE = 24;
 
   private enum Operation {
     PROCESS_SMIL
@@ -278,8 +282,15 @@ public class VideoEditorServiceImpl extends AbstractJobProducer implements Video
       // TODO: Each clips could have a region id, relative to the root-layout
       // Then each clip is zoomed/panned/padded to WxH befor concatenation
       FFmpegEdit ffmpeg = new FFmpegEdit(properties);
-      error = ffmpeg.processEdits(inputfile, outputPath.getAbsolutePath(), outputResolution, cleanclips,
-              sourceTrack.hasAudio(), sourceTrack.hasVideo());
+      if (inputfile.size() == 1 && sourceTrack.getChecksum() != null && isSegmentCacheEnabled()) {
+        // Only segments from a single source can be concatenated without re-encoding
+        error = ffmpeg.processEdits(sourceFile.getAbsolutePath(), sourceTrack.getChecksum().toString(),
+                outputPath.getAbsolutePath(), outputResolution, cleanclips, sourceTrack.hasAudio(),
+                sourceTrack.hasVideo(), getSegmentCache());
+      } else {
+        error = ffmpeg.processEdits(inputfile, outputPath.getAbsolutePath(), outputResolution, cleanclips,
+                sourceTrack.hasAudio(), sourceTrack.hasVideo());
+      }
 
       if (error != null) {
         FileUtils.deleteQuietly(tempDirectory);
@@ -323,6 +334,25 @@ public class VideoEditorServiceImpl extends AbstractJobProducer implements Video
     }
   }
 
+  /** Returns whether edits are encoded segment by segment, reusing unchanged segments. */
+  private boolean isSegmentCacheEnabled() {
+    return Boolean.parseBoolean(properties.getProperty(VideoEditorProperties.SEGMENT_CACHE, "false"));
+  }
+
+  /** Returns the cache of encoded segments on this node. */
+  private SegmentCache getSegmentCache() {
+    long maxAge = DEFAULT_SEGMENT_CACHE_MAX_AGE;
+    try {
+      maxAge = Long.parseLong(properties.getProperty(VideoEditorProperties.SEGMENT_CACHE_MAX_AGE,
+              Long.toString(DEFAULT_SEGMENT_CACHE_MAX_AGE)).trim());
+    } catch (NumberFormatException e) {
+      logger.error("Unable to parse segment cache max age. Falling back to default value {}.",
+              DEFAULT_SEGMENT_CACHE_MAX_AGE);
+    }
+    return new SegmentCache(new File(workspace.rootDirectory(), SEGMENT_CACHE_DIRECTORY),
+            TimeUnit.HOURS.toMillis(maxAge));
+  }
+
   /*
    * Inspect the output file
    */
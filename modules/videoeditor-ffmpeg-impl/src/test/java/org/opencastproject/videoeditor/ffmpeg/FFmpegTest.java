@@ -25,6 +25,7 @@ import org.opencastproject.util.IoSupport;
 import org.opencastproject.util.StreamHelper;
 import org.opencastproject.videoeditor.impl.VideoClip;
 
+import org.apache.commons.io.FileUtils;
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
@@ -116,6 +117,35 @@ public class FFmpegTest {
 
   }
 
+  /**
+   * Test if segments of an edit are cached and reused when a cut point moves
+   * Skip if no ffmpeg
+   */
+  @Test
+  public void ffmpegEditSegmentCacheTest() throws Exception {
+
+    if (!ffmpegInstalled) {
+      return;
+    }
+    File cacheDir = new File("target/testoutput/segments");
+    FileUtils.deleteQuietly(cacheDir);
+    SegmentCache cache = new SegmentCache(cacheDir, 60000L);
+    ArrayList<VideoClip> clips = new ArrayList<VideoClip>();
+    clips.add(new VideoClip(0, 0.0, 10.0));
+    clips.add(new VideoClip(0, 25.0, 44.0));
+    FFmpegEdit fmp = new FFmpegEdit();
+    Assert.assertNull(fmp.processEdits(inputFilePath, "checksum", outputFilePath, null, clips, true, true, cache));
+    Assert.assertTrue("Edited File is nonzero", new File(outputFilePath).length() > 0);
+    Assert.assertEquals(2, cacheDir.listFiles().length);
+
+    // Move the second cut point, only one more segment is encoded
+    clips.set(1, new VideoClip(0, 30.0, 44.0));
+    Assert.assertNull(fmp.processEdits(inputFilePath, "checksum", outputFilePath, null, clips, true, true, cache));
+    Assert.assertTrue("Edited File is nonzero", new File(outputFilePath).length() > 0);
+    Assert.assertEquals(3, cacheDir.listFiles().length);
+    logger.info("Ffmpeg concat 2 cached clips from 1 file OK!");
+  }
+
   /**
    * Test if ffmpeg can split and join 2 files of the same size and frame rate
    * Different sizes will fail - need to add scale=WxH